@@ -20,13 +20,24 @@ public class AzureConfig {
     public static final int CONNECT_TIMEOUT = 30;
     public static final int READ_TIMEOUT = 30;
     public static final int WRITE_TIMEOUT = 30;
+    // Whole-call timeout and retries on 429/5xx/network errors for vision uploads (see VisionClient)
+    public static final long VISION_CALL_TIMEOUT_MS = 45000;
+    public static final int VISION_MAX_RETRIES = 2;
 
     // --- Read API (Advanced OCR) Configuration ---
     public static final class ReadAPI {
         // Removed LANGUAGE_HINT as we are enabling auto-detection by removing the language parameter
-        public static final int POLLING_INITIAL_DELAY_MS = 3000;
+        // Used for the first poll until completion times of real jobs are known
+        public static final int POLLING_INITIAL_DELAY_MS = 500;
+        public static final int POLLING_MIN_DELAY_MS = 250;
+        // Upper bound of the backed-off interval between polls
         public static final int POLLING_INTERVAL_MS = 2000;
-        public static final int MAX_POLLING_ATTEMPTS = 15;
+        public static final double POLLING_BACKOFF_FACTOR = 1.5;
+        public static final long POLLING_TIMEOUT_MS = 30000;
+        public static final int MAX_POLLING_ATTEMPTS = 40;
+        // Read 3.2 input limits (free tier): 4 MB, 50 to 10000 pixels per side
+        public static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+        public static final int MAX_IMAGE_DIMENSION = 10000;
 
         public static String getReadAnalyzeUrl() {
             // Omit the language parameter to enable auto-detection by Azure Read API
@@ -39,6 +50,7 @@ public class AzureConfig {
         public static final String API_VERSION = "3.2"; 
         public static final String FEATURES = "Description,Objects"; 
         public static final String LANGUAGE = "en"; 
+        public static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
 
         public static String getAnalyzeSceneUrl() {
             return AZURE_VISION_ENDPOINT + "/vision/v" + API_VERSION + "/analyze?visualFeatures=" + FEATURES + "&language=" + LANGUAGE;
@@ -50,12 +62,156 @@ public class AzureConfig {
         public static final String API_VERSION = "3.2"; 
         public static final String FEATURES = "Objects,Color,Tags";
         public static final String LANGUAGE = "en"; 
+        public static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
 
         public static String getAnalyzeObjectUrl() {
             return AZURE_VISION_ENDPOINT + "/vision/v" + API_VERSION + "/analyze?visualFeatures=" + FEATURES + "&language=" + LANGUAGE;
         }
     }
 
+    // --- Combined Image Analysis for scene and object detail (one upload serves both) ---
+    public static final class CombinedAnalysis {
+        // When false, scene and object detail each upload with their own feature set
+        public static final boolean ENABLED = true;
+        public static final String API_VERSION = "3.2";
+        public static final String FEATURES = "Description,Objects,Color,Tags";
+        public static final String LANGUAGE = "en";
+        public static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+        // How long a result may answer a follow-up scene/object question without a new capture
+        public static final long RESULT_MAX_AGE_MS = 15000;
+
+        public static String getCombinedAnalyzeUrl() {
+            return AZURE_VISION_ENDPOINT + "/vision/v" + API_VERSION + "/analyze?visualFeatures=" + FEATURES + "&language=" + LANGUAGE;
+        }
+    }
+
+    // --- Perceptual-hash cache of image analysis results for repeated captures (see CaptureResultCache) ---
+    public static final class ResultCache {
+        public static final boolean ENABLED = true;
+        public static final boolean PERSIST_TO_DISK = true;
+        public static final int MAX_MEMORY_ENTRIES = 32;
+        public static final int MAX_DISK_ENTRIES = 200;
+        // Read results are never cached; scenes change faster than held objects
+        public static final long SCENE_MAX_AGE_MS = 30 * 1000;
+        public static final long OBJECTS_MAX_AGE_MS = 60 * 1000;
+        // Out of 64 bits
+        public static final int MAX_HAMMING_DISTANCE = 8;
+    }
+
+    // --- Last OCR reading kept for "repeat" / "next line" navigation (see OcrReadingStore) ---
+    public static final class ReadingHistory {
+        // Read text can be private; it is forgotten after this long
+        public static final long MAX_AGE_MS = 2 * 60 * 60 * 1000;
+        public static final boolean PERSIST_TO_DISK = true;
+    }
+
+    // --- Multi-frame voting for currency and short text (see BurstRecognizer) ---
+    public static final class Burst {
+        public static final boolean CURRENCY_ENABLED = true;
+        public static final int MAX_FRAMES = 6;
+        public static final int MAX_IN_FLIGHT = 2;
+        public static final int MIN_AGREEING_FRAMES = 2;
+        // Share of the cast confidence the agreed answer must hold
+        public static final float MIN_SHARE = 0.6f;
+        // Spacing between frames, so they differ in blur and glare
+        public static final long FRAME_INTERVAL_MS = 250;
+        public static final long TIMEOUT_MS = 15000;
+    }
+
+    // --- On-device blur and exposure check before upload (see FrameQualityEstimator) ---
+    public static final class FrameQuality {
+        public static final boolean ENABLED = true;
+        // Variance of the Laplacian of the 2x2 binned luma; printed text in focus scores in the thousands
+        public static final float MIN_LAPLACIAN_VARIANCE = 300f;
+        // Share of pixels darker than FrameQualityEstimator.DARK_LEVEL / brighter than BRIGHT_LEVEL
+        public static final float MAX_DARK_FRACTION = 0.6f;
+        public static final float MAX_BRIGHT_FRACTION = 0.4f;
+        // How often the preview stream is checked, and how old a check may be when the user taps
+        public static final long CHECK_INTERVAL_MS = 200;
+        public static final long MAX_CHECK_AGE_MS = 1000;
+    }
+
+    // --- Continuous live scan (see LiveScanner and LiveScanGate) ---
+    public static final class LiveScan {
+        // Frames looked at per second; the camera delivers more and the rest are dropped unread
+        public static final float MAX_FRAMES_PER_SECOND = 2f;
+        public static final int MAX_IN_FLIGHT = 1;
+        // dHash bits that may change between consecutive frames for the view to count as steady
+        public static final int MAX_MOTION_BITS = 8;
+        // dHash bits that must change since the last submitted frame for a new request
+        public static final int MIN_SCENE_CHANGE_BITS = 10;
+        // The scan stops by itself after this long, bounding battery and quota use
+        public static final long MAX_DURATION_MS = 2 * 60 * 1000;
+    }
+
+    public static final class CameraSession {
+        // The camera stays open this long after a capture, so a follow-up command skips opening it
+        public static final long IDLE_TIMEOUT_MS = 30 * 1000;
+    }
+
+    public static final class PlaceCache {
+        public static final boolean ENABLED = true;
+        public static final boolean PERSIST_TO_DISK = true;
+        public static final int MAX_ENTRIES = 500;
+        // The address changes from one building to the next
+        public static final double ADDRESS_RADIUS_METERS = 30;
+        public static final long ADDRESS_FRESH_MS = 24 * 60 * 60 * 1000L;
+        public static final long ADDRESS_MAX_AGE_MS = 30 * 24 * 60 * 60 * 1000L;
+        // A search covers SEARCH_RADIUS_METERS, so its nearest results hold for a short walk
+        public static final double POI_RADIUS_METERS = 150;
+        public static final long POI_FRESH_MS = 24 * 60 * 60 * 1000L;
+        public static final long POI_MAX_AGE_MS = 14 * 24 * 60 * 60 * 1000L;
+    }
+
+    public static final class PlacePrefetch {
+        public static final boolean ENABLED = true;
+        // About 150 m cells: a search from the center covers the cell within PlaceCache.POI_RADIUS_METERS
+        public static final int AREA_PRECISION = 7;
+        public static final int MIN_VISITS = 3;
+        // Areas prefetched per run, two searches each
+        public static final int MAX_AREAS = 20;
+        public static final int MAX_TRACKED_AREAS = 200;
+        public static final long MAX_IDLE_MS = 30 * 24 * 60 * 60 * 1000L;
+        // Shorter than PlaceCache.POI_FRESH_MS, so a nightly charge keeps the commute fresh
+        public static final long PERIOD_MS = 12 * 60 * 60 * 1000L;
+        public static final long CALL_TIMEOUT_MS = 15 * 1000;
+    }
+
+    public static final class LocationFix {
+        // A last known fix this recent and accurate answers at once
+        public static final long GOOD_AGE_MS = 30 * 1000;
+        public static final float GOOD_ACCURACY_METERS = 25f;
+        // Otherwise the best fix so far is used when the fresh one arrives or this budget runs out
+        public static final long TIMEOUT_MS = 5 * 1000;
+        // Fixes worse than this are never used; the POI search covers Maps.SEARCH_RADIUS_METERS
+        public static final long MAX_AGE_MS = 10 * 60 * 1000;
+        public static final float MAX_ACCURACY_METERS = 200f;
+        // Walking pace, to weigh the age of a fix against its accuracy
+        public static final float ASSUMED_SPEED_MPS = 1.4f;
+    }
+
+    public static final class Navigation {
+        public static final double ARRIVAL_METERS = 15;
+        // Fixes less accurate than this are ignored
+        public static final float MAX_ACCURACY_METERS = 40f;
+        // Below this speed the direction of travel is noise; directions are given by compass
+        public static final float MIN_HEADING_SPEED_MPS = 0.7f;
+        public static final long MIN_ANNOUNCE_INTERVAL_MS = 8 * 1000;
+        // Progress is announced every MIN_PROGRESS_METERS or PROGRESS_FRACTION of the distance left, whichever is more
+        public static final double MIN_PROGRESS_METERS = 25;
+        public static final double PROGRESS_FRACTION = 0.25;
+        public static final double MOVING_AWAY_METERS = 30;
+        public static final double DIRECTION_CHANGE_DEGREES = 45;
+        // Fix interval: FIXES_PER_STEP fixes per progress step at the current speed, within the bounds
+        public static final float STILL_SPEED_MPS = 0.3f;
+        public static final long MIN_INTERVAL_MS = 2 * 1000;
+        public static final long MAX_INTERVAL_MS = 20 * 1000;
+        public static final int FIXES_PER_STEP = 3;
+        // Location updates are only re-requested when the interval changes by this factor
+        public static final float INTERVAL_CHANGE_FACTOR = 1.5f;
+        public static final long MAX_DURATION_MS = 30 * 60 * 1000;
+    }
+
     // Maps Configuration
     public static final class Maps {
         public static final String API_VERSION = "1.0";
@@ -87,7 +243,16 @@ public class AzureConfig {
         public static final String HI_LANG_CODE = "hi-IN";
         public static final String KN_VOICE_NAME = "kn-IN-SapnaNeural";
         public static final String KN_LANG_CODE = "kn-IN";
-        public static final String OUTPUT_FORMAT = "audio-16khz-128kbitrate-mono-mp3";
+        // Headerless PCM so playback can start on the first bytes received (see StreamingAudioPlayer)
+        public static final String OUTPUT_FORMAT = "raw-16khz-16bit-mono-pcm";
+        public static final int OUTPUT_SAMPLE_RATE_HZ = 16000;
+        // Long text is split into chunks that are synthesized while the previous one plays
+        public static final int FIRST_CHUNK_MAX_CHARS = 120;
+        public static final int CHUNK_MAX_CHARS = 400;
+        // Byte budget of the on-disk cache of synthesized audio (see TtsAudioCache)
+        public static final long AUDIO_CACHE_MAX_BYTES = 20L * 1024 * 1024;
+        // Parallel TTS requests used to pre-synthesize the prompt vocabulary at startup
+        public static final int WARMUP_MAX_CONCURRENCY = 2;
         public static final String DYNAMIC_SSML_TEMPLATE =
                 "<speak version='1.0' xml:lang='%s'>" +
                 "<voice name='%s'>%s</voice>" +
@@ -0,0 +1,315 @@
+package com.example.exp3;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Multi-frame Read for currency and short text: frames from the camera's analysis stream
+ * are sent to the Read API with at most a few calls in flight, each result becomes a vote
+ * in a {@link BurstVoter}, and the burst ends as soon as the frames agree. The burst's
+ * calls still running at that point are cancelled, so a clear view costs about as many
+ * calls as the consensus needs. One burst runs at a time; callbacks arrive on a background thread.
+ */
+public class BurstRecognizer {
+
+    private static final String TAG = "BurstRecognizer";
+
+    /** Turns one frame's Read response into a vote, or null to abstain. */
+    public interface VoteExtractor {
+        @Nullable
+        BurstVoter.Vote extract(String readResponseBody);
+    }
+
+    public interface BurstCallback {
+        void onConsensus(String answer, BurstStats stats);
+
+        /**
+         * Every frame was read without agreement; bestAnswer is the leading answer, if any.
+         */
+        void onNoConsensus(@Nullable String bestAnswer, BurstStats stats);
+    }
+
+    public static final class BurstStats {
+        public final long elapsedMs;
+        public final int apiCalls;
+        public final int frames;
+        public final int agreeingFrames;
+
+        BurstStats(long elapsedMs, int apiCalls, int frames, int agreeingFrames) {
+            this.elapsedMs = elapsedMs;
+            this.apiCalls = apiCalls;
+            this.frames = frames;
+            this.agreeingFrames = agreeingFrames;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d ms, %d calls, %d/%d frames agreeing",
+                    elapsedMs, apiCalls, agreeingFrames, frames);
+        }
+    }
+
+    private final class Burst {
+        final VoteExtractor extractor;
+        final BurstCallback callback;
+        final BurstVoter voter = new BurstVoter(minAgreeingFrames, minShare);
+        final ArrayDeque<CapturedImage> pending = new ArrayDeque<>();
+        final VisionClient.CallGroup group = new VisionClient.CallGroup();
+        final long startNanos = System.nanoTime();
+        int framesAccepted;
+        int inFlight;
+        int calls;
+        boolean done;
+
+        Burst(VoteExtractor extractor, BurstCallback callback) {
+            this.extractor = extractor;
+            this.callback = callback;
+        }
+    }
+
+    private final VisionClient visionClient;
+    private final int maxFrames;
+    private final int maxInFlight;
+    private final int minAgreeingFrames;
+    private final float minShare;
+    @Nullable
+    private Burst current;
+
+    private int bursts;
+    private int consensusBursts;
+    private int totalCalls;
+    private long totalConsensusMs;
+    private int consensusCalls;
+
+    public BurstRecognizer(VisionClient visionClient, int maxFrames, int maxInFlight, int minAgreeingFrames, float minShare) {
+        this.visionClient = visionClient;
+        this.maxFrames = maxFrames;
+        this.maxInFlight = maxInFlight;
+        this.minAgreeingFrames = minAgreeingFrames;
+        this.minShare = minShare;
+    }
+
+    /**
+     * Start a burst, abandoning any previous one without calling it back.
+     */
+    public synchronized void start(VoteExtractor extractor, BurstCallback callback) {
+        cancel();
+        current = new Burst(extractor, callback);
+        bursts++;
+    }
+
+    /**
+     * Offer a camera frame. Returns false once the burst has all the frames it needs (or has
+     * ended), so the caller can stop analyzing.
+     */
+    public synchronized boolean offerFrame(CapturedImage frame) {
+        Burst burst = current;
+        if (burst == null || burst.done || burst.framesAccepted >= maxFrames) {
+            return false;
+        }
+        burst.framesAccepted++;
+        if (burst.inFlight < maxInFlight) {
+            dispatch(burst, frame);
+        } else {
+            burst.pending.add(frame);
+        }
+        return burst.framesAccepted < maxFrames;
+    }
+
+    public synchronized boolean isRunning() {
+        return current != null && !current.done;
+    }
+
+    /**
+     * Drop the running burst and its calls without calling back.
+     */
+    public synchronized void cancel() {
+        if (current != null && !current.done) {
+            current.done = true;
+            totalCalls += current.calls;
+            visionClient.cancel(current.group);
+        }
+        current = null;
+    }
+
+    /**
+     * No more frames are coming (the camera closed or the burst ran out of time). The burst
+     * ends once the frames already accepted have been read.
+     */
+    public void endFrames() {
+        Runnable report;
+        synchronized (this) {
+            Burst burst = current;
+            if (burst == null || burst.done) {
+                return;
+            }
+            burst.framesAccepted = maxFrames;
+            if (burst.inFlight > 0 || !burst.pending.isEmpty()) {
+                return;
+            }
+            report = finish(burst, false);
+        }
+        report.run();
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US, "bursts=%d consensus=%d apiCalls=%d callsPerAnswer=%.1f avgTimeToAnswer=%d ms",
+                bursts, consensusBursts, totalCalls,
+                consensusBursts == 0 ? 0f : consensusCalls / (float) consensusBursts,
+                consensusBursts == 0 ? 0 : totalConsensusMs / consensusBursts);
+    }
+
+    /**
+     * Votes for the denomination of frames the recognizer is confident about, weighted by
+     * that confidence. A consensus is spoken as a sure answer, so a frame that is only
+     * possibly a note abstains.
+     */
+    public static VoteExtractor currencyVotes() {
+        return responseBody -> {
+            OcrDocument document = parseQuietly(responseBody);
+            if (document == null) {
+                return null;
+            }
+            CurrencyRecognizer.Result result = CurrencyRecognizer.recognize(document);
+            if (!result.isConfident()) {
+                return null;
+            }
+            String denomination = String.valueOf(result.denomination);
+            return new BurstVoter.Vote(denomination, result.confidence, denomination);
+        };
+    }
+
+    /**
+     * Votes for the text in reading order, keyed without case, punctuation or spacing so
+     * frames that differ only in those agree, weighted by mean word confidence.
+     */
+    public static VoteExtractor shortTextVotes() {
+        return responseBody -> {
+            OcrDocument document = parseQuietly(responseBody);
+            if (document == null) {
+                return null;
+            }
+            document = OcrLayoutEngine.arrange(document);
+            String text = document.getReadingText("\n").trim();
+            String key = textKey(text);
+            if (key.isEmpty()) {
+                return null;
+            }
+            float confidence = 0;
+            int lines = 0;
+            for (OcrDocument.Page page : document.getPages()) {
+                for (OcrDocument.Line line : page.lines) {
+                    confidence += line.meanConfidence();
+                    lines++;
+                }
+            }
+            return new BurstVoter.Vote(key, confidence / lines, text);
+        };
+    }
+
+    static String textKey(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK
+                    || Character.getType(c) == Character.COMBINING_SPACING_MARK) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    @Nullable
+    private static OcrDocument parseQuietly(String responseBody) {
+        try {
+            return ReadResultParser.parse(responseBody);
+        } catch (JSONException e) {
+            Log.w(TAG, "Unreadable burst frame result", e);
+            return null;
+        }
+    }
+
+    private void dispatch(final Burst burst, CapturedImage frame) {
+        burst.inFlight++;
+        burst.calls++;
+        visionClient.read(frame, burst.group, new VisionClient.ReadCallback() {
+            @Override
+            public void onSubmitted() {
+            }
+
+            @Override
+            public void onSuccess(String responseBody) {
+                onFrameRead(burst, burst.extractor.extract(responseBody));
+            }
+
+            @Override
+            public void onError(VisionClient.VisionError error) {
+                Log.w(TAG, "Burst frame failed: " + error);
+                onFrameRead(burst, null);
+            }
+        });
+    }
+
+    private void onFrameRead(Burst burst, @Nullable BurstVoter.Vote vote) {
+        Runnable report;
+        synchronized (this) {
+            if (burst != current || burst.done) {
+                return;
+            }
+            burst.inFlight--;
+            boolean consensus = burst.voter.add(vote);
+            if (!consensus && !burst.pending.isEmpty()) {
+                dispatch(burst, burst.pending.poll());
+                return;
+            }
+            if (!consensus && (burst.inFlight > 0 || burst.framesAccepted < maxFrames)) {
+                return;
+            }
+            report = finish(burst, consensus);
+        }
+        report.run();
+    }
+
+    /** Called with the lock held; returns the callback to run after releasing it. */
+    private Runnable finish(Burst burst, final boolean consensus) {
+        burst.done = true;
+        long elapsedMs = (System.nanoTime() - burst.startNanos) / 1_000_000;
+        final BurstStats stats = new BurstStats(elapsedMs, burst.calls, burst.voter.getFrameCount(),
+                burst.voter.getLeaderVotes());
+        totalCalls += burst.calls;
+        if (consensus) {
+            consensusBursts++;
+            consensusCalls += burst.calls;
+            totalConsensusMs += elapsedMs;
+            if (burst.inFlight > 0) {
+                // The answer is settled; the remaining frames would only cost time and quota
+                visionClient.cancel(burst.group);
+            }
+        }
+        burst.pending.clear();
+        final String answer = burst.voter.getLeaderAnswer();
+        final BurstCallback callback = burst.callback;
+        Log.d(TAG, (consensus ? "Consensus" : "No consensus") + " on \"" + answer + "\" after " + stats
+                + " (" + getStatsSummary() + ")");
+        return () -> {
+            if (consensus) {
+                callback.onConsensus(answer, stats);
+            } else {
+                callback.onNoConsensus(answer, stats);
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fuses the answers of several frames of one burst. Each frame votes for a key (a
+ * denomination, a normalized text) with a weight, usually its recognition confidence;
+ * frames without a usable answer abstain. Consensus is reached once enough frames agree
+ * on the leading key and it holds most of the weight cast so far.
+ */
+final class BurstVoter {
+
+    static final class Vote {
+        // What frames must agree on
+        final String key;
+        final float weight;
+        // What to speak if this key wins
+        final String answer;
+
+        Vote(String key, float weight, String answer) {
+            this.key = key;
+            this.weight = weight;
+            this.answer = answer;
+        }
+    }
+
+    private static final class Tally {
+        int votes;
+        float weight;
+        float bestWeight;
+        String answer;
+    }
+
+    private final int minAgreeingVotes;
+    private final float minShare;
+    private final Map<String, Tally> tallies = new HashMap<>();
+    private float totalWeight;
+    private int frames;
+    @Nullable
+    private String leaderKey;
+
+    /**
+     * @param minAgreeingVotes frames that must vote for the same key
+     * @param minShare fraction of all cast weight the leader must hold
+     */
+    BurstVoter(int minAgreeingVotes, float minShare) {
+        this.minAgreeingVotes = minAgreeingVotes;
+        this.minShare = minShare;
+    }
+
+    /**
+     * Count one frame; null abstains. Returns true once there is consensus.
+     */
+    boolean add(@Nullable Vote vote) {
+        frames++;
+        if (vote != null && vote.weight > 0) {
+            Tally tally = tallies.get(vote.key);
+            if (tally == null) {
+                tally = new Tally();
+                tallies.put(vote.key, tally);
+            }
+            tally.votes++;
+            tally.weight += vote.weight;
+            if (vote.weight > tally.bestWeight) {
+                tally.bestWeight = vote.weight;
+                tally.answer = vote.answer;
+            }
+            totalWeight += vote.weight;
+            if (leaderKey == null || tally.weight > tallies.get(leaderKey).weight) {
+                leaderKey = vote.key;
+            }
+        }
+        return hasConsensus();
+    }
+
+    boolean hasConsensus() {
+        if (leaderKey == null) {
+            return false;
+        }
+        Tally leader = tallies.get(leaderKey);
+        return leader.votes >= minAgreeingVotes && leader.weight >= minShare * totalWeight;
+    }
+
+    /**
+     * Answer of the strongest vote for the leading key, or null when every frame abstained.
+     */
+    @Nullable
+    String getLeaderAnswer() {
+        return leaderKey != null ? tallies.get(leaderKey).answer : null;
+    }
+
+    int getLeaderVotes() {
+        return leaderKey != null ? tallies.get(leaderKey).votes : 0;
+    }
+
+    int getFrameCount() {
+        return frames;
+    }
+}
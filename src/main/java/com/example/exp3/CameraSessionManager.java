@@ -0,0 +1,207 @@
+package com.example.exp3;
+
+import android.annotation.SuppressLint;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.Preview;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Locale;
+
+/**
+ * Keeps Preview, ImageCapture and ImageAnalysis bound across consecutive camera commands,
+ * so only the first one pays for opening the camera and AE/AF convergence. Between
+ * commands the preview is hidden but the camera stays open until it has been idle for a
+ * while or the activity stops. The preview renders to a TextureView, whose surface
+ * survives being hidden.
+ * Main thread only.
+ */
+public class CameraSessionManager {
+
+    private static final String TAG = "CameraSession";
+
+    private final LifecycleOwner lifecycleOwner;
+    private final PreviewView previewView;
+    private final long idleTimeoutMs;
+    private final Runnable idleRelease = () -> {
+        Log.d(TAG, "Camera idle, releasing it.");
+        close();
+    };
+
+    @Nullable
+    private ProcessCameraProvider cameraProvider;
+    @Nullable
+    private ImageCapture imageCapture;
+    @Nullable
+    private ImageAnalysis imageAnalysis;
+    private boolean bound;
+    private boolean streaming;
+
+    // Command to capture-ready, split by whether the camera was still open
+    private long pendingRequestMs = -1;
+    private boolean pendingWarm;
+    private int warmOpens;
+    private long warmReadyMs;
+    private int coldOpens;
+    private long coldReadyMs;
+    private int releases;
+
+    public CameraSessionManager(LifecycleOwner lifecycleOwner, PreviewView previewView, long idleTimeoutMs) {
+        this.lifecycleOwner = lifecycleOwner;
+        this.previewView = previewView;
+        this.idleTimeoutMs = idleTimeoutMs;
+        previewView.setImplementationMode(PreviewView.ImplementationMode.COMPATIBLE);
+        previewView.getPreviewStreamState().observe(lifecycleOwner, state -> {
+            streaming = state == PreviewView.StreamState.STREAMING;
+            if (streaming) {
+                onCaptureReady();
+            }
+        });
+    }
+
+    public void setCameraProvider(ProcessCameraProvider cameraProvider) {
+        this.cameraProvider = cameraProvider;
+    }
+
+    public boolean hasCameraProvider() {
+        return cameraProvider != null;
+    }
+
+    /**
+     * Make sure the camera is open, binding the use cases only if they are not bound yet.
+     * Called as soon as a camera command is understood, so the camera can start while the
+     * prompt is spoken. Returns false if binding failed.
+     */
+    @SuppressLint("UnsafeOptInUsageError")
+    public boolean open() {
+        previewView.removeCallbacks(idleRelease);
+        if (pendingRequestMs < 0) {
+            pendingRequestMs = SystemClock.elapsedRealtime();
+            pendingWarm = bound && streaming;
+        }
+        int rotation = previewView.getDisplay() != null ? previewView.getDisplay().getRotation() : 0;
+        if (bound) {
+            imageCapture.setTargetRotation(rotation);
+            imageAnalysis.setTargetRotation(rotation);
+            if (streaming) {
+                onCaptureReady();
+            }
+            return true;
+        }
+        if (cameraProvider == null) {
+            return false;
+        }
+
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+        CameraSelector cameraSelector = new CameraSelector.Builder()
+                .requireLensFacing(CameraSelector.LENS_FACING_BACK)
+                .build();
+        imageCapture = new ImageCapture.Builder()
+                .setTargetRotation(rotation)
+                .build();
+        // Frames for multi-frame voting, live scan and the quality check; each mode sets
+        // its own analyzer, and without one frames are dropped
+        imageAnalysis = new ImageAnalysis.Builder()
+                .setTargetResolution(new Size(1280, 960))
+                .setTargetRotation(rotation)
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .build();
+        try {
+            cameraProvider.unbindAll();
+            cameraProvider.bindToLifecycle(lifecycleOwner, cameraSelector, preview, imageCapture, imageAnalysis);
+            bound = true;
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Use case binding failed", e);
+            imageCapture = null;
+            imageAnalysis = null;
+            pendingRequestMs = -1;
+            return false;
+        }
+    }
+
+    public void showPreview() {
+        previewView.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Hide the preview after a capture; the camera stays open for the next command until
+     * the idle timeout.
+     */
+    public void hidePreview() {
+        previewView.setVisibility(View.INVISIBLE);
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
+        previewView.removeCallbacks(idleRelease);
+        if (bound) {
+            previewView.postDelayed(idleRelease, idleTimeoutMs);
+        }
+    }
+
+    /**
+     * Release the camera now, e.g. when the activity stops.
+     */
+    public void close() {
+        previewView.removeCallbacks(idleRelease);
+        previewView.setVisibility(View.GONE);
+        if (!bound) {
+            return;
+        }
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
+        if (cameraProvider != null) {
+            cameraProvider.unbindAll();
+        }
+        releases++;
+        bound = false;
+        streaming = false;
+        imageCapture = null;
+        imageAnalysis = null;
+        pendingRequestMs = -1;
+    }
+
+    @Nullable
+    public ImageCapture getImageCapture() {
+        return imageCapture;
+    }
+
+    @Nullable
+    public ImageAnalysis getImageAnalysis() {
+        return imageAnalysis;
+    }
+
+    public String getStatsSummary() {
+        return String.format(Locale.US, "warmOpens=%d avgWarmReady=%d ms coldOpens=%d avgColdReady=%d ms releases=%d",
+                warmOpens, warmOpens == 0 ? 0 : warmReadyMs / warmOpens,
+                coldOpens, coldOpens == 0 ? 0 : coldReadyMs / coldOpens, releases);
+    }
+
+    private void onCaptureReady() {
+        if (pendingRequestMs < 0) {
+            return;
+        }
+        long readyMs = SystemClock.elapsedRealtime() - pendingRequestMs;
+        pendingRequestMs = -1;
+        if (pendingWarm) {
+            warmOpens++;
+            warmReadyMs += readyMs;
+        } else {
+            coldOpens++;
+            coldReadyMs += readyMs;
+        }
+        Log.d(TAG, "Capture ready " + readyMs + " ms after the command (" + (pendingWarm ? "camera already open" : "camera opened")
+                + "). " + getStatsSummary());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.exp3;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.camera.core.ImageProxy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a CameraX capture into upload-ready JPEG bytes with at most one encode:
+ * JPEG captures are passed through as-is, YUV captures are compressed once.
+ */
+public class CaptureEncoder {
+
+    private static final String TAG = "CaptureEncoder";
+    private static final int YUV_JPEG_QUALITY = 90;
+
+    // Only used from the camera executor thread
+    private final YuvToNv21Converter nv21Converter = new YuvToNv21Converter();
+
+    @Nullable
+    public CapturedImage encode(ImageProxy image) {
+        long startCpuMs = SystemClock.currentThreadTimeMillis();
+        long captureTimeMs = SystemClock.elapsedRealtime();
+        byte[] jpeg;
+        if (image.getFormat() == ImageFormat.JPEG) {
+            // ImageCapture's default output is already JPEG: no decode, no re-encode
+            ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+            jpeg = new byte[buffer.remaining()];
+            buffer.get(jpeg);
+        } else if (image.getFormat() == ImageFormat.YUV_420_888) {
+            jpeg = yuvToJpeg(image);
+        } else {
+            Log.e(TAG, "Unsupported capture format: " + image.getFormat());
+            return null;
+        }
+        long cpuMs = SystemClock.currentThreadTimeMillis() - startCpuMs;
+        Runtime runtime = Runtime.getRuntime();
+        Log.d(TAG, "Encoded capture " + image.getWidth() + "x" + image.getHeight() + " -> " + jpeg.length
+                + " bytes, cpu=" + cpuMs + " ms, heapUsed=" + (runtime.totalMemory() - runtime.freeMemory()) / 1024 + " KB");
+        return new CapturedImage(jpeg, image.getWidth(), image.getHeight(),
+                image.getImageInfo().getRotationDegrees(), captureTimeMs);
+    }
+
+    private byte[] yuvToJpeg(ImageProxy image) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] nv21 = nv21Converter.convert(
+                planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                planes[2].getBuffer(), planes[2].getRowStride(), planes[2].getPixelStride(),
+                width, height);
+
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        yuvImage.compressToJpeg(new Rect(0, 0, width, height), YUV_JPEG_QUALITY, out);
+        return out.toByteArray();
+    }
+}
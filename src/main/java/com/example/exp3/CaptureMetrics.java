@@ -0,0 +1,105 @@
+package com.example.exp3;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.Locale;
+
+/**
+ * Per-mode upload size, end-to-end latency (capture to spoken result), failed captures
+ * and captures held back by the on-device quality check.
+ * Only one capture per mode is in flight at a time, so a single pending
+ * start time per mode is enough.
+ */
+public class CaptureMetrics {
+
+    private static final String TAG = "CaptureMetrics";
+
+    private static final class ModeStats {
+        long pendingCaptureTimeMs = -1;
+        int captures;
+        int qualityRejections;
+        long uploadedBytes;
+        int completed;
+        int failed;
+        long totalLatencyMs;
+        long maxLatencyMs;
+    }
+
+    private final SparseArray<ModeStats> statsByMode = new SparseArray<>();
+
+    public synchronized void recordUpload(int captureMode, CapturedImage image) {
+        ModeStats stats = statsFor(captureMode);
+        if (stats.pendingCaptureTimeMs >= 0) {
+            // Superseded before it was answered
+            stats.failed++;
+        }
+        stats.pendingCaptureTimeMs = image.getCaptureTimeMs();
+        stats.captures++;
+        stats.uploadedBytes += image.getJpegSize();
+    }
+
+    /**
+     * A capture was not taken because the preview was too blurred or badly lit; no upload.
+     */
+    public synchronized void recordQualityRejection(int captureMode) {
+        statsFor(captureMode).qualityRejections++;
+    }
+
+    /**
+     * Mark the pending capture of the mode as answered with a result.
+     */
+    public synchronized void recordCompletion(int captureMode) {
+        ModeStats stats = statsFor(captureMode);
+        if (stats.pendingCaptureTimeMs < 0) {
+            return;
+        }
+        long latencyMs = SystemClock.elapsedRealtime() - stats.pendingCaptureTimeMs;
+        stats.pendingCaptureTimeMs = -1;
+        stats.completed++;
+        stats.totalLatencyMs += latencyMs;
+        stats.maxLatencyMs = Math.max(stats.maxLatencyMs, latencyMs);
+        Log.d(TAG, "Mode " + captureMode + " answered in " + latencyMs + " ms. " + summaryFor(captureMode, stats));
+    }
+
+    /**
+     * Mark the pending capture of the mode as answered with an error; it does not count
+     * towards the latency, which is that of results.
+     */
+    public synchronized void recordFailure(int captureMode) {
+        ModeStats stats = statsFor(captureMode);
+        if (stats.pendingCaptureTimeMs < 0) {
+            return;
+        }
+        long latencyMs = SystemClock.elapsedRealtime() - stats.pendingCaptureTimeMs;
+        stats.pendingCaptureTimeMs = -1;
+        stats.failed++;
+        Log.d(TAG, "Mode " + captureMode + " failed after " + latencyMs + " ms. " + summaryFor(captureMode, stats));
+    }
+
+    public synchronized String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < statsByMode.size(); i++) {
+            sb.append(summaryFor(statsByMode.keyAt(i), statsByMode.valueAt(i))).append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    private ModeStats statsFor(int captureMode) {
+        ModeStats stats = statsByMode.get(captureMode);
+        if (stats == null) {
+            stats = new ModeStats();
+            statsByMode.put(captureMode, stats);
+        }
+        return stats;
+    }
+
+    private static String summaryFor(int captureMode, ModeStats stats) {
+        return String.format(Locale.US, "mode=%d captures=%d failed=%d qualityRejections=%d avgUpload=%d B avgLatency=%d ms maxLatency=%d ms",
+                captureMode, stats.captures, stats.failed, stats.qualityRejections,
+                stats.captures == 0 ? 0 : stats.uploadedBytes / stats.captures,
+                stats.completed == 0 ? 0 : stats.totalLatencyMs / stats.completed,
+                stats.maxLatencyMs);
+    }
+}
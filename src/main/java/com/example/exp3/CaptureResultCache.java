@@ -0,0 +1,293 @@
+package com.example.exp3;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * Image analysis responses keyed by the perceptual hash of the uploaded image. A new
+ * capture whose hash is within a small Hamming distance of a recent one of the same
+ * operation gets the earlier response without a round trip. Entries expire per operation
+ * (see {@link AzureConfig.ResultCache}); a bounded set is kept in memory and,
+ * optionally, on disk so results survive a restart. Read results are not cached: pages
+ * with the same layout hash alike but say different things.
+ */
+public class CaptureResultCache {
+
+    private static final String TAG = "CaptureResultCache";
+    private static final String FILE_SUFFIX = ".json";
+
+    private static final class Entry {
+        final VisionClient.Operation operation;
+        final long hash;
+        final long storedAtMs;
+        // Null for disk entries until first read
+        String responseBody;
+
+        Entry(VisionClient.Operation operation, long hash, long storedAtMs, @Nullable String responseBody) {
+            this.operation = operation;
+            this.hash = hash;
+            this.storedAtMs = storedAtMs;
+            this.responseBody = responseBody;
+        }
+    }
+
+    private final LongSupplier clockMs;
+    private final int maxMemoryEntries;
+    @Nullable
+    private final File diskDirectory;
+    private final int maxDiskEntries;
+    @Nullable
+    private final ExecutorService diskExecutor;
+    // Most recently used last
+    private final List<Entry> memoryEntries = new ArrayList<>();
+    private final List<Entry> diskEntries = new ArrayList<>();
+
+    private int lookups;
+    private int memoryHits;
+    private int diskHits;
+    private int stores;
+
+    /**
+     * @param diskDirectory where to persist entries, or null for memory only
+     */
+    public CaptureResultCache(int maxMemoryEntries, @Nullable File diskDirectory, int maxDiskEntries) {
+        this(maxMemoryEntries, diskDirectory, maxDiskEntries, System::currentTimeMillis);
+    }
+
+    CaptureResultCache(int maxMemoryEntries, @Nullable File diskDirectory, int maxDiskEntries, LongSupplier clockMs) {
+        this.clockMs = clockMs;
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.diskDirectory = diskDirectory;
+        this.maxDiskEntries = maxDiskEntries;
+        if (diskDirectory != null) {
+            diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "capture-result-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+            diskExecutor.execute(this::loadDiskIndex);
+        } else {
+            diskExecutor = null;
+        }
+    }
+
+    static long maxAgeMsFor(VisionClient.Operation operation) {
+        switch (operation) {
+            case ANALYZE_OBJECTS:
+                return AzureConfig.ResultCache.OBJECTS_MAX_AGE_MS;
+            case ANALYZE_SCENE:
+            case ANALYZE_COMBINED:
+            default:
+                return AzureConfig.ResultCache.SCENE_MAX_AGE_MS;
+        }
+    }
+
+    /**
+     * The closest fresh response for a near-identical image, or null.
+     */
+    @Nullable
+    public String get(VisionClient.Operation operation, long hash) {
+        Entry diskMatch;
+        synchronized (this) {
+            lookups++;
+            long nowMs = clockMs.getAsLong();
+            Entry match = findClosest(memoryEntries, operation, hash, nowMs);
+            if (match != null) {
+                memoryHits++;
+                memoryEntries.remove(match);
+                memoryEntries.add(match);
+                Log.d(TAG, operation + " served from memory (" + getStatsSummary() + ")");
+                return match.responseBody;
+            }
+            diskMatch = findClosest(diskEntries, operation, hash, nowMs);
+            if (diskMatch == null) {
+                return null;
+            }
+        }
+
+        String body = diskMatch.responseBody != null ? diskMatch.responseBody : readBody(diskMatch);
+        if (body == null) {
+            return null;
+        }
+        synchronized (this) {
+            diskHits++;
+            diskMatch.responseBody = body;
+            addToMemory(diskMatch);
+            Log.d(TAG, operation + " served from disk (" + getStatsSummary() + ")");
+        }
+        return body;
+    }
+
+    public void put(VisionClient.Operation operation, long hash, String responseBody) {
+        final Entry entry = new Entry(operation, hash, clockMs.getAsLong(), responseBody);
+        synchronized (this) {
+            stores++;
+            addToMemory(entry);
+        }
+        if (diskExecutor != null) {
+            diskExecutor.execute(() -> writeToDisk(entry));
+        }
+    }
+
+    public synchronized String getStatsSummary() {
+        int hits = memoryHits + diskHits;
+        return String.format(Locale.US, "lookups=%d hits=%d (memory=%d disk=%d) hitRate=%d%% stored=%d",
+                lookups, hits, memoryHits, diskHits, lookups == 0 ? 0 : hits * 100 / lookups, stores);
+    }
+
+    public void shutdown() {
+        if (diskExecutor != null) {
+            diskExecutor.shutdown();
+        }
+    }
+
+    /** Wait for the disk index to load and earlier writes to finish. */
+    void awaitDiskIdle() throws InterruptedException {
+        if (diskExecutor == null) {
+            return;
+        }
+        try {
+            diskExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    private static Entry findClosest(List<Entry> entries, VisionClient.Operation operation, long hash, long nowMs) {
+        long maxAgeMs = maxAgeMsFor(operation);
+        int bestDistance = AzureConfig.ResultCache.MAX_HAMMING_DISTANCE + 1;
+        Entry best = null;
+        for (Entry entry : entries) {
+            if (entry.operation != operation || nowMs - entry.storedAtMs > maxAgeMs) {
+                continue;
+            }
+            int distance = PerceptualHash.distance(entry.hash, hash);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    private void addToMemory(Entry entry) {
+        memoryEntries.remove(entry);
+        memoryEntries.add(entry);
+        long nowMs = clockMs.getAsLong();
+        Iterator<Entry> iterator = memoryEntries.iterator();
+        while (iterator.hasNext()) {
+            Entry existing = iterator.next();
+            if (nowMs - existing.storedAtMs > maxAgeMsFor(existing.operation)) {
+                iterator.remove();
+            }
+        }
+        while (memoryEntries.size() > maxMemoryEntries) {
+            memoryEntries.remove(0);
+        }
+    }
+
+    private static String fileNameFor(Entry entry) {
+        return entry.operation.name() + "-" + Long.toHexString(entry.hash) + "-" + entry.storedAtMs + FILE_SUFFIX;
+    }
+
+    private void loadDiskIndex() {
+        File[] files = diskDirectory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        List<Entry> loaded = new ArrayList<>();
+        long nowMs = clockMs.getAsLong();
+        for (File file : files) {
+            // <operation>-<hash>-<storedAtMs>.json
+            String[] parts = file.getName().substring(0, file.getName().length() - FILE_SUFFIX.length()).split("-");
+            try {
+                VisionClient.Operation operation = VisionClient.Operation.valueOf(parts[0]);
+                long hash = Long.parseUnsignedLong(parts[1], 16);
+                long storedAtMs = Long.parseLong(parts[2]);
+                // Read results from older versions are dropped too
+                if (operation == VisionClient.Operation.READ || nowMs - storedAtMs > maxAgeMsFor(operation)) {
+                    file.delete();
+                    continue;
+                }
+                loaded.add(new Entry(operation, hash, storedAtMs, null));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                Log.w(TAG, "Deleting unrecognised cache file " + file.getName());
+                file.delete();
+            }
+        }
+        Collections.sort(loaded, (a, b) -> Long.compare(a.storedAtMs, b.storedAtMs));
+        synchronized (this) {
+            diskEntries.addAll(0, loaded);
+        }
+        Log.d(TAG, "Loaded " + loaded.size() + " persisted results.");
+    }
+
+    @Nullable
+    private String readBody(Entry entry) {
+        File file = new File(diskDirectory, fileNameFor(entry));
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            return new String(bytes, 0, offset, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read " + file.getName(), e);
+            synchronized (this) {
+                diskEntries.remove(entry);
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(Entry entry) {
+        if (!diskDirectory.exists() && !diskDirectory.mkdirs()) {
+            Log.w(TAG, "Could not create " + diskDirectory);
+            return;
+        }
+        File file = new File(diskDirectory, fileNameFor(entry));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(entry.responseBody.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Error persisting result", e);
+            file.delete();
+            return;
+        }
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            diskEntries.add(entry);
+            while (diskEntries.size() > maxDiskEntries) {
+                evicted.add(diskEntries.remove(0));
+            }
+        }
+        for (Entry old : evicted) {
+            new File(diskDirectory, fileNameFor(old)).delete();
+        }
+    }
+}
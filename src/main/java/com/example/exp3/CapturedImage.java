@@ -0,0 +1,116 @@
+package com.example.exp3;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+/**
+ * An encoded capture, ready for upload. The JPEG bytes are produced once per shot and
+ * shared by every analyzer; only the perceptual hash decodes a small thumbnail.
+ */
+public final class CapturedImage {
+
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final int HASH_THUMBNAIL_MIN_EDGE = 64;
+
+    private final byte[] jpeg;
+    private final int width;
+    private final int height;
+    private final int rotationDegrees;
+    private final long captureTimeMs;
+    private boolean hashComputed;
+    private Long perceptualHash;
+
+    public CapturedImage(byte[] jpeg, int width, int height, int rotationDegrees, long captureTimeMs) {
+        this.jpeg = jpeg;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.captureTimeMs = captureTimeMs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Clockwise rotation needed to display the pixels upright (the EXIF orientation for JPEG captures).
+     */
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    /**
+     * {@link android.os.SystemClock#elapsedRealtime()} at capture, for end-to-end latency.
+     */
+    public long getCaptureTimeMs() {
+        return captureTimeMs;
+    }
+
+    public int getJpegSize() {
+        return jpeg.length;
+    }
+
+    /**
+     * Read-only view of the JPEG bytes.
+     */
+    public ByteBuffer getJpegBuffer() {
+        return ByteBuffer.wrap(jpeg).asReadOnlyBuffer();
+    }
+
+    /**
+     * Upload body for the Azure vision endpoints. OkHttp only reads the array.
+     */
+    public RequestBody toRequestBody() {
+        return RequestBody.create(jpeg, OCTET_STREAM);
+    }
+
+    /**
+     * {@link PerceptualHash#dHash} of a small luma thumbnail, computed on first use.
+     * Returns null if the JPEG cannot be decoded: no hash value is free to mean "unknown".
+     */
+    @Nullable
+    public synchronized Long getPerceptualHash() {
+        if (!hashComputed) {
+            perceptualHash = computePerceptualHash();
+            hashComputed = true;
+        }
+        return perceptualHash;
+    }
+
+    @Nullable
+    private Long computePerceptualHash() {
+        // The hash only needs a 9x8 grid; let the decoder skip most of the pixels
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (Math.min(width, height) / (options.inSampleSize * 2) >= HASH_THUMBNAIL_MIN_EDGE) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap thumbnail = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (thumbnail == null) {
+            return null;
+        }
+        int thumbWidth = thumbnail.getWidth();
+        int thumbHeight = thumbnail.getHeight();
+        int[] pixels = new int[thumbWidth * thumbHeight];
+        thumbnail.getPixels(pixels, 0, thumbWidth, 0, 0, thumbWidth, thumbHeight);
+        thumbnail.recycle();
+        byte[] luma = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            // BT.601 luma in fixed point
+            luma[i] = (byte) ((77 * ((pixel >> 16) & 0xFF) + 150 * ((pixel >> 8) & 0xFF) + 29 * (pixel & 0xFF)) >> 8);
+        }
+        return PerceptualHash.dHash(luma, thumbWidth, thumbHeight, thumbWidth);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.exp3;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * Concatenated PCM stream of several synthesized chunks. The first chunk is streamed
+ * straight from the network; while chunk N is being read (i.e. played), chunk N+1 is
+ * synthesized in the background, so the chunks play back to back without gaps.
+ */
+public class ChunkedTtsStream extends InputStream {
+
+    private static final String TAG = "ChunkedTtsStream";
+
+    private final List<String> ssmlChunks;
+    private final OkHttpClient httpClient;
+    private final TtsAudioCache cache;
+    private final ExecutorService prefetchExecutor;
+
+    private int nextChunkIndex;
+    private InputStream current;
+    private TtsAudioCache.Editor currentEditor;
+    private Call currentCall;
+    private Future<byte[]> prefetched;
+    private volatile boolean closed;
+
+    public ChunkedTtsStream(List<String> ssmlChunks, OkHttpClient client, TtsAudioCache cache,
+                            ExecutorService prefetchExecutor) {
+        this.ssmlChunks = ssmlChunks;
+        this.httpClient = client;
+        this.cache = cache;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (!closed) {
+            if (current == null && !openNextChunk()) {
+                return -1;
+            }
+            int n = current.read(buffer, offset, length);
+            if (n != -1) {
+                writeToCache(buffer, offset, n);
+                return n;
+            }
+            finishCurrentChunk();
+        }
+        throw new IOException("Stream closed");
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (currentCall != null) {
+            currentCall.cancel();
+        }
+        if (prefetched != null) {
+            prefetched.cancel(true);
+        }
+        if (currentEditor != null) {
+            currentEditor.abort();
+            currentEditor = null;
+        }
+        closeCurrent();
+    }
+
+    private boolean openNextChunk() throws IOException {
+        if (nextChunkIndex >= ssmlChunks.size()) {
+            return false;
+        }
+        int index = nextChunkIndex++;
+        String ssml = ssmlChunks.get(index);
+        if (prefetched != null) {
+            current = new ByteArrayInputStream(awaitPrefetch());
+            prefetched = null;
+        } else {
+            openStreaming(ssml);
+        }
+        // Synthesize the next chunk while this one plays
+        if (nextChunkIndex < ssmlChunks.size()) {
+            final String nextSsml = ssmlChunks.get(nextChunkIndex);
+            prefetched = prefetchExecutor.submit(() -> download(nextSsml));
+        }
+        Log.d(TAG, "Playing chunk " + (index + 1) + "/" + ssmlChunks.size());
+        return true;
+    }
+
+    private void openStreaming(String ssml) throws IOException {
+        String key = TtsAudioCache.keyFor(ssml, AzureConfig.Speech.OUTPUT_FORMAT);
+        InputStream cached = openCached(key);
+        if (cached != null) {
+            current = cached;
+            return;
+        }
+        currentCall = httpClient.newCall(TtsRequestBuilder.buildRequest(ssml));
+        Response response = currentCall.execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            response.close();
+            throw new IOException("Azure TTS chunk error: " + response.code());
+        }
+        current = response.body().byteStream();
+        try {
+            currentEditor = cache.edit(key);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not open TTS cache entry for chunk", e);
+        }
+    }
+
+    private byte[] download(String ssml) throws IOException {
+        String key = TtsAudioCache.keyFor(ssml, AzureConfig.Speech.OUTPUT_FORMAT);
+        InputStream cached = openCached(key);
+        if (cached != null) {
+            try (InputStream in = cached) {
+                return readFully(in);
+            }
+        }
+        try (Response response = httpClient.newCall(TtsRequestBuilder.buildRequest(ssml)).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Azure TTS chunk error: " + response.code());
+            }
+            byte[] audio = readFully(response.body().byteStream());
+            saveToCache(key, audio);
+            return audio;
+        }
+    }
+
+    /**
+     * The cached audio for the key, or null on a miss or if the file went away since.
+     */
+    private InputStream openCached(String key) {
+        File cached = cache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return new FileInputStream(cached);
+        } catch (FileNotFoundException e) {
+            Log.w(TAG, "Cached TTS chunk disappeared, synthesizing it again", e);
+            return null;
+        }
+    }
+
+    /**
+     * Copy what was just read into the chunk's cache entry. The cache is best effort: if
+     * the write fails (disk full, file removed) the entry is dropped and playback goes on.
+     */
+    private void writeToCache(byte[] buffer, int offset, int length) {
+        if (currentEditor == null) {
+            return;
+        }
+        try {
+            currentEditor.getOutputStream().write(buffer, offset, length);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write TTS chunk to cache, playing without caching it", e);
+            currentEditor.abort();
+            currentEditor = null;
+        }
+    }
+
+    private void saveToCache(String key, byte[] audio) {
+        TtsAudioCache.Editor editor = null;
+        try {
+            editor = cache.edit(key);
+            editor.getOutputStream().write(audio);
+            editor.commit();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write TTS chunk to cache", e);
+            if (editor != null) {
+                editor.abort();
+            }
+        }
+    }
+
+    private byte[] awaitPrefetch() throws IOException {
+        try {
+            return prefetched.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for TTS chunk", e);
+        }
+    }
+
+    private void finishCurrentChunk() {
+        if (currentEditor != null) {
+            try {
+                currentEditor.commit();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to commit TTS chunk to cache", e);
+            }
+            currentEditor = null;
+        }
+        currentCall = null;
+        closeCurrent();
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Already done with this chunk
+            }
+            current = null;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8 * 1024];
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, bytesRead);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.exp3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds the denomination of an Indian banknote in a Read result. Works on whole OCR words,
+ * never substrings, so serial numbers ("8AC 200045"), years and words containing "rs" do
+ * not count. Evidence for each denomination is weighted by word confidence and:
+ * <ul>
+ *     <li>numerals: how much taller than the surrounding text they are (the large corner
+ *     numerals), a ₹ / Rs prefix, and whether they sit in a corner of the text;</li>
+ *     <li>amounts in words in English, Hindi or Kannada, counted only when followed by
+ *     "rupees" in the same language;</li>
+ * </ul>
+ * The confidence is the winning share of all evidence, reduced when nothing on the image
+ * says "rupee" or reads like a banknote (Reserve Bank, promise to pay, Governor).
+ */
+public final class CurrencyRecognizer {
+
+    public static final float MIN_CONFIDENCE = 0.6f;
+    // Below MIN_CONFIDENCE but worth a "possibly" and a recapture hint
+    public static final float POSSIBLE_CONFIDENCE = 0.35f;
+
+    static final int[] DENOMINATIONS = {10, 20, 50, 100, 200, 500, 2000};
+
+    // Corner numerals are three to five times the height of the body text
+    private static final float MAX_SIZE_WEIGHT = 4f;
+    private static final float CURRENCY_PREFIX_WEIGHT = 1.5f;
+    private static final float CORNER_WEIGHT = 1.2f;
+    // Outer fraction of the text extent, on both axes, that counts as a corner
+    private static final float CORNER_FRACTION = 0.3f;
+    private static final float PHRASE_WEIGHT = 2f;
+    // Keeps a single weak numeral from scoring as a certain match
+    private static final float EVIDENCE_PRIOR = 1f;
+    private static final float NO_CURRENCY_WORD_FACTOR = 0.6f;
+    private static final float NO_NOTE_CONTEXT_FACTOR = 0.7f;
+
+    private static final List<String> CURRENCY_WORDS = Arrays.asList(
+            "₹", "rs", "rs.", "inr", "rupee", "rupees",
+            "रुपये", "रुपए", "रुपया", "रुपय",
+            "ರೂಪಾಯಿ", "ರೂಪಾಯಿಗಳು");
+
+    // Matched against normalized line text
+    private static final String[] NOTE_CONTEXT = {
+            "reserve bank", "promise to pay", "guaranteed by", "governor",
+            "रिजर्व बैंक", "गारंटीकृत",
+            "ರಿಸರ್ವ್ ಬ್ಯಾಂಕ್"
+    };
+
+    // Longest first, so "five hundred" wins over a shorter phrase at the same position
+    private static final String[] PHRASES = {
+            "two thousand", "five hundred", "two hundred", "one hundred",
+            "दो हजार", "पांच सौ", "दो सौ", "एक सौ",
+            "ಎರಡು ಸಾವಿರ", "ಐದು ನೂರು", "ಎರಡು ನೂರು", "ಒಂದು ನೂರು",
+            "fifty", "twenty", "ten",
+            "सौ", "पचास", "बीस", "दस",
+            "ಐನೂರು", "ಇನ್ನೂರು", "ನೂರು", "ಐವತ್ತು", "ಇಪ್ಪತ್ತು", "ಹತ್ತು"
+    };
+    private static final int[] PHRASE_VALUES = {
+            2000, 500, 200, 100,
+            2000, 500, 200, 100,
+            2000, 500, 200, 100,
+            50, 20, 10,
+            100, 50, 20, 10,
+            500, 200, 100, 50, 20, 10
+    };
+    private static final String[][] PHRASE_WORDS = new String[PHRASES.length][];
+    // Base letters of the precomposed nukta forms U+0958..U+095F
+    private static final String NUKTA_BASES = "\u0915\u0916\u0917\u091C\u0921\u0922\u092B\u092F";
+
+    static {
+        for (int i = 0; i < PHRASES.length; i++) {
+            PHRASE_WORDS[i] = PHRASES[i].split(" ");
+        }
+    }
+
+    public static final class Result {
+        // 0 when no denomination was seen at all
+        public final int denomination;
+        public final float confidence;
+
+        Result(int denomination, float confidence) {
+            this.denomination = denomination;
+            this.confidence = confidence;
+        }
+
+        public boolean isConfident() {
+            return denomination != 0 && confidence >= MIN_CONFIDENCE;
+        }
+
+        public boolean isPossible() {
+            return denomination != 0 && confidence >= POSSIBLE_CONFIDENCE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d (confidence %.2f)", denomination, confidence);
+        }
+    }
+
+    private static final class Token {
+        final String text;
+        final float confidence;
+        final float height;
+        final float centerX;
+        final float centerY;
+        final boolean currencyWord;
+        final boolean currencyPrefix;
+        // Index into DENOMINATIONS, or -1
+        final int denominationIndex;
+
+        Token(String text, float confidence, float[] box) {
+            String normalized = normalize(text);
+            boolean prefix = false;
+            String number = normalized;
+            if (number.startsWith("₹") && number.length() > 1) {
+                number = number.substring(1);
+                prefix = true;
+            } else if (number.startsWith("rs.") && number.length() > 3) {
+                number = number.substring(3);
+                prefix = true;
+            } else if (number.startsWith("rs") && number.length() > 2 && Character.isDigit(number.charAt(2))) {
+                number = number.substring(2);
+                prefix = true;
+            } else if (number.startsWith("inr") && number.length() > 3 && Character.isDigit(number.charAt(3))) {
+                number = number.substring(3);
+                prefix = true;
+            }
+            this.text = normalized;
+            this.confidence = confidence;
+            this.currencyWord = CURRENCY_WORDS.contains(normalized);
+            this.currencyPrefix = prefix;
+            this.denominationIndex = denominationIndex(stripAmountSuffix(number));
+            float minX = Float.MAX_VALUE;
+            float minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE;
+            float maxY = -Float.MAX_VALUE;
+            for (int p = 0; p + 1 < box.length; p += 2) {
+                minX = Math.min(minX, box[p]);
+                maxX = Math.max(maxX, box[p]);
+                minY = Math.min(minY, box[p + 1]);
+                maxY = Math.max(maxY, box[p + 1]);
+            }
+            boolean hasBox = box.length >= 4;
+            this.height = hasBox ? maxY - minY : 0;
+            this.centerX = hasBox ? (minX + maxX) / 2 : 0;
+            this.centerY = hasBox ? (minY + maxY) / 2 : 0;
+        }
+    }
+
+    private CurrencyRecognizer() {
+    }
+
+    public static Result recognize(OcrDocument document) {
+        List<List<Token>> lines = new ArrayList<>();
+        List<String> lineTexts = new ArrayList<>();
+        int tokenCount = 0;
+        for (OcrDocument.Page page : document.getPages()) {
+            for (OcrDocument.Line line : page.lines) {
+                List<Token> tokens = new ArrayList<>();
+                if (line.words.isEmpty()) {
+                    for (String part : line.text.trim().split("\\s+")) {
+                        if (!part.isEmpty()) {
+                            tokens.add(new Token(part, 1f, line.boundingBox));
+                        }
+                    }
+                } else {
+                    for (OcrDocument.Word word : line.words) {
+                        tokens.add(new Token(word.text, word.confidence, word.boundingBox));
+                    }
+                }
+                tokenCount += tokens.size();
+                lines.add(tokens);
+                lineTexts.add(normalize(line.text));
+            }
+        }
+        if (tokenCount == 0) {
+            return new Result(0, 0);
+        }
+
+        float[] sortedHeights = new float[tokenCount];
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        boolean hasCurrencyWord = false;
+        int h = 0;
+        for (List<Token> tokens : lines) {
+            for (Token token : tokens) {
+                sortedHeights[h++] = token.height;
+                minX = Math.min(minX, token.centerX);
+                maxX = Math.max(maxX, token.centerX);
+                minY = Math.min(minY, token.centerY);
+                maxY = Math.max(maxY, token.centerY);
+                hasCurrencyWord |= token.currencyWord || token.currencyPrefix;
+            }
+        }
+        Arrays.sort(sortedHeights);
+        float medianHeight = Math.max(sortedHeights[sortedHeights.length / 2], 1f);
+        float cornerWidth = CORNER_FRACTION * (maxX - minX);
+        float cornerHeight = CORNER_FRACTION * (maxY - minY);
+
+        float[] scores = new float[DENOMINATIONS.length];
+        for (List<Token> tokens : lines) {
+            for (int i = 0; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                if (token.denominationIndex < 0) {
+                    continue;
+                }
+                float weight = token.confidence
+                        * Math.min(MAX_SIZE_WEIGHT, Math.max(1f, token.height / medianHeight));
+                boolean besideCurrencyWord = (i > 0 && tokens.get(i - 1).currencyWord)
+                        || (i + 1 < tokens.size() && tokens.get(i + 1).currencyWord);
+                if (token.currencyPrefix || besideCurrencyWord) {
+                    weight *= CURRENCY_PREFIX_WEIGHT;
+                }
+                boolean inCorner = (token.centerX - minX <= cornerWidth || maxX - token.centerX <= cornerWidth)
+                        && (token.centerY - minY <= cornerHeight || maxY - token.centerY <= cornerHeight);
+                if (inCorner) {
+                    weight *= CORNER_WEIGHT;
+                }
+                scores[token.denominationIndex] += weight;
+            }
+            scorePhrases(tokens, scores);
+        }
+
+        int best = 0;
+        float total = 0;
+        for (int k = 0; k < scores.length; k++) {
+            total += scores[k];
+            if (scores[k] > scores[best]) {
+                best = k;
+            }
+        }
+        if (total == 0) {
+            return new Result(0, 0);
+        }
+        float confidence = scores[best] / (total + EVIDENCE_PRIOR);
+        if (!hasCurrencyWord) {
+            confidence *= NO_CURRENCY_WORD_FACTOR;
+        }
+        if (!hasNoteContext(lineTexts)) {
+            confidence *= NO_NOTE_CONTEXT_FACTOR;
+        }
+        return new Result(DENOMINATIONS[best], confidence);
+    }
+
+    /** Amounts in words directly followed by a currency word, e.g. "FIVE HUNDRED RUPEES". */
+    private static void scorePhrases(List<Token> tokens, float[] scores) {
+        int i = 0;
+        while (i < tokens.size()) {
+            int matched = -1;
+            for (int p = 0; p < PHRASE_WORDS.length && matched < 0; p++) {
+                String[] words = PHRASE_WORDS[p];
+                int end = i + words.length;
+                if (end >= tokens.size() || !tokens.get(end).currencyWord) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int w = 0; w < words.length && matches; w++) {
+                    matches = words[w].equals(tokens.get(i + w).text);
+                }
+                if (matches) {
+                    matched = p;
+                }
+            }
+            if (matched < 0) {
+                i++;
+                continue;
+            }
+            int length = PHRASE_WORDS[matched].length;
+            float confidence = 0;
+            for (int w = 0; w <= length; w++) {
+                confidence += tokens.get(i + w).confidence;
+            }
+            scores[denominationIndex(PHRASE_VALUES[matched])] += PHRASE_WEIGHT * confidence / (length + 1);
+            i += length + 1;
+        }
+    }
+
+    private static boolean hasNoteContext(List<String> lineTexts) {
+        for (String text : lineTexts) {
+            for (String context : NOTE_CONTEXT) {
+                if (text.contains(context)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int denominationIndex(String number) {
+        if (number.isEmpty() || number.length() > 4) {
+            return -1;
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return denominationIndex(Integer.parseInt(number));
+    }
+
+    private static int denominationIndex(int value) {
+        for (int k = 0; k < DENOMINATIONS.length; k++) {
+            if (DENOMINATIONS[k] == value) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** "500/-" and "500." are written amounts too. */
+    private static String stripAmountSuffix(String number) {
+        if (number.endsWith("/-")) {
+            number = number.substring(0, number.length() - 2);
+        }
+        int end = number.length();
+        while (end > 0 && ".,:;".indexOf(number.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return number.substring(0, end);
+    }
+
+    /**
+     * Lower case, Devanagari and Kannada digits as ASCII, and Hindi spelling variants folded
+     * (nukta dropped, candrabindu as anusvara) so "पाँच"/"पांच" and "हज़ार"/"हजार" match.
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        String lower = text.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c >= '\u0966' && c <= '\u096F') {
+                // Devanagari digits
+                sb.append((char) ('0' + (c - '\u0966')));
+            } else if (c >= '\u0CE6' && c <= '\u0CEF') {
+                // Kannada digits
+                sb.append((char) ('0' + (c - '\u0CE6')));
+            } else if (c >= '\u0958' && c <= '\u095F') {
+                // Precomposed letters with nukta
+                sb.append(NUKTA_BASES.charAt(c - '\u0958'));
+            } else if (c == '\u0901') {
+                // Candrabindu
+                sb.append('\u0902');
+            } else if (c != '\u093C') {
+                // Anything but a separate nukta
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.exp3;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in recorder that keeps copies of uploaded captures for debugging OCR.
+ * Files are written off the capture path on a background thread, and the
+ * directory is kept under a file count and byte quota, deleting oldest first.
+ */
+public class DiagnosticCaptureRecorder {
+
+    private static final String TAG = "DiagnosticCapture";
+    private static final String FILE_PREFIX = "capture_";
+
+    // Flip to true to record captures; when false MainActivity never creates a recorder
+    public static final boolean ENABLED = false;
+    public static final int MAX_FILES = 20;
+    public static final long MAX_BYTES = 30L * 1024 * 1024;
+
+    private final File directory;
+    private final int maxFiles;
+    private final long maxBytes;
+    private final ExecutorService writeExecutor;
+
+    public DiagnosticCaptureRecorder(File directory, int maxFiles, long maxBytes) {
+        this.directory = directory;
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+        this.writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+                runnable.run();
+            }, "diagnostic-capture");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue the already-encoded upload bytes for writing. Returns immediately.
+     */
+    public void record(final CapturedImage image, final int captureMode) {
+        writeExecutor.execute(() -> {
+            if (!directory.exists() && !directory.mkdirs()) {
+                Log.w(TAG, "Could not create " + directory);
+                return;
+            }
+            File file = new File(directory, FILE_PREFIX + System.currentTimeMillis() + "_mode" + captureMode + ".jpg");
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.getChannel().write(image.getJpegBuffer());
+                Log.d(TAG, "Diagnostic capture saved to: " + file.getAbsolutePath());
+            } catch (IOException e) {
+                Log.e(TAG, "Error saving diagnostic capture", e);
+                file.delete();
+            }
+            enforceQuota();
+        });
+    }
+
+    /**
+     * Remove the unbounded ocr_debug_image_*.jpg dumps written by earlier versions.
+     */
+    public static void deleteLegacyDebugImages(File directory) {
+        File[] files = directory != null
+                ? directory.listFiles((dir, name) -> name.startsWith("ocr_debug_image_")) : null;
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            file.delete();
+        }
+        if (files.length > 0) {
+            Log.d(TAG, "Deleted " + files.length + " legacy debug images.");
+        }
+    }
+
+    public void shutdown() {
+        writeExecutor.shutdown();
+    }
+
+    private void enforceQuota() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        int count = files.length;
+        for (int i = 0; i < files.length && (count > maxFiles || totalBytes > maxBytes); i++) {
+            long size = files[i].length();
+            if (files[i].delete()) {
+                count--;
+                totalBytes -= size;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.exp3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the EXIF orientation tag of a JPEG without decoding it. Camera JPEGs carry their
+ * rotation there; frames compressed from YUV have no EXIF and are stored as the sensor saw them.
+ */
+public final class ExifOrientation {
+
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int IFD_ENTRY_SIZE = 12;
+    // "Exif\0\0" ahead of the TIFF header in the APP1 payload
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * Clockwise rotation the EXIF orientation asks for: 0, 90, 180 or 270. Returns 0 when the
+     * JPEG has no orientation tag or a mirrored one.
+     */
+    public static int rotationDegrees(ByteBuffer jpeg) {
+        ByteBuffer buffer = jpeg.slice();
+        int end = buffer.limit();
+        if (end < 4 || (buffer.get(0) & 0xFF) != 0xFF || (buffer.get(1) & 0xFF) != 0xD8) {
+            return 0;
+        }
+        int offset = 2;
+        while (offset + 4 <= end && (buffer.get(offset) & 0xFF) == 0xFF) {
+            int marker = buffer.get(offset + 1) & 0xFF;
+            if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                break;
+            }
+            int segmentEnd = offset + 2 + (buffer.getShort(offset + 2) & 0xFFFF);
+            if (marker == MARKER_APP1 && isExif(buffer, offset + 4, Math.min(segmentEnd, end))) {
+                return toDegrees(readOrientation(buffer, offset + 4 + EXIF_HEADER.length, Math.min(segmentEnd, end)));
+            }
+            offset = segmentEnd;
+        }
+        return 0;
+    }
+
+    private static boolean isExif(ByteBuffer buffer, int start, int end) {
+        if (end - start < EXIF_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < EXIF_HEADER.length; i++) {
+            if (buffer.get(start + i) != EXIF_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The orientation value in IFD0 of the TIFF block at [tiff, end), or 1 (upright) if absent. */
+    private static int readOrientation(ByteBuffer buffer, int tiff, int end) {
+        if (end - tiff < 8) {
+            return 1;
+        }
+        ByteBuffer ordered = buffer.duplicate();
+        ordered.order(buffer.get(tiff) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        long ifd = tiff + (ordered.getInt(tiff + 4) & 0xFFFFFFFFL);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int entries = ordered.getShort((int) ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * IFD_ENTRY_SIZE;
+            if (entry + IFD_ENTRY_SIZE > end) {
+                break;
+            }
+            if ((ordered.getShort(entry) & 0xFFFF) == TAG_ORIENTATION) {
+                // A SHORT value sits left-aligned in the entry's value field
+                return ordered.getShort(entry + 8) & 0xFFFF;
+            }
+        }
+        return 1;
+    }
+
+    private static int toDegrees(int orientation) {
+        switch (orientation) {
+            case 3:
+                return 180;
+            case 6:
+                return 90;
+            case 8:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+}
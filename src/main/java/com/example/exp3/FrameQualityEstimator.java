@@ -0,0 +1,161 @@
+package com.example.exp3;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Judges on the device whether a camera frame is worth uploading, from its luma plane
+ * only: a histogram catches frames that are mostly black or washed out, and the variance
+ * of the Laplacian catches defocus and motion blur, which flatten the second derivative.
+ * Both work on a 2x2 binned copy of the plane, which keeps sensor noise from passing for
+ * detail; a 1280x960 frame costs a few milliseconds.
+ */
+public class FrameQualityEstimator {
+
+    public enum Verdict {
+        OK,
+        BLURRY,
+        TOO_DARK,
+        TOO_BRIGHT
+    }
+
+    public static final class Quality {
+        public final Verdict verdict;
+        public final float laplacianVariance;
+        public final float meanLuma;
+        // Share of binned pixels below DARK_LEVEL and above BRIGHT_LEVEL
+        public final float darkFraction;
+        public final float brightFraction;
+
+        Quality(Verdict verdict, float laplacianVariance, float meanLuma, float darkFraction, float brightFraction) {
+            this.verdict = verdict;
+            this.laplacianVariance = laplacianVariance;
+            this.meanLuma = meanLuma;
+            this.darkFraction = darkFraction;
+            this.brightFraction = brightFraction;
+        }
+
+        public boolean isAcceptable() {
+            return verdict == Verdict.OK;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s (laplacianVar=%.0f mean=%.0f dark=%.2f bright=%.2f)",
+                    verdict, laplacianVariance, meanLuma, darkFraction, brightFraction);
+        }
+    }
+
+    static final int DARK_LEVEL = 48;
+    static final int BRIGHT_LEVEL = 245;
+
+    private final float minLaplacianVariance;
+    private final float maxDarkFraction;
+    private final float maxBrightFraction;
+
+    // Reused across frames; an estimator is only used from one thread at a time
+    private byte[] luma;
+    private int[] binned;
+
+    /**
+     * @param minLaplacianVariance below this a frame is too blurry to read
+     * @param maxDarkFraction share of dark pixels above which a frame is too dark
+     * @param maxBrightFraction share of blown-out pixels above which a frame is washed out by glare
+     */
+    public FrameQualityEstimator(float minLaplacianVariance, float maxDarkFraction, float maxBrightFraction) {
+        this.minLaplacianVariance = minLaplacianVariance;
+        this.maxDarkFraction = maxDarkFraction;
+        this.maxBrightFraction = maxBrightFraction;
+    }
+
+    /**
+     * Estimate from a YUV_420_888 frame without converting or copying more than the Y plane.
+     * Leaves the image open.
+     */
+    public Quality estimate(ImageProxy image) {
+        // The Y plane always has a pixel stride of 1; rows may be padded
+        ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+        ByteBuffer buffer = yPlane.getBuffer();
+        int length = buffer.remaining();
+        if (luma == null || luma.length < length) {
+            luma = new byte[length];
+        }
+        int position = buffer.position();
+        buffer.get(luma, 0, length);
+        buffer.position(position);
+        return estimate(luma, image.getWidth(), image.getHeight(), yPlane.getRowStride());
+    }
+
+    public Quality estimate(byte[] luma, int width, int height, int rowStride) {
+        // 2x2 binning: each binned pixel is the sum of four, so sensor noise averages out
+        // while text strokes keep their edges
+        int binnedWidth = width / 2;
+        int binnedHeight = height / 2;
+        if (binnedWidth < 3 || binnedHeight < 3) {
+            return new Quality(Verdict.TOO_DARK, 0, 0, 1, 0);
+        }
+        int binnedSize = binnedWidth * binnedHeight;
+        if (binned == null || binned.length < binnedSize) {
+            binned = new int[binnedSize];
+        }
+        int[] sums = binned;
+        int[] histogram = new int[256];
+        for (int by = 0; by < binnedHeight; by++) {
+            int top = 2 * by * rowStride;
+            int bottom = top + rowStride;
+            int out = by * binnedWidth;
+            for (int bx = 0; bx < binnedWidth; bx++) {
+                int x = 2 * bx;
+                int sum = (luma[top + x] & 0xFF) + (luma[top + x + 1] & 0xFF)
+                        + (luma[bottom + x] & 0xFF) + (luma[bottom + x + 1] & 0xFF);
+                sums[out + bx] = sum;
+                histogram[sum >> 2]++;
+            }
+        }
+
+        long laplacianSum = 0;
+        long laplacianSquares = 0;
+        for (int by = 1; by + 1 < binnedHeight; by++) {
+            int row = by * binnedWidth;
+            for (int bx = 1; bx + 1 < binnedWidth; bx++) {
+                int i = row + bx;
+                long laplacian = 4 * sums[i] - sums[i - 1] - sums[i + 1] - sums[i - binnedWidth] - sums[i + binnedWidth];
+                laplacianSum += laplacian;
+                laplacianSquares += laplacian * laplacian;
+            }
+        }
+        int laplacianSamples = (binnedWidth - 2) * (binnedHeight - 2);
+
+        long lumaSum = 0;
+        int dark = 0;
+        int bright = 0;
+        for (int level = 0; level < 256; level++) {
+            lumaSum += (long) level * histogram[level];
+            if (level < DARK_LEVEL) {
+                dark += histogram[level];
+            } else if (level > BRIGHT_LEVEL) {
+                bright += histogram[level];
+            }
+        }
+        // Sums are four times the mean luma, so the variance is sixteen times too large
+        double mean = laplacianSum / (double) laplacianSamples;
+        float variance = (float) ((laplacianSquares / (double) laplacianSamples - mean * mean) / 16);
+        float darkFraction = dark / (float) binnedSize;
+        float brightFraction = bright / (float) binnedSize;
+
+        // Exposure first: a dark or blown-out frame has little contrast and would also look blurred
+        Verdict verdict;
+        if (darkFraction > maxDarkFraction) {
+            verdict = Verdict.TOO_DARK;
+        } else if (brightFraction > maxBrightFraction) {
+            verdict = Verdict.TOO_BRIGHT;
+        } else if (variance < minLaplacianVariance) {
+            verdict = Verdict.BLURRY;
+        } else {
+            verdict = Verdict.OK;
+        }
+        return new Quality(verdict, variance, lumaSum / (float) binnedSize, darkFraction, brightFraction);
+    }
+}
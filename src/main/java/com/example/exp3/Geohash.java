@@ -0,0 +1,163 @@
+package com.example.exp3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash cells for bucketing places by position: points in the same cell share a hash,
+ * and the few cells a search circle touches can be listed directly instead of scanning
+ * every stored place.
+ */
+final class Geohash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_METERS = 6371000;
+    private static final double METERS_PER_DEGREE_LATITUDE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+    private Geohash() {
+    }
+
+    static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        // Bits alternate longitude, latitude, starting with longitude
+        boolean longitudeBit = true;
+        int bits = 0;
+        int value = 0;
+        int length = 0;
+        while (length < precision) {
+            if (longitudeBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            longitudeBit = !longitudeBit;
+            if (++bits == 5) {
+                hash[length++] = BASE32.charAt(value);
+                bits = 0;
+                value = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    /** Latitude and longitude of the center of a cell. */
+    static double[] decodeCenter(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        boolean longitudeBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int value = BASE32.indexOf(hash.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Not a geohash: " + hash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((value >> bit) & 1) != 0;
+                if (longitudeBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) {
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                longitudeBit = !longitudeBit;
+            }
+        }
+        return new double[]{(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+
+    static double cellHeightDegrees(int precision) {
+        return 180.0 / (1L << (precision * 5 / 2));
+    }
+
+    static double cellWidthDegrees(int precision) {
+        return 360.0 / (1L << ((precision * 5 + 1) / 2));
+    }
+
+    /**
+     * Every cell overlapping the box around a circle, so any point within the radius is in
+     * one of them whatever the latitude or the radius compared to the cell size.
+     */
+    static List<String> cellsCovering(double latitude, double longitude, double radiusMeters, int precision) {
+        double latitudeDelta = radiusMeters / METERS_PER_DEGREE_LATITUDE;
+        double longitudeDelta = radiusMeters
+                / (METERS_PER_DEGREE_LATITUDE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        double minLat = Math.max(-90, latitude - latitudeDelta);
+        double maxLat = Math.min(90, latitude + latitudeDelta);
+        double minLon = longitude - Math.min(180, longitudeDelta);
+        double maxLon = longitude + Math.min(180, longitudeDelta);
+        double height = cellHeightDegrees(precision);
+        double width = cellWidthDegrees(precision);
+
+        // Samples at most one cell apart from edge to edge hit every cell in between
+        List<String> cells = new ArrayList<>();
+        for (double lat = minLat; ; lat = Math.min(maxLat, lat + height)) {
+            for (double lon = minLon; ; lon = Math.min(maxLon, lon + width)) {
+                String cell = encode(lat, normalizeLongitude(lon), precision);
+                if (!cells.contains(cell)) {
+                    cells.add(cell);
+                }
+                if (lon >= maxLon) {
+                    break;
+                }
+            }
+            if (lat >= maxLat) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    /** Great-circle distance (haversine). */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /** Initial great-circle bearing from the first point to the second, degrees clockwise from north. */
+    static double bearingDegrees(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        if (longitude >= 180) {
+            return longitude - 360;
+        }
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed Analyze Image v3.2 response. Holds every field the scene narration and
+ * {@link ObjectAnalyzer} use; features that were not requested are simply empty.
+ */
+public final class ImageAnalysisResult {
+
+    @Nullable
+    private final String caption;
+    private final List<String> objectNames;
+    private final List<String> dominantColors;
+    private final List<String> tagNames;
+
+    ImageAnalysisResult(@Nullable String caption, List<String> objectNames, List<String> dominantColors,
+                        List<String> tagNames) {
+        this.caption = caption;
+        this.objectNames = Collections.unmodifiableList(objectNames);
+        this.dominantColors = Collections.unmodifiableList(dominantColors);
+        this.tagNames = Collections.unmodifiableList(tagNames);
+    }
+
+    public static ImageAnalysisResult parse(String jsonResponse) throws JSONException {
+        JSONObject root = new JSONObject(jsonResponse);
+
+        String caption = null;
+        JSONObject description = root.optJSONObject("description");
+        if (description != null) {
+            JSONArray captions = description.optJSONArray("captions");
+            if (captions != null && captions.length() > 0 && captions.getJSONObject(0).has("text")) {
+                caption = captions.getJSONObject(0).getString("text");
+            }
+        }
+
+        List<String> objectNames = new ArrayList<>();
+        JSONArray objects = root.optJSONArray("objects");
+        if (objects != null) {
+            for (int i = 0; i < objects.length(); i++) {
+                JSONObject objectItem = objects.getJSONObject(i);
+                if (objectItem.has("object")) {
+                    objectNames.add(objectItem.getString("object"));
+                }
+            }
+        }
+
+        List<String> dominantColors = new ArrayList<>();
+        JSONObject color = root.optJSONObject("color");
+        if (color != null) {
+            JSONArray colors = color.optJSONArray("dominantColors");
+            if (colors != null) {
+                for (int i = 0; i < colors.length(); i++) {
+                    dominantColors.add(colors.getString(i));
+                }
+            }
+        }
+
+        List<String> tagNames = new ArrayList<>();
+        JSONArray tags = root.optJSONArray("tags");
+        if (tags != null) {
+            for (int i = 0; i < tags.length(); i++) {
+                JSONObject tag = tags.getJSONObject(i);
+                if (tag.has("name")) {
+                    tagNames.add(tag.getString("name"));
+                }
+            }
+        }
+
+        return new ImageAnalysisResult(caption, objectNames, dominantColors, tagNames);
+    }
+
+    @Nullable
+    public String getCaption() {
+        return caption;
+    }
+
+    public List<String> getObjectNames() {
+        return objectNames;
+    }
+
+    public List<String> getDominantColors() {
+        return dominantColors;
+    }
+
+    /**
+     * Tag names in the order returned by the service (highest confidence first).
+     */
+    public List<String> getTagNames() {
+        return tagNames;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.exp3;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Picks upload resolution and JPEG quality per analysis mode. OCR of small print keeps
+ * the full sensor resolution; scene, currency and object analysis are downscaled, which
+ * cuts upload bytes and server latency. Every result respects the Azure size limits.
+ */
+public class ImagePreparer {
+
+    private static final String TAG = "ImagePreparer";
+    private static final int MIN_JPEG_QUALITY = 50;
+
+    static final class Profile {
+        final int maxLongEdge;
+        final int jpegQuality;
+        final int maxBytes;
+
+        Profile(int maxLongEdge, int jpegQuality, int maxBytes) {
+            this.maxLongEdge = maxLongEdge;
+            this.jpegQuality = jpegQuality;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    static Profile profileFor(int captureMode) {
+        switch (captureMode) {
+            case MainActivity.CAPTURE_MODE_OCR:
+                return new Profile(AzureConfig.ReadAPI.MAX_IMAGE_DIMENSION, 90, AzureConfig.ReadAPI.MAX_IMAGE_BYTES);
+            case MainActivity.CAPTURE_MODE_CURRENCY:
+            case MainActivity.CAPTURE_MODE_SHORT_TEXT:
+                return new Profile(1600, 85, AzureConfig.ReadAPI.MAX_IMAGE_BYTES);
+            case MainActivity.CAPTURE_MODE_OBJECT_DETAIL:
+                return new Profile(1280, 85, AzureConfig.ObjectAndColorAnalysis.MAX_IMAGE_BYTES);
+            case MainActivity.CAPTURE_MODE_SCENE_ANALYSIS:
+            default:
+                if (AzureConfig.CombinedAnalysis.ENABLED) {
+                    // The result may also answer an object question, so keep the object detail resolution
+                    return new Profile(1280, 85, AzureConfig.CombinedAnalysis.MAX_IMAGE_BYTES);
+                }
+                return new Profile(1024, 80, AzureConfig.AnalyzeScene.MAX_IMAGE_BYTES);
+        }
+    }
+
+    /**
+     * Return an image suitable for the mode. The capture is passed through untouched
+     * when it already fits the profile and its EXIF tells the service how to turn it
+     * upright; otherwise it is decoded (subsampled where possible), rotated upright,
+     * scaled and re-encoded.
+     */
+    public CapturedImage prepare(CapturedImage image, int captureMode) {
+        Profile profile = profileFor(captureMode);
+        int longEdge = Math.max(image.getWidth(), image.getHeight());
+        // Frames compressed from YUV have no EXIF, so their rotation has to go into the pixels
+        if (longEdge <= profile.maxLongEdge && image.getJpegSize() <= profile.maxBytes
+                && ExifOrientation.rotationDegrees(image.getJpegBuffer()) == image.getRotationDegrees()) {
+            return image;
+        }
+
+        long startMs = SystemClock.elapsedRealtime();
+        byte[] source = new byte[image.getJpegSize()];
+        image.getJpegBuffer().get(source);
+
+        // Power-of-two subsampling during decode keeps peak memory low
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (longEdge / (options.inSampleSize * 2) >= profile.maxLongEdge) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap decoded = BitmapFactory.decodeByteArray(source, 0, source.length, options);
+        if (decoded == null) {
+            Log.w(TAG, "Could not decode capture for downscaling, uploading original.");
+            return image;
+        }
+
+        float scale = Math.min(1f, profile.maxLongEdge / (float) Math.max(decoded.getWidth(), decoded.getHeight()));
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        // Re-encoding drops the EXIF orientation, so bake the rotation into the pixels
+        matrix.postRotate(image.getRotationDegrees());
+        Bitmap prepared = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+        if (prepared != decoded) {
+            decoded.recycle();
+        }
+
+        byte[] jpeg = null;
+        for (int quality = profile.jpegQuality; quality >= MIN_JPEG_QUALITY; quality -= 10) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            prepared.compress(Bitmap.CompressFormat.JPEG, quality, out);
+            jpeg = out.toByteArray();
+            if (jpeg.length <= profile.maxBytes) {
+                break;
+            }
+        }
+        CapturedImage result = new CapturedImage(jpeg, prepared.getWidth(), prepared.getHeight(), 0,
+                image.getCaptureTimeMs());
+        prepared.recycle();
+
+        Log.d(TAG, "Prepared capture for mode " + captureMode + ": " + image.getWidth() + "x" + image.getHeight()
+                + " (" + image.getJpegSize() + " B) -> " + result.getWidth() + "x" + result.getHeight()
+                + " (" + result.getJpegSize() + " B) in " + (SystemClock.elapsedRealtime() - startMs) + " ms");
+        return result;
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.exp3;
+
+import org.json.JSONException;
+
+/**
+ * Minimal pull parser over a JSON string, in the style of {@code android.util.JsonReader}
+ * but without a Reader, token objects or a stack of states. Values that are skipped
+ * are scanned in place, so only the strings and numbers actually read are allocated.
+ */
+final class JsonCursor {
+
+    enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final String json;
+    private final int length;
+    private int pos;
+    // True right after a name or value, when a ',' may follow
+    private boolean afterValue;
+    // True inside an object when the next string is a member name
+    private boolean expectName;
+    // Bit per nesting level: 1 for objects, 0 for arrays (64 levels is ample for Azure responses)
+    private long containerBits;
+    private int depth;
+
+    JsonCursor(String json) {
+        this.json = json;
+        this.length = json.length();
+    }
+
+    Token peek() throws JSONException {
+        skipWhitespaceAndComma();
+        if (pos >= length) {
+            return Token.END_DOCUMENT;
+        }
+        char c = json.charAt(pos);
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return expectName ? Token.NAME : Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + c + "'");
+        }
+    }
+
+    boolean hasNext() throws JSONException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws JSONException {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(true);
+    }
+
+    void endObject() throws JSONException {
+        expect(Token.END_OBJECT);
+        pos++;
+        pop();
+    }
+
+    void beginArray() throws JSONException {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(false);
+    }
+
+    void endArray() throws JSONException {
+        expect(Token.END_ARRAY);
+        pos++;
+        pop();
+    }
+
+    String nextName() throws JSONException {
+        expect(Token.NAME);
+        String name = readString();
+        skipWhitespace();
+        if (pos >= length || json.charAt(pos) != ':') {
+            throw syntaxError("Expected ':'");
+        }
+        pos++;
+        expectName = false;
+        afterValue = false;
+        return name;
+    }
+
+    String nextString() throws JSONException {
+        expect(Token.STRING);
+        String value = readString();
+        valueRead();
+        return value;
+    }
+
+    double nextDouble() throws JSONException {
+        expect(Token.NUMBER);
+        int start = pos;
+        // Fast path for plain decimals (coordinates, confidences): exact when the digits fit
+        // in 2^53 and the divisor is an exactly representable power of ten
+        boolean negative = json.charAt(pos) == '-';
+        int i = negative ? pos + 1 : pos;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (digits > 0 && digits <= 15 && fractionDigits != 0 && fractionDigits < POWERS_OF_TEN.length
+                && (i >= length || !isNumberChar(json.charAt(i)))) {
+            pos = i;
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            valueRead();
+            return negative ? -value : value;
+        }
+        skipNumber();
+        double value;
+        try {
+            value = Double.parseDouble(json.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw syntaxError("Bad number");
+        }
+        valueRead();
+        return value;
+    }
+
+    int nextInt() throws JSONException {
+        expect(Token.NUMBER);
+        // Fast path for plain integers, the common case for page numbers and pixel boxes
+        int start = pos;
+        boolean negative = json.charAt(pos) == '-';
+        int i = negative ? pos + 1 : pos;
+        long value = 0;
+        while (i < length && json.charAt(i) >= '0' && json.charAt(i) <= '9' && value <= Integer.MAX_VALUE) {
+            value = value * 10 + (json.charAt(i) - '0');
+            i++;
+        }
+        if (i < length && isNumberChar(json.charAt(i)) || value > Integer.MAX_VALUE) {
+            pos = start;
+            return (int) nextDouble();
+        }
+        pos = i;
+        valueRead();
+        return (int) (negative ? -value : value);
+    }
+
+    boolean nextBoolean() throws JSONException {
+        expect(Token.BOOLEAN);
+        boolean value = json.startsWith("true", pos);
+        if (!value && !json.startsWith("false", pos)) {
+            throw syntaxError("Bad literal");
+        }
+        pos += value ? 4 : 5;
+        valueRead();
+        return value;
+    }
+
+    void nextNull() throws JSONException {
+        expect(Token.NULL);
+        if (!json.startsWith("null", pos)) {
+            throw syntaxError("Bad literal");
+        }
+        pos += 4;
+        valueRead();
+    }
+
+    /**
+     * Skip the next value, including nested objects and arrays, without allocating.
+     */
+    void skipValue() throws JSONException {
+        Token token = peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                int nesting = 0;
+                do {
+                    char c = json.charAt(pos);
+                    if (c == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (c == '{' || c == '[') {
+                        nesting++;
+                    } else if (c == '}' || c == ']') {
+                        nesting--;
+                    }
+                    pos++;
+                } while (nesting > 0 && pos < length);
+                if (nesting > 0) {
+                    throw syntaxError("Unterminated container");
+                }
+                valueRead();
+                break;
+            case STRING:
+                skipString();
+                valueRead();
+                break;
+            case NUMBER:
+                skipNumber();
+                valueRead();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            case NAME:
+                nextName();
+                skipValue();
+                break;
+            default:
+                throw syntaxError("Nothing to skip at " + token);
+        }
+    }
+
+    private void push(boolean isObject) throws JSONException {
+        if (depth == 64) {
+            throw syntaxError("Nesting too deep");
+        }
+        if (isObject) {
+            containerBits |= 1L << depth;
+        } else {
+            containerBits &= ~(1L << depth);
+        }
+        depth++;
+        expectName = isObject;
+        afterValue = false;
+    }
+
+    private void pop() {
+        depth--;
+        valueRead();
+    }
+
+    private void valueRead() {
+        afterValue = true;
+        expectName = depth > 0 && (containerBits & (1L << (depth - 1))) != 0;
+    }
+
+    private void expect(Token expected) throws JSONException {
+        Token actual = peek();
+        if (actual != expected) {
+            throw syntaxError("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private void skipWhitespaceAndComma() throws JSONException {
+        skipWhitespace();
+        if (afterValue && pos < length && json.charAt(pos) == ',') {
+            pos++;
+            afterValue = false;
+            skipWhitespace();
+        }
+    }
+
+    private String readString() throws JSONException {
+        int start = ++pos;
+        // No escapes is by far the common case: return a single substring
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                return json.substring(start, pos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        StringBuilder sb = new StringBuilder(pos - start + 16);
+        sb.append(json, start, pos);
+        while (pos < length) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= length) {
+                break;
+            }
+            char escaped = json.charAt(pos++);
+            switch (escaped) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (pos + 4 > length) {
+                        throw syntaxError("Bad unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("Bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    // '"', '\\' and '/'
+                    sb.append(escaped);
+                    break;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipString() throws JSONException {
+        pos++;
+        while (pos < length) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipNumber() {
+        while (pos < length && isNumberChar(json.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at offset " + pos);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.exp3;
+
+import java.util.Locale;
+
+/**
+ * Decides which frames of the live-scan stream are worth a network call. Checks run from
+ * cheapest to dearest: the frame rate cap and the in-flight limit before any pixel is
+ * read, then a {@link PerceptualHash} of the luma plane to skip frames taken while the
+ * camera moves or that show the view already submitted, and finally the blur and exposure
+ * check of a {@link FrameQualityEstimator}.
+ * Only used from the camera executor, apart from {@link #onResult()}.
+ */
+final class LiveScanGate {
+
+    enum Decision {
+        SUBMIT,
+        // Too soon after the previous analyzed frame
+        THROTTLED,
+        // The in-flight request limit is reached
+        BUSY,
+        // Large change since the previous frame: the camera is still moving
+        MOVING,
+        // Same view as the last submitted frame
+        UNCHANGED,
+        // Blurred, too dark or washed out
+        POOR_QUALITY
+    }
+
+    private final long minFrameIntervalMs;
+    private final int maxInFlight;
+    private final int maxMotionBits;
+    private final int minSceneChangeBits;
+    private final FrameQualityEstimator qualityEstimator;
+
+    private long lastAnalyzedMs = Long.MIN_VALUE;
+    private boolean hasPreviousHash;
+    private long previousHash;
+    private boolean hasSubmittedHash;
+    private long submittedHash;
+    private int inFlight;
+    private final int[] decisionCounts = new int[Decision.values().length];
+
+    /**
+     * @param maxFramesPerSecond frames analyzed per second at most; the rest are dropped unread
+     * @param maxInFlight submitted frames whose result is still pending
+     * @param maxMotionBits hash bits that may differ from the previous frame for the view to count as steady
+     * @param minSceneChangeBits hash bits that must differ from the last submitted frame
+     * @param qualityEstimator judges steady, new views before they are submitted
+     */
+    LiveScanGate(float maxFramesPerSecond, int maxInFlight, int maxMotionBits, int minSceneChangeBits,
+                 FrameQualityEstimator qualityEstimator) {
+        this.minFrameIntervalMs = (long) (1000 / maxFramesPerSecond);
+        this.maxInFlight = maxInFlight;
+        this.maxMotionBits = maxMotionBits;
+        this.minSceneChangeBits = minSceneChangeBits;
+        this.qualityEstimator = qualityEstimator;
+    }
+
+    /**
+     * Cheap pre-check, before the frame's pixels are touched. A frame that passes must be
+     * given to {@link #evaluate}.
+     */
+    boolean isFrameDue(long nowMs) {
+        if (lastAnalyzedMs != Long.MIN_VALUE && nowMs - lastAnalyzedMs < minFrameIntervalMs) {
+            count(Decision.THROTTLED);
+            return false;
+        }
+        synchronized (this) {
+            if (inFlight >= maxInFlight) {
+                count(Decision.BUSY);
+                return false;
+            }
+        }
+        lastAnalyzedMs = nowMs;
+        return true;
+    }
+
+    /**
+     * Judge a due frame. On {@link Decision#SUBMIT} the frame counts as in flight until
+     * {@link #onResult()}.
+     */
+    Decision evaluate(byte[] luma, int width, int height, int rowStride) {
+        long hash = PerceptualHash.dHash(luma, width, height, rowStride);
+        boolean steady = !hasPreviousHash || PerceptualHash.distance(hash, previousHash) <= maxMotionBits;
+        hasPreviousHash = true;
+        previousHash = hash;
+        Decision decision;
+        if (!steady) {
+            decision = Decision.MOVING;
+        } else if (hasSubmittedHash && PerceptualHash.distance(hash, submittedHash) < minSceneChangeBits) {
+            decision = Decision.UNCHANGED;
+        } else if (!qualityEstimator.estimate(luma, width, height, rowStride).isAcceptable()) {
+            decision = Decision.POOR_QUALITY;
+        } else {
+            decision = Decision.SUBMIT;
+            hasSubmittedHash = true;
+            submittedHash = hash;
+            synchronized (this) {
+                inFlight++;
+            }
+        }
+        count(decision);
+        return decision;
+    }
+
+    /**
+     * A submitted frame was answered or failed. Called from any thread.
+     */
+    synchronized void onResult() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    /**
+     * Start over for a new scan: forget the last views and any requests that were cancelled
+     * without a result.
+     */
+    synchronized void reset() {
+        hasPreviousHash = false;
+        hasSubmittedHash = false;
+        lastAnalyzedMs = Long.MIN_VALUE;
+        inFlight = 0;
+    }
+
+    synchronized String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Decision decision : Decision.values()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(decision.name().toLowerCase(Locale.US)).append('=').append(decisionCounts[decision.ordinal()]);
+        }
+        return sb.toString();
+    }
+
+    private synchronized void count(Decision decision) {
+        decisionCounts[decision.ordinal()]++;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.exp3;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import org.json.JSONException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Analyzer for the live-scan mode: the camera stays bound and frames from the analysis
+ * stream that pass the {@link LiveScanGate} are read (or described) in the background.
+ * Text is announced when it differs from what was last announced and objects when they
+ * were not in the previous answer, so a steady view is spoken once.
+ */
+public class LiveScanner implements ImageAnalysis.Analyzer {
+
+    private static final String TAG = "LiveScanner";
+
+    public enum Kind {
+        TEXT,
+        OBJECTS
+    }
+
+    /** Called on a network thread. */
+    public interface Listener {
+        void onText(String text, @Nullable String language);
+
+        void onObjects(List<String> newObjects);
+    }
+
+    private final VisionClient visionClient;
+    private final CaptureEncoder captureEncoder;
+    private final ImagePreparer imagePreparer;
+    private final LiveScanGate gate;
+    // The scanner's own calls, so stopping leaves other captures' calls running
+    private final VisionClient.CallGroup calls = new VisionClient.CallGroup();
+
+    // Camera executor only
+    private byte[] luma;
+
+    private volatile int generation;
+    private volatile boolean running;
+    private Kind kind;
+    private Listener listener;
+    @Nullable
+    private String lastTextKey;
+    private Set<String> lastObjects = new HashSet<>();
+
+    private int submitted;
+    private int answered;
+    private int announced;
+    private long totalResultMs;
+
+    public LiveScanner(VisionClient visionClient, CaptureEncoder captureEncoder, ImagePreparer imagePreparer,
+                       FrameQualityEstimator qualityEstimator, float maxFramesPerSecond, int maxInFlight,
+                       int maxMotionBits, int minSceneChangeBits) {
+        this.visionClient = visionClient;
+        this.captureEncoder = captureEncoder;
+        this.imagePreparer = imagePreparer;
+        this.gate = new LiveScanGate(maxFramesPerSecond, maxInFlight, maxMotionBits, minSceneChangeBits, qualityEstimator);
+    }
+
+    public synchronized void start(Kind kind, Listener listener) {
+        this.kind = kind;
+        this.listener = listener;
+        lastTextKey = null;
+        lastObjects = new HashSet<>();
+        gate.reset();
+        generation++;
+        running = true;
+    }
+
+    /**
+     * Stop announcing and drop the scanner's requests still in flight.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        generation++;
+        visionClient.cancel(calls);
+        Log.d(TAG, "Live scan stopped. " + getStatsSummary());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy image) {
+        try {
+            if (!running || !gate.isFrameDue(SystemClock.elapsedRealtime())) {
+                return;
+            }
+            // The Y plane always has a pixel stride of 1; rows may be padded
+            ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+            ByteBuffer buffer = yPlane.getBuffer();
+            int length = buffer.remaining();
+            if (luma == null || luma.length < length) {
+                luma = new byte[length];
+            }
+            int position = buffer.position();
+            buffer.get(luma, 0, length);
+            buffer.position(position);
+            LiveScanGate.Decision decision = gate.evaluate(luma, image.getWidth(), image.getHeight(), yPlane.getRowStride());
+            if (decision != LiveScanGate.Decision.SUBMIT) {
+                return;
+            }
+            CapturedImage encoded = captureEncoder.encode(image);
+            if (encoded == null) {
+                gate.onResult();
+                return;
+            }
+            submit(encoded);
+        } finally {
+            image.close();
+        }
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US, "submitted=%d answered=%d announced=%d avgResult=%d ms frames: %s",
+                submitted, answered, announced, answered == 0 ? 0 : totalResultMs / answered, gate.getStatsSummary());
+    }
+
+    private void submit(CapturedImage encoded) {
+        final int submitGeneration;
+        final Kind submitKind;
+        synchronized (this) {
+            submitGeneration = generation;
+            submitKind = kind;
+            submitted++;
+        }
+        if (submitKind == Kind.TEXT) {
+            final CapturedImage frame = imagePreparer.prepare(encoded, MainActivity.CAPTURE_MODE_SHORT_TEXT);
+            visionClient.read(frame, calls, new VisionClient.ReadCallback() {
+                @Override
+                public void onSubmitted() {
+                }
+
+                @Override
+                public void onSuccess(String responseBody) {
+                    onAnswer(frame, submitGeneration, responseBody);
+                }
+
+                @Override
+                public void onError(VisionClient.VisionError error) {
+                    Log.w(TAG, "Live scan read failed: " + error);
+                    gate.onResult();
+                }
+            });
+        } else {
+            final CapturedImage frame = imagePreparer.prepare(encoded, MainActivity.CAPTURE_MODE_SCENE_ANALYSIS);
+            visionClient.analyzeScene(frame, calls, new VisionClient.VisionCallback() {
+                @Override
+                public void onSuccess(String responseBody) {
+                    onAnswer(frame, submitGeneration, responseBody);
+                }
+
+                @Override
+                public void onError(VisionClient.VisionError error) {
+                    Log.w(TAG, "Live scan scene analysis failed: " + error);
+                    gate.onResult();
+                }
+            });
+        }
+    }
+
+    private void onAnswer(CapturedImage frame, int answerGeneration, String responseBody) {
+        gate.onResult();
+        Listener target;
+        Kind answerKind;
+        synchronized (this) {
+            if (!running || answerGeneration != generation) {
+                return;
+            }
+            answered++;
+            totalResultMs += SystemClock.elapsedRealtime() - frame.getCaptureTimeMs();
+            target = listener;
+            answerKind = kind;
+        }
+        try {
+            if (answerKind == Kind.TEXT) {
+                announceText(target, responseBody);
+            } else {
+                announceObjects(target, responseBody);
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Unreadable live scan result", e);
+        }
+    }
+
+    private void announceText(Listener target, String responseBody) throws JSONException {
+        OcrDocument document = ReadResultParser.parse(responseBody);
+        if (document == null) {
+            return;
+        }
+        document = OcrLayoutEngine.arrange(document);
+        String text = document.getReadingText("\n").trim();
+        String key = BurstRecognizer.textKey(text);
+        synchronized (this) {
+            if (key.equals(lastTextKey)) {
+                return;
+            }
+            // A blank view is not announced, but text seen again after it is
+            lastTextKey = key;
+            if (key.isEmpty()) {
+                return;
+            }
+            announced++;
+        }
+        String language = document.getLanguage();
+        target.onText(text, language != null ? language.split("-")[0] : null);
+    }
+
+    private void announceObjects(Listener target, String responseBody) throws JSONException {
+        List<String> names = ImageAnalysisResult.parse(responseBody).getObjectNames();
+        List<String> newObjects = new ArrayList<>();
+        synchronized (this) {
+            for (String name : names) {
+                if (!lastObjects.contains(name) && !newObjects.contains(name)) {
+                    newObjects.add(name);
+                }
+            }
+            lastObjects = new HashSet<>(names);
+            if (newObjects.isEmpty()) {
+                return;
+            }
+            announced++;
+        }
+        target.onObjects(newObjects);
+    }
+}
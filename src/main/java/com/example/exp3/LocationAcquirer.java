@@ -0,0 +1,318 @@
+package com.example.exp3;
+
+import android.annotation.SuppressLint;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.location.CurrentLocationRequest;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * One location fix per query. The last known location is used at once when it is recent
+ * and accurate; otherwise it races a fresh getCurrentLocation request, and the better of
+ * the two by accuracy and age is used once the fresh fix arrives or the time budget runs
+ * out (see {@link AzureConfig.LocationFix}). Records the time to a usable fix and its age.
+ * Main thread only, one query at a time. Fixes come from a {@link LocationSource} and the
+ * time budget from a {@link Timer}, the fused provider and the main looper in the app.
+ */
+public class LocationAcquirer {
+
+    private static final String TAG = "LocationAcquirer";
+
+    public interface Callback {
+        void onLocation(Location location);
+
+        /** @param error null if the provider simply had no usable fix */
+        void onFailure(@Nullable Exception error);
+    }
+
+    enum Source {
+        LAST_KNOWN,
+        CURRENT,
+        NONE
+    }
+
+    /** A location with the accuracy and time it is judged by. */
+    static final class Fix {
+        final Location location;
+        final float accuracyMeters;
+        // On the elapsedRealtime clock
+        final long timeMs;
+
+        Fix(Location location, float accuracyMeters, long timeMs) {
+            this.location = location;
+            this.accuracyMeters = accuracyMeters;
+            this.timeMs = timeMs;
+        }
+
+        static Fix of(Location location) {
+            return new Fix(location, location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE,
+                    location.getElapsedRealtimeNanos() / 1_000_000);
+        }
+    }
+
+    interface FixListener {
+        /** @param error set when the request failed, null when it had no fix or was cancelled */
+        void onFix(@Nullable Fix fix, @Nullable Exception error);
+    }
+
+    /** Answers each request once, on the main thread. */
+    interface LocationSource {
+        void getLastLocation(FixListener listener);
+
+        /**
+         * A fresh fix within durationMs; the source may answer with one up to maxAgeMs old.
+         * Returns what cancels the request.
+         */
+        Runnable getCurrentLocation(long durationMs, long maxAgeMs, FixListener listener);
+    }
+
+    /** Runs the time budget's end on the main thread. */
+    interface Timer {
+        void postDelayed(Runnable task, long delayMs);
+
+        void removeCallbacks(Runnable task);
+    }
+
+    private final LocationSource locationSource;
+    private final Timer timer;
+    // elapsedRealtime, the clock fixes are stamped with
+    private final LongSupplier clockMs;
+    @Nullable
+    private Attempt attempt;
+
+    private int queries;
+    private int fromLastKnown;
+    private int fromCurrent;
+    private int failures;
+    private long totalTimeToFixMs;
+    private long maxTimeToFixMs;
+    private long totalFixAgeMs;
+    private long maxFixAgeMs;
+
+    public LocationAcquirer(FusedLocationProviderClient client) {
+        this(new FusedSource(client), mainThreadTimer(), SystemClock::elapsedRealtime);
+    }
+
+    LocationAcquirer(LocationSource locationSource, Timer timer, LongSupplier clockMs) {
+        this.locationSource = locationSource;
+        this.timer = timer;
+        this.clockMs = clockMs;
+    }
+
+    /** The caller checks the location permission. Replaces a query still in progress. */
+    public void acquire(Callback callback) {
+        cancel();
+        attempt = new Attempt(callback);
+        attempt.start();
+    }
+
+    /** Drop the query in progress, if any, without calling back. */
+    public void cancel() {
+        if (attempt != null) {
+            attempt.finish();
+            attempt = null;
+        }
+    }
+
+    /**
+     * The accuracy radius grown by how far the user may have walked since the fix, so an
+     * older precise fix and a newer rough one compare fairly.
+     */
+    static double errorEstimateMeters(float accuracyMeters, long ageMs) {
+        return accuracyMeters + AzureConfig.LocationFix.ASSUMED_SPEED_MPS * ageMs / 1000.0;
+    }
+
+    static boolean isUsable(float accuracyMeters, long ageMs) {
+        return ageMs <= AzureConfig.LocationFix.MAX_AGE_MS
+                && accuracyMeters <= AzureConfig.LocationFix.MAX_ACCURACY_METERS;
+    }
+
+    /** Good enough to answer with without waiting for a fresh fix. */
+    static boolean isGoodEnough(float accuracyMeters, long ageMs) {
+        return ageMs <= AzureConfig.LocationFix.GOOD_AGE_MS
+                && accuracyMeters <= AzureConfig.LocationFix.GOOD_ACCURACY_METERS;
+    }
+
+    synchronized void record(Source source, long timeToFixMs, long fixAgeMs) {
+        queries++;
+        if (source == Source.NONE) {
+            failures++;
+            return;
+        }
+        if (source == Source.LAST_KNOWN) {
+            fromLastKnown++;
+        } else {
+            fromCurrent++;
+        }
+        totalTimeToFixMs += timeToFixMs;
+        maxTimeToFixMs = Math.max(maxTimeToFixMs, timeToFixMs);
+        totalFixAgeMs += fixAgeMs;
+        maxFixAgeMs = Math.max(maxFixAgeMs, fixAgeMs);
+    }
+
+    public synchronized String getStatsSummary() {
+        int fixes = fromLastKnown + fromCurrent;
+        return String.format(Locale.US, "queries=%d lastKnown=%d current=%d failed=%d avgTimeToFix=%d ms maxTimeToFix=%d ms avgFixAge=%d ms maxFixAge=%d ms",
+                queries, fromLastKnown, fromCurrent, failures,
+                fixes == 0 ? 0 : totalTimeToFixMs / fixes, maxTimeToFixMs,
+                fixes == 0 ? 0 : totalFixAgeMs / fixes, maxFixAgeMs);
+    }
+
+    private long ageMs(Fix fix) {
+        return Math.max(0, clockMs.getAsLong() - fix.timeMs);
+    }
+
+    private static Timer mainThreadTimer() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Timer() {
+            @Override
+            public void postDelayed(Runnable task, long delayMs) {
+                handler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void removeCallbacks(Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        };
+    }
+
+    /** The fused location provider; the caller checks the location permission. */
+    private static final class FusedSource implements LocationSource {
+        private final FusedLocationProviderClient client;
+
+        FusedSource(FusedLocationProviderClient client) {
+            this.client = client;
+        }
+
+        @SuppressLint("MissingPermission")
+        @Override
+        public void getLastLocation(FixListener listener) {
+            client.getLastLocation().addOnCompleteListener(task -> deliver(task, listener));
+        }
+
+        @SuppressLint("MissingPermission")
+        @Override
+        public Runnable getCurrentLocation(long durationMs, long maxAgeMs, FixListener listener) {
+            CancellationTokenSource cancellation = new CancellationTokenSource();
+            CurrentLocationRequest request = new CurrentLocationRequest.Builder()
+                    .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
+                    .setDurationMillis(durationMs)
+                    .setMaxUpdateAgeMillis(maxAgeMs)
+                    .build();
+            client.getCurrentLocation(request, cancellation.getToken()).addOnCompleteListener(task -> deliver(task, listener));
+            return cancellation::cancel;
+        }
+
+        private static void deliver(Task<Location> task, FixListener listener) {
+            if (task.isSuccessful()) {
+                Location location = task.getResult();
+                listener.onFix(location != null ? Fix.of(location) : null, null);
+            } else {
+                listener.onFix(null, task.isCanceled() ? null : task.getException());
+            }
+        }
+    }
+
+    private final class Attempt {
+        final Callback callback;
+        final long startMs = clockMs.getAsLong();
+        final Runnable timeout = this::deliver;
+        @Nullable
+        Runnable cancelCurrent;
+        @Nullable
+        Fix best;
+        Source bestSource = Source.NONE;
+        @Nullable
+        Exception error;
+        boolean lastKnownDone;
+        boolean currentDone;
+        boolean finished;
+
+        Attempt(Callback callback) {
+            this.callback = callback;
+        }
+
+        void start() {
+            timer.postDelayed(timeout, AzureConfig.LocationFix.TIMEOUT_MS);
+            locationSource.getLastLocation((fix, failure) -> {
+                lastKnownDone = true;
+                onCandidate(fix, failure, Source.LAST_KNOWN);
+            });
+            if (finished) {
+                // The last known fix was good enough and came back at once
+                return;
+            }
+            // The provider may answer from its own cache when that is recent enough
+            cancelCurrent = locationSource.getCurrentLocation(AzureConfig.LocationFix.TIMEOUT_MS,
+                    AzureConfig.LocationFix.GOOD_AGE_MS, (fix, failure) -> {
+                        currentDone = true;
+                        onCandidate(fix, failure, Source.CURRENT);
+                    });
+        }
+
+        void onCandidate(@Nullable Fix fix, @Nullable Exception failure, Source source) {
+            if (finished) {
+                return;
+            }
+            if (failure != null) {
+                Log.w(TAG, source + " location failed", failure);
+                error = failure;
+            }
+            if (fix != null) {
+                long age = ageMs(fix);
+                Log.d(TAG, String.format(Locale.US, "%s fix: accuracy=%.0f m age=%d ms", source, fix.accuracyMeters, age));
+                if (isUsable(fix.accuracyMeters, age) && (best == null
+                        || errorEstimateMeters(fix.accuracyMeters, age) < errorEstimateMeters(best.accuracyMeters, ageMs(best)))) {
+                    best = fix;
+                    bestSource = source;
+                }
+            }
+            if ((lastKnownDone && currentDone) || (best != null && isGoodEnough(best.accuracyMeters, ageMs(best)))) {
+                deliver();
+            }
+        }
+
+        void deliver() {
+            if (finished) {
+                return;
+            }
+            finish();
+            if (attempt == this) {
+                attempt = null;
+            }
+            long timeToFixMs = clockMs.getAsLong() - startMs;
+            if (best == null) {
+                record(Source.NONE, timeToFixMs, 0);
+                Log.d(TAG, "No usable fix after " + timeToFixMs + " ms. " + getStatsSummary());
+                callback.onFailure(error);
+                return;
+            }
+            long fixAgeMs = ageMs(best);
+            record(bestSource, timeToFixMs, fixAgeMs);
+            Log.d(TAG, String.format(Locale.US, "Using %s fix after %d ms: accuracy=%.0f m age=%d ms. %s",
+                    bestSource, timeToFixMs, best.accuracyMeters, fixAgeMs, getStatsSummary()));
+            callback.onLocation(best.location);
+        }
+
+        void finish() {
+            finished = true;
+            timer.removeCallbacks(timeout);
+            if (cancelCurrent != null) {
+                cancelCurrent.run();
+            }
+        }
+    }
+}
@@ -4,23 +4,19 @@ import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.ImageFormat;
-import android.graphics.Rect;
-import android.graphics.YuvImage;
 import android.location.Location;
-import android.media.MediaPlayer;
+import android.net.TrafficStats;
+import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
-import android.text.Html;
+import android.text.TextUtils;
 import android.util.Log;
-import android.util.Size;
 import android.view.View;
 import android.widget.Button;
 import android.widget.LinearLayout;
@@ -29,32 +25,31 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
-import androidx.camera.core.Preview;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import androidx.lifecycle.LifecycleOwner;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -69,10 +64,8 @@ import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
 import okhttp3.Response;
 
 public class MainActivity extends AppCompatActivity {
@@ -80,19 +73,45 @@ public class MainActivity extends AppCompatActivity {
     private static final String TAG = "VoiceAssistant";
     private static final int REQUEST_PERMISSIONS_CODE = 100;
 
-    private static final int CAPTURE_MODE_OCR = 1;
-    private static final int CAPTURE_MODE_SCENE_ANALYSIS = 2;
+    static final int CAPTURE_MODE_OCR = 1;
+    static final int CAPTURE_MODE_SCENE_ANALYSIS = 2;
     private int currentCaptureMode;
     // ... (other constants like CAPTURE_MODE_OCR, etc.)
-    private static final int CAPTURE_MODE_OBJECT_DETAIL = 4; // New mode
+    static final int CAPTURE_MODE_OBJECT_DETAIL = 4; // New mode
+    static final int CAPTURE_MODE_SHORT_TEXT = 5;
+    static final int CAPTURE_MODE_LIVE_SCAN = 6;
+    // Azure Maps POI categories for "where am I"
+    static final String POI_BUS_STOP = "bus stop";
+    static final String POI_RAILWAY_STATION = "railway station";
 
     // ... (other fields like speechRecognizer, httpClient, etc.)
     private ObjectAnalyzer objectAnalyzer; // New analyzer instance
     private SpeechRecognizer speechRecognizer;
     private FusedLocationProviderClient fusedLocationClient;
+    private LocationAcquirer locationAcquirer;
     private OkHttpClient httpClient;
-    private MediaPlayer mediaPlayer;
-    private Handler pollingHandler;
+    private StreamingAudioPlayer audioPlayer;
+    private ExecutorService ttsPrefetchExecutor;
+    private VisionClient visionClient;
+    private CaptureResultCache captureResultCache;
+    private OcrReadingStore ocrReadingStore;
+    private final OcrNavigator ocrNavigator = new OcrNavigator();
+    private BurstRecognizer burstRecognizer;
+    // Camera executor only
+    private long lastBurstFrameMs;
+    private int burstFramesOffered;
+    private final Runnable burstTimeout = () -> {
+        Log.w(TAG, "Burst timed out waiting for frames.");
+        stopBurstFrames();
+    };
+    private LiveScanner liveScanner;
+    private LiveScanner.Kind liveScanKind = LiveScanner.Kind.TEXT;
+    private final Runnable liveScanTimeout = () -> {
+        Log.d(TAG, "Live scan reached its time limit.");
+        stopLiveScan();
+    };
+    private final RecentImageAnalysis recentImageAnalysis =
+            new RecentImageAnalysis(AzureConfig.CombinedAnalysis.RESULT_MAX_AGE_MS);
 
     private Button mainButton;
     private boolean isListening = false;
@@ -104,14 +123,50 @@ public class MainActivity extends AppCompatActivity {
     private double busStopDistance = -1;
     private String railwayStationName;
     private double railwayStationDistance = -1;
+    // Every result of the last searches, for "the next one" and "which direction"
+    private volatile PoiRanking busStopRanking;
+    private volatile PoiRanking railwayStationRanking;
+    private boolean lastPoiWasRailwayStation;
+    private NavigationTracker navigationTracker;
+    private long navigationIntervalMs;
+    private int navigationIntervalChanges;
+    // Network bytes and battery charge when navigation started, for usage per hour
+    private long navigationStartBytes;
+    private long navigationStartChargeMicroAh;
+    private final LocationCallback navigationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            Location location = result.getLastLocation();
+            if (location != null) {
+                onNavigationFix(location);
+            }
+        }
+    };
+    private final Runnable navigationTimeout = () -> {
+        Log.d(TAG, "Navigation reached its time limit.");
+        stopNavigation(true);
+    };
     private int pendingLocationRequests;
-    private static final int CAPTURE_MODE_CURRENCY = 3;
+    private PlaceCache placeCache;
+    static final int CAPTURE_MODE_CURRENCY = 3;
     private PreviewView cameraPreviewView;
     private LinearLayout voiceUIGroup;
     private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
-    private ImageCapture imageCapture;
+    private CameraSessionManager cameraSession;
     private ExecutorService cameraExecutor;
-    private ProcessCameraProvider mCameraProvider;
+    private TtsAudioCache ttsAudioCache;
+    private final CaptureEncoder captureEncoder = new CaptureEncoder();
+    private final ImagePreparer imagePreparer = new ImagePreparer();
+    private final CaptureMetrics captureMetrics = new CaptureMetrics();
+    // Camera executor only
+    private final FrameQualityEstimator frameQualityEstimator = newFrameQualityEstimator();
+    private long lastFrameQualityCheckMs;
+    private volatile FrameQualityEstimator.Quality latestFrameQuality;
+    private volatile long latestFrameQualityMs;
+    // Set after a capture was held back for quality, so the next tap captures regardless
+    private boolean frameQualityWarned;
+    private DiagnosticCaptureRecorder diagnosticRecorder;
+    private TtsWarmup ttsWarmup;
     // Add this with your other class member variables (e.g., near currentCaptureMode)
     private String currentOcrTtsLanguageCode = AzureConfig.Speech.EN_LANG_CODE; // Default to English
 
@@ -120,18 +175,24 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        pollingHandler = new Handler(Looper.getMainLooper());
         initializeComponents();
         requestPermissions();
         setupVoiceRecognition();
 
         cameraPreviewView = findViewById(R.id.cameraPreviewView);
         voiceUIGroup = findViewById(R.id.voiceUIGroup);
+        cameraSession = new CameraSessionManager(this, cameraPreviewView, AzureConfig.CameraSession.IDLE_TIMEOUT_MS);
         cameraExecutor = Executors.newSingleThreadExecutor();
+        final File externalFilesDir = getExternalFilesDir(null);
+        if (DiagnosticCaptureRecorder.ENABLED && externalFilesDir != null) {
+            diagnosticRecorder = new DiagnosticCaptureRecorder(new File(externalFilesDir, "diagnostic_captures"),
+                    DiagnosticCaptureRecorder.MAX_FILES, DiagnosticCaptureRecorder.MAX_BYTES);
+        }
+        cameraExecutor.execute(() -> DiagnosticCaptureRecorder.deleteLegacyDebugImages(externalFilesDir));
         cameraProviderFuture = ProcessCameraProvider.getInstance(this);
         cameraProviderFuture.addListener(() -> {
             try {
-                mCameraProvider = cameraProviderFuture.get();
+                cameraSession.setCameraProvider(cameraProviderFuture.get());
             } catch (Exception e) {
                 Log.e(TAG, "Error getting CameraProvider instance", e);
             }
@@ -143,6 +204,9 @@ public class MainActivity extends AppCompatActivity {
                 !AzureConfig.AZURE_SPEECH_KEY.equals("YOUR_AZURE_SPEECH_KEY_HERE");
         if (canSpeakWelcome) {
             speakText(getString(R.string.welcome_message), null, null);
+            ttsWarmup = new TtsWarmup(httpClient, ttsAudioCache, this);
+            ttsWarmup.start(AzureConfig.Speech.WARMUP_MAX_CONCURRENCY, (synthesized, alreadyCached, failed, elapsedMs) ->
+                    Log.d(TAG, "TTS prompts ready after " + elapsedMs + " ms (" + ttsAudioCache.getStatsSummary() + ")"));
         } else {
             Log.w(TAG, "Azure Speech Key not configured. Cannot speak welcome message via Azure.");
             Toast.makeText(this, "Azure Speech Key not set, welcome message skipped.", Toast.LENGTH_SHORT).show();
@@ -156,22 +220,38 @@ public class MainActivity extends AppCompatActivity {
     private void initializeComponents() {
         mainButton = findViewById(R.id.mainButton);
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        locationAcquirer = new LocationAcquirer(fusedLocationClient);
         httpClient = new OkHttpClient.Builder()
                 .connectTimeout(AzureConfig.CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .readTimeout(AzureConfig.READ_TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(AzureConfig.WRITE_TIMEOUT, TimeUnit.SECONDS)
                 .build();
-        mediaPlayer = new MediaPlayer();
-        mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-            Log.e(TAG, "MediaPlayer error: what=" + what + ", extra=" + extra);
-            if (isListening) {
-                isListening = false;
-                mainButton.setText(R.string.tap_to_speak);
+        ReadApiPoller readApiPoller = new ReadApiPoller(httpClient, PollingSchedule.fromConfig(), AzureConfig.AZURE_VISION_KEY,
+                AzureConfig.ReadAPI.POLLING_TIMEOUT_MS, AzureConfig.ReadAPI.MAX_POLLING_ATTEMPTS);
+        if (AzureConfig.ResultCache.ENABLED) {
+            captureResultCache = new CaptureResultCache(AzureConfig.ResultCache.MAX_MEMORY_ENTRIES,
+                    AzureConfig.ResultCache.PERSIST_TO_DISK ? new File(getCacheDir(), "vision_results") : null,
+                    AzureConfig.ResultCache.MAX_DISK_ENTRIES);
+        }
+        if (AzureConfig.PlaceCache.ENABLED) {
+            placeCache = PlaceStores.placeCache(this);
+            if (AzureConfig.PlacePrefetch.ENABLED) {
+                PlacePrefetchJobService.schedule(this);
             }
-            mp.reset();
-            return true;
-        });
-        mediaPlayer.setOnCompletionListener(mp -> Log.d(TAG, "MediaPlayer playback completed (default listener)."));
+        }
+        ocrReadingStore = new OcrReadingStore(AzureConfig.ReadingHistory.MAX_AGE_MS,
+                AzureConfig.ReadingHistory.PERSIST_TO_DISK ? new File(getCacheDir(), "ocr_readings") : null);
+        ocrReadingStore.deleteOldReadings(new File(getFilesDir(), "ocr_readings"));
+        visionClient = new VisionClient(httpClient, AzureConfig.AZURE_VISION_KEY, readApiPoller, captureResultCache,
+                AzureConfig.VISION_CALL_TIMEOUT_MS, AzureConfig.VISION_MAX_RETRIES);
+        burstRecognizer = new BurstRecognizer(visionClient, AzureConfig.Burst.MAX_FRAMES, AzureConfig.Burst.MAX_IN_FLIGHT,
+                AzureConfig.Burst.MIN_AGREEING_FRAMES, AzureConfig.Burst.MIN_SHARE);
+        liveScanner = new LiveScanner(visionClient, captureEncoder, imagePreparer, newFrameQualityEstimator(),
+                AzureConfig.LiveScan.MAX_FRAMES_PER_SECOND, AzureConfig.LiveScan.MAX_IN_FLIGHT,
+                AzureConfig.LiveScan.MAX_MOTION_BITS, AzureConfig.LiveScan.MIN_SCENE_CHANGE_BITS);
+        ttsAudioCache = new TtsAudioCache(new File(getCacheDir(), "tts_audio"), AzureConfig.Speech.AUDIO_CACHE_MAX_BYTES);
+        audioPlayer = new StreamingAudioPlayer(AzureConfig.Speech.OUTPUT_SAMPLE_RATE_HZ);
+        ttsPrefetchExecutor = Executors.newSingleThreadExecutor();
 
         mainButton.setOnClickListener(v -> {
             if (!isListening) {
@@ -181,7 +261,7 @@ public class MainActivity extends AppCompatActivity {
             }
         });
         mainButton.setTextSize(24);
-        objectAnalyzer = new ObjectAnalyzer(httpClient, this);
+        objectAnalyzer = new ObjectAnalyzer(visionClient, recentImageAnalysis, this);
     }
 
     private void requestPermissions() {
@@ -278,88 +358,165 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void processVoiceCommand(String command) {
-        if (command.contains("read kannada") || command.contains("read kannada text")) {
-            currentCaptureMode = CAPTURE_MODE_OCR;
+        if (command.contains("live scan") || command.contains("start scanning") || command.contains("scan text")
+                || command.contains("scan objects")) {
+            liveScanKind = command.contains("objects") ? LiveScanner.Kind.OBJECTS : LiveScanner.Kind.TEXT;
+            openCameraForMode(CAPTURE_MODE_LIVE_SCAN,
+                    getString(liveScanKind == LiveScanner.Kind.OBJECTS ? R.string.live_scan_objects_prompt : R.string.live_scan_prompt));
+        } else if (command.contains("repeat") || command.contains("next line") || command.contains("previous line")
+                || command.contains("next paragraph") || command.contains("previous paragraph")
+                || command.contains("from the top")) {
+            navigateLastReading(command);
+        } else if (command.contains("stop navigation") || command.contains("stop guiding")) {
+            stopNavigation(true);
+        } else if (command.contains("navigate") || command.contains("take me to") || command.contains("guide me")) {
+            startNavigation(command);
+        } else if (command.contains("next one") || command.contains("next bus stop") || command.contains("next station")) {
+            announceNextPoi(command);
+        } else if (command.contains("which direction") || command.contains("which way")) {
+            announcePoiDirection(command);
+        } else if (command.contains("read sign") || command.contains("read label")) {
+            openCameraForMode(CAPTURE_MODE_SHORT_TEXT, getString(R.string.short_text_prompt));
+        } else if (command.contains("read kannada") || command.contains("read kannada text")) {
             currentOcrTtsLanguageCode = AzureConfig.Speech.KN_LANG_CODE; // Set for Kannada TTS
             // You might want a more specific string resource for this prompt
-            speakText(getString(R.string.camera_opening) + " for Kannada text.", null, this::startCameraPreview);
+            openCameraForMode(CAPTURE_MODE_OCR, getString(R.string.camera_opening) + " for Kannada text.");
         }
         else if (command.contains("read this") || command.contains("read text")) {
-            currentCaptureMode = CAPTURE_MODE_OCR;
-            speakText(getString(R.string.camera_opening), null, this::startCameraPreview);
+            openCameraForMode(CAPTURE_MODE_OCR, getString(R.string.camera_opening));
         } else if (command.contains("where am i") || command.contains("location")) {
             getLocationAndPoiInfo();
         } else if (command.contains("what\'s around me") || command.contains("describe scene") || command.contains("what is this")) {
-            currentCaptureMode = CAPTURE_MODE_SCENE_ANALYSIS;
-            speakText(getString(R.string.scene_analysis_prompt), null, this::startCameraPreview);
+            ImageAnalysisResult recent = recentImageAnalysis.takeFollowUp(RecentImageAnalysis.Question.SCENE);
+            if (recent != null) { // Same view was just analyzed for an object question
+                speakText(narrateScene(recent), null, null);
+                return;
+            }
+            openCameraForMode(CAPTURE_MODE_SCENE_ANALYSIS, getString(R.string.scene_analysis_prompt));
         } else if (command.contains("identify currency") || command.contains("recognize money")) { // New command
-            currentCaptureMode = CAPTURE_MODE_CURRENCY;
-            speakText(getString(R.string.currency_recognition_prompt), null, this::startCameraPreview);
+            openCameraForMode(CAPTURE_MODE_CURRENCY, getString(R.string.currency_recognition_prompt));
         } else if (command.contains("analyse") || command.contains("describe this item") || command.contains("what is this thing")) { // New command
-            currentCaptureMode = CAPTURE_MODE_OBJECT_DETAIL;
-            speakText(getString(R.string.object_analysis_prompt), null, this::startCameraPreview);
+            ImageAnalysisResult recent = recentImageAnalysis.takeFollowUp(RecentImageAnalysis.Question.OBJECTS);
+            if (recent != null) { // Same view was just analyzed for a scene question
+                speakText(objectAnalyzer.describe(recent), null, null);
+                return;
+            }
+            openCameraForMode(CAPTURE_MODE_OBJECT_DETAIL, getString(R.string.object_analysis_prompt));
         } else {
             speakText(getString(R.string.command_help), null, null);
         }
     }
 
+    /**
+     * Replays part of the last OCR reading from {@link #ocrReadingStore}, without a capture
+     * or any network call.
+     */
+    private void navigateLastReading(String command) {
+        // The store forgets readings past their age; the navigator must not outlive it
+        OcrReading latest = ocrReadingStore.latest();
+        if (latest == null || latest.isEmpty()) {
+            speakText(getString(R.string.reading_nothing_to_navigate), null, null);
+            return;
+        }
+        if (!ocrNavigator.hasReading()) {
+            ocrNavigator.setReading(latest);
+        }
+        String text;
+        boolean backwards = false;
+        if (command.contains("next line")) {
+            text = ocrNavigator.nextLine();
+        } else if (command.contains("previous line")) {
+            text = ocrNavigator.previousLine();
+            backwards = true;
+        } else if (command.contains("next paragraph")) {
+            text = ocrNavigator.nextParagraph();
+        } else if (command.contains("previous paragraph")) {
+            text = ocrNavigator.previousParagraph();
+            backwards = true;
+        } else if (command.contains("from the top")) {
+            text = ocrNavigator.readFromTop();
+        } else {
+            text = ocrNavigator.repeat();
+        }
+        if (text == null) {
+            speakText(getString(backwards ? R.string.reading_start_of_text : R.string.reading_end_of_text), null, null);
+        } else {
+            speakText(text, ocrNavigator.getLanguage(), null);
+        }
+    }
+
+    /**
+     * Switch to a camera mode. The camera opens (or stays open from the last command) while
+     * the prompt is spoken, so it is usually ready by the time the preview is shown.
+     */
+    private void openCameraForMode(int captureMode, String prompt) {
+        currentCaptureMode = captureMode;
+        // The user is pointing at something new; a follow-up must not answer from the old view
+        recentImageAnalysis.clear();
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            cameraSession.open();
+        }
+        speakText(prompt, null, this::startCameraPreview);
+    }
+
     private void startCameraPreview() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
             speakText("I need camera permission.", null, null);
             return;
         }
 
-        if (mCameraProvider == null) {
+        if (!cameraSession.hasCameraProvider()) {
             cameraProviderFuture.addListener(() -> {
                 try {
-                    mCameraProvider = cameraProviderFuture.get();
-                    if (mCameraProvider != null) {
-                        bindCameraUseCases(mCameraProvider);
-                        runOnUiThread(() -> {
-                            cameraPreviewView.setVisibility(View.VISIBLE);
-                            voiceUIGroup.setVisibility(View.GONE);
-                        });
-                    } else {
-                        Log.e(TAG, "CameraProvider is null even after listener.");
-                        speakText("Failed to initialize camera provider.", null, null);
-                    }
+                    cameraSession.setCameraProvider(cameraProviderFuture.get());
+                    showCameraPreview();
                 } catch (Exception e) {
                     Log.e(TAG, "Error starting camera preview from future", e);
                     speakText("Failed to start camera.", null, null);
                 }
             }, ContextCompat.getMainExecutor(this));
         } else {
-            bindCameraUseCases(mCameraProvider);
-            runOnUiThread(() -> {
-                cameraPreviewView.setVisibility(View.VISIBLE);
-                voiceUIGroup.setVisibility(View.GONE);
-            });
+            showCameraPreview();
         }
         cameraPreviewView.setOnClickListener(v -> takePicture());
     }
 
-    @SuppressLint("UnsafeOptInUsageError")
-    private void bindCameraUseCases(@NonNull ProcessCameraProvider cameraProvider) {
-        Preview preview = new Preview.Builder().build();
-        CameraSelector cameraSelector = new CameraSelector.Builder()
-                .requireLensFacing(CameraSelector.LENS_FACING_BACK)
-                .build();
-        preview.setSurfaceProvider(cameraPreviewView.getSurfaceProvider());
-
-        imageCapture = new ImageCapture.Builder()
-                .setTargetRotation(cameraPreviewView.getDisplay().getRotation())
-                .build();
-
-        try {
-            cameraProvider.unbindAll();
-            cameraProvider.bindToLifecycle((LifecycleOwner) this, cameraSelector, preview, imageCapture);
-        } catch (Exception e) {
-            Log.e(TAG, "Use case binding failed", e);
+    /** Show the (already open) camera and set the analyzer the current mode needs. */
+    private void showCameraPreview() {
+        if (!cameraSession.open()) {
             speakText("Failed to bind camera use cases.", null, null);
+            return;
+        }
+        cameraSession.showPreview();
+        voiceUIGroup.setVisibility(View.GONE);
+        if (currentCaptureMode == CAPTURE_MODE_LIVE_SCAN) {
+            startLiveScan();
+        } else if (usesFrameQualityCheck(currentCaptureMode)) {
+            latestFrameQuality = null;
+            frameQualityWarned = false;
+            cameraSession.getImageAnalysis().setAnalyzer(cameraExecutor, this::checkFrameQuality);
         }
     }
 
+    /** Back to the voice UI; the camera stays open for a while in case another command follows. */
+    private void hideCameraPreview() {
+        cameraSession.hidePreview();
+        voiceUIGroup.setVisibility(View.VISIBLE);
+    }
+
     private void takePicture() {
+        if (currentCaptureMode == CAPTURE_MODE_LIVE_SCAN) {
+            stopLiveScan();
+            return;
+        }
+        if (isBurstMode(currentCaptureMode) && cameraSession.getImageAnalysis() != null) {
+            startBurst();
+            return;
+        }
+        if (usesFrameQualityCheck(currentCaptureMode) && holdBackForFrameQuality()) {
+            return;
+        }
+        ImageCapture imageCapture = cameraSession.getImageCapture();
         if (imageCapture == null) {
             Log.e(TAG, "ImageCapture use case is null. Cannot take picture.");
             speakText("Error preparing camera for capture.", null, null);
@@ -370,58 +527,44 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onCaptureSuccess(@NonNull ImageProxy imageProxy) {
                 Log.d(TAG, "CameraX: Image captured successfully.");
-                Bitmap bitmap = imageProxyToBitmap(imageProxy); // Your existing conversion
-                imageProxy.close(); // Close the ImageProxy as soon as you have the bitmap
+                CapturedImage encodedImage = captureEncoder.encode(imageProxy);
+                imageProxy.close(); // Close the ImageProxy as soon as the upload bytes exist
+                // Per-mode resolution/quality, done after the camera buffer is released
+                CapturedImage capturedImage = encodedImage != null
+                        ? imagePreparer.prepare(encodedImage, currentCaptureMode) : null;
 
                 // --- Start of Additions/Modifications ---
 
-                runOnUiThread(() -> { // Move UI updates that don't depend on the bitmap here
-                    cameraPreviewView.setVisibility(View.GONE);
-                    voiceUIGroup.setVisibility(View.VISIBLE);
-                    if (mCameraProvider != null) {
-                        mCameraProvider.unbindAll(); // Unbind camera early if possible
-                    }
-                });
+                runOnUiThread(MainActivity.this::hideCameraPreview); // Move UI updates that don't depend on the image here
 
-                if (bitmap != null) {
-                    // --- Add this block for debugging OCR ---
-                    try {
-                        File path = getExternalFilesDir(null); // Or getCacheDir()
-                        // Ensure path exists if using getExternalFilesDir (though it usually does)
-                        if (path != null && !path.exists()) {
-                            path.mkdirs();
-                        }
-                        File file = new File(path, "ocr_debug_image_" + System.currentTimeMillis() + ".jpg");
-                        FileOutputStream out = new FileOutputStream(file);
-                        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
-                        out.flush();
-                        out.close();
-                        Log.d(TAG, "Debug image saved to: " + file.getAbsolutePath());
-                    } catch (Exception e) { // Catch generic Exception for broader safety here
-                        Log.e(TAG, "Error saving debug image", e);
+                if (capturedImage != null) {
+                    if (diagnosticRecorder != null) {
+                        diagnosticRecorder.record(capturedImage, currentCaptureMode);
                     }
-                    // --- End of debug block ---
+
+                    captureMetrics.recordUpload(currentCaptureMode, capturedImage);
 
                     // Now proceed with processing based on capture mode
                     if (currentCaptureMode == CAPTURE_MODE_OCR) {
                         // Consider if "image_captured_processing" should be spoken before or after a slight delay
                         // or if the polling start message is sufficient.
                         // For now, let processImageWithAzureVision handle its own "processing" messages.
-                        processImageWithAzureVision(bitmap);
+                        processImageWithAzureVision(capturedImage);
                     } else if (currentCaptureMode == CAPTURE_MODE_SCENE_ANALYSIS) {
                         speakText(getString(R.string.analyzing_scene), null, null);
-                        analyzeSceneWithAzureAI(bitmap);
+                        analyzeSceneWithAzureAI(capturedImage);
                     } else if (currentCaptureMode == CAPTURE_MODE_CURRENCY) {
                         // speakText(getString(R.string.image_captured_processing), null, null); // Already handled by processImageForCurrency or its poll start
-                        processImageForCurrency(bitmap);
+                        processImageForCurrency(capturedImage);
                     } else if (currentCaptureMode == CAPTURE_MODE_OBJECT_DETAIL) {
                         runOnUiThread(() -> {
                             mainButton.setEnabled(false);
                             mainButton.setText(getString(R.string.analyzing_object_button));
                         });
-                        objectAnalyzer.analyzeImageDetails(bitmap, new ObjectAnalyzer.ObjectAnalysisCallback() {
+                        objectAnalyzer.analyzeImageDetails(capturedImage, new ObjectAnalyzer.ObjectAnalysisCallback() {
                             @Override
                             public void onObjectAnalysisSuccess(String description) {
+                                captureMetrics.recordCompletion(CAPTURE_MODE_OBJECT_DETAIL);
                                 runOnUiThread(() -> {
                                     speakText(description, null, null);
                                     mainButton.setEnabled(true);
@@ -431,6 +574,7 @@ public class MainActivity extends AppCompatActivity {
 
                             @Override
                             public void onObjectAnalysisError(String errorMessage) {
+                                captureMetrics.recordFailure(CAPTURE_MODE_OBJECT_DETAIL);
                                 runOnUiThread(() -> {
                                     speakText(errorMessage, null, null);
                                     mainButton.setEnabled(true);
@@ -439,18 +583,14 @@ public class MainActivity extends AppCompatActivity {
                             }
                         });
                     }
-                } else { // Bitmap is null
-                    Log.e(TAG, "Failed to convert ImageProxy to Bitmap.");
+                } else { // Encoding failed
+                    Log.e(TAG, "Failed to encode captured ImageProxy.");
                     speakText("Failed to process captured image.", null, null);
                     runOnUiThread(() -> { // Ensure UI is updated correctly on failure
                         mainButton.setEnabled(true);
                         mainButton.setText(R.string.tap_to_speak);
                         // Ensure camera UI is reset if it wasn't already
-                        cameraPreviewView.setVisibility(View.GONE);
-                        voiceUIGroup.setVisibility(View.VISIBLE);
-                        if (mCameraProvider != null) {
-                            mCameraProvider.unbindAll();
-                        }
+                        hideCameraPreview();
                     });
                 }
                 // --- End of Additions/Modifications ---
@@ -460,11 +600,7 @@ public class MainActivity extends AppCompatActivity {
             public void onError(@NonNull ImageCaptureException exception) {
                 Log.e(TAG, "CameraX: Image capture failed", exception);
                 runOnUiThread(() -> {
-                    cameraPreviewView.setVisibility(View.GONE);
-                    voiceUIGroup.setVisibility(View.VISIBLE);
-                    if (mCameraProvider != null) {
-                        mCameraProvider.unbindAll();
-                    }
+                    hideCameraPreview();
                     speakText("Failed to capture image: " + exception.getMessage(), null, null);
                     // Ensure button is re-enabled and text reset if an error occurs during capture
                     mainButton.setEnabled(true);
@@ -476,29 +612,28 @@ public class MainActivity extends AppCompatActivity {
 
 
 
-    private void analyzeSceneWithAzureAI(Bitmap bitmap) {
+    private void analyzeSceneWithAzureAI(CapturedImage capturedImage) {
         Log.d(TAG, "Analyzing scene with Azure AI Vision v3.2...");
         runOnUiThread(() -> {
             mainButton.setEnabled(false);
             mainButton.setText(getString(R.string.analyzing_scene_button));
         });
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, baos);
-        byte[] imageBytes = baos.toByteArray();
-        RequestBody body = RequestBody.create(imageBytes, MediaType.parse("application/octet-stream"));
-
-        Request request = new Request.Builder()
-                .url(AzureConfig.AnalyzeScene.getAnalyzeSceneUrl())
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_VISION_KEY)
-                .post(body)
-                .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        VisionClient.VisionCallback sceneCallback = new VisionClient.VisionCallback() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Azure Scene Analysis API (v3.2) call failed", e);
-                speakText(getString(R.string.error_scene_analysis), null, null);
+            public void onSuccess(String responseBodyString) {
+                try {
+                    ImageAnalysisResult result = ImageAnalysisResult.parse(responseBodyString);
+                    if (AzureConfig.CombinedAnalysis.ENABLED) {
+                        recentImageAnalysis.put(result, RecentImageAnalysis.Question.SCENE);
+                    }
+                    captureMetrics.recordCompletion(CAPTURE_MODE_SCENE_ANALYSIS);
+                    speakText(narrateScene(result), null, null);
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error parsing Scene Analysis (v3.2) JSON response", e);
+                    captureMetrics.recordFailure(CAPTURE_MODE_SCENE_ANALYSIS);
+                    speakText(getString(R.string.error_scene_analysis_parsing), null, null);
+                }
                 runOnUiThread(() -> {
                     mainButton.setEnabled(true);
                     mainButton.setText(R.string.tap_to_speak);
@@ -506,108 +641,54 @@ public class MainActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBodyString = response.body() != null ? response.body().string() : "null";
-                if (response.isSuccessful()) {
-                    Log.d(TAG, "Azure Scene Analysis API (v3.2) success. Response: " + responseBodyString);
-                    try {
-                        JSONObject jsonObject = new JSONObject(responseBodyString);
-                        String caption = null;
-                        if (jsonObject.has("description")) {
-                            JSONObject descriptionObj = jsonObject.getJSONObject("description");
-                            if (descriptionObj.has("captions")) {
-                                JSONArray captionsArray = descriptionObj.getJSONArray("captions");
-                                if (captionsArray.length() > 0 && captionsArray.getJSONObject(0).has("text")) {
-                                    caption = captionsArray.getJSONObject(0).getString("text");
-                                }
-                            }
-                        }
-
-                        List<String> objectNames = new ArrayList<>();
-                        if (jsonObject.has("objects")) {
-                            JSONArray objectsArray = jsonObject.getJSONArray("objects");
-                            for (int i = 0; i < objectsArray.length(); i++) {
-                                JSONObject objectItem = objectsArray.getJSONObject(i);
-                                if (objectItem.has("object")) {
-                                    objectNames.add(objectItem.getString("object"));
-                                }
-                            }
-                        }
-
-                        StringBuilder narration = new StringBuilder();
-                        narration.append(getString(R.string.scene_analysis_success_intro));
-
-                        if (caption != null && !caption.isEmpty()) {
-                            narration.append(caption).append(".");
-                        } else {
-                            narration.append(getString(R.string.scene_analysis_no_description));
-                        }
-
-                        if (!objectNames.isEmpty()) {
-                            narration.append(getString(R.string.scene_analysis_also_see));
-                            for (int i = 0; i < Math.min(objectNames.size(), 3); i++) {
-                                narration.append(objectNames.get(i));
-                                if (i < Math.min(objectNames.size(), 3) - 1) {
-                                    narration.append(", ");
-                                } else {
-                                    narration.append(".");
-                                }
-                            }
-                        } else if (caption == null || caption.isEmpty()) {
-                            narration.append(getString(R.string.scene_analysis_no_objects));
-                        }
-
-                        speakText(narration.toString(), null, null);
-
-                    } catch (JSONException e) {
-                        Log.e(TAG, "Error parsing Scene Analysis (v3.2) JSON response", e);
-                        speakText(getString(R.string.error_scene_analysis_parsing), null, null);
-                    }
+            public void onError(VisionClient.VisionError error) {
+                captureMetrics.recordFailure(CAPTURE_MODE_SCENE_ANALYSIS);
+                if (error.kind == VisionClient.VisionError.Kind.HTTP_ERROR) {
+                    speakText(String.format(getString(R.string.error_scene_analysis_with_code), error.httpCode), null, null);
                 } else {
-                    Log.e(TAG, "Azure Scene Analysis API (v3.2) error: " + response.code() + " Body: " + responseBodyString);
-                    speakText(String.format(getString(R.string.error_scene_analysis_with_code), response.code()), null, null);
+                    speakText(getString(R.string.error_scene_analysis), null, null);
                 }
                 runOnUiThread(() -> {
                     mainButton.setEnabled(true);
                     mainButton.setText(R.string.tap_to_speak);
                 });
             }
-        });
-    }
-
-    private Bitmap imageProxyToBitmap(ImageProxy image) {
-        if (image.getFormat() != ImageFormat.YUV_420_888) {
-            Log.w(TAG, "ImageProxy format not YUV_420_888: " + image.getFormat() + ". Attempting direct JPEG decode.");
-            ImageProxy.PlaneProxy plane = image.getPlanes()[0];
-            ByteBuffer buffer = plane.getBuffer();
-            byte[] bytes = new byte[buffer.remaining()];
-            buffer.get(bytes);
-            Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-            if (bitmap == null) {
-                Log.e(TAG, "Direct JPEG decode failed for format: " + image.getFormat());
-            }
-            return bitmap;
+        };
+        if (AzureConfig.CombinedAnalysis.ENABLED) {
+            // One upload with the union of features, so a follow-up object question needs no new capture
+            visionClient.analyzeCombined(capturedImage, sceneCallback);
+        } else {
+            visionClient.analyzeScene(capturedImage, sceneCallback);
         }
+    }
 
-        ImageProxy.PlaneProxy[] planes = image.getPlanes();
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
+    private String narrateScene(ImageAnalysisResult result) {
+        String caption = result.getCaption();
+        List<String> objectNames = result.getObjectNames();
 
-        int ySize = yBuffer.remaining();
-        int uSize = uBuffer.remaining();
-        int vSize = vBuffer.remaining();
+        StringBuilder narration = new StringBuilder();
+        narration.append(getString(R.string.scene_analysis_success_intro));
 
-        byte[] nv21 = new byte[ySize + uSize + vSize];
-        yBuffer.get(nv21, 0, ySize);
-        vBuffer.get(nv21, ySize, vSize);
-        uBuffer.get(nv21, ySize + vSize, uSize);
+        if (caption != null && !caption.isEmpty()) {
+            narration.append(caption).append(".");
+        } else {
+            narration.append(getString(R.string.scene_analysis_no_description));
+        }
 
-        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, image.getWidth(), image.getHeight(), null);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        yuvImage.compressToJpeg(new Rect(0, 0, yuvImage.getWidth(), image.getHeight()), 90, out);
-        byte[] imageBytes = out.toByteArray();
-        return BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
+        if (!objectNames.isEmpty()) {
+            narration.append(getString(R.string.scene_analysis_also_see));
+            for (int i = 0; i < Math.min(objectNames.size(), 3); i++) {
+                narration.append(objectNames.get(i));
+                if (i < Math.min(objectNames.size(), 3) - 1) {
+                    narration.append(", ");
+                } else {
+                    narration.append(".");
+                }
+            }
+        } else if (caption == null || caption.isEmpty()) {
+            narration.append(getString(R.string.scene_analysis_no_objects));
+        }
+        return narration.toString();
     }
 
     private void startListeningSequence() {
@@ -646,147 +727,67 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "stopListening called, UI updated.");
     }
 
-    private void processImageWithAzureVision(Bitmap bitmap) {
-        pollingHandler.removeCallbacksAndMessages(null);
+    private void processImageWithAzureVision(CapturedImage capturedImage) {
+        visionClient.cancelAll();
         Log.d(TAG, "Processing image with Azure Read API...");
         runOnUiThread(() -> {
             mainButton.setEnabled(false);
             mainButton.setText(R.string.processing_image);
         });
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, baos);
-        RequestBody body = RequestBody.create(baos.toByteArray(), MediaType.parse("application/octet-stream"));
-        Request request = new Request.Builder()
-                .url(AzureConfig.ReadAPI.getReadAnalyzeUrl())
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_VISION_KEY)
-                .post(body)
-                .build();
+        visionClient.read(capturedImage, new VisionClient.ReadCallback() {
+            @Override
+            public void onSubmitted() {
+                runOnUiThread(() -> speakText(getString(R.string.image_submitted_wait), null, null));
+            }
 
-        httpClient.newCall(request).enqueue(new Callback() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Azure Read API (analyze) call failed", e);
+            public void onSuccess(String responseBody) {
+                parseAndSpeakReadApiResult(responseBody);
                 runOnUiThread(() -> {
-                    speakText(getString(R.string.error_image_processing), null, null);
                     mainButton.setEnabled(true);
                     mainButton.setText(R.string.tap_to_speak);
                 });
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (response.code() == 202) {
-                    String operationLocationUrl = response.header("Operation-Location");
-                    if (operationLocationUrl != null && !operationLocationUrl.isEmpty()) {
-                        Log.d(TAG, "Read API analyze started. Operation URL: " + operationLocationUrl);
-                        runOnUiThread(() -> speakText(getString(R.string.image_submitted_wait), null, null));
-                        pollReadApiResults(operationLocationUrl, 0);
-                    } else {
-                        Log.e(TAG, "Azure Read API (analyze) error: Missing Operation-Location header.");
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_image_processing) + " (Missing Op-Location)", null, null);
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    }
-                } else {
-                    final int responseCode = response.code();
-                    final String responseBodyString = response.body() != null ? response.body().string() : "null";
-                    Log.e(TAG, "Azure Read API (analyze) error: " + responseCode + " Body: " + responseBodyString);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_image_processing) + " (Code: " + responseCode + ")", null, null);
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                }
-            }
-        });
-    }
-
-    private void pollReadApiResults(final String operationLocationUrl, final int attemptCount) {
-        if (attemptCount >= AzureConfig.ReadAPI.MAX_POLLING_ATTEMPTS) {
-            Log.e(TAG, "Azure Read API polling timed out after " + attemptCount + " attempts.");
-            runOnUiThread(() -> {
-                speakText(getString(R.string.error_image_processing_timeout), null, null);
-                mainButton.setEnabled(true);
-                mainButton.setText(R.string.tap_to_speak);
-            });
-            return;
-        }
-
-        Log.d(TAG, "Polling Read API results (Attempt " + (attemptCount + 1) + "): " + operationLocationUrl);
-        Request request = new Request.Builder()
-                .url(operationLocationUrl)
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_VISION_KEY)
-                .get()
-                .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Azure Read API (polling) call failed", e);
+            public void onError(VisionClient.VisionError error) {
+                captureMetrics.recordFailure(CAPTURE_MODE_OCR);
+                final String message = describeReadError(error, false);
                 runOnUiThread(() -> {
-                    speakText(getString(R.string.error_image_processing_polling), null, null);
+                    speakText(message, null, null);
                     mainButton.setEnabled(true);
                     mainButton.setText(R.string.tap_to_speak);
                 });
             }
-
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBodyString = response.body() != null ? response.body().string() : "null";
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Azure Read API (polling) error: " + response.code() + " Body: " + responseBodyString);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_image_processing_polling) + " (Code: " + response.code() + ")", null, null);
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                    return;
-                }
-
-                try {
-                    JSONObject jsonObject = new JSONObject(responseBodyString);
-                    String status = jsonObject.optString("status").toLowerCase(Locale.ROOT);
-                    Log.d(TAG, "Read API polling status: " + status);
-
-                    if (status.equals("succeeded")) {
-                        parseAndSpeakReadApiResult(responseBodyString);
-                        runOnUiThread(() -> {
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    } else if (status.equals("running") || status.equals("notstarted")) {
-                        pollingHandler.postDelayed(() -> pollReadApiResults(operationLocationUrl, attemptCount + 1),
-                                attemptCount == 0 ? AzureConfig.ReadAPI.POLLING_INITIAL_DELAY_MS : AzureConfig.ReadAPI.POLLING_INTERVAL_MS);
-                    } else if (status.equals("failed")) {
-                        Log.e(TAG, "Azure Read API processing failed. Response: " + responseBodyString);
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_text_processing_failed), null, null);
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    } else {
-                        Log.w(TAG, "Azure Read API unknown status: " + status + ". Response: " + responseBodyString);
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_image_processing_unknown) + " (Status: " + status + ")", null, null);
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error parsing Read API polling response", e);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_text_processing), null, null);
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                }
-            }
         });
     }
 
+    /**
+     * Spoken message for a failed Read request, in the wording of the OCR or currency mode.
+     */
+    private String describeReadError(VisionClient.VisionError error, boolean forCurrency) {
+        String requestError = getString(forCurrency ? R.string.error_currency_processing : R.string.error_image_processing);
+        String pollingError = getString(forCurrency ? R.string.error_currency_processing : R.string.error_image_processing_polling);
+        switch (error.kind) {
+            case HTTP_ERROR:
+                return (error.whilePolling ? pollingError : requestError) + " (Code: " + error.httpCode + ")";
+            case MISSING_OPERATION_LOCATION:
+                return requestError + " (Missing Op-Location)";
+            case TIMEOUT:
+                return getString(forCurrency ? R.string.error_currency_processing_timeout : R.string.error_image_processing_timeout);
+            case JOB_FAILED:
+                return getString(R.string.error_text_processing_failed);
+            case UNKNOWN_STATUS:
+                return getString(R.string.error_image_processing_unknown) + " (Status: " + error.detail + ")";
+            case PARSE_ERROR:
+                return getString(R.string.error_text_processing);
+            case NETWORK:
+            default:
+                return error.whilePolling ? pollingError : requestError;
+        }
+    }
+
     // Inside MainActivity.java
 
 // (Keep currentOcrTtsLanguageCode as a class variable, defaulting to English)
@@ -797,7 +798,25 @@ public class MainActivity extends AppCompatActivity {
 //       "read this" (generic) could reset it to a "auto" mode or rely on parsing below.
 
     private void parseAndSpeakReadApiResult(String jsonResponse) {
-        StringBuilder extractedTextBuilder = new StringBuilder();
+        // One streaming pass gives both the detected language and the lines
+        OcrDocument document;
+        try {
+            document = ReadResultParser.parse(jsonResponse);
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing text from Read API final response", e);
+            captureMetrics.recordFailure(CAPTURE_MODE_OCR);
+            speakText(getString(R.string.error_text_processing) + " (JSON Parse Fail)", null, null);
+            runOnUiThread(() -> { mainButton.setEnabled(true); mainButton.setText(R.string.tap_to_speak); });
+            return;
+        }
+        if (document == null) {
+            Log.e(TAG, "Read API: analyzeResult is missing.");
+            captureMetrics.recordFailure(CAPTURE_MODE_OCR);
+            speakText(getString(R.string.error_text_processing) + " (No analyzeResult)", null, null);
+            runOnUiThread(() -> { mainButton.setEnabled(true); mainButton.setText(R.string.tap_to_speak); });
+            return;
+        }
+
         String languageToUseForTTS = AzureConfig.Speech.EN_LANG_CODE; // Default to English
 
         // Check if the user made an explicit language choice for this OCR session
@@ -805,71 +824,38 @@ public class MainActivity extends AppCompatActivity {
             languageToUseForTTS = currentOcrTtsLanguageCode; // User's explicit choice (e.g., Kannada)
         } else {
             // No explicit user choice for this session (or it was reset to default English),
-            // so try to get the language detected by Azure OCR.
-            try {
-                JSONObject rootObject = new JSONObject(jsonResponse);
-                JSONObject analyzeResult = rootObject.optJSONObject("analyzeResult");
-                if (analyzeResult != null) {
-                    JSONArray readResults = analyzeResult.optJSONArray("readResults");
-                    if (readResults != null && readResults.length() > 0) {
-                        JSONObject firstPage = readResults.getJSONObject(0);
-                        if (firstPage.has("language")) {
-                            String azureDetectedLang = firstPage.getString("language");
-                            if (azureDetectedLang != null && !azureDetectedLang.isEmpty()) {
-                                languageToUseForTTS = azureDetectedLang.split("-")[0]; // "kn", "en", etc.
-                                Log.d(TAG, "Azure OCR detected language: " + languageToUseForTTS);
-                            }
-                        }
-                    }
-                }
-            } catch (JSONException e) {
-                Log.e(TAG, "Error parsing language from Azure Read API response, defaulting TTS to English.", e);
-                // languageToUseForTTS remains English (default)
+            // so use the language detected by Azure OCR.
+            String azureDetectedLang = document.getLanguage();
+            if (azureDetectedLang != null) {
+                languageToUseForTTS = azureDetectedLang.split("-")[0]; // "kn", "en", etc.
+                Log.d(TAG, "Azure OCR detected language: " + languageToUseForTTS);
             }
         }
 
-        // Now, parse the actual text (this part is outside the try-catch for language detection)
-        try {
-            JSONObject rootObject = new JSONObject(jsonResponse);
-            JSONObject analyzeResult = rootObject.optJSONObject("analyzeResult");
-            if (analyzeResult == null) {
-                Log.e(TAG, "Read API: analyzeResult is missing.");
-                speakText(getString(R.string.error_text_processing) + " (No analyzeResult)", null, null);
-                runOnUiThread(() -> { mainButton.setEnabled(true); mainButton.setText(R.string.tap_to_speak); });
-                return;
-            }
-            JSONArray readResults = analyzeResult.optJSONArray("readResults");
-            if (readResults == null || readResults.length() == 0) {
-                Log.w(TAG, "Read API: readResults is empty or missing.");
-                speakText(getString(R.string.no_text_found), languageToUseForTTS, null); // Use determined lang
-                runOnUiThread(() -> { mainButton.setEnabled(true); mainButton.setText(R.string.tap_to_speak); });
-                return;
-            }
-            for (int r = 0; r < readResults.length(); r++) {
-                JSONObject pageResult = readResults.getJSONObject(r);
-                JSONArray lines = pageResult.optJSONArray("lines");
-                if (lines != null) {
-                    for (int i = 0; i < lines.length(); i++) {
-                        extractedTextBuilder.append(lines.getJSONObject(i).getString("text")).append(" ");
-                    }
-                }
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing text from Read API final response", e);
-            speakText(getString(R.string.error_text_processing) + " (JSON Parse Fail)", null, null);
+        if (document.getPages().isEmpty()) {
+            Log.w(TAG, "Read API: readResults is empty or missing.");
+            speakText(getString(R.string.no_text_found), languageToUseForTTS, null); // Use determined lang
             runOnUiThread(() -> { mainButton.setEnabled(true); mainButton.setText(R.string.tap_to_speak); });
             return;
         }
 
-        final String finalText = extractedTextBuilder.toString().trim();
+        // Reading order: columns one after another, table rows whole, hyphenated words joined.
+        // Line breaks become chunk boundaries for pipelined speech
+        document = OcrLayoutEngine.arrange(document);
+        final String finalText = document.getReadingText("\n").trim();
         final String finalLanguageForTTS = languageToUseForTTS; // Use the language determined above
+        final OcrReading reading = OcrReading.from(document, finalLanguageForTTS, System.currentTimeMillis());
+        captureMetrics.recordCompletion(CAPTURE_MODE_OCR);
 
         runOnUiThread(() -> {
             if (finalText.isEmpty()) {
                 speakText(getString(R.string.no_text_found), finalLanguageForTTS, null);
             } else {
                 Log.d(TAG, "Read API Result: \"" + finalText + "\" (Effective TTS lang: " + finalLanguageForTTS + ")");
-                speakText(getString(R.string.text_found) + " " + finalText, finalLanguageForTTS, null);
+                // Kept for "repeat", "next line" and friends
+                ocrReadingStore.add(reading);
+                ocrNavigator.setReading(reading);
+                speakText(getString(R.string.text_found) + "\n" + finalText, finalLanguageForTTS, null);
             }
             mainButton.setEnabled(true);
             mainButton.setText(R.string.tap_to_speak);
@@ -877,17 +863,6 @@ public class MainActivity extends AppCompatActivity {
     }
 
 
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        final double R = 6371000;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat/2) * Math.sin(dLat/2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon/2) * Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        return R * c;
-    }
-
     private void getLocationAndPoiInfo() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED ||
             ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED ||
@@ -902,39 +877,82 @@ public class MainActivity extends AppCompatActivity {
         mainButton.setText(R.string.processing_location);
         speakText(getString(R.string.getting_location_details), null, null);
 
-        fusedLocationClient.getLastLocation()
-            .addOnSuccessListener(this, location -> {
-                if (location != null) {
-                    currentLatitude = location.getLatitude();
-                    currentLongitude = location.getLongitude();
-                    Log.d(TAG, "Current location: Lat=" + currentLatitude + ", Lon=" + currentLongitude);
-
-                    fetchedAddress = null;
-                    busStopName = null;
-                    busStopDistance = -1;
-                    railwayStationName = null;
-                    railwayStationDistance = -1;
-                    pendingLocationRequests = 3;
-
-                    fetchReverseGeocodedAddress(currentLatitude, currentLongitude);
-                    fetchPoiDetails(currentLatitude, currentLongitude, "bus stop", true);
-                    fetchPoiDetails(currentLatitude, currentLongitude, "railway station", false);
+        // A recent last known fix answers at once; otherwise a fresh one is awaited briefly
+        locationAcquirer.acquire(new LocationAcquirer.Callback() {
+            @Override
+            public void onLocation(Location location) {
+                currentLatitude = location.getLatitude();
+                currentLongitude = location.getLongitude();
+                Log.d(TAG, "Current location: Lat=" + currentLatitude + ", Lon=" + currentLongitude);
+
+                fetchedAddress = null;
+                busStopName = null;
+                busStopDistance = -1;
+                railwayStationName = null;
+                railwayStationDistance = -1;
+                busStopRanking = null;
+                railwayStationRanking = null;
+                lastPoiWasRailwayStation = false;
+
+                long nowMs = System.currentTimeMillis();
+                if (placeCache != null && AzureConfig.PlacePrefetch.ENABLED) {
+                    PlaceStores.visitedAreas(MainActivity.this).record(currentLatitude, currentLongitude, nowMs);
+                }
+                PlaceCache.Hit<String> address = placeCache != null
+                        ? placeCache.findAddress(currentLatitude, currentLongitude, nowMs) : null;
+                PlaceCache.Hit<List<PlaceCache.Place>> busStops = placeCache != null
+                        ? placeCache.findPois(POI_BUS_STOP, currentLatitude, currentLongitude, nowMs) : null;
+                PlaceCache.Hit<List<PlaceCache.Place>> railwayStations = placeCache != null
+                        ? placeCache.findPois(POI_RAILWAY_STATION, currentLatitude, currentLongitude, nowMs) : null;
+                if (address != null) {
+                    fetchedAddress = address.value;
+                }
+                if (busStops != null) {
+                    setPois(true, busStops.value);
+                }
+                if (railwayStations != null) {
+                    setPois(false, railwayStations.value);
+                }
+                int pending = (address == null ? 1 : 0) + (busStops == null ? 1 : 0) + (railwayStations == null ? 1 : 0);
+                pendingLocationRequests = pending;
+                if (placeCache != null) {
+                    Log.d(TAG, "Place cache: " + placeCache.getStatsSummary());
+                }
+
+                // Misses are fetched before answering; stale hits are answered now and refreshed quietly
+                if (address == null || address.stale) {
+                    fetchReverseGeocodedAddress(currentLatitude, currentLongitude, address != null);
+                }
+                if (busStops == null || busStops.stale) {
+                    fetchPoiDetails(currentLatitude, currentLongitude, POI_BUS_STOP, true, busStops != null);
+                }
+                if (railwayStations == null || railwayStations.stale) {
+                    fetchPoiDetails(currentLatitude, currentLongitude, POI_RAILWAY_STATION, false, railwayStations != null);
+                }
+                if (pending == 0) {
+                    finishLocationNarration();
+                }
+            }
+
+            @Override
+            public void onFailure(@Nullable Exception error) {
+                if (error != null) {
+                    Log.e(TAG, "Error getting location from FusedLocationClient", error);
+                    speakText(getString(R.string.error_location_access), null, null);
                 } else {
-                    Log.e(TAG, "FusedLocationClient: Last location is null.");
+                    Log.e(TAG, "No usable location fix.");
                     speakText(getString(R.string.error_location), null, null);
-                    mainButton.setEnabled(true);
-                    mainButton.setText(R.string.tap_to_speak);
                 }
-            })
-            .addOnFailureListener(this, e -> {
-                Log.e(TAG, "Error getting location from FusedLocationClient", e);
-                speakText(getString(R.string.error_location_access), null, null);
                 mainButton.setEnabled(true);
                 mainButton.setText(R.string.tap_to_speak);
-            });
+            }
+        });
     }
 
-    private void fetchReverseGeocodedAddress(double latitude, double longitude) {
+    /**
+     * @param refreshOnly only update {@link #placeCache}; the narration already has a cached address
+     */
+    private void fetchReverseGeocodedAddress(double latitude, double longitude, final boolean refreshOnly) {
         String url = AzureConfig.Maps.getReverseGeocodingUrl(latitude, longitude);
         Log.d(TAG, "Fetching reverse geocoded address: " + url);
         Request request = new Request.Builder().url(url).get().build();
@@ -943,6 +961,9 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 Log.e(TAG, "Azure Maps Reverse Geocoding API failed", e);
+                if (refreshOnly) {
+                    return;
+                }
                 fetchedAddress = "Error fetching address.";
                 onLocationPartFetched();
             }
@@ -950,35 +971,49 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
                 final String responseBodyString = response.body() != null ? response.body().string() : null;
+                String address;
                 if (response.isSuccessful() && responseBodyString != null) {
                     try {
                         JSONObject jsonObject = new JSONObject(responseBodyString);
                         JSONArray addresses = jsonObject.optJSONArray("addresses");
                         if (addresses != null && addresses.length() > 0) {
                             JSONObject firstAddress = addresses.getJSONObject(0).optJSONObject("address");
-                            if (firstAddress != null) {
-                                fetchedAddress = firstAddress.optString("freeformAddress", "Address not found.");
-                                Log.d(TAG, "Fetched address: " + fetchedAddress);
+                            if (firstAddress != null && firstAddress.has("freeformAddress")) {
+                                address = firstAddress.getString("freeformAddress");
+                                Log.d(TAG, "Fetched address: " + address);
+                                if (placeCache != null) {
+                                    placeCache.putAddress(latitude, longitude, address, System.currentTimeMillis());
+                                }
+                            } else if (firstAddress != null) {
+                                address = "Address not found.";
                             } else {
-                                fetchedAddress = "Address details not found in response.";
+                                address = "Address details not found in response.";
                             }
                         } else {
-                            fetchedAddress = "No addresses found in response.";
+                            address = "No addresses found in response.";
                         }
                     } catch (JSONException e) {
                         Log.e(TAG, "Error parsing reverse geocoding response", e);
-                        fetchedAddress = "Error parsing address data.";
+                        address = "Error parsing address data.";
                     }
                 } else {
                     Log.e(TAG, "Azure Maps Reverse Geocoding API error: " + response.code() + " Body: " + responseBodyString);
-                    fetchedAddress = "Could not retrieve address (Code: " + response.code() + ")";
+                    address = "Could not retrieve address (Code: " + response.code() + ")";
                 }
+                if (refreshOnly) {
+                    return;
+                }
+                fetchedAddress = address;
                 onLocationPartFetched();
             }
         });
     }
 
-    private void fetchPoiDetails(double latitude, double longitude, String poiCategory, final boolean isBusStop) {
+    /**
+     * @param refreshOnly only update {@link #placeCache}; the narration already has a cached result
+     */
+    private void fetchPoiDetails(double latitude, double longitude, String poiCategory, final boolean isBusStop,
+                                 final boolean refreshOnly) {
         String url = AzureConfig.Maps.getNearbySearchPoiUrl(latitude, longitude, poiCategory);
         Log.d(TAG, "Fetching POI details for " + poiCategory + ": " + url);
         Request request = new Request.Builder().url(url).get().build();
@@ -987,6 +1022,9 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 Log.e(TAG, "Azure Maps POI (" + poiCategory + ") API failed", e);
+                if (refreshOnly) {
+                    return;
+                }
                 if (isBusStop) {
                     busStopName = "Error fetching bus stop.";
                     busStopDistance = -2;
@@ -1002,37 +1040,22 @@ public class MainActivity extends AppCompatActivity {
                 final String responseBodyString = response.body() != null ? response.body().string() : null;
                 if (response.isSuccessful() && responseBodyString != null) {
                     try {
-                        JSONObject jsonObject = new JSONObject(responseBodyString);
-                        JSONArray results = jsonObject.optJSONArray("results");
-                        if (results != null && results.length() > 0) {
-                            JSONObject firstResult = results.getJSONObject(0);
-                            String name = firstResult.optJSONObject("poi").optString("name", "Unnamed " + poiCategory);
-                            JSONObject position = firstResult.optJSONObject("position");
-                            double poiLat = position.optDouble("lat");
-                            double poiLon = position.optDouble("lon");
-                            double distance = haversine(currentLatitude, currentLongitude, poiLat, poiLon);
-
-                            if (isBusStop) {
-                                busStopName = name;
-                                busStopDistance = distance;
-                                Log.d(TAG, "Fetched Bus Stop: " + name + ", Dist: " + distance);
-                            } else {
-                                railwayStationName = name;
-                                railwayStationDistance = distance;
-                                Log.d(TAG, "Fetched Railway Station: " + name + ", Dist: " + distance);
-                            }
-                        } else {
+                        List<PlaceCache.Place> places = PlaceCache.parsePoiSearch(responseBodyString, poiCategory);
+                        if (placeCache != null) {
+                            placeCache.putPois(poiCategory, latitude, longitude, places, System.currentTimeMillis());
+                        }
+                        if (refreshOnly) {
+                            return;
+                        }
+                        if (places.isEmpty()) {
                             Log.w(TAG, "No " + poiCategory + " found nearby.");
-                            if (isBusStop) {
-                                busStopName = "No bus stop found nearby";
-                                busStopDistance = -1;
-                            } else {
-                                railwayStationName = "No railway station found nearby";
-                                railwayStationDistance = -1;
-                            }
                         }
+                        setPois(isBusStop, places);
                     } catch (JSONException e) {
                         Log.e(TAG, "Error parsing POI (" + poiCategory + ") response", e);
+                        if (refreshOnly) {
+                            return;
+                        }
                         if (isBusStop) {
                             busStopName = "Error parsing bus stop data.";
                             busStopDistance = -2;
@@ -1043,7 +1066,10 @@ public class MainActivity extends AppCompatActivity {
                     }
                 } else {
                     Log.e(TAG, "Azure Maps POI (" + poiCategory + ") API error: " + response.code() + " Body: " + responseBodyString);
-                     if (isBusStop) {
+                    if (refreshOnly) {
+                        return;
+                    }
+                    if (isBusStop) {
                         busStopName = "Could not retrieve bus stop (Code: " + response.code() + ")";
                         busStopDistance = -2;
                     } else {
@@ -1056,19 +1082,205 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Rank every bus stop or railway station found from the current position; the nearest is
+     * narrated and the rest kept for follow-up questions.
+     */
+    private void setPois(boolean isBusStop, List<PlaceCache.Place> places) {
+        PoiRanking ranking = PoiRanking.rank(places, currentLatitude, currentLongitude);
+        String name = ranking.size() > 0 ? ranking.placeAt(0).name : null;
+        double distance = ranking.size() > 0 ? ranking.distanceAt(0) : -1;
+        if (isBusStop) {
+            busStopRanking = ranking;
+            busStopName = name != null ? name : "No bus stop found nearby";
+            busStopDistance = distance;
+            Log.d(TAG, "Bus Stop: " + busStopName + ", Dist: " + distance + " (" + ranking.size() + " ranked)");
+        } else {
+            railwayStationRanking = ranking;
+            railwayStationName = name != null ? name : "No railway station found nearby";
+            railwayStationDistance = distance;
+            Log.d(TAG, "Railway Station: " + railwayStationName + ", Dist: " + distance + " (" + ranking.size() + " ranked)");
+        }
+    }
+
+    /**
+     * "The next one": the next nearest bus stop (or railway station) from the last "where am
+     * I", without a network call.
+     */
+    private void announceNextPoi(String command) {
+        boolean railwayStation = command.contains("station") || command.contains("train");
+        PoiRanking ranking = railwayStation ? railwayStationRanking : busStopRanking;
+        String category = railwayStation ? POI_RAILWAY_STATION : POI_BUS_STOP;
+        if (ranking == null) {
+            speakText(getString(R.string.poi_ask_location_first), null, null);
+            return;
+        }
+        lastPoiWasRailwayStation = railwayStation;
+        if (!ranking.advance()) {
+            speakText(getString(R.string.poi_no_more, category), null, null);
+            return;
+        }
+        int rank = ranking.getCursor();
+        speakText(getString(R.string.poi_next, category, ranking.placeAt(rank).name, Math.round(ranking.distanceAt(rank)),
+                PoiRanking.compassPoint(ranking.bearingAt(rank))), null, null);
+    }
+
+    /** "Which direction": the compass direction of the bus stop or station last announced. */
+    private void announcePoiDirection(String command) {
+        boolean railwayStation = command.contains("station") || command.contains("train") || lastPoiWasRailwayStation;
+        PoiRanking ranking = railwayStation ? railwayStationRanking : busStopRanking;
+        if (ranking == null) {
+            speakText(getString(R.string.poi_ask_location_first), null, null);
+            return;
+        }
+        if (ranking.size() == 0) {
+            speakText(railwayStation ? railwayStationName : busStopName, null, null);
+            return;
+        }
+        int rank = ranking.getCursor();
+        speakText(getString(R.string.poi_direction, ranking.placeAt(rank).name, Math.round(ranking.distanceAt(rank)),
+                PoiRanking.compassPoint(ranking.bearingAt(rank))), null, null);
+    }
+
+    /**
+     * Guide the user to the bus stop (or railway station) last announced, following location
+     * updates and speaking only when the distance or direction has changed enough (see
+     * {@link NavigationTracker}). Works from the "where am I" ranking, without network calls.
+     * Runs while the app is in the foreground; leaving it stops the guidance.
+     */
+    private void startNavigation(String command) {
+        boolean railwayStation = command.contains("station") || command.contains("train")
+                || (lastPoiWasRailwayStation && !command.contains("bus"));
+        PoiRanking ranking = railwayStation ? railwayStationRanking : busStopRanking;
+        if (ranking == null) {
+            speakText(getString(R.string.navigation_need_place), null, null);
+            return;
+        }
+        if (ranking.size() == 0) {
+            speakText(railwayStation ? railwayStationName : busStopName, null, null);
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            speakText("I need location permission to guide you.", null, null);
+            return;
+        }
+        stopNavigation(false);
+        lastPoiWasRailwayStation = railwayStation;
+        PlaceCache.Place target = ranking.placeAt(ranking.getCursor());
+        navigationTracker = new NavigationTracker(target.name, target.latitude, target.longitude, SystemClock.elapsedRealtime());
+        navigationIntervalChanges = 0;
+        navigationStartBytes = appNetworkBytes();
+        navigationStartChargeMicroAh = batteryChargeMicroAh();
+        requestNavigationUpdates(AzureConfig.Navigation.MIN_INTERVAL_MS);
+        mainButton.postDelayed(navigationTimeout, AzureConfig.Navigation.MAX_DURATION_MS);
+        speakText(getString(R.string.navigation_started, target.name), null, null);
+    }
+
+    private void onNavigationFix(Location location) {
+        NavigationTracker tracker = navigationTracker;
+        if (tracker == null) {
+            return;
+        }
+        NavigationTracker.Event event = tracker.onLocation(location.getLatitude(), location.getLongitude(),
+                location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE,
+                location.hasSpeed() ? location.getSpeed() : 0f,
+                location.hasBearing() ? location.getBearing() : Float.NaN,
+                location.getElapsedRealtimeNanos() / 1_000_000);
+        long meters = Math.round(tracker.getDistanceMeters());
+        switch (event) {
+            case STARTED:
+            case PROGRESS:
+            case DIRECTION_CHANGED:
+                speakText(getString(R.string.navigation_update, tracker.getTargetName(), meters,
+                        tracker.getDirectionPhrase()), null, null);
+                break;
+            case MOVING_AWAY:
+                speakText(getString(R.string.navigation_moving_away, tracker.getTargetName(), meters,
+                        tracker.getDirectionPhrase()), null, null);
+                break;
+            case ARRIVED:
+                speakText(getString(R.string.navigation_arrived, tracker.getTargetName()), null, null);
+                stopNavigation(false);
+                return;
+            default:
+                break;
+        }
+        long intervalMs = tracker.nextIntervalMs();
+        if (intervalMs * AzureConfig.Navigation.INTERVAL_CHANGE_FACTOR <= navigationIntervalMs
+                || intervalMs >= navigationIntervalMs * AzureConfig.Navigation.INTERVAL_CHANGE_FACTOR) {
+            requestNavigationUpdates(intervalMs);
+        }
+    }
+
+    @SuppressLint("MissingPermission") // Checked in startNavigation
+    private void requestNavigationUpdates(long intervalMs) {
+        Log.d(TAG, "Navigation fix interval " + intervalMs + " ms");
+        navigationIntervalMs = intervalMs;
+        navigationIntervalChanges++;
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, intervalMs)
+                .setMinUpdateIntervalMillis(intervalMs / 2)
+                .build();
+        // Replaces the previous request made with the same callback
+        fusedLocationClient.requestLocationUpdates(request, navigationCallback, Looper.getMainLooper());
+    }
+
+    private void stopNavigation(boolean announce) {
+        mainButton.removeCallbacks(navigationTimeout);
+        NavigationTracker tracker = navigationTracker;
+        if (tracker == null) {
+            return;
+        }
+        navigationTracker = null;
+        fusedLocationClient.removeLocationUpdates(navigationCallback);
+        Log.d(TAG, "Navigation: " + tracker.getStatsSummary() + " " + navigationUsageSummary(tracker.getDurationMs()));
+        if (announce) {
+            speakText(getString(R.string.navigation_stopped), null, null);
+        }
+    }
+
+    /**
+     * Network traffic of the app (speech included) and battery drain of the whole device
+     * since navigation started, per hour. The drain means little while charging.
+     */
+    private String navigationUsageSummary(long durationMs) {
+        double hours = Math.max(1, durationMs) / 3_600_000.0;
+        long bytes = appNetworkBytes() - navigationStartBytes;
+        long chargeMicroAh = batteryChargeMicroAh();
+        String battery = chargeMicroAh > 0 && navigationStartChargeMicroAh > 0
+                ? String.format(Locale.US, "%.1f mAh/h", (navigationStartChargeMicroAh - chargeMicroAh) / 1000.0 / hours)
+                : "unknown";
+        return String.format(Locale.US, "intervalChanges=%d network=%.0f KB/h battery=%s",
+                navigationIntervalChanges, bytes / 1024.0 / hours, battery);
+    }
+
+    private static long appNetworkBytes() {
+        int uid = Process.myUid();
+        return TrafficStats.getUidRxBytes(uid) + TrafficStats.getUidTxBytes(uid);
+    }
+
+    /** Remaining battery charge in microampere-hours, or a value <= 0 if the device does not report it. */
+    private long batteryChargeMicroAh() {
+        BatteryManager batteryManager = getSystemService(BatteryManager.class);
+        return batteryManager != null ? batteryManager.getLongProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER) : 0;
+    }
+
     private synchronized void onLocationPartFetched() {
         pendingLocationRequests--;
         Log.d(TAG, "Location part fetched. Pending requests: " + pendingLocationRequests);
         if (pendingLocationRequests == 0) {
             Log.d(TAG, "All location parts fetched. Combining and speaking.");
-            combineAndSpeakLocationPois();
-             runOnUiThread(() -> {
-                mainButton.setEnabled(true);
-                mainButton.setText(R.string.tap_to_speak);
-            });
+            finishLocationNarration();
         }
     }
 
+    private void finishLocationNarration() {
+        combineAndSpeakLocationPois();
+        runOnUiThread(() -> {
+            mainButton.setEnabled(true);
+            mainButton.setText(R.string.tap_to_speak);
+        });
+    }
+
     private void combineAndSpeakLocationPois() {
         StringBuilder narration = new StringBuilder();
 
@@ -1122,6 +1334,7 @@ public class MainActivity extends AppCompatActivity {
             }
             return;
         }
+        final long requestStartNanos = SystemClock.elapsedRealtimeNanos();
         if (AzureConfig.AZURE_SPEECH_KEY.isEmpty() || AzureConfig.AZURE_SPEECH_KEY.equals("YOUR_AZURE_SPEECH_KEY_HERE")) {
             Log.e(TAG, "Azure Speech Key is not configured. Cannot speak.");
             Toast.makeText(this, "Azure TTS not configured (key missing).", Toast.LENGTH_SHORT).show();
@@ -1135,35 +1348,27 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        String langCodeForSSML;
-        String voiceNameForSSML;
-        String langHintNormalized = languageHint != null ? languageHint.toLowerCase(Locale.ROOT) : "";
+        String langCodeForSSML = TtsRequestBuilder.resolveLanguageCode(languageHint);
+        Log.d(TAG, "Speaking text: '" + textToSpeak.substring(0, Math.min(textToSpeak.length(), 50)) + "...' with lang: " + langCodeForSSML);
 
-        // Use startsWith for broader matching (e.g.,
-        // Use startsWith for broader matching (e.g., "kn-IN" starts with "kn")
-        if (langHintNormalized.startsWith("hi")) {
-            langCodeForSSML = AzureConfig.Speech.HI_LANG_CODE; // "hi-IN"
-            voiceNameForSSML = AzureConfig.Speech.HI_VOICE_NAME;
-        } else if (langHintNormalized.startsWith("kn")) {
-            langCodeForSSML = AzureConfig.Speech.KN_LANG_CODE; // "kn-IN"
-            voiceNameForSSML = AzureConfig.Speech.KN_VOICE_NAME;
-        } else { // Default to English if no match or hint is "en" or null/empty
-            langCodeForSSML = AzureConfig.Speech.EN_LANG_CODE; // "en-US"
-            voiceNameForSSML = AzureConfig.Speech.EN_VOICE_NAME;
+        List<String> ssmlChunks = TtsRequestBuilder.buildSsmlChunks(textToSpeak, languageHint);
+        if (ssmlChunks.size() > 1) {
+            // Long text: synthesize chunk N+1 while chunk N plays
+            Log.d(TAG, "Speaking text as " + ssmlChunks.size() + " pipelined chunks.");
+            audioPlayer.play(new ChunkedTtsStream(ssmlChunks, httpClient, ttsAudioCache, ttsPrefetchExecutor), null,
+                    requestStartNanos, createPlaybackListener(onPlaybackCompleteAction));
+            return;
         }
-        Log.d(TAG, "Speaking text: '" + textToSpeak.substring(0, Math.min(textToSpeak.length(), 50)) + "...' with lang: " + langCodeForSSML);
 
-        String escapedText = Html.escapeHtml(textToSpeak);
-        String ssml = String.format(Locale.US, AzureConfig.Speech.DYNAMIC_SSML_TEMPLATE, langCodeForSSML, voiceNameForSSML, escapedText);
-        RequestBody body = RequestBody.create(ssml, MediaType.parse("application/ssml+xml"));
-        Request request = new Request.Builder()
-                .url(AzureConfig.Speech.getTtsUrl())
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_SPEECH_KEY)
-                .addHeader("Content-Type", "application/ssml+xml")
-                .addHeader("X-Microsoft-OutputFormat", AzureConfig.Speech.OUTPUT_FORMAT)
-                .addHeader("User-Agent", "VoiceAssistantApp/1.0")
-                .post(body)
-                .build();
+        String ssml = ssmlChunks.get(0);
+        String cacheKey = TtsAudioCache.keyFor(ssml, AzureConfig.Speech.OUTPUT_FORMAT);
+        File cachedAudio = ttsAudioCache.get(cacheKey);
+        if (cachedAudio != null) {
+            Log.d(TAG, "TTS cache hit (" + ttsAudioCache.getStatsSummary() + ")");
+            playAudioFile(cachedAudio, requestStartNanos, onPlaybackCompleteAction);
+            return;
+        }
+        Request request = TtsRequestBuilder.buildRequest(ssml);
 
         httpClient.newCall(request).enqueue(new Callback() {
             @Override
@@ -1181,7 +1386,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
                 if (response.isSuccessful() && response.body() != null) {
-                    playAudioStream(response.body().byteStream(), onPlaybackCompleteAction);
+                    playAudioStream(response.body().byteStream(), cacheKey, requestStartNanos, onPlaybackCompleteAction);
                 } else {
                     String errorBody = response.body() != null ? response.body().string() : "null";
                     Log.e(TAG, "Azure TTS API error: " + response.code() + " - " + response.message() + " Body: " + errorBody);
@@ -1198,51 +1403,65 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private void playAudioStream(InputStream audioStream, @Nullable Runnable onPlaybackCompleteAction) {
+    private void playAudioStream(InputStream audioStream, String cacheKey, long requestStartNanos,
+                                 @Nullable Runnable onPlaybackCompleteAction) {
+        TtsAudioCache.Editor editor = null;
         try {
-            File tempMp3 = File.createTempFile("azure_tts", ".mp3", getCacheDir());
-            tempMp3.deleteOnExit();
-            try (OutputStream out = new FileOutputStream(tempMp3); InputStream in = audioStream) {
-                byte[] buffer = new byte[8 * 1024];
-                int bytesRead;
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
-            }
+            editor = ttsAudioCache.edit(cacheKey);
+        } catch (IOException e) {
+            // Still play the audio, it just won't be cached
+            Log.w(TAG, "Could not open TTS cache entry", e);
+        }
+        audioPlayer.play(audioStream, editor, requestStartNanos, createPlaybackListener(onPlaybackCompleteAction));
+    }
+
+    private void playAudioFile(File audioFile, long requestStartNanos, @Nullable Runnable onPlaybackCompleteAction) {
+        try {
+            audioPlayer.play(new FileInputStream(audioFile), null, requestStartNanos,
+                    createPlaybackListener(onPlaybackCompleteAction));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open cached TTS audio", e);
             runOnUiThread(() -> {
-                try {
-                    if (mediaPlayer.isPlaying()) mediaPlayer.stop();
-                    mediaPlayer.reset();
-                    mediaPlayer.setDataSource(tempMp3.getAbsolutePath());
-                    mediaPlayer.setOnCompletionListener(mp -> {
-                        Log.d(TAG, "MediaPlayer playback completed.");
-                        if (onPlaybackCompleteAction != null) {
-                            onPlaybackCompleteAction.run();
-                        }
-                    });
-                    mediaPlayer.prepareAsync();
-                    mediaPlayer.setOnPreparedListener(MediaPlayer::start);
-                } catch (IOException | IllegalStateException e) {
-                    Log.e(TAG, "MediaPlayer prepare/start failed for TTS audio", e);
-                     if (onPlaybackCompleteAction != null) {
-                        if (isListening) {
-                            isListening = false;
-                            mainButton.setText(R.string.tap_to_speak);
-                        }
-                         onPlaybackCompleteAction.run();
+                 if (onPlaybackCompleteAction != null) {
+                    if (isListening) {
+                        isListening = false;
+                        mainButton.setText(R.string.tap_to_speak);
                     }
+                     onPlaybackCompleteAction.run();
                 }
             });
-        } catch (IOException e) {
-            Log.e(TAG, "Failed to process Azure TTS audio stream", e);
-             if (onPlaybackCompleteAction != null) {
-                if (isListening) {
-                    isListening = false;
-                    mainButton.setText(R.string.tap_to_speak);
+        }
+    }
+
+    private StreamingAudioPlayer.PlaybackListener createPlaybackListener(@Nullable Runnable onPlaybackCompleteAction) {
+        return new StreamingAudioPlayer.PlaybackListener() {
+            @Override
+            public void onPlaybackComplete() {
+                Log.d(TAG, "TTS playback completed.");
+                if (onPlaybackCompleteAction != null) {
+                    runOnUiThread(onPlaybackCompleteAction);
                 }
-                onPlaybackCompleteAction.run();
             }
-        }
+
+            @Override
+            public void onPlaybackError(Exception e) {
+                Log.e(TAG, "TTS playback failed", e);
+                runOnUiThread(() -> {
+                    if (isListening) {
+                        isListening = false;
+                        mainButton.setText(R.string.tap_to_speak);
+                    }
+                    if (onPlaybackCompleteAction != null) {
+                        onPlaybackCompleteAction.run();
+                    }
+                });
+            }
+
+            @Override
+            public void onPlaybackCancelled() {
+                // The player has already dropped the partial cache entry
+            }
+        };
     }
 
     private String getErrorMessage(int errorCode) {
@@ -1260,21 +1479,63 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Nothing to scan while in the background; give the camera back to other apps
+        if (liveScanner.isRunning()) {
+            mainButton.removeCallbacks(liveScanTimeout);
+            liveScanner.stop();
+            currentCaptureMode = CAPTURE_MODE_OCR;
+        }
+        // In the background location updates are throttled to a few an hour, far too rare
+        // to guide by, so say that guidance stopped rather than go quiet
+        if (navigationTracker != null) {
+            stopNavigation(false);
+            speakText(getString(R.string.navigation_paused), null, null);
+        }
+        cameraSession.close();
+        voiceUIGroup.setVisibility(View.VISIBLE);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        locationAcquirer.cancel();
+        if (ttsWarmup != null) {
+            ttsWarmup.cancel();
+        }
         if (speechRecognizer != null) {
             speechRecognizer.destroy();
         }
-        if (mediaPlayer != null) {
-            if (mediaPlayer.isPlaying()) {
-                mediaPlayer.stop();
-            }
-            mediaPlayer.release();
-            mediaPlayer = null;
+        if (audioPlayer != null) {
+            audioPlayer.release();
+            audioPlayer = null;
         }
-        pollingHandler.removeCallbacksAndMessages(null);
+        ttsPrefetchExecutor.shutdownNow();
+        burstRecognizer.cancel();
+        liveScanner.stop();
+        stopNavigation(false);
+        visionClient.shutdown();
+        ocrReadingStore.shutdown();
         cameraExecutor.shutdown();
+        if (diagnosticRecorder != null) {
+            diagnosticRecorder.shutdown();
+        }
+        Log.d(TAG, "TTS cache stats: " + ttsAudioCache.getStatsSummary());
+        Log.d(TAG, "Capture stats:\n" + captureMetrics.getSummary());
+        Log.d(TAG, "Vision stats:\n" + visionClient.getStatsSummary());
+        Log.d(TAG, "Recent analysis reuse: " + recentImageAnalysis.getStatsSummary());
+        Log.d(TAG, "Burst recognition: " + burstRecognizer.getStatsSummary());
+        Log.d(TAG, "Live scan: " + liveScanner.getStatsSummary());
+        Log.d(TAG, "Camera session: " + cameraSession.getStatsSummary());
+        if (placeCache != null) {
+            Log.d(TAG, "Place cache: " + placeCache.getStatsSummary());
+        }
+        if (captureResultCache != null) {
+            Log.d(TAG, "Capture result cache: " + captureResultCache.getStatsSummary());
+            captureResultCache.shutdown();
+        }
     }
 
     @Override
@@ -1296,197 +1557,256 @@ public class MainActivity extends AppCompatActivity {
             }
         }
     }
-    private void processImageForCurrency(Bitmap bitmap) {
-        pollingHandler.removeCallbacksAndMessages(null);
-        Log.d(TAG, "Processing image for Currency with Azure Read API...");
-        runOnUiThread(() -> {
-            mainButton.setEnabled(false);
-            mainButton.setText(getString(R.string.identifying_currency_button)); // Use new string
+    private static FrameQualityEstimator newFrameQualityEstimator() {
+        return new FrameQualityEstimator(AzureConfig.FrameQuality.MIN_LAPLACIAN_VARIANCE,
+                AzureConfig.FrameQuality.MAX_DARK_FRACTION, AzureConfig.FrameQuality.MAX_BRIGHT_FRACTION);
+    }
+
+    /** Single-capture text modes, where a blurred or dark shot costs a full Read round trip. */
+    private boolean usesFrameQualityCheck(int captureMode) {
+        return AzureConfig.FrameQuality.ENABLED
+                && (captureMode == CAPTURE_MODE_OCR || (captureMode == CAPTURE_MODE_CURRENCY && !isBurstMode(captureMode)));
+    }
+
+    /** Analyzer for the preview stream of quality-checked modes; keeps the latest estimate. */
+    private void checkFrameQuality(ImageProxy imageProxy) {
+        long nowMs = SystemClock.elapsedRealtime();
+        if (nowMs - lastFrameQualityCheckMs >= AzureConfig.FrameQuality.CHECK_INTERVAL_MS) {
+            lastFrameQualityCheckMs = nowMs;
+            latestFrameQuality = frameQualityEstimator.estimate(imageProxy);
+            latestFrameQualityMs = nowMs;
+        }
+        imageProxy.close();
+    }
+
+    /**
+     * Speak advice instead of capturing when the preview is too blurred or badly lit to read.
+     * Only the first tap is held back, so a view the check misjudges can still be captured.
+     */
+    private boolean holdBackForFrameQuality() {
+        FrameQualityEstimator.Quality quality = latestFrameQuality;
+        boolean fresh = quality != null
+                && SystemClock.elapsedRealtime() - latestFrameQualityMs <= AzureConfig.FrameQuality.MAX_CHECK_AGE_MS;
+        if (frameQualityWarned || !fresh || quality.isAcceptable()) {
+            frameQualityWarned = false;
+            return false;
+        }
+        frameQualityWarned = true;
+        Log.d(TAG, "Capture held back for frame quality: " + quality);
+        captureMetrics.recordQualityRejection(currentCaptureMode);
+        int advice;
+        switch (quality.verdict) {
+            case TOO_DARK:
+                advice = R.string.frame_quality_too_dark;
+                break;
+            case TOO_BRIGHT:
+                advice = R.string.frame_quality_too_bright;
+                break;
+            case BLURRY:
+            default:
+                advice = R.string.frame_quality_blurry;
+                break;
+        }
+        speakText(getString(advice), null, null);
+        return true;
+    }
+
+    private boolean isBurstMode(int captureMode) {
+        return captureMode == CAPTURE_MODE_SHORT_TEXT
+                || (captureMode == CAPTURE_MODE_CURRENCY && AzureConfig.Burst.CURRENCY_ENABLED);
+    }
+
+    /**
+     * Read several frames of the analysis stream and answer once they agree (see
+     * {@link BurstRecognizer}), instead of trusting a single still.
+     */
+    private void startBurst() {
+        final int mode = currentCaptureMode;
+        final boolean currency = mode == CAPTURE_MODE_CURRENCY;
+        visionClient.cancelAll();
+        mainButton.setEnabled(false);
+        mainButton.setText(currency ? R.string.identifying_currency_button : R.string.processing_image);
+        speakText(getString(R.string.burst_hold_steady), null, null);
+
+        burstRecognizer.start(currency ? BurstRecognizer.currencyVotes() : BurstRecognizer.shortTextVotes(),
+                new BurstRecognizer.BurstCallback() {
+                    @Override
+                    public void onConsensus(String answer, BurstRecognizer.BurstStats stats) {
+                        Log.d(TAG, "Burst answer for mode " + mode + ": \"" + answer + "\" (" + stats + ")");
+                        finishBurst(mode, currency
+                                ? getString(R.string.currency_detected, answer)
+                                : getString(R.string.text_found) + "\n" + answer);
+                    }
+
+                    @Override
+                    public void onNoConsensus(@Nullable String bestAnswer, BurstRecognizer.BurstStats stats) {
+                        Log.d(TAG, "Burst without consensus for mode " + mode + ": \"" + bestAnswer + "\" (" + stats + ")");
+                        String message;
+                        if (currency) {
+                            message = bestAnswer != null
+                                    ? getString(R.string.currency_possibly_detected, bestAnswer)
+                                    : getString(R.string.currency_not_detected);
+                        } else {
+                            message = bestAnswer != null
+                                    ? getString(R.string.text_found) + "\n" + bestAnswer
+                                    : getString(R.string.no_text_found);
+                        }
+                        finishBurst(mode, message);
+                    }
+                });
+
+        lastBurstFrameMs = 0;
+        burstFramesOffered = 0;
+        mainButton.postDelayed(burstTimeout, AzureConfig.Burst.TIMEOUT_MS);
+        final ImageAnalysis analysis = cameraSession.getImageAnalysis();
+        analysis.setAnalyzer(cameraExecutor, imageProxy -> {
+            long nowMs = SystemClock.elapsedRealtime();
+            if (nowMs - lastBurstFrameMs < AzureConfig.Burst.FRAME_INTERVAL_MS) {
+                imageProxy.close();
+                return;
+            }
+            lastBurstFrameMs = nowMs;
+            if (AzureConfig.FrameQuality.ENABLED && !frameQualityEstimator.estimate(imageProxy).isAcceptable()) {
+                // A blurred or badly lit frame would only be a wasted call and a wrong vote
+                imageProxy.close();
+                return;
+            }
+            CapturedImage encoded = captureEncoder.encode(imageProxy);
+            imageProxy.close();
+            if (encoded == null) {
+                return;
+            }
+            CapturedImage frame = imagePreparer.prepare(encoded, mode);
+            if (!burstRecognizer.isRunning()) {
+                analysis.clearAnalyzer();
+                return;
+            }
+            if (burstFramesOffered++ == 0) {
+                // Latency is measured from the first frame, like a single capture
+                captureMetrics.recordUpload(mode, frame);
+            }
+            if (!burstRecognizer.offerFrame(frame)) {
+                runOnUiThread(this::stopBurstFrames);
+            }
         });
+    }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, baos);
-        RequestBody body = RequestBody.create(baos.toByteArray(), MediaType.parse("application/octet-stream"));
-        Request request = new Request.Builder()
-                .url(AzureConfig.ReadAPI.getReadAnalyzeUrl()) // Same Read API
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_VISION_KEY)
-                .post(body)
-                .build();
+    /** Stop collecting frames and hide the camera; the burst answers from what it has. */
+    private void stopBurstFrames() {
+        mainButton.removeCallbacks(burstTimeout);
+        hideCameraPreview();
+        burstRecognizer.endFrames();
+    }
 
-        httpClient.newCall(request).enqueue(new Callback() {
+    private void finishBurst(int mode, String message) {
+        captureMetrics.recordCompletion(mode);
+        runOnUiThread(() -> {
+            stopBurstFrames();
+            speakText(message, null, null);
+            mainButton.setEnabled(true);
+            mainButton.setText(R.string.tap_to_speak);
+        });
+    }
+
+    /**
+     * Keep the camera bound and announce new text or objects as they come into view (see
+     * {@link LiveScanner}), until the user taps the preview or the time limit passes.
+     */
+    private void startLiveScan() {
+        visionClient.cancelAll();
+        liveScanner.start(liveScanKind, new LiveScanner.Listener() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Azure Read API (currency analyze) call failed", e);
-                runOnUiThread(() -> {
-                    speakText(getString(R.string.error_currency_processing), null, null);
-                    mainButton.setEnabled(true);
-                    mainButton.setText(R.string.tap_to_speak);
-                });
+            public void onText(String text, @Nullable String language) {
+                runOnUiThread(() -> speakText(text, language, null));
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (response.code() == 202) { // Accepted
-                    String operationLocationUrl = response.header("Operation-Location");
-                    if (operationLocationUrl != null && !operationLocationUrl.isEmpty()) {
-                        Log.d(TAG, "Currency Read API analyze started. Operation URL: " + operationLocationUrl);
-                        runOnUiThread(() -> speakText(getString(R.string.image_submitted_wait), null, null)); // Re-use
-                        pollCurrencyReadApiResults(operationLocationUrl, 0);
-                    } else {
-                        Log.e(TAG, "Azure Read API (currency analyze) error: Missing Operation-Location header.");
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_currency_processing) + " (Missing Op-Location)", null, null);
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    }
-                } else {
-                    final int responseCode = response.code();
-                    final String responseBodyString = response.body() != null ? response.body().string() : "null";
-                    Log.e(TAG, "Azure Read API (currency analyze) error: " + responseCode + " Body: " + responseBodyString);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_currency_processing) + " (Code: " + responseCode + ")", null, null);
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                }
+            public void onObjects(List<String> newObjects) {
+                final String names = TextUtils.join(", ", newObjects);
+                runOnUiThread(() -> speakText(getString(R.string.live_scan_objects, names), null, null));
             }
         });
+        cameraSession.getImageAnalysis().setAnalyzer(cameraExecutor, liveScanner);
+        mainButton.removeCallbacks(liveScanTimeout);
+        mainButton.postDelayed(liveScanTimeout, AzureConfig.LiveScan.MAX_DURATION_MS);
     }
-    private void pollCurrencyReadApiResults(final String operationLocationUrl, final int attemptCount) {
-        if (attemptCount >= AzureConfig.ReadAPI.MAX_POLLING_ATTEMPTS) {
-            Log.e(TAG, "Azure Read API (currency) polling timed out after " + attemptCount + " attempts.");
-            runOnUiThread(() -> {
-                // Use the currency-specific timeout string
-                speakText(getString(R.string.error_currency_processing_timeout), null, null);
-                mainButton.setEnabled(true);
-                mainButton.setText(R.string.tap_to_speak);
-            });
+
+    private void stopLiveScan() {
+        mainButton.removeCallbacks(liveScanTimeout);
+        if (!liveScanner.isRunning()) {
             return;
         }
+        liveScanner.stop();
+        currentCaptureMode = CAPTURE_MODE_OCR;
+        hideCameraPreview();
+        speakText(getString(R.string.live_scan_stopped), null, null);
+    }
 
-        Log.d(TAG, "Polling Currency Read API results (Attempt " + (attemptCount + 1) + "): " + operationLocationUrl);
-        Request request = new Request.Builder()
-                .url(operationLocationUrl)
-                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_VISION_KEY)
-                .get()
-                .build();
+    private void processImageForCurrency(CapturedImage capturedImage) {
+        visionClient.cancelAll();
+        Log.d(TAG, "Processing image for Currency with Azure Read API...");
+        runOnUiThread(() -> {
+            mainButton.setEnabled(false);
+            mainButton.setText(getString(R.string.identifying_currency_button)); // Use new string
+        });
 
-        httpClient.newCall(request).enqueue(new Callback() {
+        visionClient.read(capturedImage, new VisionClient.ReadCallback() { // Same Read API
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Azure Read API (currency polling) call failed", e);
+            public void onSubmitted() {
+                runOnUiThread(() -> speakText(getString(R.string.image_submitted_wait), null, null)); // Re-use
+            }
+
+            @Override
+            public void onSuccess(String responseBody) {
+                parseAndAnnounceIndianCurrency(responseBody); // Call the currency specific parser
                 runOnUiThread(() -> {
-                    speakText(getString(R.string.error_currency_processing), null, null); // Generic error for now
                     mainButton.setEnabled(true);
                     mainButton.setText(R.string.tap_to_speak);
                 });
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBodyString = response.body() != null ? response.body().string() : "null";
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Azure Read API (currency polling) error: " + response.code() + " Body: " + responseBodyString);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_currency_processing) + " (Code: " + response.code() + ")", null, null);
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                    return;
-                }
-
-                try {
-                    JSONObject jsonObject = new JSONObject(responseBodyString);
-                    String status = jsonObject.optString("status").toLowerCase(Locale.ROOT);
-                    Log.d(TAG, "Currency Read API polling status: " + status);
-
-                    if (status.equals("succeeded")) {
-                        parseAndAnnounceIndianCurrency(responseBodyString); // Call the currency specific parser
-                        runOnUiThread(() -> {
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    } else if (status.equals("running") || status.equals("notstarted")) {
-                        pollingHandler.postDelayed(() -> pollCurrencyReadApiResults(operationLocationUrl, attemptCount + 1),
-                                attemptCount == 0 ? AzureConfig.ReadAPI.POLLING_INITIAL_DELAY_MS : AzureConfig.ReadAPI.POLLING_INTERVAL_MS);
-                    } else if (status.equals("failed")) {
-                        Log.e(TAG, "Azure Read API (currency) processing failed. Response: " + responseBodyString);
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_text_processing_failed), null, null); // Can re-use
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    } else {
-                        Log.w(TAG, "Azure Read API (currency) unknown status: " + status + ". Response: " + responseBodyString);
-                        runOnUiThread(() -> {
-                            speakText(getString(R.string.error_image_processing_unknown) + " (Status: " + status + ")", null, null); // Can re-use
-                            mainButton.setEnabled(true);
-                            mainButton.setText(R.string.tap_to_speak);
-                        });
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error parsing Currency Read API polling response", e);
-                    runOnUiThread(() -> {
-                        speakText(getString(R.string.error_text_processing), null, null); // Can re-use
-                        mainButton.setEnabled(true);
-                        mainButton.setText(R.string.tap_to_speak);
-                    });
-                }
+            public void onError(VisionClient.VisionError error) {
+                captureMetrics.recordFailure(CAPTURE_MODE_CURRENCY);
+                final String message = describeReadError(error, true);
+                runOnUiThread(() -> {
+                    speakText(message, null, null);
+                    mainButton.setEnabled(true);
+                    mainButton.setText(R.string.tap_to_speak);
+                });
             }
         });
     }
     private void parseAndAnnounceIndianCurrency(String jsonReadApiResponse) {
         Log.d(TAG, "Parsing currency OCR response...");
-        StringBuilder allText = new StringBuilder();
-
+        OcrDocument document;
         try {
-            JSONObject root = new JSONObject(jsonReadApiResponse);
-            JSONObject analyzeResult = root.optJSONObject("analyzeResult");
-            if (analyzeResult != null) {
-                JSONArray readResults = analyzeResult.optJSONArray("readResults");
-                if (readResults != null) {
-                    for (int i = 0; i < readResults.length(); i++) {
-                        JSONArray lines = readResults.getJSONObject(i).optJSONArray("lines");
-                        if (lines != null) {
-                            for (int j = 0; j < lines.length(); j++) {
-                                allText.append(lines.getJSONObject(j).getString("text")).append(" ");
-                            }
-                        }
-                    }
-                }
-            }
+            document = ReadResultParser.parse(jsonReadApiResponse);
         } catch (JSONException e) {
             Log.e(TAG, "Error parsing JSON for currency recognition", e);
+            captureMetrics.recordFailure(CAPTURE_MODE_CURRENCY);
             speakText("Error reading currency OCR results.", null, null);
             return;
         }
 
-        String text = allText.toString().toLowerCase(Locale.ROOT);
-        Log.d(TAG, "Full OCR text: " + text);
-
-        // Keywords to confirm it's money
-        boolean hasCurrencyWord = text.contains("rupee") || text.contains("rupees") ||
-                text.contains("₹") || text.contains("rs") ||
-                text.contains("रुप") || text.contains("रूप") || text.contains(" रुपए");
-
-        // Order matters: check highest denomination first
-        String detected = null;
-        if (text.contains("2000")) detected = "2000";
-        else if (text.contains("500")) detected = "500";
-        else if (text.contains("200")) detected = "200";
-        else if (text.contains("100")) detected = "100";
-        else if (text.contains("50")) detected = "50";
-        else if (text.contains("20")) detected = "20";
-        else if (text.contains("10")) detected = "10";
-
-        if (detected != null && hasCurrencyWord) {
-            speakText("Detected " + detected + " rupees", null, null);
-        } else if (detected != null) {
-            // Fallback: denomination seen but no currency word
-            speakText("Detected " + detected + " (possibly currency)", null, null);
+        if (document == null) {
+            Log.e(TAG, "Currency OCR: analyzeResult is missing.");
+            captureMetrics.recordFailure(CAPTURE_MODE_CURRENCY);
+            speakText(getString(R.string.error_currency_processing), null, null);
+            return;
+        }
+
+        // Whole words weighted by size, confidence and nearby "rupees"; see CurrencyRecognizer
+        CurrencyRecognizer.Result result = CurrencyRecognizer.recognize(document);
+        Log.d(TAG, "Currency recognition: " + result + " from \"" + document.getText(" ").trim() + "\"");
+        captureMetrics.recordCompletion(CAPTURE_MODE_CURRENCY);
+
+        if (result.isConfident()) {
+            speakText(getString(R.string.currency_detected, String.valueOf(result.denomination)), null, null);
+        } else if (result.isPossible()) {
+            speakText(getString(R.string.currency_possibly_detected, String.valueOf(result.denomination)), null, null);
         } else {
-            speakText("Could not identify the currency note.", null, null);
+            speakText(getString(R.string.currency_not_detected), null, null);
         }
     }
 
@@ -0,0 +1,178 @@
+package com.example.exp3;
+
+import java.util.Locale;
+
+/**
+ * Guidance to one place from a stream of location fixes, with no network calls. Decides
+ * which fixes are worth speaking about, so a steady walk gives an update every so many
+ * meters rather than one per fix, and how often fixes are needed given the speed and the
+ * distance left (see {@link AzureConfig.Navigation}).
+ * Fed from the location callback only; not thread-safe.
+ */
+public class NavigationTracker {
+
+    public enum Event {
+        NONE,
+        STARTED,
+        PROGRESS,
+        DIRECTION_CHANGED,
+        MOVING_AWAY,
+        ARRIVED
+    }
+
+    private static final String[] RELATIVE_DIRECTIONS = {
+            "ahead", "ahead on your right", "on your right", "behind you on the right",
+            "behind you", "behind you on the left", "on your left", "ahead on your left"};
+
+    private final String targetName;
+    private final double targetLatitude;
+    private final double targetLongitude;
+    private final long startMs;
+
+    private double distanceMeters = -1;
+    private double bearingDegrees;
+    private float speedMps;
+    // Direction of travel, NaN when standing still or unknown
+    private float headingDegrees = Float.NaN;
+    private boolean arrived;
+
+    private double announcedDistance = -1;
+    private double announcedBearing;
+    private long announcedAtMs;
+    private double closestSinceAnnouncement;
+
+    private int fixes;
+    private int inaccurateFixes;
+    private int announcements;
+    private long lastFixMs;
+
+    public NavigationTracker(String targetName, double targetLatitude, double targetLongitude, long startMs) {
+        this.targetName = targetName;
+        this.targetLatitude = targetLatitude;
+        this.targetLongitude = targetLongitude;
+        this.startMs = startMs;
+        this.lastFixMs = startMs;
+    }
+
+    /**
+     * @param headingDegrees direction of travel, or NaN if the fix has none
+     * @return what, if anything, to tell the user about this fix
+     */
+    public Event onLocation(double latitude, double longitude, float accuracyMeters, float speedMps,
+                            float headingDegrees, long timeMs) {
+        fixes++;
+        lastFixMs = timeMs;
+        if (arrived) {
+            return Event.NONE;
+        }
+        if (accuracyMeters > AzureConfig.Navigation.MAX_ACCURACY_METERS) {
+            // A wide fix would only make the distance jump back and forth
+            inaccurateFixes++;
+            return Event.NONE;
+        }
+        distanceMeters = Geohash.distanceMeters(latitude, longitude, targetLatitude, targetLongitude);
+        bearingDegrees = Geohash.bearingDegrees(latitude, longitude, targetLatitude, targetLongitude);
+        this.speedMps = speedMps;
+        this.headingDegrees = speedMps >= AzureConfig.Navigation.MIN_HEADING_SPEED_MPS ? headingDegrees : Float.NaN;
+
+        Event event = decide(timeMs);
+        if (event == Event.NONE) {
+            closestSinceAnnouncement = Math.min(closestSinceAnnouncement, distanceMeters);
+        } else {
+            announcements++;
+            announcedDistance = distanceMeters;
+            announcedBearing = bearingDegrees;
+            announcedAtMs = timeMs;
+            closestSinceAnnouncement = distanceMeters;
+        }
+        return event;
+    }
+
+    private Event decide(long timeMs) {
+        if (distanceMeters <= AzureConfig.Navigation.ARRIVAL_METERS) {
+            arrived = true;
+            return Event.ARRIVED;
+        }
+        if (announcedDistance < 0) {
+            return Event.STARTED;
+        }
+        if (timeMs - announcedAtMs < AzureConfig.Navigation.MIN_ANNOUNCE_INTERVAL_MS) {
+            return Event.NONE;
+        }
+        if (distanceMeters - closestSinceAnnouncement >= AzureConfig.Navigation.MOVING_AWAY_METERS) {
+            return Event.MOVING_AWAY;
+        }
+        if (announcedDistance - distanceMeters >= progressStepMeters(announcedDistance)) {
+            return Event.PROGRESS;
+        }
+        // Near the place the bearing swings with every step, so only turns on the way count
+        if (distanceMeters > 2 * AzureConfig.Navigation.ARRIVAL_METERS
+                && angleBetween(bearingDegrees, announcedBearing) >= AzureConfig.Navigation.DIRECTION_CHANGE_DEGREES) {
+            return Event.DIRECTION_CHANGED;
+        }
+        return Event.NONE;
+    }
+
+    /** Distance covered before the next progress update: further apart when far away. */
+    static double progressStepMeters(double distanceMeters) {
+        return Math.max(AzureConfig.Navigation.MIN_PROGRESS_METERS,
+                AzureConfig.Navigation.PROGRESS_FRACTION * distanceMeters);
+    }
+
+    /**
+     * How often to ask for fixes now: a few per progress step at the current speed, and
+     * rarely while standing still.
+     */
+    public long nextIntervalMs() {
+        if (distanceMeters < 0) {
+            return AzureConfig.Navigation.MIN_INTERVAL_MS;
+        }
+        if (arrived || speedMps < AzureConfig.Navigation.STILL_SPEED_MPS) {
+            return AzureConfig.Navigation.MAX_INTERVAL_MS;
+        }
+        double metersToNextUpdate = Math.min(progressStepMeters(distanceMeters),
+                distanceMeters - AzureConfig.Navigation.ARRIVAL_METERS);
+        long intervalMs = (long) (metersToNextUpdate / speedMps * 1000 / AzureConfig.Navigation.FIXES_PER_STEP);
+        return Math.max(AzureConfig.Navigation.MIN_INTERVAL_MS, Math.min(AzureConfig.Navigation.MAX_INTERVAL_MS, intervalMs));
+    }
+
+    /** "ahead on your left" while walking, otherwise a compass direction such as "to the north-east". */
+    public String getDirectionPhrase() {
+        if (Float.isNaN(headingDegrees)) {
+            return "to the " + PoiRanking.compassPoint(bearingDegrees);
+        }
+        double relative = (bearingDegrees - headingDegrees + 360) % 360;
+        return RELATIVE_DIRECTIONS[(int) Math.round(relative / 45) % RELATIVE_DIRECTIONS.length];
+    }
+
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public double getBearingDegrees() {
+        return bearingDegrees;
+    }
+
+    public boolean isArrived() {
+        return arrived;
+    }
+
+    public long getDurationMs() {
+        return lastFixMs - startMs;
+    }
+
+    public String getStatsSummary() {
+        double hours = Math.max(1, getDurationMs()) / 3_600_000.0;
+        return String.format(Locale.US, "duration=%d s fixes=%d (inaccurate=%d) announcements=%d fixesPerHour=%.0f announcementsPerHour=%.0f",
+                getDurationMs() / 1000, fixes, inaccurateFixes, announcements, fixes / hours, announcements / hours);
+    }
+
+    private static double angleBetween(double a, double b) {
+        double difference = Math.abs(a - b) % 360;
+        return difference > 180 ? 360 - difference : difference;
+    }
+}
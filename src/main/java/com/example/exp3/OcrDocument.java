@@ -0,0 +1,179 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Text recognized by the Read API, as produced by {@link ReadResultParser}: page, block,
+ * line and word. Bounding boxes are the eight corner coordinates (x1, y1 ... x4, y4,
+ * clockwise from top-left) in the page unit, stored as flat float arrays. Pages list
+ * lines in service order; blocks in reading order are added by {@link OcrLayoutEngine}.
+ */
+public final class OcrDocument {
+
+    public static final class Word {
+        public final String text;
+        public final float[] boundingBox;
+        public final float confidence;
+
+        Word(String text, float[] boundingBox, float confidence) {
+            this.text = text;
+            this.boundingBox = boundingBox;
+            this.confidence = confidence;
+        }
+    }
+
+    public static final class Line {
+        public final String text;
+        public final float[] boundingBox;
+        public final List<Word> words;
+
+        Line(String text, float[] boundingBox, List<Word> words) {
+            this.text = text;
+            this.boundingBox = boundingBox;
+            this.words = Collections.unmodifiableList(words);
+        }
+
+        /**
+         * Mean word confidence, or 1 when the service returned no words.
+         */
+        public float meanConfidence() {
+            if (words.isEmpty()) {
+                return 1f;
+            }
+            float sum = 0;
+            for (Word word : words) {
+                sum += word.confidence;
+            }
+            return sum / words.size();
+        }
+    }
+
+    /**
+     * Lines that are read together: a paragraph of one column, or a table whose lines
+     * are whole rows (cells joined left to right).
+     */
+    public static final class Block {
+        public final List<Line> lines;
+        public final boolean isTable;
+
+        Block(List<Line> lines, boolean isTable) {
+            this.lines = Collections.unmodifiableList(lines);
+            this.isTable = isTable;
+        }
+
+        /**
+         * Line texts separated by the separator, with words broken by a hyphen at the
+         * end of a line joined again ("infor-" + "mation" reads as "information").
+         */
+        public String getText(String lineSeparator) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines.size(); i++) {
+                String text = lines.get(i).text;
+                if (i + 1 < lines.size() && !isTable && endsWithBrokenWord(text, lines.get(i + 1).text)) {
+                    sb.append(text, 0, text.length() - 1);
+                } else {
+                    sb.append(text);
+                    if (i + 1 < lines.size()) {
+                        sb.append(lineSeparator);
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        static boolean endsWithBrokenWord(String line, String nextLine) {
+            int length = line.length();
+            if (length < 2 || nextLine.isEmpty()) {
+                return false;
+            }
+            char last = line.charAt(length - 1);
+            return (last == '-' || last == '\u00AD')
+                    && Character.isLetter(line.charAt(length - 2))
+                    && Character.isLowerCase(nextLine.charAt(0));
+        }
+    }
+
+    public static final class Page {
+        public final int pageNumber;
+        public final float angle;
+        public final float width;
+        public final float height;
+        @Nullable
+        public final String language;
+        // Service order
+        public final List<Line> lines;
+        // Reading order; empty until the page has been through OcrLayoutEngine
+        public final List<Block> blocks;
+
+        Page(int pageNumber, float angle, float width, float height, @Nullable String language, List<Line> lines,
+             List<Block> blocks) {
+            this.pageNumber = pageNumber;
+            this.angle = angle;
+            this.width = width;
+            this.height = height;
+            this.language = language;
+            this.lines = Collections.unmodifiableList(lines);
+            this.blocks = Collections.unmodifiableList(blocks);
+        }
+    }
+
+    private final List<Page> pages;
+
+    OcrDocument(List<Page> pages) {
+        this.pages = Collections.unmodifiableList(pages);
+    }
+
+    public List<Page> getPages() {
+        return pages;
+    }
+
+    /**
+     * Language of the first page that reports one (e.g. "en", "kn"), or null.
+     */
+    @Nullable
+    public String getLanguage() {
+        for (Page page : pages) {
+            if (page.language != null && !page.language.isEmpty()) {
+                return page.language;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Text in reading order: blocks separated by the separator, lines within a block
+     * too unless a hyphenated word was joined. Pages without blocks fall back to
+     * service order.
+     */
+    public String getReadingText(String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (Page page : pages) {
+            if (page.blocks.isEmpty()) {
+                for (Line line : page.lines) {
+                    sb.append(line.text).append(separator);
+                }
+                continue;
+            }
+            for (Block block : page.blocks) {
+                sb.append(block.getText(separator)).append(separator);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * All line texts in service order, each followed by the separator.
+     */
+    public String getText(String lineSeparator) {
+        StringBuilder sb = new StringBuilder();
+        for (Page page : pages) {
+            for (Line line : page.lines) {
+                sb.append(line.text).append(lineSeparator);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,476 @@
+package com.example.exp3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Puts the lines of a Read result into reading order. The Read API returns lines
+ * roughly top to bottom, which interleaves columns and splits table rows. This engine
+ * works on the line boxes (de-rotated by the page angle):
+ * <ul>
+ *     <li>lines much wider than the text area (titles, full-width text) split the page into bands; a short
+ *     line right under such a line, starting where it starts and alone on its row, ends that paragraph
+ *     rather than starting a column;</li>
+ *     <li>within a band, columns are found from horizontal gaps between line extents; a few lines
+ *     crossing such a gap (a centred caption or footer) are read on their own, so they do not merge
+ *     the columns around them;</li>
+ *     <li>columns of short, row-aligned cells (menus, timetables, forms) are read row by row as a table,
+ *     other columns one after another, split into paragraphs at large vertical gaps.</li>
+ * </ul>
+ * Everything is sorting plus linear scans, so a few hundred lines take about a millisecond.
+ */
+public final class OcrLayoutEngine {
+
+    // A line wider than this fraction of the text area spans columns
+    private static final float SPANNING_WIDTH_FRACTION = 0.6f;
+    // Horizontal whitespace, in median line heights, that separates two columns
+    private static final float COLUMN_GAP_LINE_HEIGHTS = 1.0f;
+    // Vertical whitespace, in median line heights, that starts a new paragraph
+    private static final float PARAGRAPH_GAP_LINE_HEIGHTS = 0.8f;
+    // Centre lines closer than this, in median line heights, are on the same row
+    private static final float SAME_ROW_LINE_HEIGHTS = 0.5f;
+    // Share of lines with a same-row neighbour in another column for a band to be a table...
+    private static final float TABLE_MIN_ALIGNED_FRACTION = 0.6f;
+    // ...as long as its cells are short; running text in aligned columns has longer lines
+    private static final float TABLE_MAX_MEAN_WORDS = 3.5f;
+    // Share of a band's lines that may cross a gap between columns without closing it
+    private static final float MAX_BRIDGING_FRACTION = 0.2f;
+    // Below this the page is treated as upright
+    private static final float MIN_ROTATION_DEGREES = 0.5f;
+    private static final String TABLE_CELL_SEPARATOR = ", ";
+
+    private OcrLayoutEngine() {
+    }
+
+    public static OcrDocument arrange(OcrDocument document) {
+        List<OcrDocument.Page> pages = new ArrayList<>(document.getPages().size());
+        for (OcrDocument.Page page : document.getPages()) {
+            pages.add(arrange(page));
+        }
+        return new OcrDocument(pages);
+    }
+
+    static OcrDocument.Page arrange(OcrDocument.Page page) {
+        List<OcrDocument.Block> blocks = new ArrayList<>();
+        if (!page.lines.isEmpty()) {
+            Layout layout = Layout.of(page);
+            if (layout == null) {
+                // Lines without boxes cannot be placed; keep the service order
+                blocks.add(new OcrDocument.Block(page.lines, false));
+            } else {
+                layout.arrangeInto(blocks);
+            }
+        }
+        return new OcrDocument.Page(page.pageNumber, page.angle, page.width, page.height, page.language,
+                page.lines, blocks);
+    }
+
+    /** Line geometry in parallel primitive arrays, indexed like page.lines. */
+    private static final class Layout {
+        final List<OcrDocument.Line> lines;
+        final float[] left;
+        final float[] top;
+        final float[] right;
+        final float[] bottom;
+        final float lineHeight;
+        final int[] column;
+
+        private Layout(List<OcrDocument.Line> lines) {
+            int n = lines.size();
+            this.lines = lines;
+            left = new float[n];
+            top = new float[n];
+            right = new float[n];
+            bottom = new float[n];
+            column = new int[n];
+            lineHeight = 0;
+        }
+
+        private Layout(Layout geometry, float lineHeight) {
+            this.lines = geometry.lines;
+            this.left = geometry.left;
+            this.top = geometry.top;
+            this.right = geometry.right;
+            this.bottom = geometry.bottom;
+            this.column = geometry.column;
+            this.lineHeight = lineHeight;
+        }
+
+        static Layout of(OcrDocument.Page page) {
+            Layout geometry = new Layout(page.lines);
+            boolean rotate = Math.abs(page.angle) >= MIN_ROTATION_DEGREES;
+            double radians = Math.toRadians(page.angle);
+            float cos = (float) Math.cos(radians);
+            float sin = (float) Math.sin(radians);
+            int n = page.lines.size();
+            float[] heights = new float[n];
+            for (int i = 0; i < n; i++) {
+                float[] box = page.lines.get(i).boundingBox;
+                if (box.length < 8) {
+                    return null;
+                }
+                float minX = Float.MAX_VALUE;
+                float minY = Float.MAX_VALUE;
+                float maxX = -Float.MAX_VALUE;
+                float maxY = -Float.MAX_VALUE;
+                for (int p = 0; p < 8; p += 2) {
+                    float x = box[p];
+                    float y = box[p + 1];
+                    if (rotate) {
+                        // Undo the clockwise text rotation reported by the service
+                        float rotatedX = x * cos + y * sin;
+                        y = -x * sin + y * cos;
+                        x = rotatedX;
+                    }
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+                geometry.left[i] = minX;
+                geometry.right[i] = maxX;
+                geometry.top[i] = minY;
+                geometry.bottom[i] = maxY;
+                heights[i] = maxY - minY;
+            }
+            Arrays.sort(heights);
+            return new Layout(geometry, Math.max(heights[n / 2], 1f));
+        }
+
+        float centerY(int i) {
+            return (top[i] + bottom[i]) / 2;
+        }
+
+        void arrangeInto(List<OcrDocument.Block> blocks) {
+            int n = lines.size();
+            float contentLeft = Float.MAX_VALUE;
+            float contentRight = -Float.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                contentLeft = Math.min(contentLeft, left[i]);
+                contentRight = Math.max(contentRight, right[i]);
+            }
+            float spanningWidth = SPANNING_WIDTH_FRACTION * (contentRight - contentLeft);
+            boolean[] spanning = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                spanning[i] = right[i] - left[i] > spanningWidth;
+            }
+            List<Integer> byTop = indices(n);
+            Collections.sort(byTop, Comparator.comparingDouble(i -> top[i]));
+            continueSpanningParagraphs(byTop, spanning);
+
+            // Walk top to bottom; each run of spanning lines, and each run of column lines, is a segment
+            List<Integer> segment = new ArrayList<>();
+            boolean segmentSpanning = false;
+            for (int i : byTop) {
+                if (!segment.isEmpty() && spanning[i] != segmentSpanning) {
+                    arrangeSegment(segment, segmentSpanning, blocks);
+                    segment = new ArrayList<>();
+                }
+                segmentSpanning = spanning[i];
+                segment.add(i);
+            }
+            arrangeSegment(segment, segmentSpanning, blocks);
+        }
+
+        /**
+         * Mark the short last line of a full-width paragraph as spanning too: it follows a
+         * spanning line within the paragraph gap, starts at the same left edge and has no
+         * other line beside it, so it cannot be the top of a column.
+         */
+        private void continueSpanningParagraphs(List<Integer> byTop, boolean[] spanning) {
+            float paragraphGap = PARAGRAPH_GAP_LINE_HEIGHTS * lineHeight;
+            float columnGap = COLUMN_GAP_LINE_HEIGHTS * lineHeight;
+            float sameRow = SAME_ROW_LINE_HEIGHTS * lineHeight;
+            int count = byTop.size();
+            for (int k = 1; k < count; k++) {
+                int i = byTop.get(k);
+                int above = byTop.get(k - 1);
+                if (spanning[i] || !spanning[above]
+                        || top[i] - bottom[above] > paragraphGap
+                        || Math.abs(left[i] - left[above]) > columnGap) {
+                    continue;
+                }
+                boolean alone = true;
+                for (int m = k + 1; m < count && top[byTop.get(m)] - top[i] <= lineHeight; m++) {
+                    if (Math.abs(centerY(byTop.get(m)) - centerY(i)) <= sameRow) {
+                        alone = false;
+                        break;
+                    }
+                }
+                spanning[i] = alone;
+            }
+        }
+
+        /** Merge overlapping horizontal extents; each merged range is a column. */
+        private void assignColumns(List<Integer> band) {
+            List<Integer> columnLines = new ArrayList<>(band);
+            Collections.sort(columnLines, Comparator.comparingDouble(i -> left[i]));
+            float gap = COLUMN_GAP_LINE_HEIGHTS * lineHeight;
+            int current = -1;
+            float currentRight = -Float.MAX_VALUE;
+            for (int i : columnLines) {
+                if (current < 0 || left[i] > currentRight + gap) {
+                    current++;
+                    currentRight = right[i];
+                } else {
+                    currentRight = Math.max(currentRight, right[i]);
+                }
+                column[i] = current;
+            }
+        }
+
+        private void arrangeSegment(List<Integer> segment, boolean spanningLines, List<OcrDocument.Block> blocks) {
+            if (segment.isEmpty()) {
+                return;
+            }
+            if (spanningLines) {
+                addParagraphs(segment, blocks);
+                return;
+            }
+            // Lines crossing a gutter are read where they are; the runs between them get their own columns
+            boolean[] bridging = bridgingLines(segment);
+            List<Integer> run = new ArrayList<>();
+            boolean runBridging = false;
+            for (int i : segment) {
+                if (!run.isEmpty() && bridging[i] != runBridging) {
+                    arrangeRun(run, runBridging, blocks);
+                    run = new ArrayList<>();
+                }
+                runBridging = bridging[i];
+                run.add(i);
+            }
+            arrangeRun(run, runBridging, blocks);
+        }
+
+        /**
+         * Lines that cross a gutter from side to side: an x-range, at least the column gap wide,
+         * that all but a few of the segment's lines leave empty and that has more text on both
+         * sides.
+         */
+        private boolean[] bridgingLines(List<Integer> segment) {
+            boolean[] bridging = new boolean[lines.size()];
+            int count = segment.size();
+            int maxBridging = (int) (MAX_BRIDGING_FRACTION * count);
+            if (maxBridging == 0) {
+                return bridging;
+            }
+            // Coverage of x by line extents widened by half the column gap on each side
+            float halfGap = COLUMN_GAP_LINE_HEIGHTS * lineHeight / 2;
+            float[] starts = new float[count];
+            float[] ends = new float[count];
+            for (int k = 0; k < count; k++) {
+                starts[k] = left[segment.get(k)] - halfGap;
+                ends[k] = right[segment.get(k)] + halfGap;
+            }
+            Arrays.sort(starts);
+            Arrays.sort(ends);
+            List<float[]> gutters = new ArrayList<>();
+            int coverage = 0;
+            boolean denseBefore = false;
+            float lowStart = Float.NaN;
+            int s = 0;
+            int e = 0;
+            while (e < count) {
+                boolean start = s < count && starts[s] < ends[e];
+                float x = start ? starts[s++] : ends[e++];
+                coverage += start ? 1 : -1;
+                if (coverage > maxBridging) {
+                    if (denseBefore && !Float.isNaN(lowStart) && x > lowStart) {
+                        gutters.add(new float[]{lowStart, x});
+                    }
+                    denseBefore = true;
+                    lowStart = Float.NaN;
+                } else if (Float.isNaN(lowStart)) {
+                    lowStart = x;
+                }
+            }
+            for (int i : segment) {
+                for (float[] gutter : gutters) {
+                    // A line merely ending inside it is a ragged column edge
+                    if (left[i] - halfGap <= gutter[0] && right[i] + halfGap >= gutter[1]) {
+                        bridging[i] = true;
+                    }
+                }
+            }
+            return bridging;
+        }
+
+        private void arrangeRun(List<Integer> run, boolean bridging, List<OcrDocument.Block> blocks) {
+            if (bridging) {
+                addParagraphs(run, blocks);
+                return;
+            }
+            assignColumns(run);
+            // Stable sort keeps the top-to-bottom order within each column
+            List<Integer> byColumn = new ArrayList<>(run);
+            Collections.sort(byColumn, Comparator.comparingInt(i -> column[i]));
+            if (column[byColumn.get(0)] == column[byColumn.get(byColumn.size() - 1)]) {
+                addParagraphs(run, blocks);
+            } else if (isTable(run)) {
+                addTable(run, blocks);
+            } else {
+                int start = 0;
+                for (int k = 1; k <= byColumn.size(); k++) {
+                    if (k == byColumn.size() || column[byColumn.get(k)] != column[byColumn.get(start)]) {
+                        addParagraphs(byColumn.subList(start, k), blocks);
+                        start = k;
+                    }
+                }
+            }
+        }
+
+        private boolean isTable(List<Integer> segment) {
+            List<Integer> byCenter = new ArrayList<>(segment);
+            Collections.sort(byCenter, Comparator.comparingDouble(this::centerY));
+            int count = byCenter.size();
+            boolean[] aligned = new boolean[count];
+            float sameRow = SAME_ROW_LINE_HEIGHTS * lineHeight;
+            int words = 0;
+            for (int a = 0; a < count; a++) {
+                int i = byCenter.get(a);
+                words += wordCount(lines.get(i).text);
+                for (int b = a + 1; b < count && centerY(byCenter.get(b)) - centerY(i) <= sameRow; b++) {
+                    if (column[byCenter.get(b)] != column[i]) {
+                        aligned[a] = true;
+                        aligned[b] = true;
+                    }
+                }
+            }
+            int alignedCount = 0;
+            for (boolean isAligned : aligned) {
+                if (isAligned) {
+                    alignedCount++;
+                }
+            }
+            return alignedCount >= TABLE_MIN_ALIGNED_FRACTION * count
+                    && words <= TABLE_MAX_MEAN_WORDS * count;
+        }
+
+        /** One block per paragraph; lines sharing a row are read left to right. */
+        private void addParagraphs(List<Integer> segment, List<OcrDocument.Block> blocks) {
+            List<OcrDocument.Line> paragraph = new ArrayList<>();
+            float previousBottom = Float.NaN;
+            float paragraphGap = PARAGRAPH_GAP_LINE_HEIGHTS * lineHeight;
+            for (List<Integer> row : rows(segment)) {
+                float rowTop = Float.MAX_VALUE;
+                float rowBottom = -Float.MAX_VALUE;
+                for (int i : row) {
+                    rowTop = Math.min(rowTop, top[i]);
+                    rowBottom = Math.max(rowBottom, bottom[i]);
+                }
+                if (!paragraph.isEmpty() && rowTop - previousBottom > paragraphGap) {
+                    blocks.add(new OcrDocument.Block(paragraph, false));
+                    paragraph = new ArrayList<>();
+                }
+                for (int i : row) {
+                    paragraph.add(lines.get(i));
+                }
+                previousBottom = rowBottom;
+            }
+            if (!paragraph.isEmpty()) {
+                blocks.add(new OcrDocument.Block(paragraph, false));
+            }
+        }
+
+        /**
+         * Blocks whose lines are whole rows, cells joined left to right. A large vertical
+         * gap ends the table; rows of single lines after it are plain paragraphs (captions, notes).
+         */
+        private void addTable(List<Integer> segment, List<OcrDocument.Block> blocks) {
+            List<OcrDocument.Line> rowLines = new ArrayList<>();
+            boolean multiCell = false;
+            float previousBottom = Float.NaN;
+            float paragraphGap = PARAGRAPH_GAP_LINE_HEIGHTS * lineHeight;
+            for (List<Integer> row : rows(segment)) {
+                float rowTop = Float.MAX_VALUE;
+                float rowBottom = -Float.MAX_VALUE;
+                for (int i : row) {
+                    rowTop = Math.min(rowTop, top[i]);
+                    rowBottom = Math.max(rowBottom, bottom[i]);
+                }
+                if (!rowLines.isEmpty() && rowTop - previousBottom > paragraphGap) {
+                    blocks.add(new OcrDocument.Block(rowLines, multiCell));
+                    rowLines = new ArrayList<>();
+                    multiCell = false;
+                }
+                rowLines.add(row.size() == 1 ? lines.get(row.get(0)) : mergeRow(row));
+                multiCell |= row.size() > 1;
+                previousBottom = rowBottom;
+            }
+            if (!rowLines.isEmpty()) {
+                blocks.add(new OcrDocument.Block(rowLines, multiCell));
+            }
+        }
+
+        /** Group lines whose centres are within half a line height, each row sorted left to right. */
+        private List<List<Integer>> rows(List<Integer> segment) {
+            List<Integer> byCenter = new ArrayList<>(segment);
+            Collections.sort(byCenter, Comparator.comparingDouble(this::centerY));
+            List<List<Integer>> rows = new ArrayList<>();
+            float sameRow = SAME_ROW_LINE_HEIGHTS * lineHeight;
+            List<Integer> row = null;
+            float rowCenter = 0;
+            for (int i : byCenter) {
+                if (row == null || centerY(i) - rowCenter > sameRow) {
+                    row = new ArrayList<>();
+                    rows.add(row);
+                    rowCenter = centerY(i);
+                }
+                row.add(i);
+            }
+            for (List<Integer> each : rows) {
+                Collections.sort(each, Comparator.comparingDouble(i -> left[i]));
+            }
+            return rows;
+        }
+
+        private OcrDocument.Line mergeRow(List<Integer> row) {
+            StringBuilder text = new StringBuilder();
+            List<OcrDocument.Word> words = new ArrayList<>();
+            float minX = Float.MAX_VALUE;
+            float minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE;
+            float maxY = -Float.MAX_VALUE;
+            for (int i : row) {
+                OcrDocument.Line line = lines.get(i);
+                if (text.length() > 0) {
+                    text.append(TABLE_CELL_SEPARATOR);
+                }
+                text.append(line.text);
+                words.addAll(line.words);
+                for (int p = 0; p < 8; p += 2) {
+                    minX = Math.min(minX, line.boundingBox[p]);
+                    maxX = Math.max(maxX, line.boundingBox[p]);
+                    minY = Math.min(minY, line.boundingBox[p + 1]);
+                    maxY = Math.max(maxY, line.boundingBox[p + 1]);
+                }
+            }
+            float[] box = {minX, minY, maxX, minY, maxX, maxY, minX, maxY};
+            return new OcrDocument.Line(text.toString(), box, words);
+        }
+
+        private static List<Integer> indices(int n) {
+            List<Integer> indices = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                indices.add(i);
+            }
+            return indices;
+        }
+
+        private static int wordCount(String text) {
+            int count = 0;
+            boolean inWord = false;
+            for (int i = 0; i < text.length(); i++) {
+                boolean space = Character.isWhitespace(text.charAt(i));
+                if (!space && !inWord) {
+                    count++;
+                }
+                inWord = !space;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Cursor over the last {@link OcrReading} for the "repeat", "next line", "previous paragraph"
+ * and "read from the top" commands. Positions are a paragraph and a line within it; a new
+ * reading starts before its first line, so "next line" right after the full read starts
+ * stepping from the top. Reading a whole paragraph leaves the cursor on its last line.
+ * Methods return the text to speak, or null at either end of the text.
+ */
+public class OcrNavigator {
+
+    @Nullable
+    private OcrReading reading;
+    private int paragraph;
+    // -1 before the first line of the reading
+    private int line = -1;
+    @Nullable
+    private String lastSpoken;
+
+    /**
+     * Start over with a reading whose full text has just been spoken.
+     */
+    public void setReading(OcrReading reading) {
+        this.reading = reading;
+        paragraph = 0;
+        line = -1;
+        lastSpoken = reading.getText();
+    }
+
+    public boolean hasReading() {
+        return reading != null && !reading.isEmpty();
+    }
+
+    @Nullable
+    public String getLanguage() {
+        return reading != null ? reading.language : null;
+    }
+
+    @Nullable
+    public String repeat() {
+        return hasReading() ? lastSpoken : null;
+    }
+
+    @Nullable
+    public String readFromTop() {
+        if (!hasReading()) {
+            return null;
+        }
+        setReading(reading);
+        return lastSpoken;
+    }
+
+    @Nullable
+    public String nextLine() {
+        if (!hasReading()) {
+            return null;
+        }
+        if (line + 1 < reading.getLines(paragraph).size()) {
+            line++;
+        } else if (paragraph + 1 < reading.getParagraphCount()) {
+            paragraph++;
+            line = 0;
+        } else {
+            return null;
+        }
+        return speakLine();
+    }
+
+    @Nullable
+    public String previousLine() {
+        if (!hasReading()) {
+            return null;
+        }
+        if (line > 0) {
+            line--;
+        } else if (paragraph > 0) {
+            paragraph--;
+            line = reading.getLines(paragraph).size() - 1;
+        } else {
+            return null;
+        }
+        return speakLine();
+    }
+
+    @Nullable
+    public String nextParagraph() {
+        if (!hasReading()) {
+            return null;
+        }
+        int target = line < 0 ? paragraph : paragraph + 1;
+        return target < reading.getParagraphCount() ? speakParagraph(target) : null;
+    }
+
+    @Nullable
+    public String previousParagraph() {
+        if (!hasReading() || line < 0 || paragraph == 0) {
+            return null;
+        }
+        return speakParagraph(paragraph - 1);
+    }
+
+    private String speakLine() {
+        lastSpoken = reading.getLines(paragraph).get(line);
+        return lastSpoken;
+    }
+
+    private String speakParagraph(int target) {
+        paragraph = target;
+        line = reading.getLines(target).size() - 1;
+        lastSpoken = reading.getParagraphText(target);
+        return lastSpoken;
+    }
+}
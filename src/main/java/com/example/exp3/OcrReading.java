@@ -0,0 +1,158 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The spoken part of an OCR result: paragraphs of line texts in reading order, plus the
+ * language they were spoken in. Small enough to keep in memory and on disk
+ * (see {@link OcrReadingStore}) so it can be replayed without another capture.
+ */
+public final class OcrReading {
+
+    private static final String FORMAT_VERSION = "v1";
+
+    public final long capturedAtMs;
+    @Nullable
+    public final String language;
+    private final List<List<String>> paragraphs;
+
+    OcrReading(long capturedAtMs, @Nullable String language, List<List<String>> paragraphs) {
+        this.capturedAtMs = capturedAtMs;
+        this.language = language;
+        this.paragraphs = Collections.unmodifiableList(paragraphs);
+    }
+
+    /**
+     * Paragraphs from the document's blocks (service-order lines as one paragraph per page when
+     * the document has not been arranged). Blank lines are dropped.
+     */
+    public static OcrReading from(OcrDocument document, @Nullable String language, long capturedAtMs) {
+        List<List<String>> paragraphs = new ArrayList<>();
+        for (OcrDocument.Page page : document.getPages()) {
+            if (page.blocks.isEmpty()) {
+                addParagraph(paragraphs, page.lines);
+            }
+            for (OcrDocument.Block block : page.blocks) {
+                addParagraph(paragraphs, block.lines);
+            }
+        }
+        return new OcrReading(capturedAtMs, language, paragraphs);
+    }
+
+    private static void addParagraph(List<List<String>> paragraphs, List<OcrDocument.Line> lines) {
+        List<String> texts = new ArrayList<>(lines.size());
+        for (OcrDocument.Line line : lines) {
+            String text = line.text.trim();
+            if (!text.isEmpty()) {
+                texts.add(text);
+            }
+        }
+        if (!texts.isEmpty()) {
+            paragraphs.add(Collections.unmodifiableList(texts));
+        }
+    }
+
+    public int getParagraphCount() {
+        return paragraphs.size();
+    }
+
+    public List<String> getLines(int paragraph) {
+        return paragraphs.get(paragraph);
+    }
+
+    public boolean isEmpty() {
+        return paragraphs.isEmpty();
+    }
+
+    /**
+     * Lines of one paragraph joined by newlines, which the speech chunker treats as pauses,
+     * with hyphenated words joined as in {@link OcrDocument.Block#getText(String)}.
+     */
+    public String getParagraphText(int paragraph) {
+        return join(paragraphs.get(paragraph));
+    }
+
+    public String getText() {
+        StringBuilder sb = new StringBuilder();
+        for (List<String> paragraph : paragraphs) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(join(paragraph));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Plain text: a header line, then one line per OCR line with a blank line between
+     * paragraphs. OCR lines never contain line breaks, so no escaping is needed.
+     */
+    String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(FORMAT_VERSION).append('\t').append(capturedAtMs).append('\t')
+                .append(language != null ? language : "").append('\n');
+        for (int i = 0; i < paragraphs.size(); i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            for (String line : paragraphs.get(i)) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns null when the text is not in the {@link #encode()} format.
+     */
+    @Nullable
+    static OcrReading decode(String encoded) {
+        String[] rows = encoded.split("\n", -1);
+        String[] header = rows[0].split("\t", -1);
+        if (header.length != 3 || !FORMAT_VERSION.equals(header[0])) {
+            return null;
+        }
+        long capturedAtMs;
+        try {
+            capturedAtMs = Long.parseLong(header[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        List<List<String>> paragraphs = new ArrayList<>();
+        List<String> paragraph = new ArrayList<>();
+        for (int i = 1; i < rows.length; i++) {
+            if (rows[i].isEmpty()) {
+                if (!paragraph.isEmpty()) {
+                    paragraphs.add(Collections.unmodifiableList(paragraph));
+                    paragraph = new ArrayList<>();
+                }
+            } else {
+                paragraph.add(rows[i]);
+            }
+        }
+        if (!paragraph.isEmpty()) {
+            paragraphs.add(Collections.unmodifiableList(paragraph));
+        }
+        return new OcrReading(capturedAtMs, header[2].isEmpty() ? null : header[2], paragraphs);
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (i + 1 < lines.size() && OcrDocument.Block.endsWithBrokenWord(line, lines.get(i + 1))) {
+                sb.append(line, 0, line.length() - 1);
+            } else {
+                sb.append(line);
+                if (i + 1 < lines.size()) {
+                    sb.append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.exp3;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * The latest {@link OcrReading}, kept in memory and optionally written to disk as a small
+ * text file so the last document can still be navigated after a restart. Read text can be
+ * private (letters, prescriptions, bank slips), so only one reading is kept, it belongs in
+ * the cache directory, and it is dropped once older than the configured age.
+ */
+public class OcrReadingStore {
+
+    private static final String TAG = "OcrReadingStore";
+    private static final String FILE_PREFIX = "reading-";
+    private static final String FILE_SUFFIX = ".txt";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final long maxAgeMs;
+    private final LongSupplier clockMs;
+    @Nullable
+    private final File diskDirectory;
+    private final ExecutorService diskExecutor;
+    @Nullable
+    private OcrReading latest;
+
+    /**
+     * @param diskDirectory where to persist the reading, or null for memory only
+     */
+    public OcrReadingStore(long maxAgeMs, @Nullable File diskDirectory) {
+        this(maxAgeMs, diskDirectory, System::currentTimeMillis);
+    }
+
+    OcrReadingStore(long maxAgeMs, @Nullable File diskDirectory, LongSupplier clockMs) {
+        this.maxAgeMs = maxAgeMs;
+        this.clockMs = clockMs;
+        this.diskDirectory = diskDirectory;
+        diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "ocr-reading-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (diskDirectory != null) {
+            diskExecutor.execute(this::loadFromDisk);
+        }
+    }
+
+    public void add(final OcrReading reading) {
+        synchronized (this) {
+            latest = reading;
+        }
+        if (diskDirectory != null) {
+            diskExecutor.execute(() -> writeToDisk(reading));
+        }
+    }
+
+    /**
+     * The latest reading, or null if there is none or it has expired.
+     */
+    @Nullable
+    public OcrReading latest() {
+        synchronized (this) {
+            if (latest == null || !isExpired(latest)) {
+                return latest;
+            }
+            Log.d(TAG, "Dropping reading from " + (clockMs.getAsLong() - latest.capturedAtMs) + " ms ago");
+            latest = null;
+        }
+        if (diskDirectory != null) {
+            diskExecutor.execute(this::deleteStaleFiles);
+        }
+        return null;
+    }
+
+    /**
+     * Delete readings kept by earlier versions, which stored several with no age limit.
+     */
+    public void deleteOldReadings(final File directory) {
+        diskExecutor.execute(() -> {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                file.delete();
+            }
+            directory.delete();
+        });
+    }
+
+    public void shutdown() {
+        diskExecutor.shutdown();
+    }
+
+    /** Wait for loading and earlier writes to finish. */
+    void awaitDiskIdle() throws InterruptedException {
+        try {
+            diskExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isExpired(OcrReading reading) {
+        return clockMs.getAsLong() - reading.capturedAtMs > maxAgeMs;
+    }
+
+    private static String fileNameFor(OcrReading reading) {
+        return FILE_PREFIX + reading.capturedAtMs + FILE_SUFFIX;
+    }
+
+    private File[] readingFiles() {
+        File[] files = diskDirectory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private void loadFromDisk() {
+        OcrReading newest = null;
+        for (File file : readingFiles()) {
+            OcrReading reading = readFile(file);
+            if (reading == null) {
+                Log.w(TAG, "Deleting unreadable reading " + file.getName());
+                file.delete();
+            } else if (!isExpired(reading) && (newest == null || reading.capturedAtMs > newest.capturedAtMs)) {
+                newest = reading;
+            }
+        }
+        synchronized (this) {
+            // A reading added while loading is newer than anything on disk
+            if (latest == null) {
+                latest = newest;
+            }
+        }
+        deleteStaleFiles();
+        Log.d(TAG, newest != null ? "Loaded the persisted reading." : "No persisted reading.");
+    }
+
+    @Nullable
+    private static OcrReading readFile(File file) {
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            return OcrReading.decode(new String(bytes, 0, offset, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(OcrReading reading) {
+        if (!diskDirectory.exists() && !diskDirectory.mkdirs()) {
+            Log.w(TAG, "Could not create " + diskDirectory);
+            return;
+        }
+        File file = new File(diskDirectory, fileNameFor(reading));
+        // Written aside and renamed, so a crash mid-write never leaves a truncated reading
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(reading.encode().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Error persisting reading", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Could not replace " + file);
+            temp.delete();
+            return;
+        }
+        deleteStaleFiles();
+    }
+
+    /** Delete every file but the current reading's, including temp files a crash left behind. */
+    private void deleteStaleFiles() {
+        String kept;
+        synchronized (this) {
+            kept = latest != null ? fileNameFor(latest) : null;
+        }
+        File[] files = diskDirectory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.getName().equals(kept)) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.exp3;
+
+/**
+ * 64-bit difference hash (dHash) of a luma plane. The frame is reduced to a 9x8 grid of
+ * mean brightness and each bit records whether a cell is brighter than its right-hand
+ * neighbour, so small shifts, exposure changes and JPEG noise flip only a few bits.
+ */
+public final class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(byte[] luma, int width, int height, int rowStride) {
+        long[] sums = new long[GRID_WIDTH * GRID_HEIGHT];
+        int[] counts = new int[GRID_WIDTH * GRID_HEIGHT];
+        for (int y = 0; y < height; y++) {
+            int cellRow = (y * GRID_HEIGHT / height) * GRID_WIDTH;
+            int rowStart = y * rowStride;
+            for (int x = 0; x < width; x++) {
+                int cell = cellRow + x * GRID_WIDTH / width;
+                sums[cell] += luma[rowStart + x] & 0xFF;
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int cy = 0; cy < GRID_HEIGHT; cy++) {
+            for (int cx = 0; cx < GRID_WIDTH - 1; cx++) {
+                int left = cy * GRID_WIDTH + cx;
+                int right = left + 1;
+                // Compare means without dividing: sumL / countL > sumR / countR
+                hash <<= 1;
+                if (sums[left] * counts[right] > sums[right] * counts[left]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long hashA, long hashB) {
+        return Long.bitCount(hashA ^ hashB);
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.exp3;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reverse-geocoded addresses and nearby-POI search results from Azure Maps, keyed by where
+ * they were looked up. Entries are bucketed by geohash cell, so a lookup only checks the
+ * cells around the position. An entry answers for positions within a radius of where it was
+ * fetched (see {@link AzureConfig.PlaceCache}); past its fresh age it is still returned but
+ * marked stale, so the caller can answer at once and refresh in the background. Kept in
+ * memory and optionally in one JSON file so places survive a restart.
+ */
+public class PlaceCache {
+
+    private static final String TAG = "PlaceCache";
+    private static final String ADDRESS_KEY = "address";
+    private static final String POI_KEY_PREFIX = "poi:";
+    // About 150 m square; lookups cover as many cells as their radius needs
+    private static final int CELL_PRECISION = 7;
+
+    public static final class Place {
+        public final String name;
+        public final double latitude;
+        public final double longitude;
+
+        public Place(String name, double latitude, double longitude) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    /** A cached answer; a stale one is still worth speaking but should be refreshed. */
+    public static final class Hit<T> {
+        public final T value;
+        public final boolean stale;
+
+        Hit(T value, boolean stale) {
+            this.value = value;
+            this.stale = stale;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final double latitude;
+        final double longitude;
+        final long storedAtMs;
+        final String cell;
+        // The address, or the places a POI search returned (possibly none)
+        final String address;
+        final List<Place> places;
+
+        Entry(String key, double latitude, double longitude, long storedAtMs,
+              @Nullable String address, @Nullable List<Place> places) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.storedAtMs = storedAtMs;
+            this.cell = Geohash.encode(latitude, longitude, CELL_PRECISION);
+            this.address = address;
+            this.places = places;
+        }
+    }
+
+    private final int maxEntries;
+    @Nullable
+    private final File diskFile;
+    @Nullable
+    private final ExecutorService diskExecutor;
+    private final Map<String, List<Entry>> cells = new HashMap<>();
+    // Oldest first, for eviction
+    private final List<Entry> entries = new ArrayList<>();
+    // Counted down once the persisted places are in memory
+    private final CountDownLatch diskLoaded = new CountDownLatch(1);
+    private boolean writePending;
+
+    private int lookups;
+    private int freshHits;
+    private int staleHits;
+    private long lookupNanos;
+
+    /**
+     * @param diskFile where to persist places, or null for memory only
+     */
+    public PlaceCache(int maxEntries, @Nullable File diskFile) {
+        this.maxEntries = maxEntries;
+        this.diskFile = diskFile;
+        if (diskFile != null) {
+            diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "place-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+            diskExecutor.execute(() -> {
+                try {
+                    loadFromDisk();
+                } finally {
+                    diskLoaded.countDown();
+                }
+            });
+        } else {
+            diskExecutor = null;
+            diskLoaded.countDown();
+        }
+    }
+
+    static double radiusMetersFor(String key) {
+        return ADDRESS_KEY.equals(key)
+                ? AzureConfig.PlaceCache.ADDRESS_RADIUS_METERS
+                : AzureConfig.PlaceCache.POI_RADIUS_METERS;
+    }
+
+    static long freshMsFor(String key) {
+        return ADDRESS_KEY.equals(key)
+                ? AzureConfig.PlaceCache.ADDRESS_FRESH_MS
+                : AzureConfig.PlaceCache.POI_FRESH_MS;
+    }
+
+    static long maxAgeMsFor(String key) {
+        return ADDRESS_KEY.equals(key)
+                ? AzureConfig.PlaceCache.ADDRESS_MAX_AGE_MS
+                : AzureConfig.PlaceCache.POI_MAX_AGE_MS;
+    }
+
+    /** The address looked up closest to this position, or null if none is near and young enough. */
+    @Nullable
+    public Hit<String> findAddress(double latitude, double longitude, long nowMs) {
+        Hit<Entry> hit = find(ADDRESS_KEY, latitude, longitude, radiusMetersFor(ADDRESS_KEY), nowMs, true);
+        return hit != null ? new Hit<>(hit.value.address, hit.stale) : null;
+    }
+
+    public void putAddress(double latitude, double longitude, String address, long nowMs) {
+        put(new Entry(ADDRESS_KEY, latitude, longitude, nowMs, address, null));
+    }
+
+    /**
+     * The places found by the search for this category made closest to this position, or
+     * null if there was none near and young enough. An empty list means the search found
+     * nothing.
+     */
+    @Nullable
+    public Hit<List<Place>> findPois(String category, double latitude, double longitude, long nowMs) {
+        String key = POI_KEY_PREFIX + category;
+        Hit<Entry> hit = find(key, latitude, longitude, radiusMetersFor(key), nowMs, true);
+        return hit != null ? new Hit<>(hit.value.places, hit.stale) : null;
+    }
+
+    /**
+     * For prefetching: whether a fresh search for this category was made at this very spot.
+     * Not counted in the stats.
+     */
+    public boolean hasFreshPois(String category, double latitude, double longitude, long nowMs) {
+        Hit<Entry> hit = find(POI_KEY_PREFIX + category, latitude, longitude, 1, nowMs, false);
+        return hit != null && !hit.stale;
+    }
+
+    public void putPois(String category, double latitude, double longitude, List<Place> places, long nowMs) {
+        put(new Entry(POI_KEY_PREFIX + category, latitude, longitude, nowMs, null,
+                Collections.unmodifiableList(new ArrayList<>(places))));
+    }
+
+    /**
+     * The places in an Azure Maps POI category search response, nearest to the query first.
+     */
+    public static List<Place> parsePoiSearch(String responseBody, String category) throws JSONException {
+        JSONArray results = new JSONObject(responseBody).optJSONArray("results");
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; results != null && i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            JSONObject poi = result.optJSONObject("poi");
+            JSONObject position = result.optJSONObject("position");
+            if (position == null) {
+                continue;
+            }
+            String name = poi != null ? poi.optString("name", "Unnamed " + category) : "Unnamed " + category;
+            places.add(new Place(name, position.optDouble("lat"), position.optDouble("lon")));
+        }
+        return places;
+    }
+
+    public synchronized String getStatsSummary() {
+        int hits = freshHits + staleHits;
+        // A fresh hit skips its Maps call; a stale one only skips the wait for it
+        return String.format(Locale.US, "lookups=%d hits=%d (fresh=%d stale=%d) hitRate=%d%% callsSaved=%d avgLookup=%d us entries=%d",
+                lookups, hits, freshHits, staleHits, lookups == 0 ? 0 : hits * 100 / lookups, freshHits,
+                lookups == 0 ? 0 : lookupNanos / lookups / 1000, entries.size());
+    }
+
+    /**
+     * Block until the persisted places are in memory. Until then queries see only what was
+     * added since start, so a background job that reads at once waits here first.
+     */
+    public void awaitLoaded() throws InterruptedException {
+        diskLoaded.await();
+    }
+
+    /** Wait for loading and earlier writes to finish. */
+    void awaitDiskIdle() throws InterruptedException {
+        if (diskExecutor == null) {
+            return;
+        }
+        try {
+            diskExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void shutdown() {
+        if (diskExecutor != null) {
+            diskExecutor.shutdown();
+        }
+    }
+
+    @Nullable
+    private synchronized Hit<Entry> find(String key, double latitude, double longitude, double radiusMeters, long nowMs,
+                                         boolean counted) {
+        long startNanos = System.nanoTime();
+        long maxAgeMs = maxAgeMsFor(key);
+        Entry best = null;
+        double bestDistance = radiusMeters;
+        for (String cell : Geohash.cellsCovering(latitude, longitude, radiusMeters, CELL_PRECISION)) {
+            List<Entry> bucket = cells.get(cell);
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry entry : bucket) {
+                if (!entry.key.equals(key) || nowMs - entry.storedAtMs > maxAgeMs) {
+                    continue;
+                }
+                double distance = Geohash.distanceMeters(latitude, longitude, entry.latitude, entry.longitude);
+                // Among equally close entries the newer one wins
+                if (distance < bestDistance || (distance == bestDistance && best != null && entry.storedAtMs > best.storedAtMs)) {
+                    bestDistance = distance;
+                    best = entry;
+                }
+            }
+        }
+        if (counted) {
+            lookups++;
+            lookupNanos += System.nanoTime() - startNanos;
+        }
+        if (best == null) {
+            return null;
+        }
+        boolean stale = nowMs - best.storedAtMs > freshMsFor(key);
+        if (counted) {
+            if (stale) {
+                staleHits++;
+            } else {
+                freshHits++;
+            }
+        }
+        return new Hit<>(best, stale);
+    }
+
+    private void put(Entry entry) {
+        synchronized (this) {
+            // A new answer replaces the ones it covers rather than piling up beside them
+            double radiusMeters = radiusMetersFor(entry.key);
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Entry existing = iterator.next();
+                if (existing.key.equals(entry.key) && Geohash.distanceMeters(entry.latitude, entry.longitude,
+                        existing.latitude, existing.longitude) < radiusMeters) {
+                    iterator.remove();
+                    removeFromCell(existing);
+                }
+            }
+            add(entry);
+            trimToSize(entry.storedAtMs);
+        }
+        scheduleWrite();
+    }
+
+    private void add(Entry entry) {
+        entries.add(entry);
+        List<Entry> bucket = cells.get(entry.cell);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            cells.put(entry.cell, bucket);
+        }
+        bucket.add(entry);
+    }
+
+    private void removeFromCell(Entry entry) {
+        List<Entry> bucket = cells.get(entry.cell);
+        if (bucket != null) {
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                cells.remove(entry.cell);
+            }
+        }
+    }
+
+    private void trimToSize(long nowMs) {
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (nowMs - entry.storedAtMs > maxAgeMsFor(entry.key)) {
+                iterator.remove();
+                removeFromCell(entry);
+            }
+        }
+        while (entries.size() > maxEntries) {
+            removeFromCell(entries.remove(0));
+        }
+    }
+
+    /** Writes are coalesced: one rewrite of the file covers every put made before it runs. */
+    private void scheduleWrite() {
+        if (diskExecutor == null) {
+            return;
+        }
+        synchronized (this) {
+            if (writePending) {
+                return;
+            }
+            writePending = true;
+        }
+        diskExecutor.execute(this::writeToDisk);
+    }
+
+    private void loadFromDisk() {
+        if (!diskFile.exists()) {
+            return;
+        }
+        byte[] bytes = new byte[(int) diskFile.length()];
+        List<Entry> loaded = new ArrayList<>();
+        try (FileInputStream in = new FileInputStream(diskFile)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            JSONArray array = new JSONArray(new String(bytes, 0, offset, StandardCharsets.UTF_8));
+            for (int i = 0; i < array.length(); i++) {
+                loaded.add(decode(array.getJSONObject(i)));
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Deleting unreadable place cache", e);
+            diskFile.delete();
+            return;
+        }
+        long nowMs = System.currentTimeMillis();
+        synchronized (this) {
+            // Places stored while loading are newer than anything on disk
+            List<Entry> newer = new ArrayList<>(entries);
+            entries.clear();
+            cells.clear();
+            for (Entry entry : loaded) {
+                add(entry);
+            }
+            for (Entry entry : newer) {
+                add(entry);
+            }
+            trimToSize(nowMs);
+        }
+        Log.d(TAG, "Loaded " + loaded.size() + " persisted places.");
+    }
+
+    private void writeToDisk() {
+        JSONArray array = new JSONArray();
+        synchronized (this) {
+            writePending = false;
+            try {
+                for (Entry entry : entries) {
+                    array.put(encode(entry));
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Error encoding places", e);
+                return;
+            }
+        }
+        File parent = diskFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log.w(TAG, "Could not create " + parent);
+            return;
+        }
+        // Written aside and renamed, so a crash mid-write keeps the previous file
+        File temp = new File(diskFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(array.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Error persisting places", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(diskFile)) {
+            Log.w(TAG, "Could not replace " + diskFile);
+            temp.delete();
+        }
+    }
+
+    private static JSONObject encode(Entry entry) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("key", entry.key);
+        json.put("lat", entry.latitude);
+        json.put("lon", entry.longitude);
+        json.put("storedAtMs", entry.storedAtMs);
+        if (entry.address != null) {
+            json.put("address", entry.address);
+        }
+        if (entry.places != null) {
+            JSONArray places = new JSONArray();
+            for (Place place : entry.places) {
+                places.put(new JSONObject()
+                        .put("name", place.name)
+                        .put("lat", place.latitude)
+                        .put("lon", place.longitude));
+            }
+            json.put("places", places);
+        }
+        return json;
+    }
+
+    private static Entry decode(JSONObject json) throws JSONException {
+        List<Place> places = null;
+        JSONArray array = json.optJSONArray("places");
+        if (array != null) {
+            places = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject place = array.getJSONObject(i);
+                places.add(new Place(place.getString("name"), place.getDouble("lat"), place.getDouble("lon")));
+            }
+            places = Collections.unmodifiableList(places);
+        }
+        return new Entry(json.getString("key"), json.getDouble("lat"), json.getDouble("lon"),
+                json.getLong("storedAtMs"), json.has("address") ? json.getString("address") : null, places);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.exp3;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Fills the {@link PlaceCache} with bus stops and railway stations around the areas where
+ * "where am I" is asked often ({@link VisitedAreas}), so answers there need no Maps call.
+ * One search per category from the center of each area covers the whole area (see
+ * {@link AzureConfig.PlacePrefetch}). Runs periodically, only on an unmetered network while
+ * charging, and skips areas whose searches are still fresh.
+ */
+public class PlacePrefetchJobService extends JobService {
+
+    private static final String TAG = "PlacePrefetch";
+    private static final int JOB_ID = 1001;
+    private static final String[] CATEGORIES = {MainActivity.POI_BUS_STOP, MainActivity.POI_RAILWAY_STATION};
+
+    private volatile boolean stopped;
+
+    /**
+     * Schedule the periodic prefetch unless it is already scheduled.
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, PlacePrefetchJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPeriodic(AzureConfig.PlacePrefetch.PERIOD_MS)
+                .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+            Log.w(TAG, "Could not schedule place prefetch.");
+        }
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        stopped = false;
+        Thread worker = new Thread(() -> {
+            prefetch();
+            if (!stopped) {
+                jobFinished(params, false);
+            }
+        }, "place-prefetch");
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Charging or Wi-Fi went away; what was fetched so far is kept
+        stopped = true;
+        return true;
+    }
+
+    private void prefetch() {
+        PlaceCache placeCache = PlaceStores.placeCache(this);
+        VisitedAreas visitedAreas = PlaceStores.visitedAreas(this);
+        try {
+            // The job may be the first user of both since the process started, and they
+            // load from disk in the background
+            placeCache.awaitLoaded();
+            visitedAreas.awaitLoaded();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<String> cells = visitedAreas.frequentCells(AzureConfig.PlacePrefetch.MIN_VISITS,
+                AzureConfig.PlacePrefetch.MAX_AREAS, System.currentTimeMillis());
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .callTimeout(AzureConfig.PlacePrefetch.CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
+        int fetched = 0;
+        int fresh = 0;
+        int failed = 0;
+        for (String cell : cells) {
+            double[] center = Geohash.decodeCenter(cell);
+            for (String category : CATEGORIES) {
+                if (stopped) {
+                    Log.d(TAG, "Prefetch stopped after " + fetched + " searches.");
+                    return;
+                }
+                if (placeCache.hasFreshPois(category, center[0], center[1], System.currentTimeMillis())) {
+                    fresh++;
+                    continue;
+                }
+                String url = AzureConfig.Maps.getNearbySearchPoiUrl(center[0], center[1], category);
+                Request request = new Request.Builder().url(url).get().build();
+                try (Response response = httpClient.newCall(request).execute()) {
+                    String body = response.body() != null ? response.body().string() : null;
+                    if (!response.isSuccessful() || body == null) {
+                        Log.w(TAG, "POI (" + category + ") prefetch error: " + response.code());
+                        failed++;
+                        continue;
+                    }
+                    placeCache.putPois(category, center[0], center[1], PlaceCache.parsePoiSearch(body, category),
+                            System.currentTimeMillis());
+                    fetched++;
+                } catch (IOException | JSONException e) {
+                    Log.w(TAG, "POI (" + category + ") prefetch failed for " + cell, e);
+                    failed++;
+                }
+            }
+        }
+        Log.d(TAG, String.format(Locale.US, "Prefetched %d areas: fetched=%d fresh=%d failed=%d",
+                cells.size(), fetched, fresh, failed));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.exp3;
+
+import android.content.Context;
+
+import java.io.File;
+
+/**
+ * The {@link PlaceCache} and {@link VisitedAreas} of the process, shared by the activity
+ * and {@link PlacePrefetchJobService} so both read and write the same files through one
+ * instance.
+ */
+final class PlaceStores {
+
+    private static PlaceCache placeCache;
+    private static VisitedAreas visitedAreas;
+
+    private PlaceStores() {
+    }
+
+    static synchronized PlaceCache placeCache(Context context) {
+        if (placeCache == null) {
+            placeCache = new PlaceCache(AzureConfig.PlaceCache.MAX_ENTRIES, AzureConfig.PlaceCache.PERSIST_TO_DISK
+                    ? new File(context.getApplicationContext().getFilesDir(), "places.json") : null);
+        }
+        return placeCache;
+    }
+
+    static synchronized VisitedAreas visitedAreas(Context context) {
+        if (visitedAreas == null) {
+            visitedAreas = new VisitedAreas(AzureConfig.PlacePrefetch.AREA_PRECISION, AzureConfig.PlacePrefetch.MAX_TRACKED_AREAS,
+                    AzureConfig.PlacePrefetch.MAX_IDLE_MS,
+                    new File(context.getApplicationContext().getFilesDir(), "visited_areas.json"));
+        }
+        return visitedAreas;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.exp3;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every place a POI search returned, ranked by distance from a position, with the compass
+ * bearing to each. A cursor walks the ranking for "the next one". Distances use the
+ * equirectangular approximation, a few meters off at most over the kilometers a search
+ * covers, so the only trigonometry per place is the atan2 for the bearing. The loop runs
+ * over primitive arrays and sorts packed primitive keys, so large result sets rank
+ * without boxing.
+ */
+public final class PoiRanking {
+
+    private static final double EARTH_RADIUS_METERS = 6371000;
+    private static final String[] COMPASS_POINTS = {
+            "north", "north-east", "east", "south-east", "south", "south-west", "west", "north-west"};
+
+    private final PlaceCache.Place[] places;
+    private final double[] distances;
+    private final double[] bearings;
+    private int cursor;
+
+    private PoiRanking(PlaceCache.Place[] places, double[] distances, double[] bearings) {
+        this.places = places;
+        this.distances = distances;
+        this.bearings = bearings;
+    }
+
+    public static PoiRanking rank(List<PlaceCache.Place> places, double latitude, double longitude) {
+        int count = places.size();
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        double latitudeRadians = Math.toRadians(latitude);
+        double longitudeRadians = Math.toRadians(longitude);
+        double[] distances = new double[count];
+        double[] bearings = new double[count];
+        // Distance as float bits in the high half, index in the low half: sorting the keys
+        // sorts by distance, ties keeping search order
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            PlaceCache.Place place = places.get(i);
+            double north = Math.toRadians(place.latitude) - latitudeRadians;
+            double east = (Math.toRadians(place.longitude) - longitudeRadians) * cosLatitude;
+            double distance = EARTH_RADIUS_METERS * Math.sqrt(north * north + east * east);
+            distances[i] = distance;
+            bearings[i] = east == 0 && north == 0 ? 0 : (Math.toDegrees(Math.atan2(east, north)) + 360) % 360;
+            keys[i] = ((long) Float.floatToIntBits((float) distance) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        PlaceCache.Place[] rankedPlaces = new PlaceCache.Place[count];
+        double[] rankedDistances = new double[count];
+        double[] rankedBearings = new double[count];
+        for (int rank = 0; rank < count; rank++) {
+            int index = (int) keys[rank];
+            rankedPlaces[rank] = places.get(index);
+            rankedDistances[rank] = distances[index];
+            rankedBearings[rank] = bearings[index];
+        }
+        return new PoiRanking(rankedPlaces, rankedDistances, rankedBearings);
+    }
+
+    /** One of eight compass points, e.g. "north-east". */
+    public static String compassPoint(double bearingDegrees) {
+        return COMPASS_POINTS[(int) Math.round(bearingDegrees / 45) % COMPASS_POINTS.length];
+    }
+
+    public int size() {
+        return places.length;
+    }
+
+    public PlaceCache.Place placeAt(int rank) {
+        return places[rank];
+    }
+
+    public double distanceAt(int rank) {
+        return distances[rank];
+    }
+
+    /** Degrees clockwise from north. */
+    public double bearingAt(int rank) {
+        return bearings[rank];
+    }
+
+    /** The rank last announced: 0, the nearest, until {@link #advance()}. */
+    public synchronized int getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Move to the next nearest place; false, staying put, if there is none.
+     */
+    public synchronized boolean advance() {
+        if (cursor + 1 >= places.length) {
+            return false;
+        }
+        cursor++;
+        return true;
+    }
+}
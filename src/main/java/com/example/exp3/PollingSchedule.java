@@ -0,0 +1,96 @@
+package com.example.exp3;
+
+import java.util.Arrays;
+
+/**
+ * Decides how long to wait between Read API status polls. The first poll is timed
+ * from the completion times of recent jobs, later polls back off geometrically up to
+ * a cap, and a server Retry-After always wins.
+ */
+public class PollingSchedule {
+
+    private static final int HISTORY_SIZE = 16;
+    // Poll a little before the typical job is done rather than just after
+    private static final double FIRST_POLL_FRACTION = 0.8;
+
+    private final long defaultInitialDelayMs;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final double backoffFactor;
+
+    private final long[] recentCompletionMs = new long[HISTORY_SIZE];
+    private int historyCount;
+    private int historyNext;
+
+    public PollingSchedule(long defaultInitialDelayMs, long minDelayMs, long maxDelayMs, double backoffFactor) {
+        this.defaultInitialDelayMs = defaultInitialDelayMs;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.backoffFactor = backoffFactor;
+    }
+
+    public static PollingSchedule fromConfig() {
+        return new PollingSchedule(AzureConfig.ReadAPI.POLLING_INITIAL_DELAY_MS, AzureConfig.ReadAPI.POLLING_MIN_DELAY_MS,
+                AzureConfig.ReadAPI.POLLING_INTERVAL_MS, AzureConfig.ReadAPI.POLLING_BACKOFF_FACTOR);
+    }
+
+    /**
+     * Delay before the first status request after the job was accepted.
+     */
+    public synchronized long initialDelayMs() {
+        if (historyCount == 0) {
+            return defaultInitialDelayMs;
+        }
+        long expected = (long) (medianCompletionMs() * FIRST_POLL_FRACTION);
+        return clamp(expected, minDelayMs, 2 * maxDelayMs);
+    }
+
+    /**
+     * Delay before the next poll, given the previous delay and an optional Retry-After (ms, or -1).
+     */
+    public long nextDelayMs(long previousDelayMs, long retryAfterMs) {
+        if (retryAfterMs >= 0) {
+            return Math.max(retryAfterMs, minDelayMs);
+        }
+        long grown = (long) Math.ceil(Math.min(previousDelayMs, maxDelayMs) * backoffFactor);
+        return clamp(grown, minDelayMs, maxDelayMs);
+    }
+
+    /**
+     * Record how long a successful job took from acceptance to "succeeded".
+     */
+    public synchronized void recordCompletion(long elapsedMs) {
+        recentCompletionMs[historyNext] = elapsedMs;
+        historyNext = (historyNext + 1) % HISTORY_SIZE;
+        historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+    }
+
+    public synchronized long medianCompletionMs() {
+        if (historyCount == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(recentCompletionMs, historyCount);
+        Arrays.sort(sorted);
+        return sorted[historyCount / 2];
+    }
+
+    /**
+     * Parse a Retry-After header value given in seconds. HTTP dates are not used by Azure
+     * and are ignored. Returns -1 when absent or unparseable.
+     */
+    public static long parseRetryAfterMs(String headerValue) {
+        if (headerValue == null) {
+            return -1;
+        }
+        try {
+            double seconds = Double.parseDouble(headerValue.trim());
+            return seconds < 0 ? -1 : (long) (seconds * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.exp3;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Polls Read API operations until they finish, using {@link PollingSchedule} for
+ * adaptive delays. Shared by OCR and currency recognition.
+ */
+public class ReadApiPoller {
+
+    private static final String TAG = "ReadApiPoller";
+    // Only the top-level status is needed while polling; avoid building a DOM of large results.
+    // "status" is the first key of a Read operation response and is not used in nested objects.
+    private static final Pattern STATUS_PATTERN = Pattern.compile("\"status\"\\s*:\\s*\"([^\"]*)\"");
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    public enum Failure {
+        NETWORK,
+        HTTP_ERROR,
+        PARSE_ERROR,
+        JOB_FAILED,
+        UNKNOWN_STATUS,
+        TIMEOUT
+    }
+
+    public interface PollCallback {
+        void onSucceeded(String responseBody);
+
+        /**
+         * @param detail HTTP code for HTTP_ERROR, status for UNKNOWN_STATUS, otherwise a log message
+         */
+        void onFailure(Failure failure, String detail);
+    }
+
+    /** Stops one poll without notifying its callback. */
+    public interface PollHandle {
+        void cancel();
+    }
+
+    private final OkHttpClient httpClient;
+    private final PollingSchedule schedule;
+    private final String subscriptionKey;
+    private final long timeoutMs;
+    private final int maxAttempts;
+    private final ScheduledExecutorService scheduler;
+    // Bumped by cancelAll(); jobs from an older generation stop silently
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Set<Call> inFlightCalls = Collections.synchronizedSet(new HashSet<>());
+
+    public ReadApiPoller(OkHttpClient client, PollingSchedule schedule, String subscriptionKey,
+                         long timeoutMs, int maxAttempts) {
+        this.httpClient = client;
+        this.schedule = schedule;
+        this.subscriptionKey = subscriptionKey;
+        this.timeoutMs = timeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-api-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public PollingSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Start polling an Operation-Location URL. The callback runs on a background thread.
+     */
+    public PollHandle poll(String operationLocationUrl, PollCallback callback) {
+        PollJob job = new PollJob(operationLocationUrl, callback, generation.get(), System.nanoTime());
+        job.scheduleNext(schedule.initialDelayMs());
+        return job;
+    }
+
+    /**
+     * Stop every running poll without notifying callbacks.
+     */
+    public void cancelAll() {
+        generation.incrementAndGet();
+        synchronized (inFlightCalls) {
+            for (Call call : inFlightCalls) {
+                call.cancel();
+            }
+            inFlightCalls.clear();
+        }
+    }
+
+    public void shutdown() {
+        cancelAll();
+        scheduler.shutdownNow();
+    }
+
+    private final class PollJob implements PollHandle {
+        private final String url;
+        private final PollCallback callback;
+        private final int jobGeneration;
+        private final long acceptedAtNanos;
+        private int attempt;
+        private long lastDelayMs;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Call currentCall;
+
+        PollJob(String url, PollCallback callback, int jobGeneration, long acceptedAtNanos) {
+            this.url = url;
+            this.callback = callback;
+            this.jobGeneration = jobGeneration;
+            this.acceptedAtNanos = acceptedAtNanos;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Call call = currentCall;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        private boolean isCancelled() {
+            return cancelled || generation.get() != jobGeneration;
+        }
+
+        private long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acceptedAtNanos);
+        }
+
+        void scheduleNext(long delayMs) {
+            if (isCancelled()) {
+                return;
+            }
+            if (attempt >= maxAttempts || elapsedMs() + delayMs > timeoutMs) {
+                Log.e(TAG, "Read API polling timed out after " + attempt + " attempts, " + elapsedMs() + " ms.");
+                callback.onFailure(Failure.TIMEOUT, "Timed out after " + attempt + " attempts");
+                return;
+            }
+            lastDelayMs = delayMs;
+            scheduler.schedule(this::pollOnce, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void pollOnce() {
+            if (isCancelled()) {
+                return;
+            }
+            attempt++;
+            Log.d(TAG, "Polling Read API results (Attempt " + attempt + ", " + elapsedMs() + " ms): " + url);
+            Request request = new Request.Builder()
+                    .url(url)
+                    .addHeader("Ocp-Apim-Subscription-Key", subscriptionKey)
+                    .get()
+                    .build();
+            final Call call = httpClient.newCall(request);
+            inFlightCalls.add(call);
+            currentCall = call;
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    inFlightCalls.remove(call);
+                    if (isCancelled()) {
+                        return;
+                    }
+                    Log.e(TAG, "Read API (polling) call failed", e);
+                    callback.onFailure(Failure.NETWORK, String.valueOf(e.getMessage()));
+                }
+
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    inFlightCalls.remove(call);
+                    final String responseBodyString;
+                    try {
+                        responseBodyString = response.body() != null ? response.body().string() : "null";
+                    } finally {
+                        response.close();
+                    }
+                    if (isCancelled()) {
+                        return;
+                    }
+                    handleResponse(response, responseBodyString);
+                }
+            });
+        }
+
+        private void handleResponse(Response response, String responseBodyString) {
+            long retryAfterMs = PollingSchedule.parseRetryAfterMs(response.header("Retry-After"));
+            if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+                Log.w(TAG, "Read API (polling) throttled, Retry-After: " + retryAfterMs + " ms");
+                scheduleNext(schedule.nextDelayMs(lastDelayMs, retryAfterMs));
+                return;
+            }
+            if (!response.isSuccessful()) {
+                Log.e(TAG, "Read API (polling) error: " + response.code() + " Body: " + responseBodyString);
+                callback.onFailure(Failure.HTTP_ERROR, String.valueOf(response.code()));
+                return;
+            }
+
+            Matcher matcher = STATUS_PATTERN.matcher(responseBodyString);
+            if (!matcher.find()) {
+                Log.e(TAG, "Read API polling response has no status: " + responseBodyString);
+                callback.onFailure(Failure.PARSE_ERROR, "Missing status");
+                return;
+            }
+            String status = matcher.group(1).toLowerCase(Locale.ROOT);
+            Log.d(TAG, "Read API polling status: " + status);
+
+            switch (status) {
+                case "succeeded":
+                    long elapsed = elapsedMs();
+                    schedule.recordCompletion(elapsed);
+                    Log.d(TAG, "Read API job succeeded after " + elapsed + " ms and " + attempt
+                            + " polls (median of recent jobs: " + schedule.medianCompletionMs() + " ms)");
+                    callback.onSucceeded(responseBodyString);
+                    break;
+                case "running":
+                case "notstarted":
+                    scheduleNext(schedule.nextDelayMs(lastDelayMs, retryAfterMs));
+                    break;
+                case "failed":
+                    Log.e(TAG, "Read API processing failed. Response: " + responseBodyString);
+                    callback.onFailure(Failure.JOB_FAILED, status);
+                    break;
+                default:
+                    Log.w(TAG, "Read API unknown status: " + status + ". Response: " + responseBodyString);
+                    callback.onFailure(Failure.UNKNOWN_STATUS, status);
+                    break;
+            }
+        }
+    }
+}
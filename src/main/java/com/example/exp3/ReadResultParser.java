@@ -0,0 +1,186 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single-pass parser for Read API 3.2 "succeeded" responses. Walks the response with
+ * {@link JsonCursor} and builds an {@link OcrDocument} directly, skipping fields it
+ * does not use instead of materializing the whole tree.
+ */
+public final class ReadResultParser {
+
+    private static final float[] EMPTY_BOX = new float[0];
+
+    private ReadResultParser() {
+    }
+
+    /**
+     * Returns null when the response has no analyzeResult.
+     */
+    @Nullable
+    public static OcrDocument parse(String json) throws JSONException {
+        JsonCursor cursor = new JsonCursor(json);
+        OcrDocument document = null;
+        cursor.beginObject();
+        while (cursor.hasNext()) {
+            if ("analyzeResult".equals(cursor.nextName()) && cursor.peek() == JsonCursor.Token.BEGIN_OBJECT) {
+                document = readAnalyzeResult(cursor);
+            } else {
+                cursor.skipValue();
+            }
+        }
+        cursor.endObject();
+        return document;
+    }
+
+    private static OcrDocument readAnalyzeResult(JsonCursor cursor) throws JSONException {
+        List<OcrDocument.Page> pages = new ArrayList<>();
+        cursor.beginObject();
+        while (cursor.hasNext()) {
+            if ("readResults".equals(cursor.nextName()) && cursor.peek() == JsonCursor.Token.BEGIN_ARRAY) {
+                cursor.beginArray();
+                while (cursor.hasNext()) {
+                    pages.add(readPage(cursor));
+                }
+                cursor.endArray();
+            } else {
+                cursor.skipValue();
+            }
+        }
+        cursor.endObject();
+        return new OcrDocument(pages);
+    }
+
+    private static OcrDocument.Page readPage(JsonCursor cursor) throws JSONException {
+        int pageNumber = 0;
+        float angle = 0;
+        float width = 0;
+        float height = 0;
+        String language = null;
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        cursor.beginObject();
+        while (cursor.hasNext()) {
+            switch (cursor.nextName()) {
+                case "page":
+                    pageNumber = cursor.nextInt();
+                    break;
+                case "angle":
+                    angle = (float) cursor.nextDouble();
+                    break;
+                case "width":
+                    width = (float) cursor.nextDouble();
+                    break;
+                case "height":
+                    height = (float) cursor.nextDouble();
+                    break;
+                case "language":
+                    language = readOptionalString(cursor);
+                    break;
+                case "lines":
+                    cursor.beginArray();
+                    while (cursor.hasNext()) {
+                        lines.add(readLine(cursor));
+                    }
+                    cursor.endArray();
+                    break;
+                default:
+                    cursor.skipValue();
+                    break;
+            }
+        }
+        cursor.endObject();
+        return new OcrDocument.Page(pageNumber, angle, width, height, language, lines,
+                Collections.<OcrDocument.Block>emptyList());
+    }
+
+    private static OcrDocument.Line readLine(JsonCursor cursor) throws JSONException {
+        String text = "";
+        float[] boundingBox = EMPTY_BOX;
+        List<OcrDocument.Word> words = new ArrayList<>();
+        cursor.beginObject();
+        while (cursor.hasNext()) {
+            switch (cursor.nextName()) {
+                case "text":
+                    text = cursor.nextString();
+                    break;
+                case "boundingBox":
+                    boundingBox = readBox(cursor);
+                    break;
+                case "words":
+                    cursor.beginArray();
+                    while (cursor.hasNext()) {
+                        words.add(readWord(cursor));
+                    }
+                    cursor.endArray();
+                    break;
+                default:
+                    cursor.skipValue();
+                    break;
+            }
+        }
+        cursor.endObject();
+        return new OcrDocument.Line(text, boundingBox, words);
+    }
+
+    private static OcrDocument.Word readWord(JsonCursor cursor) throws JSONException {
+        String text = "";
+        float[] boundingBox = EMPTY_BOX;
+        float confidence = 1f;
+        cursor.beginObject();
+        while (cursor.hasNext()) {
+            switch (cursor.nextName()) {
+                case "text":
+                    text = cursor.nextString();
+                    break;
+                case "boundingBox":
+                    boundingBox = readBox(cursor);
+                    break;
+                case "confidence":
+                    confidence = (float) cursor.nextDouble();
+                    break;
+                default:
+                    cursor.skipValue();
+                    break;
+            }
+        }
+        cursor.endObject();
+        return new OcrDocument.Word(text, boundingBox, confidence);
+    }
+
+    private static float[] readBox(JsonCursor cursor) throws JSONException {
+        // Read 3.2 boxes always have eight coordinates; grow if a longer polygon shows up
+        float[] box = new float[8];
+        int count = 0;
+        cursor.beginArray();
+        while (cursor.hasNext()) {
+            if (count == box.length) {
+                float[] grown = new float[box.length * 2];
+                System.arraycopy(box, 0, grown, 0, count);
+                box = grown;
+            }
+            box[count++] = (float) cursor.nextDouble();
+        }
+        cursor.endArray();
+        if (count == box.length) {
+            return box;
+        }
+        float[] trimmed = new float[count];
+        System.arraycopy(box, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    @Nullable
+    private static String readOptionalString(JsonCursor cursor) throws JSONException {
+        if (cursor.peek() == JsonCursor.Token.NULL) {
+            cursor.nextNull();
+            return null;
+        }
+        return cursor.nextString();
+    }
+}
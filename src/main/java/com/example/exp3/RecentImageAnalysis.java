@@ -0,0 +1,76 @@
+package com.example.exp3;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Keeps the last combined analysis for a short window so a scene question followed by
+ * an object question (or the reverse) on the same view is answered without a new
+ * capture and upload. Only that one follow-up is answered from it: asking the same
+ * question again means the user wants a fresh look, so it captures again.
+ */
+public class RecentImageAnalysis {
+
+    private static final String TAG = "RecentImageAnalysis";
+
+    public enum Question {
+        SCENE,
+        OBJECTS
+    }
+
+    private final long maxAgeMs;
+    private ImageAnalysisResult result;
+    private Question answered;
+    private long storedAtMs;
+    private int stored;
+    private int reused;
+
+    public RecentImageAnalysis(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * @param answered the question the analysis was captured for
+     */
+    public synchronized void put(ImageAnalysisResult result, Question answered) {
+        this.result = result;
+        this.answered = answered;
+        this.storedAtMs = SystemClock.elapsedRealtime();
+        stored++;
+    }
+
+    /**
+     * The retained result if it is still fresh and was captured for the other question,
+     * otherwise null. A returned result is used up.
+     */
+    @Nullable
+    public synchronized ImageAnalysisResult takeFollowUp(Question question) {
+        if (result == null || answered == question) {
+            return null;
+        }
+        long ageMs = SystemClock.elapsedRealtime() - storedAtMs;
+        if (ageMs > maxAgeMs) {
+            result = null;
+            return null;
+        }
+        ImageAnalysisResult followUp = result;
+        result = null;
+        reused++;
+        Log.d(TAG, "Reusing " + answered + " analysis from " + ageMs + " ms ago for " + question
+                + " (" + getStatsSummary() + ")");
+        return followUp;
+    }
+
+    /**
+     * Forget the retained result, once a new capture means the camera points elsewhere.
+     */
+    public synchronized void clear() {
+        result = null;
+    }
+
+    public synchronized String getStatsSummary() {
+        return "analyses=" + stored + " reused=" + reused;
+    }
+}
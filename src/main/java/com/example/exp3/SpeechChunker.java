@@ -0,0 +1,92 @@
+package com.example.exp3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits long text into sentence/line sized chunks for pipelined synthesis.
+ */
+public final class SpeechChunker {
+
+    // Sentence end (including the Devanagari danda) followed by whitespace, or a line break
+    private static final Pattern BOUNDARY = Pattern.compile("(?<=[.!?।])\\s+|\\s*\\n+\\s*");
+    // Punctuation after which an overlong sentence is preferably wrapped
+    private static final String CLAUSE_END = ",;:";
+
+    private SpeechChunker() {
+    }
+
+    /**
+     * Split {@code text} into chunks no longer than {@code maxChars}. The first chunk is
+     * limited to {@code firstChunkMaxChars} so the first audio arrives quickly.
+     */
+    public static List<String> split(String text, int firstChunkMaxChars, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null) {
+            return chunks;
+        }
+        StringBuilder current = new StringBuilder();
+        for (String piece : splitOnBoundaries(text)) {
+            int limit = chunks.isEmpty() ? firstChunkMaxChars : maxChars;
+            if (current.length() > 0 && current.length() + 1 + piece.length() > limit) {
+                chunks.add(current.toString());
+                current.setLength(0);
+                limit = maxChars;
+            }
+            // A single sentence longer than the limit is wrapped at a clause or word boundary
+            while (current.length() == 0 && piece.length() > limit) {
+                int cut = wrapPosition(piece, limit);
+                chunks.add(piece.substring(0, cut).trim());
+                piece = piece.substring(cut).trim();
+                limit = maxChars;
+            }
+            if (piece.isEmpty()) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(piece);
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    /**
+     * Where to cut a piece longer than {@code limit}: after the last clause punctuation
+     * in the second half of the limit, else at the last space, else (one overlong word)
+     * at the limit itself.
+     */
+    private static int wrapPosition(String piece, int limit) {
+        for (int i = limit - 1; i > limit / 2; i--) {
+            if (piece.charAt(i) == ' ' && CLAUSE_END.indexOf(piece.charAt(i - 1)) >= 0) {
+                return i;
+            }
+        }
+        int space = piece.lastIndexOf(' ', limit);
+        return space > 0 ? space : limit;
+    }
+
+    private static List<String> splitOnBoundaries(String text) {
+        List<String> pieces = new ArrayList<>();
+        Matcher matcher = BOUNDARY.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            addPiece(pieces, text.substring(start, matcher.start()));
+            start = matcher.end();
+        }
+        addPiece(pieces, text.substring(start));
+        return pieces;
+    }
+
+    private static void addPiece(List<String> pieces, String piece) {
+        String trimmed = piece.trim();
+        if (!trimmed.isEmpty()) {
+            pieces.add(trimmed);
+        }
+    }
+}
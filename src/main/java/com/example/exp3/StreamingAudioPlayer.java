@@ -0,0 +1,214 @@
+package com.example.exp3;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays raw 16-bit mono PCM through an {@link AudioTrack} while it is still being
+ * downloaded, so audio starts as soon as the first bytes arrive.
+ */
+public class StreamingAudioPlayer {
+
+    private static final String TAG = "StreamingAudioPlayer";
+    private static final int BYTES_PER_FRAME = 2; // 16-bit mono
+    private static final long DRAIN_TIMEOUT_MS = 5000;
+
+    public interface PlaybackListener {
+        void onPlaybackComplete();
+        void onPlaybackError(Exception e);
+        // Superseded by another play() or stop(); the source was not fully consumed
+        void onPlaybackCancelled();
+    }
+
+    private final int sampleRateHz;
+    private final int bufferSizeBytes;
+    private final ExecutorService playbackExecutor;
+    // Bumped on every play()/stop(); a session whose generation is stale stops writing
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public StreamingAudioPlayer(int sampleRateHz) {
+        this.sampleRateHz = sampleRateHz;
+        int minBufferSize = AudioTrack.getMinBufferSize(sampleRateHz,
+                AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        this.bufferSizeBytes = Math.max(minBufferSize, sampleRateHz * BYTES_PER_FRAME / 4); // >= 250 ms
+        this.playbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+                runnable.run();
+            }, "tts-playback");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stop whatever is playing and stream {@code source} to the speaker. Every byte
+     * read is also copied to {@code cacheEditor} when it is non-null; the entry is
+     * committed if the whole source played and aborted otherwise. A failed cache write
+     * drops the entry but does not stop playback.
+     *
+     * @param requestStartNanos {@link SystemClock#elapsedRealtimeNanos()} when the utterance
+     *                          was requested, used to log time-to-first-sample
+     */
+    public void play(final InputStream source, @Nullable final TtsAudioCache.Editor cacheEditor,
+                     final long requestStartNanos, final PlaybackListener listener) {
+        final int sessionGeneration = generation.incrementAndGet();
+        playbackExecutor.execute(() -> runSession(source, cacheEditor, requestStartNanos, sessionGeneration, listener));
+    }
+
+    /**
+     * Stop the current utterance. Its listener receives {@link PlaybackListener#onPlaybackCancelled()}.
+     */
+    public void stop() {
+        generation.incrementAndGet();
+    }
+
+    public void release() {
+        stop();
+        playbackExecutor.shutdownNow();
+    }
+
+    private boolean isCurrent(int sessionGeneration) {
+        return generation.get() == sessionGeneration;
+    }
+
+    private void runSession(InputStream source, @Nullable TtsAudioCache.Editor cacheEditor, long requestStartNanos,
+                            int sessionGeneration, PlaybackListener listener) {
+        if (!isCurrent(sessionGeneration)) {
+            closeQuietly(source);
+            if (cacheEditor != null) {
+                cacheEditor.abort();
+            }
+            listener.onPlaybackCancelled();
+            return;
+        }
+        AudioTrack track = null;
+        OutputStream tee = cacheEditor != null ? cacheEditor.getOutputStream() : null;
+        try (InputStream in = source) {
+            track = createTrack();
+            byte[] buffer = new byte[4096];
+            int carry = 0; // odd byte left over from the previous read
+            long framesWritten = 0;
+            boolean started = false;
+            int bytesRead;
+            while ((bytesRead = in.read(buffer, carry, buffer.length - carry)) != -1) {
+                if (!isCurrent(sessionGeneration)) {
+                    Log.d(TAG, "Playback superseded, stopping stream.");
+                    listener.onPlaybackCancelled();
+                    return;
+                }
+                if (tee != null) {
+                    try {
+                        tee.write(buffer, carry, bytesRead);
+                    } catch (IOException e) {
+                        Log.w(TAG, "Failed to write TTS audio to cache, playing without caching it", e);
+                        cacheEditor.abort();
+                        tee = null;
+                    }
+                }
+                int available = carry + bytesRead;
+                int writable = available - (available % BYTES_PER_FRAME);
+                if (writable > 0) {
+                    if (!started) {
+                        track.play();
+                        started = true;
+                        long ttfsMs = (SystemClock.elapsedRealtimeNanos() - requestStartNanos) / 1_000_000;
+                        Log.d(TAG, "Time to first sample: " + ttfsMs + " ms");
+                    }
+                    int written = track.write(buffer, 0, writable);
+                    if (written < 0) {
+                        throw new IOException("AudioTrack write failed: " + written);
+                    }
+                    framesWritten += written / BYTES_PER_FRAME;
+                }
+                carry = available - writable;
+                if (carry > 0) {
+                    buffer[0] = buffer[writable];
+                }
+            }
+            if (started) {
+                awaitDrain(track, framesWritten, sessionGeneration);
+            }
+            if (tee != null) {
+                try {
+                    cacheEditor.commit();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to commit TTS audio to cache", e);
+                }
+            }
+            if (isCurrent(sessionGeneration)) {
+                listener.onPlaybackComplete();
+            } else {
+                listener.onPlaybackCancelled();
+            }
+        } catch (IOException | IllegalStateException e) {
+            Log.e(TAG, "Streaming playback failed", e);
+            if (isCurrent(sessionGeneration)) {
+                listener.onPlaybackError(e);
+            } else {
+                listener.onPlaybackCancelled();
+            }
+        } finally {
+            if (cacheEditor != null) {
+                // No-op once committed
+                cacheEditor.abort();
+            }
+            if (track != null) {
+                try {
+                    track.stop();
+                } catch (IllegalStateException ignored) {
+                    // Never started
+                }
+                track.release();
+            }
+        }
+    }
+
+    private void awaitDrain(AudioTrack track, long framesWritten, int sessionGeneration) {
+        long deadline = SystemClock.elapsedRealtime()
+                + framesWritten * 1000 / sampleRateHz + DRAIN_TIMEOUT_MS;
+        // getPlaybackHeadPosition() is an unsigned 32-bit frame counter
+        while (isCurrent(sessionGeneration)
+                && (track.getPlaybackHeadPosition() & 0xFFFFFFFFL) < framesWritten
+                && SystemClock.elapsedRealtime() < deadline) {
+            SystemClock.sleep(10);
+        }
+    }
+
+    private AudioTrack createTrack() {
+        return new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ASSISTANT)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(sampleRateHz)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setBufferSizeInBytes(bufferSizeBytes)
+                .build();
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Nothing to clean up
+        }
+    }
+}
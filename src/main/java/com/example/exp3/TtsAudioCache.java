@@ -0,0 +1,236 @@
+package com.example.exp3;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk-backed, size-bounded LRU cache of synthesized TTS audio.
+ * Entries are keyed by a hash of the SSML document and the output format.
+ */
+public class TtsAudioCache {
+
+    private static final String TAG = "TtsAudioCache";
+    private static final String ENTRY_SUFFIX = ".audio";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public TtsAudioCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        loadIndex();
+    }
+
+    /**
+     * Build the cache key for a request: SHA-256 over the SSML and the output format.
+     */
+    public static String keyFor(String ssml, String outputFormat) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(outputFormat.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(ssml.getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest();
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format(Locale.US, "%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Android release
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return the cached audio file for the key, or null on a miss.
+     */
+    public synchronized File get(String key) {
+        Long size = entries.get(key);
+        if (size == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        File file = entryFile(key);
+        if (!file.exists()) {
+            // Removed behind our back (e.g. the system cleared the cache dir)
+            entries.remove(key);
+            currentBytes -= size;
+            missCount.incrementAndGet();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis()); // Keeps LRU order across restarts
+        hitCount.incrementAndGet();
+        return file;
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key) && entryFile(key).exists();
+    }
+
+    /**
+     * Open an editor that writes a new entry. Call {@link Editor#commit()} once the
+     * audio has been fully written, or {@link Editor#abort()} on failure.
+     */
+    public Editor edit(String key) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create TTS cache directory " + directory);
+        }
+        File temp = File.createTempFile(key, TEMP_SUFFIX, directory);
+        return new Editor(key, temp);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US, "entries=%d bytes=%d/%d hits=%d misses=%d evictions=%d",
+                entries.size(), currentBytes, maxBytes, hitCount.get(), missCount.get(), evictionCount.get());
+    }
+
+    private synchronized File commitEntry(String key, File temp) throws IOException {
+        File target = entryFile(key);
+        Long previous = entries.remove(key);
+        if (previous != null) {
+            currentBytes -= previous;
+        }
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Could not replace cache entry " + target);
+        }
+        if (!temp.renameTo(target)) {
+            throw new IOException("Could not commit cache entry " + target);
+        }
+        long size = target.length();
+        entries.put(key, size);
+        currentBytes += size;
+        trimToSize(key);
+        return target;
+    }
+
+    private void trimToSize(String keepKey) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            // Never evict the entry that was just written; the caller is about to play it
+            if (eldest.getKey().equals(keepKey)) {
+                continue;
+            }
+            File file = entryFile(eldest.getKey());
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Failed to delete evicted entry " + file);
+            }
+            currentBytes -= eldest.getValue();
+            it.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private void loadIndex() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        synchronized (this) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Left over from an interrupted write
+                    file.delete();
+                } else if (name.endsWith(ENTRY_SUFFIX)) {
+                    String key = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+                    entries.put(key, file.length());
+                    currentBytes += file.length();
+                }
+            }
+            trimToSize(null);
+        }
+        Log.d(TAG, "Loaded TTS cache index: " + getStatsSummary());
+    }
+
+    private File entryFile(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+    public final class Editor {
+        private final String key;
+        private final File temp;
+        private final OutputStream out;
+        private boolean done;
+
+        private Editor(String key, File temp) throws IOException {
+            this.key = key;
+            this.temp = temp;
+            this.out = new FileOutputStream(temp);
+        }
+
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        /**
+         * Publish the written audio and return the committed entry file.
+         */
+        public File commit() throws IOException {
+            if (done) {
+                throw new IllegalStateException("Editor already closed");
+            }
+            done = true;
+            out.close();
+            return commitEntry(key, temp);
+        }
+
+        public void abort() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do, the temp file is deleted below
+            }
+            if (temp.exists() && !temp.delete()) {
+                Log.w(TAG, "Failed to delete aborted cache entry " + temp);
+            }
+        }
+    }
+}
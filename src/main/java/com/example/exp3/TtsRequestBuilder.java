@@ -0,0 +1,83 @@
+package com.example.exp3;
+
+import android.text.Html;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Builds the SSML documents and HTTP requests sent to Azure TTS.
+ */
+public final class TtsRequestBuilder {
+
+    private TtsRequestBuilder() {
+    }
+
+    /**
+     * Map a language hint ("kn", "hi-IN", null, ...) to the SSML language code.
+     */
+    public static String resolveLanguageCode(@Nullable String languageHint) {
+        String langHintNormalized = languageHint != null ? languageHint.toLowerCase(Locale.ROOT) : "";
+        // Use startsWith for broader matching (e.g., "kn-IN" starts with "kn")
+        if (langHintNormalized.startsWith("hi")) {
+            return AzureConfig.Speech.HI_LANG_CODE;
+        } else if (langHintNormalized.startsWith("kn")) {
+            return AzureConfig.Speech.KN_LANG_CODE;
+        }
+        // Default to English if no match or hint is "en" or null/empty
+        return AzureConfig.Speech.EN_LANG_CODE;
+    }
+
+    public static String voiceNameFor(String languageCode) {
+        if (AzureConfig.Speech.HI_LANG_CODE.equals(languageCode)) {
+            return AzureConfig.Speech.HI_VOICE_NAME;
+        } else if (AzureConfig.Speech.KN_LANG_CODE.equals(languageCode)) {
+            return AzureConfig.Speech.KN_VOICE_NAME;
+        }
+        return AzureConfig.Speech.EN_VOICE_NAME;
+    }
+
+    public static String buildSsml(String text, @Nullable String languageHint) {
+        String langCode = resolveLanguageCode(languageHint);
+        String escapedText = Html.escapeHtml(text);
+        return String.format(Locale.US, AzureConfig.Speech.DYNAMIC_SSML_TEMPLATE, langCode, voiceNameFor(langCode), escapedText);
+    }
+
+    /**
+     * The SSML documents speaking {@code text} takes: one per {@link SpeechChunker} chunk
+     * for long text, otherwise the whole text in one. Warm-up and playback both use this,
+     * so warmed-up audio is found under the same cache keys.
+     */
+    public static List<String> buildSsmlChunks(String text, @Nullable String languageHint) {
+        List<String> chunks = SpeechChunker.split(text,
+                AzureConfig.Speech.FIRST_CHUNK_MAX_CHARS, AzureConfig.Speech.CHUNK_MAX_CHARS);
+        List<String> documents = new ArrayList<>();
+        if (chunks.size() > 1) {
+            for (String chunk : chunks) {
+                documents.add(buildSsml(chunk, languageHint));
+            }
+        } else {
+            documents.add(buildSsml(text, languageHint));
+        }
+        return documents;
+    }
+
+    public static Request buildRequest(String ssml) {
+        RequestBody body = RequestBody.create(ssml, MediaType.parse("application/ssml+xml"));
+        return new Request.Builder()
+                .url(AzureConfig.Speech.getTtsUrl())
+                .addHeader("Ocp-Apim-Subscription-Key", AzureConfig.AZURE_SPEECH_KEY)
+                .addHeader("Content-Type", "application/ssml+xml")
+                .addHeader("X-Microsoft-OutputFormat", AzureConfig.Speech.OUTPUT_FORMAT)
+                .addHeader("User-Agent", "VoiceAssistantApp/1.0")
+                .post(body)
+                .build();
+    }
+}
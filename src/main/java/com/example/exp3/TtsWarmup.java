@@ -0,0 +1,213 @@
+package com.example.exp3;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * Pre-synthesizes the fixed prompt vocabulary into the {@link TtsAudioCache}
+ * in the background so the interactive loop never waits on a TTS round trip.
+ */
+public class TtsWarmup {
+
+    private static final String TAG = "TtsWarmup";
+
+    // Fixed prompts spoken with the default (English) voice; prompts with format arguments
+    // cannot be warmed up. listening_prompt goes first: it gates the speech recognizer on every tap.
+    private static final int[] ENGLISH_PROMPTS = {
+            R.string.listening_prompt,
+            R.string.welcome_message,
+            R.string.command_help,
+            R.string.error_speech_recognition,
+            R.string.camera_opening,
+            R.string.short_text_prompt,
+            R.string.burst_hold_steady,
+            R.string.frame_quality_blurry,
+            R.string.frame_quality_too_dark,
+            R.string.frame_quality_too_bright,
+            R.string.live_scan_prompt,
+            R.string.live_scan_objects_prompt,
+            R.string.live_scan_stopped,
+            R.string.image_submitted_wait,
+            R.string.no_text_found,
+            R.string.error_image_processing,
+            R.string.error_image_processing_polling,
+            R.string.error_image_processing_timeout,
+            R.string.error_text_processing_failed,
+            R.string.error_text_processing,
+            R.string.reading_nothing_to_navigate,
+            R.string.reading_end_of_text,
+            R.string.reading_start_of_text,
+            R.string.getting_location_details,
+            R.string.error_location,
+            R.string.error_location_access,
+            R.string.poi_ask_location_first,
+            R.string.navigation_need_place,
+            R.string.navigation_stopped,
+            R.string.scene_analysis_prompt,
+            R.string.analyzing_scene,
+            R.string.error_scene_analysis,
+            R.string.error_scene_analysis_parsing,
+            R.string.currency_recognition_prompt,
+            R.string.currency_not_detected,
+            R.string.error_currency_processing,
+            R.string.error_currency_processing_timeout,
+            R.string.object_analysis_prompt,
+            R.string.object_analysis_nothing_clear,
+            R.string.error_object_analysis,
+            R.string.permissions_grant
+    };
+
+    // Prompts that are also spoken in the language detected by OCR
+    private static final int[] OCR_LANGUAGE_PROMPTS = {
+            R.string.no_text_found
+    };
+
+    private static final String[] OCR_LANGUAGES = {
+            AzureConfig.Speech.HI_LANG_CODE,
+            AzureConfig.Speech.KN_LANG_CODE
+    };
+
+    public interface WarmupListener {
+        void onWarmupComplete(int synthesized, int alreadyCached, int failed, long elapsedMs);
+    }
+
+    private final OkHttpClient httpClient;
+    private final TtsAudioCache cache;
+    private final Context appContext;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final Set<Call> inFlightCalls = Collections.synchronizedSet(new HashSet<>());
+    private ExecutorService executor;
+
+    public TtsWarmup(OkHttpClient client, TtsAudioCache cache, Context context) {
+        this.httpClient = client;
+        this.cache = cache;
+        this.appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Start synthesizing every prompt that is not cached yet, with at most
+     * {@code maxConcurrency} requests in flight.
+     */
+    public void start(int maxConcurrency, final WarmupListener listener) {
+        final List<String> ssmlDocuments = buildSsmlDocuments();
+        final long startMs = SystemClock.elapsedRealtime();
+        final AtomicInteger remaining = new AtomicInteger(ssmlDocuments.size());
+        final AtomicInteger synthesized = new AtomicInteger();
+        final AtomicInteger alreadyCached = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "tts-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Log.d(TAG, "Starting TTS warm-up of " + ssmlDocuments.size() + " prompts");
+        for (final String ssml : ssmlDocuments) {
+            executor.execute(() -> {
+                if (!cancelled.get()) {
+                    String key = TtsAudioCache.keyFor(ssml, AzureConfig.Speech.OUTPUT_FORMAT);
+                    if (cache.contains(key)) {
+                        alreadyCached.incrementAndGet();
+                    } else if (synthesize(ssml, key)) {
+                        synthesized.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    long elapsedMs = SystemClock.elapsedRealtime() - startMs;
+                    Log.d(TAG, "TTS warm-up finished in " + elapsedMs + " ms: synthesized=" + synthesized.get()
+                            + " cached=" + alreadyCached.get() + " failed=" + failed.get()
+                            + (cancelled.get() ? " (cancelled)" : ""));
+                    if (listener != null && !cancelled.get()) {
+                        listener.onWarmupComplete(synthesized.get(), alreadyCached.get(), failed.get(), elapsedMs);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    public void cancel() {
+        if (cancelled.getAndSet(true)) {
+            return;
+        }
+        synchronized (inFlightCalls) {
+            for (Call call : inFlightCalls) {
+                call.cancel();
+            }
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean synthesize(String ssml, String key) {
+        Call call = httpClient.newCall(TtsRequestBuilder.buildRequest(ssml));
+        inFlightCalls.add(call);
+        TtsAudioCache.Editor editor = null;
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.w(TAG, "Warm-up synthesis failed: " + response.code());
+                return false;
+            }
+            editor = cache.edit(key);
+            try (OutputStream out = editor.getOutputStream(); InputStream in = response.body().byteStream()) {
+                byte[] buffer = new byte[8 * 1024];
+                int bytesRead;
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, bytesRead);
+                }
+            }
+            editor.commit();
+            return true;
+        } catch (IOException e) {
+            if (!cancelled.get()) {
+                Log.w(TAG, "Warm-up synthesis failed", e);
+            }
+            if (editor != null) {
+                editor.abort();
+            }
+            return false;
+        } finally {
+            inFlightCalls.remove(call);
+        }
+    }
+
+    private List<String> buildSsmlDocuments() {
+        List<String> documents = new ArrayList<>();
+        // Long prompts such as command_help are spoken in chunks, each cached on its own
+        for (int resId : ENGLISH_PROMPTS) {
+            documents.addAll(TtsRequestBuilder.buildSsmlChunks(appContext.getString(resId), null));
+        }
+        for (String language : OCR_LANGUAGES) {
+            for (int resId : OCR_LANGUAGE_PROMPTS) {
+                documents.addAll(TtsRequestBuilder.buildSsmlChunks(appContext.getString(resId), language));
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,546 @@
+package com.example.exp3;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Single entry point for the Azure AI Vision calls used by the capture modes: Read
+ * (submit and poll), scene, object and combined image analysis. Uploads, retries on
+ * throttling and server errors, whole-call timeouts, cancellation and per-operation
+ * metrics live here so every mode behaves the same. Uploads are POSTs, and a Read submit
+ * that reached the service starts a job, so a network failure is only retried when the
+ * request had not started to go out. Near-identical repeat captures for image analysis
+ * are answered from {@link CaptureResultCache}; text is always read afresh. Callbacks
+ * run on a background thread.
+ * <p>
+ * {@link #cancelAll()} drops everything; a caller that runs its own stream of calls
+ * alongside others passes a {@link CallGroup} and cancels just that group.
+ */
+public class VisionClient {
+
+    private static final String TAG = "VisionClient";
+    private static final int HTTP_ACCEPTED = 202;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final long RETRY_BASE_DELAY_MS = 500;
+
+    public enum Operation {
+        READ,
+        ANALYZE_SCENE,
+        ANALYZE_OBJECTS,
+        ANALYZE_COMBINED
+    }
+
+    public static final class VisionError {
+        public enum Kind {
+            NETWORK,
+            HTTP_ERROR,
+            MISSING_OPERATION_LOCATION,
+            PARSE_ERROR,
+            JOB_FAILED,
+            UNKNOWN_STATUS,
+            TIMEOUT
+        }
+
+        public final Kind kind;
+        // True when the Read job was accepted but fetching its result failed
+        public final boolean whilePolling;
+        // HTTP status for HTTP_ERROR, otherwise -1
+        public final int httpCode;
+        // Job status for UNKNOWN_STATUS, otherwise a message for the log
+        public final String detail;
+
+        VisionError(Kind kind, boolean whilePolling, int httpCode, String detail) {
+            this.kind = kind;
+            this.whilePolling = whilePolling;
+            this.httpCode = httpCode;
+            this.detail = detail;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return kind + (whilePolling ? " (polling)" : "") + (httpCode >= 0 ? " code=" + httpCode : "") + " " + detail;
+        }
+    }
+
+    public interface VisionCallback {
+        void onSuccess(String responseBody);
+        void onError(VisionError error);
+    }
+
+    public interface ReadCallback extends VisionCallback {
+        /**
+         * The image was accepted and the Read job is running; the result follows via onSuccess.
+         */
+        void onSubmitted();
+    }
+
+    /** Receives the final response of an upload after retries. */
+    private interface UploadListener {
+        void onResponse(Response response, String responseBody);
+        void onFailure(VisionError error);
+    }
+
+    /**
+     * Calls made with the same group can be cancelled together with {@link #cancel(CallGroup)},
+     * leaving other callers' calls running.
+     */
+    public static final class CallGroup {
+        // Bumped by cancel(); work from an older generation stops without calling back
+        final AtomicInteger generation = new AtomicInteger();
+        final Set<Call> calls = Collections.synchronizedSet(new HashSet<>());
+        final Set<ReadApiPoller.PollHandle> polls = Collections.synchronizedSet(new HashSet<>());
+    }
+
+    /** What a call checks to see whether it was cancelled, globally or through its group. */
+    private final class Ticket {
+        final int jobGeneration = generation.get();
+        @Nullable
+        final CallGroup group;
+        final int groupGeneration;
+        @Nullable
+        volatile ReadApiPoller.PollHandle poll;
+
+        Ticket(@Nullable CallGroup group) {
+            this.group = group;
+            this.groupGeneration = group != null ? group.generation.get() : 0;
+        }
+
+        boolean isCancelled() {
+            return generation.get() != jobGeneration
+                    || (group != null && group.generation.get() != groupGeneration);
+        }
+
+        void track(Call call) {
+            inFlightCalls.add(call);
+            if (group != null) {
+                group.calls.add(call);
+            }
+        }
+
+        void untrack(Call call) {
+            inFlightCalls.remove(call);
+            if (group != null) {
+                group.calls.remove(call);
+            }
+        }
+
+        void trackPoll(ReadApiPoller.PollHandle handle) {
+            poll = handle;
+            if (group != null) {
+                group.polls.add(handle);
+            }
+        }
+
+        void untrackPoll() {
+            ReadApiPoller.PollHandle handle = poll;
+            if (group != null && handle != null) {
+                group.polls.remove(handle);
+            }
+        }
+    }
+
+    /** Tagged on each upload; set once OkHttp starts writing the request. */
+    private static final class SendState {
+        volatile boolean started;
+    }
+
+    private static final class OperationStats {
+        int requests;
+        int cacheHits;
+        int retries;
+        int failures;
+        long uploadedBytes;
+        int succeeded;
+        long totalLatencyMs;
+        long maxLatencyMs;
+    }
+
+    private final OkHttpClient httpClient;
+    private final String subscriptionKey;
+    private final ReadApiPoller readApiPoller;
+    @Nullable
+    private final CaptureResultCache resultCache;
+    private final long callTimeoutMs;
+    private final int maxRetries;
+    private final ScheduledExecutorService retryScheduler;
+    // Bumped by cancelAll(); work from an older generation stops without calling back
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Set<Call> inFlightCalls = Collections.synchronizedSet(new HashSet<>());
+    private final Map<Operation, OperationStats> statsByOperation = new EnumMap<>(Operation.class);
+
+    /**
+     * @param client      shared client; uploads go through a derived client with its own event listener
+     * @param resultCache answers near-identical repeat captures without a call, or null to disable
+     */
+    public VisionClient(OkHttpClient client, String subscriptionKey, ReadApiPoller readApiPoller,
+                        @Nullable CaptureResultCache resultCache, long callTimeoutMs, int maxRetries) {
+        this.httpClient = client.newBuilder()
+                .eventListener(new EventListener() {
+                    @Override
+                    public void requestHeadersStart(@NonNull Call call) {
+                        SendState state = call.request().tag(SendState.class);
+                        if (state != null) {
+                            state.started = true;
+                        }
+                    }
+                })
+                .build();
+        this.subscriptionKey = subscriptionKey;
+        this.readApiPoller = readApiPoller;
+        this.resultCache = resultCache;
+        this.callTimeoutMs = callTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vision-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Operation operation : Operation.values()) {
+            statsByOperation.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * Submit an image to the Read API and poll until the text is available.
+     */
+    public void read(CapturedImage image, ReadCallback callback) {
+        read(image, null, callback);
+    }
+
+    /**
+     * {@link #read(CapturedImage, ReadCallback)} as part of a group that is cancelled together.
+     */
+    public void read(final CapturedImage image, @Nullable CallGroup group, final ReadCallback callback) {
+        final long startNanos = System.nanoTime();
+        final Ticket ticket = new Ticket(group);
+        upload(Operation.READ, AzureConfig.ReadAPI.getReadAnalyzeUrl(), image, ticket, new UploadListener() {
+            @Override
+            public void onResponse(Response response, String responseBody) {
+                if (response.code() != HTTP_ACCEPTED) {
+                    Log.e(TAG, "Read API (analyze) error: " + response.code() + " Body: " + responseBody);
+                    fail(Operation.READ, callback, new VisionError(VisionError.Kind.HTTP_ERROR, false, response.code(), responseBody));
+                    return;
+                }
+                String operationLocationUrl = response.header("Operation-Location");
+                if (operationLocationUrl == null || operationLocationUrl.isEmpty()) {
+                    Log.e(TAG, "Read API (analyze) error: Missing Operation-Location header.");
+                    fail(Operation.READ, callback,
+                            new VisionError(VisionError.Kind.MISSING_OPERATION_LOCATION, false, -1, "Missing Operation-Location"));
+                    return;
+                }
+                Log.d(TAG, "Read API analyze started. Operation URL: " + operationLocationUrl);
+                callback.onSubmitted();
+                pollReadResult(operationLocationUrl, image, startNanos, ticket, callback);
+            }
+
+            @Override
+            public void onFailure(VisionError error) {
+                fail(Operation.READ, callback, error);
+            }
+        });
+    }
+
+    /**
+     * Caption and objects for the scene description mode.
+     */
+    public void analyzeScene(CapturedImage image, VisionCallback callback) {
+        analyzeScene(image, null, callback);
+    }
+
+    /**
+     * {@link #analyzeScene(CapturedImage, VisionCallback)} as part of a group that is cancelled together.
+     */
+    public void analyzeScene(CapturedImage image, @Nullable CallGroup group, VisionCallback callback) {
+        analyze(Operation.ANALYZE_SCENE, AzureConfig.AnalyzeScene.getAnalyzeSceneUrl(), image, group, callback);
+    }
+
+    /**
+     * Objects, colors and tags for the object detail mode.
+     */
+    public void analyzeObjects(CapturedImage image, VisionCallback callback) {
+        analyze(Operation.ANALYZE_OBJECTS, AzureConfig.ObjectAndColorAnalysis.getAnalyzeObjectUrl(), image, null, callback);
+    }
+
+    /**
+     * Description, objects, colors and tags in one call, enough for both the scene and
+     * object detail modes.
+     */
+    public void analyzeCombined(CapturedImage image, VisionCallback callback) {
+        analyze(Operation.ANALYZE_COMBINED, AzureConfig.CombinedAnalysis.getCombinedAnalyzeUrl(), image, null, callback);
+    }
+
+    /**
+     * Drop every pending upload, retry and Read poll without calling back. A new
+     * capture supersedes whatever the previous one was still waiting for.
+     */
+    public void cancelAll() {
+        generation.incrementAndGet();
+        readApiPoller.cancelAll();
+        synchronized (inFlightCalls) {
+            for (Call call : inFlightCalls) {
+                call.cancel();
+            }
+            inFlightCalls.clear();
+        }
+    }
+
+    /**
+     * Drop the group's pending uploads, retries and Read polls without calling back. Later
+     * calls made with the group run as usual.
+     */
+    public void cancel(CallGroup group) {
+        group.generation.incrementAndGet();
+        synchronized (group.polls) {
+            for (ReadApiPoller.PollHandle poll : group.polls) {
+                poll.cancel();
+            }
+            group.polls.clear();
+        }
+        synchronized (group.calls) {
+            for (Call call : group.calls) {
+                call.cancel();
+            }
+            group.calls.clear();
+        }
+    }
+
+    public void shutdown() {
+        cancelAll();
+        readApiPoller.shutdown();
+        retryScheduler.shutdownNow();
+    }
+
+    public synchronized String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Operation, OperationStats> entry : statsByOperation.entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (stats.requests == 0 && stats.cacheHits == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.US,
+                    "%s requests=%d cacheHits=%d retries=%d failures=%d avgUpload=%d B avgLatency=%d ms maxLatency=%d ms%n",
+                    entry.getKey(), stats.requests, stats.cacheHits, stats.retries, stats.failures,
+                    stats.requests == 0 ? 0 : stats.uploadedBytes / stats.requests,
+                    stats.succeeded == 0 ? 0 : stats.totalLatencyMs / stats.succeeded,
+                    stats.maxLatencyMs));
+        }
+        return sb.toString().trim();
+    }
+
+    private void analyze(final Operation operation, String url, final CapturedImage image,
+                         @Nullable CallGroup group, final VisionCallback callback) {
+        if (serveFromCache(operation, image, callback)) {
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        upload(operation, url, image, new Ticket(group), new UploadListener() {
+            @Override
+            public void onResponse(Response response, String responseBody) {
+                if (!response.isSuccessful()) {
+                    Log.e(TAG, operation + " error: " + response.code() + " Body: " + responseBody);
+                    fail(operation, callback, new VisionError(VisionError.Kind.HTTP_ERROR, false, response.code(), responseBody));
+                    return;
+                }
+                Log.d(TAG, operation + " success. Response: " + responseBody);
+                recordSuccess(operation, image, startNanos, responseBody);
+                callback.onSuccess(responseBody);
+            }
+
+            @Override
+            public void onFailure(VisionError error) {
+                fail(operation, callback, error);
+            }
+        });
+    }
+
+    private void pollReadResult(String operationLocationUrl, final CapturedImage image, final long startNanos,
+                                final Ticket ticket, final VisionCallback callback) {
+        ticket.trackPoll(readApiPoller.poll(operationLocationUrl, new ReadApiPoller.PollCallback() {
+            @Override
+            public void onSucceeded(String responseBody) {
+                ticket.untrackPoll();
+                if (ticket.isCancelled()) {
+                    return;
+                }
+                recordSuccess(Operation.READ, image, startNanos, responseBody);
+                callback.onSuccess(responseBody);
+            }
+
+            @Override
+            public void onFailure(ReadApiPoller.Failure failure, String detail) {
+                ticket.untrackPoll();
+                if (ticket.isCancelled()) {
+                    return;
+                }
+                fail(Operation.READ, callback, fromPollFailure(failure, detail));
+            }
+        }));
+    }
+
+    private void upload(final Operation operation, final String url, final CapturedImage image,
+                        final Ticket ticket, final UploadListener listener) {
+        synchronized (this) {
+            OperationStats stats = statsByOperation.get(operation);
+            stats.requests++;
+            stats.uploadedBytes += image.getJpegSize();
+        }
+        attempt(operation, url, image, ticket, 0, listener);
+    }
+
+    private void attempt(final Operation operation, final String url, final CapturedImage image,
+                         final Ticket ticket, final int attempt, final UploadListener listener) {
+        if (ticket.isCancelled()) {
+            return;
+        }
+        final SendState sendState = new SendState();
+        Request request = new Request.Builder()
+                .url(url)
+                .addHeader("Ocp-Apim-Subscription-Key", subscriptionKey)
+                .post(image.toRequestBody())
+                .tag(SendState.class, sendState)
+                .build();
+        final Call call = httpClient.newCall(request);
+        call.timeout().timeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        ticket.track(call);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                ticket.untrack(call);
+                if (ticket.isCancelled()) {
+                    return;
+                }
+                // Once the request started going out the service may have acted on it
+                if (!sendState.started && attempt < maxRetries) {
+                    Log.w(TAG, operation + " call failed before sending, retrying", e);
+                    retry(operation, url, image, ticket, attempt, -1, listener);
+                    return;
+                }
+                Log.e(TAG, operation + " call failed", e);
+                listener.onFailure(new VisionError(VisionError.Kind.NETWORK, false, -1, String.valueOf(e.getMessage())));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                ticket.untrack(call);
+                final String responseBodyString;
+                try {
+                    responseBodyString = response.body() != null ? response.body().string() : "null";
+                } finally {
+                    response.close();
+                }
+                if (ticket.isCancelled()) {
+                    return;
+                }
+                // The service answered that it did not handle the request
+                int code = response.code();
+                if ((code == HTTP_TOO_MANY_REQUESTS || code >= 500) && attempt < maxRetries) {
+                    Log.w(TAG, operation + " returned " + code + ", retrying. Body: " + responseBodyString);
+                    retry(operation, url, image, ticket, attempt,
+                            PollingSchedule.parseRetryAfterMs(response.header("Retry-After")), listener);
+                    return;
+                }
+                listener.onResponse(response, responseBodyString);
+            }
+        });
+    }
+
+    private void retry(Operation operation, String url, CapturedImage image, Ticket ticket, int attempt,
+                       long retryAfterMs, UploadListener listener) {
+        synchronized (this) {
+            statsByOperation.get(operation).retries++;
+        }
+        long delayMs = retryAfterMs >= 0 ? retryAfterMs : RETRY_BASE_DELAY_MS << attempt;
+        retryScheduler.schedule(() -> attempt(operation, url, image, ticket, attempt + 1, listener),
+                delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void fail(Operation operation, VisionCallback callback, VisionError error) {
+        synchronized (this) {
+            statsByOperation.get(operation).failures++;
+        }
+        Log.w(TAG, operation + " failed: " + error);
+        callback.onError(error);
+    }
+
+    /**
+     * Answer from the result cache when a near-identical image was analyzed recently.
+     */
+    private boolean serveFromCache(Operation operation, CapturedImage image, VisionCallback callback) {
+        Long hash = resultCache != null ? image.getPerceptualHash() : null;
+        if (hash == null) {
+            return false;
+        }
+        String cachedBody = resultCache.get(operation, hash);
+        if (cachedBody == null) {
+            return false;
+        }
+        synchronized (this) {
+            statsByOperation.get(operation).cacheHits++;
+        }
+        callback.onSuccess(cachedBody);
+        return true;
+    }
+
+    private void recordSuccess(Operation operation, CapturedImage image, long startNanos, String responseBody) {
+        if (resultCache != null && operation != Operation.READ) {
+            Long hash = image.getPerceptualHash();
+            if (hash != null) {
+                resultCache.put(operation, hash, responseBody);
+            }
+        }
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        synchronized (this) {
+            OperationStats stats = statsByOperation.get(operation);
+            stats.succeeded++;
+            stats.totalLatencyMs += latencyMs;
+            stats.maxLatencyMs = Math.max(stats.maxLatencyMs, latencyMs);
+        }
+        Log.d(TAG, operation + " completed in " + latencyMs + " ms.");
+    }
+
+    private static VisionError fromPollFailure(ReadApiPoller.Failure failure, String detail) {
+        switch (failure) {
+            case HTTP_ERROR:
+                int code;
+                try {
+                    code = Integer.parseInt(detail);
+                } catch (NumberFormatException e) {
+                    code = -1;
+                }
+                return new VisionError(VisionError.Kind.HTTP_ERROR, true, code, detail);
+            case PARSE_ERROR:
+                return new VisionError(VisionError.Kind.PARSE_ERROR, true, -1, detail);
+            case JOB_FAILED:
+                return new VisionError(VisionError.Kind.JOB_FAILED, true, -1, detail);
+            case UNKNOWN_STATUS:
+                return new VisionError(VisionError.Kind.UNKNOWN_STATUS, true, -1, detail);
+            case TIMEOUT:
+                return new VisionError(VisionError.Kind.TIMEOUT, true, -1, detail);
+            case NETWORK:
+            default:
+                return new VisionError(VisionError.Kind.NETWORK, true, -1, detail);
+        }
+    }
+}
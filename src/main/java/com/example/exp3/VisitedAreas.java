@@ -0,0 +1,270 @@
+package com.example.exp3;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Where "where am I" has been asked, counted per geohash cell, so the places of a daily
+ * routine can be prefetched (see {@link PlacePrefetchJobService}). A cell counts at most
+ * one visit a day, so asking repeatedly in one place does not make it look like a routine.
+ * Only the cell and the visit count are kept, not a track of fixes. Optionally persisted
+ * as one JSON file.
+ */
+public class VisitedAreas {
+
+    private static final String TAG = "VisitedAreas";
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private static final class Area {
+        final String cell;
+        int visits;
+        long lastVisitMs;
+
+        Area(String cell, int visits, long lastVisitMs) {
+            this.cell = cell;
+            this.visits = visits;
+            this.lastVisitMs = lastVisitMs;
+        }
+    }
+
+    private final int precision;
+    private final int maxAreas;
+    private final long maxIdleMs;
+    @Nullable
+    private final File diskFile;
+    @Nullable
+    private final ExecutorService diskExecutor;
+    // Least recently visited first
+    private final LinkedHashMap<String, Area> areas = new LinkedHashMap<>(16, 0.75f, true);
+    // Counted down once the persisted areas are in memory
+    private final CountDownLatch diskLoaded = new CountDownLatch(1);
+    private boolean writePending;
+
+    /**
+     * @param precision geohash length of an area
+     * @param maxIdleMs an area not visited for this long is forgotten
+     * @param diskFile  where to persist areas, or null for memory only
+     */
+    public VisitedAreas(int precision, int maxAreas, long maxIdleMs, @Nullable File diskFile) {
+        this.precision = precision;
+        this.maxAreas = maxAreas;
+        this.maxIdleMs = maxIdleMs;
+        this.diskFile = diskFile;
+        if (diskFile != null) {
+            diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "visited-areas");
+                thread.setDaemon(true);
+                return thread;
+            });
+            diskExecutor.execute(() -> {
+                try {
+                    loadFromDisk();
+                } finally {
+                    diskLoaded.countDown();
+                }
+            });
+        } else {
+            diskExecutor = null;
+            diskLoaded.countDown();
+        }
+    }
+
+    public void record(double latitude, double longitude, long nowMs) {
+        String cell = Geohash.encode(latitude, longitude, precision);
+        synchronized (this) {
+            Area area = areas.get(cell);
+            if (area == null) {
+                areas.put(cell, new Area(cell, 1, nowMs));
+            } else {
+                if (!isSameDay(area.lastVisitMs, nowMs)) {
+                    area.visits++;
+                }
+                area.lastVisitMs = nowMs;
+            }
+            trim(nowMs);
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Cells visited at least {@code minVisits} times and recently enough, most visited
+     * first, at most {@code limit} of them.
+     */
+    public synchronized List<String> frequentCells(int minVisits, int limit, long nowMs) {
+        List<Area> frequent = new ArrayList<>();
+        for (Area area : areas.values()) {
+            if (area.visits >= minVisits && nowMs - area.lastVisitMs <= maxIdleMs) {
+                frequent.add(area);
+            }
+        }
+        Collections.sort(frequent, (a, b) -> a.visits != b.visits
+                ? Integer.compare(b.visits, a.visits)
+                : Long.compare(b.lastVisitMs, a.lastVisitMs));
+        List<String> cells = new ArrayList<>();
+        for (int i = 0; i < frequent.size() && i < limit; i++) {
+            cells.add(frequent.get(i).cell);
+        }
+        return cells;
+    }
+
+    /**
+     * Block until the persisted areas are in memory. Until then queries see only what was
+     * added since start, so a background job that reads at once waits here first.
+     */
+    public void awaitLoaded() throws InterruptedException {
+        diskLoaded.await();
+    }
+
+    /** Wait for loading and earlier writes to finish. */
+    void awaitDiskIdle() throws InterruptedException {
+        if (diskExecutor == null) {
+            return;
+        }
+        try {
+            diskExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void shutdown() {
+        if (diskExecutor != null) {
+            diskExecutor.shutdown();
+        }
+    }
+
+    /** Whether both times fall on the same local calendar day. */
+    static boolean isSameDay(long firstMs, long secondMs) {
+        TimeZone timeZone = TimeZone.getDefault();
+        return (firstMs + timeZone.getOffset(firstMs)) / DAY_MS == (secondMs + timeZone.getOffset(secondMs)) / DAY_MS;
+    }
+
+    private void trim(long nowMs) {
+        Iterator<Area> iterator = areas.values().iterator();
+        while (iterator.hasNext()) {
+            Area area = iterator.next();
+            if (nowMs - area.lastVisitMs > maxIdleMs || areas.size() > maxAreas) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void scheduleWrite() {
+        if (diskExecutor == null) {
+            return;
+        }
+        synchronized (this) {
+            if (writePending) {
+                return;
+            }
+            writePending = true;
+        }
+        diskExecutor.execute(this::writeToDisk);
+    }
+
+    private void loadFromDisk() {
+        if (!diskFile.exists()) {
+            return;
+        }
+        byte[] bytes = new byte[(int) diskFile.length()];
+        List<Area> loaded = new ArrayList<>();
+        try (FileInputStream in = new FileInputStream(diskFile)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            JSONArray array = new JSONArray(new String(bytes, 0, offset, StandardCharsets.UTF_8));
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.getJSONObject(i);
+                loaded.add(new Area(json.getString("cell"), json.getInt("visits"), json.getLong("lastVisitMs")));
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Deleting unreadable visited areas", e);
+            diskFile.delete();
+            return;
+        }
+        synchronized (this) {
+            // Visits recorded while loading add to the persisted counts. They are moments
+            // apart, so they are one day's visit, already counted if that day was persisted.
+            Map<String, Area> newer = new LinkedHashMap<>(areas);
+            areas.clear();
+            for (Area area : loaded) {
+                areas.put(area.cell, area);
+            }
+            for (Area area : newer.values()) {
+                Area old = areas.get(area.cell);
+                if (old != null) {
+                    area.visits = old.visits + (isSameDay(old.lastVisitMs, area.lastVisitMs) ? 0 : area.visits);
+                }
+                areas.put(area.cell, area);
+            }
+            trim(System.currentTimeMillis());
+        }
+        Log.d(TAG, "Loaded " + loaded.size() + " visited areas.");
+    }
+
+    private void writeToDisk() {
+        JSONArray array = new JSONArray();
+        synchronized (this) {
+            writePending = false;
+            try {
+                for (Area area : areas.values()) {
+                    array.put(new JSONObject()
+                            .put("cell", area.cell)
+                            .put("visits", area.visits)
+                            .put("lastVisitMs", area.lastVisitMs));
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Error encoding visited areas", e);
+                return;
+            }
+        }
+        File parent = diskFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log.w(TAG, "Could not create " + parent);
+            return;
+        }
+        File temp = new File(diskFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(array.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Error persisting visited areas", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(diskFile)) {
+            Log.w(TAG, "Could not replace " + diskFile);
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.exp3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts YUV_420_888 planes to NV21, honoring row and pixel strides.
+ * The output array is pooled and reused across frames of the same size, so a
+ * converter instance must only be used from one thread at a time.
+ */
+public class YuvToNv21Converter {
+
+    private byte[] output;
+
+    /**
+     * Size in bytes of an NV21 frame with the given dimensions.
+     */
+    public static int nv21Size(int width, int height) {
+        return width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2);
+    }
+
+    /**
+     * Convert one frame. The returned array is owned by the converter and is
+     * overwritten by the next call; its first {@link #nv21Size} bytes are valid.
+     * Buffer positions are restored before returning.
+     */
+    public byte[] convert(ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                          ByteBuffer uPlane, int uRowStride, int uPixelStride,
+                          ByteBuffer vPlane, int vRowStride, int vPixelStride,
+                          int width, int height) {
+        int size = nv21Size(width, height);
+        if (output == null || output.length < size) {
+            output = new byte[size];
+        }
+        byte[] out = output;
+
+        copyLuma(yPlane, yRowStride, yPixelStride, width, height, out);
+
+        int chromaOffset = width * height;
+        if (uPixelStride == 2 && vPixelStride == 2 && uRowStride == width && vRowStride == width
+                && (width & 1) == 0 && (height & 1) == 0
+                && isNv21Interleaved(uPlane, vPlane, width, height)) {
+            // Fast path: the V plane already is the VUVU... layout NV21 expects,
+            // short only the final U byte. Checking and bulk-copying is about four times
+            // faster than the strided loop (YuvToNv21ConverterBenchmark).
+            int vuLength = width * height / 2;
+            int vPosition = vPlane.position();
+            vPlane.get(out, chromaOffset, vuLength - 1);
+            vPlane.position(vPosition);
+            out[chromaOffset + vuLength - 1] = uPlane.get(uPlane.position() + vuLength - 2);
+            return out;
+        }
+
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int uBase = uPlane.position();
+        int vBase = vPlane.position();
+        int pos = chromaOffset;
+        for (int row = 0; row < chromaHeight; row++) {
+            int uRow = uBase + row * uRowStride;
+            int vRow = vBase + row * vRowStride;
+            for (int col = 0; col < chromaWidth; col++) {
+                out[pos++] = vPlane.get(vRow + col * vPixelStride);
+                out[pos++] = uPlane.get(uRow + col * uPixelStride);
+            }
+        }
+        return out;
+    }
+
+    private static void copyLuma(ByteBuffer yPlane, int rowStride, int pixelStride,
+                                 int width, int height, byte[] out) {
+        int base = yPlane.position();
+        if (pixelStride == 1 && rowStride == width) {
+            yPlane.get(out, 0, width * height);
+            yPlane.position(base);
+            return;
+        }
+        if (pixelStride == 1) {
+            // Padded rows: bulk copy each row, skipping the padding
+            for (int row = 0; row < height; row++) {
+                yPlane.position(base + row * rowStride);
+                yPlane.get(out, row * width, width);
+            }
+            yPlane.position(base);
+            return;
+        }
+        int pos = 0;
+        for (int row = 0; row < height; row++) {
+            int rowStart = base + row * rowStride;
+            for (int col = 0; col < width; col++) {
+                out[pos++] = yPlane.get(rowStart + col * pixelStride);
+            }
+        }
+    }
+
+    /**
+     * True when the U and V planes are views of one NV21-ordered VUVU... buffer,
+     * i.e. V shifted by one byte equals U. Compares contents without allocating.
+     */
+    static boolean isNv21Interleaved(ByteBuffer uPlane, ByteBuffer vPlane, int width, int height) {
+        int expected = width * height / 2 - 1;
+        if (vPlane.remaining() < expected || uPlane.remaining() < expected) {
+            return false;
+        }
+        int vPosition = vPlane.position();
+        int vLimit = vPlane.limit();
+        int uLimit = uPlane.limit();
+        try {
+            vPlane.position(vPosition + 1);
+            vPlane.limit(vPosition + expected);
+            uPlane.limit(uPlane.position() + expected - 1);
+            return vPlane.compareTo(uPlane) == 0;
+        } finally {
+            vPlane.limit(vLimit);
+            vPlane.position(vPosition);
+            uPlane.limit(uLimit);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.exp3;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * JUnit category of the JVM benchmarks, and the loop they share. Benchmarks are left out
+ * of the default test run; run them with {@code ./gradlew testDebugUnitTest -Pbenchmarks}.
+ * Allocation is read from the HotSpot thread counter, so a benchmark is skipped on VMs
+ * without it.
+ */
+public interface Benchmark {
+
+    interface Task {
+        /** One iteration; the result is kept so the work cannot be optimized away. */
+        long run() throws Exception;
+    }
+
+    final class Result {
+        public final long nanosPerIteration;
+        public final long bytesPerIteration;
+
+        Result(long nanosPerIteration, long bytesPerIteration) {
+            this.nanosPerIteration = nanosPerIteration;
+            this.bytesPerIteration = bytesPerIteration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d us, %d B allocated per iteration",
+                    nanosPerIteration / 1000, bytesPerIteration);
+        }
+    }
+
+    static Result measure(int warmupIterations, int measuredIterations, Task task) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("thread allocation counter not available",
+                bean instanceof com.sun.management.ThreadMXBean
+                        && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        long sink = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += task.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            sink += task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        if (sink == Long.MIN_VALUE) {
+            throw new AssertionError();
+        }
+        return new Result(elapsed / measuredIterations, allocated / measuredIterations);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.exp3;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+public class BurstRecognizerTest {
+
+    /** Holds Read callbacks until the test answers them. */
+    private static final class FakeVisionClient extends VisionClient {
+        final List<ReadCallback> inFlight = new ArrayList<>();
+        int reads;
+        int cancels;
+
+        FakeVisionClient() {
+            super(new OkHttpClient(), "key", null, null, 1000, 0);
+        }
+
+        @Override
+        public void read(CapturedImage image, @Nullable CallGroup group, ReadCallback callback) {
+            assertNotNull("burst calls must be cancellable on their own", group);
+            reads++;
+            inFlight.add(callback);
+        }
+
+        @Override
+        public void cancel(CallGroup group) {
+            cancels++;
+            inFlight.clear();
+        }
+
+        @Override
+        public void cancelAll() {
+            fail("a burst must not cancel other callers' calls");
+        }
+
+        void answer(String fixture) throws Exception {
+            inFlight.remove(0).onSuccess(TestResources.read(fixture));
+        }
+    }
+
+    private static final class RecordingCallback implements BurstRecognizer.BurstCallback {
+        String answer;
+        Boolean consensus;
+        BurstRecognizer.BurstStats stats;
+
+        @Override
+        public void onConsensus(String answer, BurstRecognizer.BurstStats stats) {
+            record(answer, true, stats);
+        }
+
+        @Override
+        public void onNoConsensus(@Nullable String bestAnswer, BurstRecognizer.BurstStats stats) {
+            record(bestAnswer, false, stats);
+        }
+
+        private void record(String answer, boolean consensus, BurstRecognizer.BurstStats stats) {
+            assertNull("called back twice", this.consensus);
+            this.answer = answer;
+            this.consensus = consensus;
+            this.stats = stats;
+        }
+    }
+
+    private FakeVisionClient visionClient;
+    private BurstRecognizer recognizer;
+    private RecordingCallback callback;
+
+    @Before
+    public void setUp() {
+        visionClient = new FakeVisionClient();
+        recognizer = new BurstRecognizer(visionClient, 5, 2, 2, 0.6f);
+        callback = new RecordingCallback();
+        recognizer.start(BurstRecognizer.currencyVotes(), callback);
+    }
+
+    private static CapturedImage frame() {
+        return new CapturedImage(new byte[16], 1280, 960, 90, 0);
+    }
+
+    @Test
+    public void keepsAtMostMaxInFlightCalls() throws Exception {
+        assertTrue(recognizer.offerFrame(frame()));
+        assertTrue(recognizer.offerFrame(frame()));
+        assertTrue(recognizer.offerFrame(frame()));
+        assertEquals(2, visionClient.reads);
+
+        // A finished call makes room for the queued frame
+        visionClient.answer("currency/none_shop_sign.json");
+        assertEquals(3, visionClient.reads);
+        assertEquals(2, visionClient.inFlight.size());
+    }
+
+    @Test
+    public void consensusAnswersEarlyAndCancelsTheRest() throws Exception {
+        recognizer.offerFrame(frame());
+        recognizer.offerFrame(frame());
+        recognizer.offerFrame(frame());
+        visionClient.answer("currency/note_500_front.json");
+        assertNull(callback.consensus);
+        visionClient.answer("currency/note_500_back.json");
+
+        assertEquals(Boolean.TRUE, callback.consensus);
+        assertEquals("500", callback.answer);
+        assertEquals(3, callback.stats.apiCalls);
+        assertEquals(2, callback.stats.agreeingFrames);
+        assertEquals(1, visionClient.cancels);
+        assertTrue(visionClient.inFlight.isEmpty());
+        assertFalse(recognizer.offerFrame(frame()));
+        assertFalse(recognizer.isRunning());
+        assertTrue(recognizer.getStatsSummary().contains("consensus=1"));
+    }
+
+    @Test
+    public void endsWithoutConsensusOnceFramesRunOut() throws Exception {
+        recognizer.offerFrame(frame());
+        recognizer.endFrames();
+        assertNull(callback.consensus);
+        visionClient.answer("currency/note_200_front.json");
+
+        assertEquals(Boolean.FALSE, callback.consensus);
+        assertEquals("200", callback.answer);
+        assertEquals(1, callback.stats.apiCalls);
+    }
+
+    @Test
+    public void failedFramesAbstain() throws Exception {
+        recognizer.offerFrame(frame());
+        visionClient.inFlight.remove(0).onError(null);
+        recognizer.endFrames();
+        assertEquals(Boolean.FALSE, callback.consensus);
+        assertNull(callback.answer);
+    }
+
+    @Test
+    public void cancelledBurstNeverCallsBack() throws Exception {
+        recognizer.offerFrame(frame());
+        VisionClient.ReadCallback late = visionClient.inFlight.get(0);
+        recognizer.cancel();
+        assertEquals(1, visionClient.cancels);
+        late.onSuccess(TestResources.read("currency/note_500_front.json"));
+        recognizer.endFrames();
+        assertNull(callback.consensus);
+        assertFalse(recognizer.isRunning());
+    }
+
+    private static BurstVoter.Vote vote(String key, float weight) {
+        return new BurstVoter.Vote(key, weight, key + "@" + weight);
+    }
+
+    @Test
+    public void twoAgreeingFramesReachConsensus() {
+        BurstVoter voter = new BurstVoter(2, 0.6f);
+        assertFalse(voter.add(vote("500", 0.8f)));
+        assertTrue(voter.add(vote("500", 0.9f)));
+        assertEquals(2, voter.getLeaderVotes());
+        // The strongest frame's answer is spoken
+        assertEquals("500@0.9", voter.getLeaderAnswer());
+    }
+
+    @Test
+    public void disagreementDelaysConsensus() {
+        BurstVoter voter = new BurstVoter(2, 0.6f);
+        assertFalse(voter.add(vote("500", 0.7f)));
+        assertFalse(voter.add(vote("200", 0.9f)));
+        // 500 has two votes but only 1.4 of 2.3 (61%)...
+        assertTrue(voter.add(vote("500", 0.7f)));
+
+        BurstVoter close = new BurstVoter(2, 0.6f);
+        close.add(vote("500", 0.5f));
+        close.add(vote("200", 0.9f));
+        // ...while 1.0 of 1.9 (53%) is not enough
+        assertFalse(close.add(vote("500", 0.5f)));
+        assertEquals("500@0.5", close.getLeaderAnswer());
+        assertTrue(close.add(vote("500", 0.9f)));
+    }
+
+    @Test
+    public void abstentionsDoNotVote() {
+        BurstVoter voter = new BurstVoter(2, 0.6f);
+        assertFalse(voter.add(null));
+        assertFalse(voter.add(vote("10", 0f)));
+        assertNull(voter.getLeaderAnswer());
+        assertFalse(voter.add(vote("10", 0.7f)));
+        assertFalse(voter.add(null));
+        assertTrue(voter.add(vote("10", 0.6f)));
+        assertEquals(5, voter.getFrameCount());
+    }
+
+    @Test
+    public void textKeyIgnoresCaseSpacingAndPunctuation() {
+        assertEquals("platform 2 exit", BurstRecognizer.textKey("PLATFORM 2 → EXIT"));
+        assertEquals("platform 2 exit", BurstRecognizer.textKey("Platform  2\nexit."));
+        assertEquals("ನಿರ್ಗಮನ", BurstRecognizer.textKey("ನಿರ್ಗಮನ"));
+        assertEquals("", BurstRecognizer.textKey(" - "));
+    }
+
+    @Test
+    public void currencyFramesVoteForTheirDenomination() throws Exception {
+        BurstRecognizer.VoteExtractor extractor = BurstRecognizer.currencyVotes();
+        BurstVoter voter = new BurstVoter(2, 0.6f);
+        assertFalse(voter.add(extractor.extract(TestResources.read("currency/note_500_front.json"))));
+        // A frame that is not a note abstains
+        assertNull(extractor.extract(TestResources.read("currency/none_shop_sign.json")));
+        // Nor does one that is only possibly a note, since a consensus is spoken as certain
+        assertNull(extractor.extract(TestResources.read("currency/none_price_tag.json")));
+        assertTrue(voter.add(extractor.extract(TestResources.read("currency/note_500_back.json"))));
+        assertEquals("500", voter.getLeaderAnswer());
+        assertNull(extractor.extract("{\"status\": \"succeeded\""));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CaptureResultCacheTest {
+
+    private static final VisionClient.Operation SCENE = VisionClient.Operation.ANALYZE_SCENE;
+    private static final VisionClient.Operation OBJECTS = VisionClient.Operation.ANALYZE_OBJECTS;
+    private static final long HASH = 0x5A5A_F0F0_1234_8765L;
+
+    private final AtomicLong nowMs = new AtomicLong(1_700_000_000_000L);
+
+    private CaptureResultCache memoryCache(int maxEntries) {
+        return new CaptureResultCache(maxEntries, null, 0, nowMs::get);
+    }
+
+    private static File newDirectory(String prefix) throws IOException {
+        File directory = Files.createTempDirectory(prefix).toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    /** HASH with the lowest {@code bits} bits flipped. */
+    private static long flipped(int bits) {
+        return HASH ^ ((1L << bits) - 1);
+    }
+
+    @Test
+    public void nearIdenticalImageIsAHit() {
+        CaptureResultCache cache = memoryCache(8);
+        cache.put(SCENE, HASH, "bus stop");
+        assertEquals("bus stop", cache.get(SCENE, HASH));
+        assertEquals("bus stop", cache.get(SCENE, flipped(AzureConfig.ResultCache.MAX_HAMMING_DISTANCE)));
+        assertNull(cache.get(SCENE, flipped(AzureConfig.ResultCache.MAX_HAMMING_DISTANCE + 1)));
+        // Results are per operation
+        assertNull(cache.get(OBJECTS, HASH));
+    }
+
+    @Test
+    public void closestEntryWins() {
+        CaptureResultCache cache = memoryCache(8);
+        cache.put(SCENE, flipped(6), "far");
+        cache.put(SCENE, flipped(2), "near");
+        assertEquals("near", cache.get(SCENE, HASH));
+    }
+
+    @Test
+    public void entriesExpirePerOperation() {
+        CaptureResultCache cache = memoryCache(8);
+        cache.put(SCENE, HASH, "scene");
+        cache.put(OBJECTS, HASH, "objects");
+        nowMs.addAndGet(AzureConfig.ResultCache.SCENE_MAX_AGE_MS + 1);
+        assertNull(cache.get(SCENE, HASH));
+        assertEquals("objects", cache.get(OBJECTS, HASH));
+        nowMs.addAndGet(AzureConfig.ResultCache.OBJECTS_MAX_AGE_MS);
+        assertNull(cache.get(OBJECTS, HASH));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        CaptureResultCache cache = memoryCache(2);
+        cache.put(SCENE, 0L, "first");
+        cache.put(SCENE, -1L, "second");
+        assertEquals("first", cache.get(SCENE, 0L));
+        cache.put(SCENE, 0x00FF_FF00_00FF_FF00L, "third");
+        assertNull(cache.get(SCENE, -1L));
+        assertEquals("first", cache.get(SCENE, 0L));
+        assertEquals("third", cache.get(SCENE, 0x00FF_FF00_00FF_FF00L));
+        assertEquals("lookups=4 hits=3 (memory=3 disk=0) hitRate=75% stored=3", cache.getStatsSummary());
+    }
+
+    @Test
+    public void persistedResultsSurviveARestart() throws Exception {
+        File directory = newDirectory("results");
+        CaptureResultCache cache = new CaptureResultCache(8, directory, 8, nowMs::get);
+        cache.put(OBJECTS, HASH, "{\"objects\":[]}");
+        cache.awaitDiskIdle();
+        cache.shutdown();
+
+        CaptureResultCache restarted = new CaptureResultCache(8, directory, 8, nowMs::get);
+        restarted.awaitDiskIdle();
+        assertEquals("{\"objects\":[]}", restarted.get(OBJECTS, flipped(1)));
+        assertTrue(restarted.getStatsSummary().contains("(memory=0 disk=1)"));
+        restarted.shutdown();
+
+        // Expired files are deleted on load
+        nowMs.addAndGet(AzureConfig.ResultCache.OBJECTS_MAX_AGE_MS + 1);
+        CaptureResultCache later = new CaptureResultCache(8, directory, 8, nowMs::get);
+        later.awaitDiskIdle();
+        assertNull(later.get(OBJECTS, HASH));
+        assertEquals(0, directory.listFiles().length);
+        later.shutdown();
+    }
+
+    @Test
+    public void diskKeepsTheNewestEntries() throws Exception {
+        File directory = newDirectory("bounded");
+        CaptureResultCache cache = new CaptureResultCache(8, directory, 2, nowMs::get);
+        for (int i = 0; i < 3; i++) {
+            nowMs.incrementAndGet();
+            cache.put(SCENE, i, "scene " + i);
+        }
+        cache.awaitDiskIdle();
+        cache.shutdown();
+        assertEquals(2, directory.listFiles().length);
+
+        CaptureResultCache restarted = new CaptureResultCache(8, directory, 2, nowMs::get);
+        restarted.awaitDiskIdle();
+        assertEquals("scene 2", restarted.get(SCENE, 2L));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void readResultsFromOlderVersionsAreDropped() throws Exception {
+        File directory = newDirectory("legacy");
+        File legacy = new File(directory, "READ-" + Long.toHexString(HASH) + "-" + nowMs.get() + ".json");
+        assertTrue(legacy.createNewFile());
+        CaptureResultCache cache = new CaptureResultCache(8, directory, 8, nowMs::get);
+        cache.awaitDiskIdle();
+        assertFalse(legacy.exists());
+        cache.shutdown();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class CurrencyRecognizerTest {
+
+    private static final String FIXTURES = "currency/";
+    private static final String HELD_OUT_FIXTURES = "currency/heldout/";
+    // Measured 1.00 / 1.00 when the held-out set was added; recall may lose one of six notes
+    private static final float HELD_OUT_MIN_PRECISION = 1f;
+    private static final float HELD_OUT_MIN_RECALL = 0.8f;
+
+    private static final class Sample {
+        final String name;
+        final int denomination;
+        final OcrDocument document;
+
+        Sample(String name, int denomination, OcrDocument document) {
+            this.name = name;
+            this.denomination = denomination;
+            this.document = document;
+        }
+    }
+
+    /** Confident answers against the labels; notes are the samples that are banknotes. */
+    private static final class Score {
+        int truePositives;
+        int falsePositives;
+        int notes;
+        final StringBuilder misses = new StringBuilder();
+
+        float precision() {
+            return truePositives / (float) Math.max(1, truePositives + falsePositives);
+        }
+
+        float recall() {
+            return truePositives / (float) Math.max(1, notes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "precision %.2f recall %.2f%n%s", precision(), recall(), misses);
+        }
+    }
+
+    private static List<Sample> labeledSamples(String directory) throws Exception {
+        List<Sample> samples = new ArrayList<>();
+        for (String row : TestResources.read(directory + "labels.txt").split("\n")) {
+            row = row.trim();
+            if (row.isEmpty() || row.startsWith("#")) {
+                continue;
+            }
+            String[] parts = row.split(" ");
+            OcrDocument document = ReadResultParser.parse(TestResources.read(directory + parts[0]));
+            assertNotNull(parts[0], document);
+            samples.add(new Sample(parts[0], Integer.parseInt(parts[1]), document));
+        }
+        return samples;
+    }
+
+    private static Score score(List<Sample> samples) {
+        Score score = new Score();
+        for (Sample sample : samples) {
+            if (sample.denomination != 0) {
+                score.notes++;
+            }
+            CurrencyRecognizer.Result result = CurrencyRecognizer.recognize(sample.document);
+            if (result.isConfident()) {
+                if (result.denomination == sample.denomination) {
+                    score.truePositives++;
+                } else {
+                    score.falsePositives++;
+                    score.misses.append(sample.name).append(" -> ").append(result).append('\n');
+                }
+            } else if (sample.denomination != 0) {
+                score.misses.append(sample.name).append(" -> not confident ").append(result).append('\n');
+            }
+        }
+        return score;
+    }
+
+    /** The substring matcher this recognizer replaced; each hit counts as an answer. */
+    private static int legacyDenomination(OcrDocument document) {
+        String text = document.getText(" ").toLowerCase(Locale.ROOT);
+        String[] candidates = {"2000", "500", "200", "100", "50", "20", "10"};
+        for (String candidate : candidates) {
+            if (text.contains(candidate)) {
+                return Integer.parseInt(candidate);
+            }
+        }
+        return 0;
+    }
+
+    private static float legacyPrecision(List<Sample> samples) {
+        int truePositives = 0;
+        int falsePositives = 0;
+        for (Sample sample : samples) {
+            int legacy = legacyDenomination(sample.document);
+            if (legacy != 0 && legacy == sample.denomination) {
+                truePositives++;
+            } else if (legacy != 0) {
+                falsePositives++;
+            }
+        }
+        return truePositives / (float) Math.max(1, truePositives + falsePositives);
+    }
+
+    /** The fixtures the weights were tuned on; synthetic, so this only guards against regressions. */
+    @Test
+    public void precisionAndRecallOnTuningFixtures() throws Exception {
+        List<Sample> samples = labeledSamples(FIXTURES);
+        Score score = score(samples);
+
+        assertEquals(score.toString(), 1f, score.precision(), 0f);
+        assertTrue(score.toString(), score.recall() >= 0.85f);
+        assertTrue(score.toString(), score.precision() > legacyPrecision(samples));
+    }
+
+    /** Fixtures written after tuning and never used for it. */
+    @Test
+    public void precisionAndRecallOnHeldOutFixtures() throws Exception {
+        List<Sample> samples = labeledSamples(HELD_OUT_FIXTURES);
+        Score score = score(samples);
+
+        assertTrue(score.toString(), score.precision() >= HELD_OUT_MIN_PRECISION);
+        assertTrue(score.toString(), score.recall() >= HELD_OUT_MIN_RECALL);
+        assertTrue(score.toString(), score.precision() > legacyPrecision(samples));
+    }
+
+    @Test
+    public void serialNumbersAndYearsDoNotCount() throws Exception {
+        CurrencyRecognizer.Result result = CurrencyRecognizer.recognize(
+                ReadResultParser.parse(TestResources.read(FIXTURES + "note_200_front.json")));
+        // The serial number "3FN 500192" contains 500, the old matcher's first guess
+        assertEquals(200, result.denomination);
+        assertTrue(result.isConfident());
+    }
+
+    @Test
+    public void nonNotesAreNotConfident() throws Exception {
+        List<Sample> samples = labeledSamples(FIXTURES);
+        samples.addAll(labeledSamples(HELD_OUT_FIXTURES));
+        for (Sample sample : samples) {
+            if (sample.denomination == 0) {
+                assertFalse(sample.name, CurrencyRecognizer.recognize(sample.document).isConfident());
+            }
+        }
+    }
+
+    @Test
+    public void emptyDocumentFindsNothing() {
+        CurrencyRecognizer.Result result = CurrencyRecognizer.recognize(
+                new OcrDocument(Collections.<OcrDocument.Page>emptyList()));
+        assertEquals(0, result.denomination);
+        assertFalse(result.isPossible());
+    }
+
+    @Test
+    public void normalizesIndicDigitsAndSpellings() {
+        assertEquals("500", CurrencyRecognizer.normalize("५००"));
+        assertEquals("200", CurrencyRecognizer.normalize("೨೦೦"));
+        assertEquals(CurrencyRecognizer.normalize("पांच"), CurrencyRecognizer.normalize("पाँच"));
+        assertEquals(CurrencyRecognizer.normalize("हजार"), CurrencyRecognizer.normalize("हज़ार"));
+        assertEquals("rupees", CurrencyRecognizer.normalize(" RUPEES "));
+    }
+}
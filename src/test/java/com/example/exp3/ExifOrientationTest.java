@@ -0,0 +1,72 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ExifOrientationTest {
+
+    /** SOI, an optional segment, then the start of scan: enough structure for the marker walk. */
+    private static ByteBuffer jpeg(byte[] segment) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        if (segment != null) {
+            out.write(segment, 0, segment.length);
+        }
+        out.write(0xFF);
+        out.write(0xDA);
+        out.write(0);
+        out.write(2);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /** APP1 Exif segment whose IFD0 holds a dummy tag and then the orientation. */
+    private static byte[] exifSegment(boolean littleEndian, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 2 * 12 + 4);
+        tiff.order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        tiff.put(littleEndian ? (byte) 'I' : (byte) 'M').put(littleEndian ? (byte) 'I' : (byte) 'M');
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 2);
+        // ImageWidth, LONG
+        tiff.putShort((short) 0x0100).putShort((short) 4).putInt(1).putInt(1280);
+        // Orientation, SHORT
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        ByteBuffer segment = ByteBuffer.allocate(4 + 6 + tiff.capacity());
+        segment.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + 6 + tiff.capacity()));
+        segment.put(new byte[]{'E', 'x', 'i', 'f', 0, 0}).put(tiff.array());
+        return segment.array();
+    }
+
+    @Test
+    public void readsRotationInEitherByteOrder() {
+        assertEquals(90, ExifOrientation.rotationDegrees(jpeg(exifSegment(false, 6))));
+        assertEquals(90, ExifOrientation.rotationDegrees(jpeg(exifSegment(true, 6))));
+        assertEquals(180, ExifOrientation.rotationDegrees(jpeg(exifSegment(true, 3))));
+        assertEquals(270, ExifOrientation.rotationDegrees(jpeg(exifSegment(false, 8))));
+        assertEquals(0, ExifOrientation.rotationDegrees(jpeg(exifSegment(false, 1))));
+    }
+
+    @Test
+    public void jpegWithoutExifIsUpright() {
+        byte[] jfif = {(byte) 0xFF, (byte) 0xE0, 0, 7, 'J', 'F', 'I', 'F', 0};
+        assertEquals(0, ExifOrientation.rotationDegrees(jpeg(jfif)));
+        assertEquals(0, ExifOrientation.rotationDegrees(jpeg(null)));
+    }
+
+    @Test
+    public void truncatedOrForeignBytesAreUpright() {
+        byte[] exif = jpeg(exifSegment(false, 6)).array();
+        for (int length : new int[]{8, 14, 30}) {
+            assertEquals(0, ExifOrientation.rotationDegrees(ByteBuffer.wrap(Arrays.copyOf(exif, length))));
+        }
+        assertEquals(0, ExifOrientation.rotationDegrees(ByteBuffer.wrap(new byte[]{1, 2, 3, 4})));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.exp3;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM cost of {@link FrameQualityEstimator} on a 1280x960 luma plane, the size of the
+ * analysis stream.
+ */
+@Category(Benchmark.class)
+public class FrameQualityEstimatorBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 960;
+    private static final int ROW_STRIDE = 1280;
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void estimateReusesItsBuffers() throws Exception {
+        byte[] luma = FrameQualityEstimatorTest.toLuma(FrameQualityEstimatorTest.textPage(WIDTH, HEIGHT),
+                WIDTH, HEIGHT, ROW_STRIDE, 1f, 0, 3f);
+        FrameQualityEstimator estimator = new FrameQualityEstimator(AzureConfig.FrameQuality.MIN_LAPLACIAN_VARIANCE,
+                AzureConfig.FrameQuality.MAX_DARK_FRACTION, AzureConfig.FrameQuality.MAX_BRIGHT_FRACTION);
+        assertTrue(estimator.estimate(luma, WIDTH, HEIGHT, ROW_STRIDE).isAcceptable());
+
+        Benchmark.Result result = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> estimator.estimate(luma, WIDTH, HEIGHT, ROW_STRIDE).isAcceptable() ? 1 : 0);
+
+        // Only the histogram and the result; the binned plane is pooled
+        assertTrue(result.toString(), result.bytesPerIteration < 2048);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.exp3;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameQualityEstimatorTest {
+
+    static final int WIDTH = 640;
+    static final int HEIGHT = 480;
+
+    private FrameQualityEstimator estimator;
+
+    @Before
+    public void setUp() {
+        estimator = new FrameQualityEstimator(AzureConfig.FrameQuality.MIN_LAPLACIAN_VARIANCE,
+                AzureConfig.FrameQuality.MAX_DARK_FRACTION, AzureConfig.FrameQuality.MAX_BRIGHT_FRACTION);
+    }
+
+    /**
+     * A printed page: dark glyphs of two-pixel strokes on light paper, in lines of words.
+     */
+    static int[] textPage(int width, int height) {
+        Random random = new Random(42);
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, 205);
+        for (int top = 20; top + 14 < height - 20; top += 26) {
+            int x = 24;
+            while (x + 10 < width - 24) {
+                if (random.nextInt(6) == 0) {
+                    // Space between words
+                    x += 8;
+                    continue;
+                }
+                int shape = random.nextInt(4);
+                for (int y = top; y < top + 14; y++) {
+                    for (int dx = 0; dx < 7; dx++) {
+                        boolean stem = dx < 2 || (shape == 1 && dx >= 5);
+                        boolean bar = (shape == 2 && y < top + 2) || (shape == 3 && y >= top + 6 && y < top + 8);
+                        if (stem || (bar && dx < 7)) {
+                            pixels[y * width + x + dx] = 35;
+                        }
+                    }
+                }
+                x += 9;
+            }
+        }
+        return pixels;
+    }
+
+    /** Separable box blur: equal radii stand in for defocus, unequal ones for hand shake. */
+    static int[] boxBlur(int[] pixels, int width, int height, int radiusX, int radiusY) {
+        int[] horizontal = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int k = -radiusX; k <= radiusX; k++) {
+                    sum += pixels[y * width + Math.min(width - 1, Math.max(0, x + k))];
+                }
+                horizontal[y * width + x] = sum / (2 * radiusX + 1);
+            }
+        }
+        int[] out = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int k = -radiusY; k <= radiusY; k++) {
+                    sum += horizontal[Math.min(height - 1, Math.max(0, y + k)) * width + x];
+                }
+                out[y * width + x] = sum / (2 * radiusY + 1);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Scale brightness, add Gaussian sensor noise and pack into a luma plane with padded rows.
+     */
+    static byte[] toLuma(int[] pixels, int width, int height, int rowStride, float gain, int offset, float noiseSigma) {
+        Random random = new Random(7);
+        byte[] luma = new byte[rowStride * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double value = pixels[y * width + x] * gain + offset + random.nextGaussian() * noiseSigma;
+                luma[y * rowStride + x] = (byte) Math.max(0, Math.min(255, Math.round(value)));
+            }
+        }
+        return luma;
+    }
+
+    private FrameQualityEstimator.Quality estimate(int[] pixels, float gain, int offset, float noiseSigma) {
+        int rowStride = WIDTH + 32;
+        return estimator.estimate(toLuma(pixels, WIDTH, HEIGHT, rowStride, gain, offset, noiseSigma), WIDTH, HEIGHT, rowStride);
+    }
+
+    @Test
+    public void sharpPageIsAccepted() {
+        FrameQualityEstimator.Quality quality = estimate(textPage(WIDTH, HEIGHT), 1f, 0, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.OK, quality.verdict);
+        assertTrue(quality.isAcceptable());
+    }
+
+    @Test
+    public void defocusedPageIsBlurry() {
+        int[] defocused = boxBlur(textPage(WIDTH, HEIGHT), WIDTH, HEIGHT, 4, 4);
+        FrameQualityEstimator.Quality quality = estimate(defocused, 1f, 0, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.BLURRY, quality.verdict);
+    }
+
+    @Test
+    public void motionBlurredPageIsBlurry() {
+        int[] smeared = boxBlur(textPage(WIDTH, HEIGHT), WIDTH, HEIGHT, 8, 2);
+        FrameQualityEstimator.Quality quality = estimate(smeared, 1f, 0, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.BLURRY, quality.verdict);
+    }
+
+    @Test
+    public void sensorNoiseAloneDoesNotPassForDetail() {
+        int[] blank = new int[WIDTH * HEIGHT];
+        Arrays.fill(blank, 128);
+        FrameQualityEstimator.Quality quality = estimate(blank, 1f, 0, 6f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.BLURRY, quality.verdict);
+    }
+
+    @Test
+    public void underexposedPageIsTooDark() {
+        // Still sharp, but a dim room leaves the paper near black
+        FrameQualityEstimator.Quality quality = estimate(textPage(WIDTH, HEIGHT), 0.15f, 0, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.TOO_DARK, quality.verdict);
+    }
+
+    @Test
+    public void glareIsTooBright() {
+        FrameQualityEstimator.Quality quality = estimate(textPage(WIDTH, HEIGHT), 1f, 120, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.TOO_BRIGHT, quality.verdict);
+    }
+
+    @Test
+    public void dimButReadablePageIsAccepted() {
+        FrameQualityEstimator.Quality quality = estimate(textPage(WIDTH, HEIGHT), 0.45f, 0, 3f);
+        assertEquals(quality.toString(), FrameQualityEstimator.Verdict.OK, quality.verdict);
+    }
+
+    @Test
+    public void tinyFrameIsRejected() {
+        assertFalse(estimator.estimate(new byte[4], 2, 2, 2).isAcceptable());
+    }
+}
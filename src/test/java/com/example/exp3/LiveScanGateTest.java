@@ -0,0 +1,112 @@
+package com.example.exp3;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LiveScanGateTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    // Padded rows, as camera planes often have
+    private static final int ROW_STRIDE = 336;
+
+    private LiveScanGate gate;
+
+    @Before
+    public void setUp() {
+        gate = new LiveScanGate(2f, 1, 8, 10, new FrameQualityEstimator(AzureConfig.FrameQuality.MIN_LAPLACIAN_VARIANCE,
+                AzureConfig.FrameQuality.MAX_DARK_FRACTION, AzureConfig.FrameQuality.MAX_BRIGHT_FRACTION));
+    }
+
+    /** Random 32-pixel blocks under a fine checkerboard: sharp and distinctive. */
+    private static byte[] texturedFrame(long seed, int noise) {
+        Random random = new Random(seed);
+        int blocksX = (WIDTH + 31) / 32;
+        int[] blocks = new int[blocksX * ((HEIGHT + 31) / 32)];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = 50 + random.nextInt(156);
+        }
+        byte[] luma = new byte[ROW_STRIDE * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = blocks[(y / 32) * blocksX + x / 32] + (((x / 4 + y / 4) & 1) == 0 ? 40 : -40);
+                if (noise > 0) {
+                    value += random.nextInt(2 * noise + 1) - noise;
+                }
+                luma[y * ROW_STRIDE + x] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        return luma;
+    }
+
+    /** Slowly varying brightness with no edges, like an out-of-focus view. */
+    private static byte[] blurryFrame() {
+        byte[] luma = new byte[ROW_STRIDE * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                luma[y * ROW_STRIDE + x] = (byte) (128 + 100 * Math.sin(x / 40.0) * Math.cos(y / 30.0));
+            }
+        }
+        return luma;
+    }
+
+    private LiveScanGate.Decision evaluate(byte[] luma) {
+        return gate.evaluate(luma, WIDTH, HEIGHT, ROW_STRIDE);
+    }
+
+    @Test
+    public void framesAreThrottledToTheFrameRate() {
+        assertTrue(gate.isFrameDue(1000));
+        assertFalse(gate.isFrameDue(1100));
+        assertFalse(gate.isFrameDue(1499));
+        assertTrue(gate.isFrameDue(1500));
+    }
+
+    @Test
+    public void inFlightLimitHoldsFramesBack() {
+        assertTrue(gate.isFrameDue(0));
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(1, 0)));
+        assertFalse(gate.isFrameDue(1000));
+        gate.onResult();
+        assertTrue(gate.isFrameDue(2000));
+    }
+
+    @Test
+    public void steadyViewIsSubmittedOnce() {
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(1, 0)));
+        gate.onResult();
+        assertEquals(LiveScanGate.Decision.UNCHANGED, evaluate(texturedFrame(1, 0)));
+        // Sensor noise does not make the view new
+        assertEquals(LiveScanGate.Decision.UNCHANGED, evaluate(texturedFrame(1, 6)));
+    }
+
+    @Test
+    public void newViewIsSubmittedOnceTheCameraSettles() {
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(1, 0)));
+        gate.onResult();
+        // The jump from the previous frame means the camera is moving
+        assertEquals(LiveScanGate.Decision.MOVING, evaluate(texturedFrame(2, 0)));
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(2, 3)));
+    }
+
+    @Test
+    public void blurryViewIsNotSubmitted() {
+        byte[] blurry = blurryFrame();
+        assertEquals(LiveScanGate.Decision.POOR_QUALITY, evaluate(blurry));
+        assertEquals(LiveScanGate.Decision.POOR_QUALITY, evaluate(blurry));
+    }
+
+    @Test
+    public void resetForgetsTheLastView() {
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(1, 0)));
+        // A cancelled request never reports back
+        gate.reset();
+        assertTrue(gate.isFrameDue(0));
+        assertEquals(LiveScanGate.Decision.SUBMIT, evaluate(texturedFrame(1, 0)));
+        assertEquals("submit=2 throttled=0 busy=0 moving=0 unchanged=0 poor_quality=0", gate.getStatsSummary());
+    }
+}
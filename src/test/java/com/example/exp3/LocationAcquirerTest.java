@@ -0,0 +1,258 @@
+package com.example.exp3;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationAcquirerTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long START = 10 * MINUTE;
+
+    /** Holds each request until the test answers it. */
+    private static final class FakeSource implements LocationAcquirer.LocationSource {
+        LocationAcquirer.FixListener lastKnown;
+        LocationAcquirer.FixListener current;
+        long currentDurationMs;
+        int currentCancels;
+
+        @Override
+        public void getLastLocation(LocationAcquirer.FixListener listener) {
+            lastKnown = listener;
+        }
+
+        @Override
+        public Runnable getCurrentLocation(long durationMs, long maxAgeMs, LocationAcquirer.FixListener listener) {
+            current = listener;
+            currentDurationMs = durationMs;
+            return () -> currentCancels++;
+        }
+    }
+
+    /** Runs posted tasks when the test moves the clock past them. */
+    private static final class FakeTimer implements LocationAcquirer.Timer {
+        static final class Posted {
+            final Runnable task;
+            final long atMs;
+
+            Posted(Runnable task, long atMs) {
+                this.task = task;
+                this.atMs = atMs;
+            }
+        }
+
+        final List<Posted> posted = new ArrayList<>();
+        long nowMs = START;
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            posted.add(new Posted(task, nowMs + delayMs));
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            posted.removeIf(p -> p.task == task);
+        }
+
+        void advance(long ms) {
+            nowMs += ms;
+            for (Posted p : new ArrayList<>(posted)) {
+                if (p.atMs <= nowMs && posted.remove(p)) {
+                    p.task.run();
+                }
+            }
+        }
+    }
+
+    private static final class RecordingCallback implements LocationAcquirer.Callback {
+        Location location;
+        boolean failed;
+        Exception error;
+        int calls;
+
+        @Override
+        public void onLocation(Location location) {
+            calls++;
+            this.location = location;
+        }
+
+        @Override
+        public void onFailure(@Nullable Exception error) {
+            calls++;
+            failed = true;
+            this.error = error;
+        }
+    }
+
+    private FakeSource source;
+    private FakeTimer timer;
+    private LocationAcquirer acquirer;
+    private RecordingCallback callback;
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        timer = new FakeTimer();
+        acquirer = new LocationAcquirer(source, timer, () -> timer.nowMs);
+        callback = new RecordingCallback();
+    }
+
+    /** A fix taken ageMs before now. */
+    private LocationAcquirer.Fix fix(float accuracyMeters, long ageMs) {
+        return new LocationAcquirer.Fix(new Location("test"), accuracyMeters, timer.nowMs - ageMs);
+    }
+
+    @Test
+    public void recentAccurateFixNeedsNoFreshOne() {
+        assertTrue(LocationAcquirer.isGoodEnough(10f, 5 * SECOND));
+        assertFalse(LocationAcquirer.isGoodEnough(10f, 2 * MINUTE));
+        assertFalse(LocationAcquirer.isGoodEnough(80f, 5 * SECOND));
+    }
+
+    @Test
+    public void oldOrRoughFixIsNeverUsed() {
+        assertTrue(LocationAcquirer.isUsable(80f, 3 * MINUTE));
+        assertFalse(LocationAcquirer.isUsable(10f, AzureConfig.LocationFix.MAX_AGE_MS + 1));
+        assertFalse(LocationAcquirer.isUsable(AzureConfig.LocationFix.MAX_ACCURACY_METERS + 1, 0));
+        assertFalse(LocationAcquirer.isUsable(Float.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void ageCountsAgainstAnOtherwiseBetterFix() {
+        // A 2-minute-old 10 m fix may be 170 m off by now; a fresh 60 m one is better
+        assertTrue(LocationAcquirer.errorEstimateMeters(60f, 0) < LocationAcquirer.errorEstimateMeters(10f, 2 * MINUTE));
+        // Seconds apart, accuracy decides
+        assertTrue(LocationAcquirer.errorEstimateMeters(10f, 10 * SECOND) < LocationAcquirer.errorEstimateMeters(30f, 0));
+    }
+
+    @Test
+    public void statsCountSourcesTimeToFixAndAge() {
+        LocationAcquirer acquirer = new LocationAcquirer(null);
+        acquirer.record(LocationAcquirer.Source.LAST_KNOWN, 20, 4000);
+        acquirer.record(LocationAcquirer.Source.CURRENT, 1800, 200);
+        acquirer.record(LocationAcquirer.Source.NONE, 5000, 0);
+        assertEquals("queries=3 lastKnown=1 current=1 failed=1 avgTimeToFix=910 ms maxTimeToFix=1800 ms avgFixAge=2100 ms maxFixAge=4000 ms",
+                acquirer.getStatsSummary());
+    }
+
+    @Test
+    public void goodLastKnownFixAnswersAtOnce() {
+        acquirer.acquire(callback);
+        LocationAcquirer.Fix lastKnown = fix(10f, 5 * SECOND);
+        source.lastKnown.onFix(lastKnown, null);
+
+        assertEquals(1, callback.calls);
+        assertSame(lastKnown.location, callback.location);
+        // The fresh request and the time budget are dropped
+        assertEquals(1, source.currentCancels);
+        assertTrue(timer.posted.isEmpty());
+        source.current.onFix(fix(5f, 0), null);
+        assertEquals(1, callback.calls);
+        assertTrue(acquirer.getStatsSummary().startsWith("queries=1 lastKnown=1 current=0 failed=0"));
+    }
+
+    @Test
+    public void freshFixWinsOverARoughOldOne() {
+        acquirer.acquire(callback);
+        source.lastKnown.onFix(fix(80f, 3 * MINUTE), null);
+        assertEquals(0, callback.calls);
+        timer.advance(2 * SECOND);
+        LocationAcquirer.Fix current = fix(30f, 0);
+        source.current.onFix(current, null);
+
+        assertSame(current.location, callback.location);
+        assertTrue(acquirer.getStatsSummary(), acquirer.getStatsSummary()
+                .startsWith("queries=1 lastKnown=0 current=1 failed=0 avgTimeToFix=2000 ms"));
+    }
+
+    @Test
+    public void goodFreshFixDoesNotWaitForTheLastKnownOne() {
+        acquirer.acquire(callback);
+        LocationAcquirer.Fix current = fix(8f, 0);
+        source.current.onFix(current, null);
+
+        assertSame(current.location, callback.location);
+        source.lastKnown.onFix(fix(5f, 0), null);
+        assertEquals(1, callback.calls);
+    }
+
+    @Test
+    public void timeoutFallsBackToTheBestFixSoFar() {
+        acquirer.acquire(callback);
+        assertEquals(AzureConfig.LocationFix.TIMEOUT_MS, source.currentDurationMs);
+        LocationAcquirer.Fix lastKnown = fix(60f, MINUTE);
+        source.lastKnown.onFix(lastKnown, null);
+        timer.advance(AzureConfig.LocationFix.TIMEOUT_MS - 1);
+        assertEquals(0, callback.calls);
+
+        timer.advance(1);
+        assertSame(lastKnown.location, callback.location);
+        assertEquals(1, source.currentCancels);
+        source.current.onFix(fix(5f, 0), null);
+        assertEquals(1, callback.calls);
+    }
+
+    @Test
+    public void unusableFixIsNeverAnswered() {
+        acquirer.acquire(callback);
+        source.lastKnown.onFix(fix(10f, AzureConfig.LocationFix.MAX_AGE_MS + MINUTE), null);
+        timer.advance(AzureConfig.LocationFix.TIMEOUT_MS);
+
+        assertTrue(callback.failed);
+        assertNull(callback.error);
+        assertTrue(acquirer.getStatsSummary().startsWith("queries=1 lastKnown=0 current=0 failed=1"));
+    }
+
+    @Test
+    public void failsWithTheErrorWhenBothSourcesFail() {
+        acquirer.acquire(callback);
+        Exception lastKnownError = new IllegalStateException("last known");
+        Exception currentError = new IllegalStateException("current");
+        source.lastKnown.onFix(null, lastKnownError);
+        assertEquals(0, callback.calls);
+        source.current.onFix(null, currentError);
+
+        assertEquals(1, callback.calls);
+        assertTrue(callback.failed);
+        assertSame(currentError, callback.error);
+        assertTrue(timer.posted.isEmpty());
+    }
+
+    @Test
+    public void cancelledQueryNeverCallsBack() {
+        acquirer.acquire(callback);
+        acquirer.cancel();
+
+        assertEquals(1, source.currentCancels);
+        assertTrue(timer.posted.isEmpty());
+        source.lastKnown.onFix(fix(10f, 0), null);
+        source.current.onFix(fix(10f, 0), null);
+        timer.advance(AzureConfig.LocationFix.TIMEOUT_MS);
+        assertEquals(0, callback.calls);
+        assertTrue(acquirer.getStatsSummary().startsWith("queries=0 "));
+    }
+
+    @Test
+    public void newQueryReplacesTheOneInProgress() {
+        acquirer.acquire(callback);
+        LocationAcquirer.FixListener stale = source.lastKnown;
+        RecordingCallback second = new RecordingCallback();
+        acquirer.acquire(second);
+        assertEquals(1, source.currentCancels);
+
+        stale.onFix(fix(10f, 0), null);
+        assertEquals(0, callback.calls);
+        LocationAcquirer.Fix lastKnown = fix(12f, 0);
+        source.lastKnown.onFix(lastKnown, null);
+        assertSame(lastKnown.location, second.location);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NavigationTrackerTest {
+
+    private static final double LAT = 12.9767;
+    private static final double LON = 77.5713;
+    // Degrees of latitude per meter
+    private static final double METER = 1 / 111195.0;
+    private static final long START = 1_000_000L;
+    private static final long SECOND = 1000L;
+    private static final float ACCURATE = 5f;
+    private static final float WALKING = 1.4f;
+    private static final float NORTH = 0f;
+
+    /** A stop 400 m due north of the start. */
+    private static NavigationTracker trackerToStopNorth() {
+        return new NavigationTracker("Majestic", LAT + 400 * METER, LON, START);
+    }
+
+    @Test
+    public void firstFixAnnouncesTheDistance() {
+        NavigationTracker tracker = trackerToStopNorth();
+        assertEquals(NavigationTracker.Event.STARTED, tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START));
+        assertEquals(400, tracker.getDistanceMeters(), 1);
+        assertEquals(0, tracker.getBearingDegrees(), 0.5);
+        assertEquals("to the north", tracker.getDirectionPhrase());
+    }
+
+    @Test
+    public void walkingTowardsTheStopSpeaksOnlyEveryProgressStep() {
+        NavigationTracker tracker = trackerToStopNorth();
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        int progress = 0;
+        int silent = 0;
+        // One fix every 2 s while walking north
+        for (int meters = 3; meters < 380; meters += 3) {
+            NavigationTracker.Event event = tracker.onLocation(LAT + meters * METER, LON, ACCURATE, WALKING, NORTH,
+                    START + meters / 3 * 2 * SECOND);
+            if (event == NavigationTracker.Event.PROGRESS) {
+                progress++;
+            } else {
+                assertEquals(NavigationTracker.Event.NONE, event);
+                silent++;
+            }
+        }
+        assertTrue("progress=" + progress, progress >= 5 && progress <= 12);
+        assertTrue(silent > 10 * progress);
+        assertEquals("ahead", tracker.getDirectionPhrase());
+    }
+
+    @Test
+    public void arrivingEndsTheGuidance() {
+        NavigationTracker tracker = trackerToStopNorth();
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        assertEquals(NavigationTracker.Event.ARRIVED,
+                tracker.onLocation(LAT + 390 * METER, LON, ACCURATE, WALKING, NORTH, START + 300 * SECOND));
+        assertTrue(tracker.isArrived());
+        assertEquals(NavigationTracker.Event.NONE,
+                tracker.onLocation(LAT + 400 * METER, LON, ACCURATE, WALKING, NORTH, START + 310 * SECOND));
+        assertEquals(AzureConfig.Navigation.MAX_INTERVAL_MS, tracker.nextIntervalMs());
+    }
+
+    @Test
+    public void walkingTheWrongWayIsReported() {
+        NavigationTracker tracker = trackerToStopNorth();
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        float south = 180f;
+        assertEquals(NavigationTracker.Event.NONE,
+                tracker.onLocation(LAT - 10 * METER, LON, ACCURATE, WALKING, south, START + 10 * SECOND));
+        assertEquals(NavigationTracker.Event.MOVING_AWAY,
+                tracker.onLocation(LAT - 40 * METER, LON, ACCURATE, WALKING, south, START + 30 * SECOND));
+        assertEquals("behind you", tracker.getDirectionPhrase());
+    }
+
+    @Test
+    public void curvingRoundTheStopChangesTheDirection() {
+        double eastDegreesPerMeter = METER / Math.cos(Math.toRadians(LAT));
+        // Stop 200 m east
+        NavigationTracker tracker = new NavigationTracker("Chickpet", LAT, LON + 200 * eastDegreesPerMeter, START);
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        assertEquals(90, tracker.getBearingDegrees(), 1);
+        // Still 200 m away after the road curves, but now north-north-east
+        assertEquals(NavigationTracker.Event.DIRECTION_CHANGED, tracker.onLocation(LAT - 173 * METER,
+                LON + 100 * eastDegreesPerMeter, ACCURATE, WALKING, NORTH, START + 150 * SECOND));
+        assertEquals(30, tracker.getBearingDegrees(), 1);
+        assertEquals("ahead on your right", tracker.getDirectionPhrase());
+    }
+
+    @Test
+    public void inaccurateFixesAreIgnored() {
+        NavigationTracker tracker = trackerToStopNorth();
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        assertEquals(NavigationTracker.Event.NONE,
+                tracker.onLocation(LAT + 395 * METER, LON, 100f, WALKING, NORTH, START + 30 * SECOND));
+        assertFalse(tracker.isArrived());
+        assertEquals(400, tracker.getDistanceMeters(), 1);
+        assertTrue(tracker.getStatsSummary(), tracker.getStatsSummary().contains("fixes=2 (inaccurate=1) announcements=1 "));
+    }
+
+    @Test
+    public void fixesAreRarerWhenStillOrFarAway() {
+        NavigationTracker tracker = trackerToStopNorth();
+        assertEquals(AzureConfig.Navigation.MIN_INTERVAL_MS, tracker.nextIntervalMs());
+        tracker.onLocation(LAT, LON, ACCURATE, 0f, Float.NaN, START);
+        assertEquals(AzureConfig.Navigation.MAX_INTERVAL_MS, tracker.nextIntervalMs());
+        tracker.onLocation(LAT, LON, ACCURATE, WALKING, NORTH, START + 2 * SECOND);
+        long far = tracker.nextIntervalMs();
+        tracker.onLocation(LAT + 340 * METER, LON, ACCURATE, WALKING, NORTH, START + 250 * SECOND);
+        long near = tracker.nextIntervalMs();
+        assertTrue(far + " > " + near, far > near);
+        assertTrue(near >= AzureConfig.Navigation.MIN_INTERVAL_MS);
+        // Driving past in a car needs fixes as often as allowed
+        tracker.onLocation(LAT + 340 * METER, LON, ACCURATE, 15f, NORTH, START + 252 * SECOND);
+        assertEquals(AzureConfig.Navigation.MIN_INTERVAL_MS, tracker.nextIntervalMs());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OcrLayoutEngineTest {
+
+    private static final String TWO_COLUMNS =
+            "CITY NEWS: Metro line opens\n"
+                    + "The new metro line connects the airport with\n"
+                    + "the city centre in twenty\n"
+                    + "minutes.\n"
+                    + "Tickets cost forty rupees\n"
+                    + "for a single journey.\n"
+                    + "Trains run every ten minutes from six in the\n"
+                    + "morning until midnight.\n"
+                    + "Wheelchair ramps are fitted\n"
+                    + "at all twelve stations.\n"
+                    + "Published by the Transport Department\n";
+
+    private static OcrDocument arrangeFixture(String name) throws Exception {
+        OcrDocument document = ReadResultParser.parse(TestResources.read(name));
+        assertNotNull(document);
+        return OcrLayoutEngine.arrange(document);
+    }
+
+    @Test
+    public void readsColumnsOneAfterAnotherAndJoinsHyphenatedWords() throws Exception {
+        OcrDocument document = arrangeFixture("read_result_two_columns.json");
+        assertEquals(TWO_COLUMNS, document.getReadingText("\n"));
+    }
+
+    @Test
+    public void splitsColumnsIntoParagraphs() throws Exception {
+        OcrDocument.Page page = arrangeFixture("read_result_two_columns.json").getPages().get(0);
+        // Heading, two paragraphs in the left column, one in the right, footer
+        assertEquals(5, page.blocks.size());
+        assertEquals("CITY NEWS: Metro line opens", page.blocks.get(0).getText(" "));
+        assertEquals("Tickets cost forty rupees for a single journey.", page.blocks.get(2).getText(" "));
+        for (OcrDocument.Block block : page.blocks) {
+            assertFalse(block.isTable);
+        }
+        // Service order is kept alongside the blocks
+        assertEquals("Trains run every ten min-", page.lines.get(2).text);
+    }
+
+    @Test
+    public void readsRotatedPageInTheSameOrder() throws Exception {
+        OcrDocument document = arrangeFixture("read_result_rotated.json");
+        assertEquals(8f, document.getPages().get(0).angle, 1e-4f);
+        assertEquals(TWO_COLUMNS, document.getReadingText("\n"));
+    }
+
+    @Test
+    public void readsTableRowByRow() throws Exception {
+        OcrDocument.Page page = arrangeFixture("read_result_timetable.json").getPages().get(0);
+        assertEquals(3, page.blocks.size());
+
+        OcrDocument.Block table = page.blocks.get(1);
+        assertTrue(table.isTable);
+        assertEquals(4, table.lines.size());
+        assertEquals("Destination, Platform, Departs", table.lines.get(0).text);
+        assertEquals("Hebbal, 3, 08:15", table.lines.get(1).text);
+        assertEquals("Silk Board, 1, 08:40", table.lines.get(2).text);
+        assertEquals("Electronic City, 2, 09:05", table.lines.get(3).text);
+
+        OcrDocument.Line row = table.lines.get(3);
+        assertEquals(4, row.words.size());
+        assertEquals(100f, row.boundingBox[0], 1e-4f);
+        assertEquals(870f, row.boundingBox[2], 1e-4f);
+
+        assertEquals("Timings subject to traffic", page.blocks.get(2).getText(" "));
+    }
+
+    @Test
+    public void hyphenJoinNeedsLowercaseContinuation() {
+        OcrDocument.Block block = new OcrDocument.Block(lines("Bengaluru-", "Mysuru Express", "infor-", "mation desk"), false);
+        assertEquals("Bengaluru-\nMysuru Express\ninformation desk", block.getText("\n"));
+
+        OcrDocument.Block table = new OcrDocument.Block(lines("Adults -", "rs 40"), true);
+        assertEquals("Adults -\nrs 40", table.getText("\n"));
+    }
+
+    @Test
+    public void keepsServiceOrderForLinesWithoutBoxes() {
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        lines.add(new OcrDocument.Line("second", new float[0], Collections.<OcrDocument.Word>emptyList()));
+        lines.add(new OcrDocument.Line("first", new float[0], Collections.<OcrDocument.Word>emptyList()));
+        OcrDocument document = OcrLayoutEngine.arrange(new OcrDocument(Collections.singletonList(page(lines))));
+        assertEquals("second\nfirst\n", document.getReadingText("\n"));
+    }
+
+    @Test
+    public void keepsEveryLineOfLargePages() throws Exception {
+        OcrDocument document = arrangeFixture("read_result_multipage.json");
+        for (OcrDocument.Page page : document.getPages()) {
+            int lines = 0;
+            for (OcrDocument.Block block : page.blocks) {
+                lines += block.lines.size();
+            }
+            assertEquals(page.lines.size(), lines);
+        }
+    }
+
+    @Test
+    public void shortLastLineStaysInItsFullWidthParagraph() {
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        lines.add(line("Booking office", 40, 40, 300));
+        lines.add(line("The booking office on the first floor is open from nine to five and gives", 40, 100, 1040));
+        lines.add(line("refunds for cancelled trains. Ask at counter two for more infor-", 40, 136, 1000));
+        lines.add(line("mation.", 40, 172, 140));
+        // Two columns below; their lines share rows, so none of them continues the paragraph
+        lines.add(line("Lost property is kept at the office", 40, 240, 520));
+        lines.add(line("Cloak room hours are six in the", 640, 240, 1060));
+        lines.add(line("near platform one.", 40, 276, 280));
+        lines.add(line("morning to ten at night.", 640, 276, 960));
+        OcrDocument document = new OcrDocument(Collections.singletonList(page(lines)));
+
+        OcrDocument.Page page = OcrLayoutEngine.arrange(document).getPages().get(0);
+
+        assertEquals(4, page.blocks.size());
+        assertEquals("The booking office on the first floor is open from nine to five and gives"
+                + " refunds for cancelled trains. Ask at counter two for more information.", page.blocks.get(1).getText(" "));
+        assertEquals("Lost property is kept at the office near platform one.", page.blocks.get(2).getText(" "));
+        assertEquals("Cloak room hours are six in the morning to ten at night.", page.blocks.get(3).getText(" "));
+    }
+
+    @Test
+    public void centredFooterDoesNotMergeTheColumnsAboveIt() {
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        lines.add(line("Notice to passengers travelling on the suburban lines this week", 40, 40, 1040));
+        lines.add(line("Trains on the harbour line will run", 40, 120, 500));
+        lines.add(line("Buses replace trains between the", 580, 120, 1040));
+        lines.add(line("every twenty minutes on Sunday", 40, 156, 480));
+        lines.add(line("two stations from ten at night", 580, 156, 1020));
+        lines.add(line("while the tracks are repaired.", 40, 192, 440));
+        lines.add(line("until five the next morning.", 580, 192, 980));
+        lines.add(line("Issued by the railway board", 300, 280, 760));
+        OcrDocument document = new OcrDocument(Collections.singletonList(page(lines)));
+
+        OcrDocument.Page page = OcrLayoutEngine.arrange(document).getPages().get(0);
+
+        assertEquals(4, page.blocks.size());
+        assertEquals("Trains on the harbour line will run every twenty minutes on Sunday while the tracks are repaired.",
+                page.blocks.get(1).getText(" "));
+        assertEquals("Buses replace trains between the two stations from ten at night until five the next morning.",
+                page.blocks.get(2).getText(" "));
+        assertEquals("Issued by the railway board", page.blocks.get(3).getText(" "));
+    }
+
+    @Test
+    public void arrangesHundredsOfLines() {
+        // Three columns of 200 lines each, listed in service order (row by row)
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        for (int row = 0; row < 200; row++) {
+            for (int column = 0; column < 3; column++) {
+                float left = 40 + column * 420;
+                float top = 40 + row * 36;
+                lines.add(new OcrDocument.Line("column " + column + " line " + row + " of the text",
+                        new float[]{left, top, left + 360, top, left + 360, top + 28, left, top + 28},
+                        Collections.<OcrDocument.Word>emptyList()));
+            }
+        }
+        OcrDocument document = new OcrDocument(Collections.singletonList(page(lines)));
+
+        OcrDocument.Page page = OcrLayoutEngine.arrange(document).getPages().get(0);
+
+        assertEquals(3, page.blocks.size());
+        assertEquals("column 0 line 0 of the text", page.blocks.get(0).lines.get(0).text);
+        assertEquals("column 0 line 199 of the text", page.blocks.get(0).lines.get(199).text);
+        assertEquals("column 2 line 0 of the text", page.blocks.get(2).lines.get(0).text);
+    }
+
+    private static List<OcrDocument.Line> lines(String... texts) {
+        List<OcrDocument.Line> lines = new ArrayList<>();
+        for (String text : texts) {
+            lines.add(new OcrDocument.Line(text, new float[0], Collections.<OcrDocument.Word>emptyList()));
+        }
+        return lines;
+    }
+
+    /** A line of the given left, top and right edge, 28 px high. */
+    private static OcrDocument.Line line(String text, float left, float top, float right) {
+        return new OcrDocument.Line(text, new float[]{left, top, right, top, right, top + 28, left, top + 28},
+                Collections.<OcrDocument.Word>emptyList());
+    }
+
+    private static OcrDocument.Page page(List<OcrDocument.Line> lines) {
+        return new OcrDocument.Page(1, 0, 1400, 8000, "en", lines, Collections.<OcrDocument.Block>emptyList());
+    }
+}
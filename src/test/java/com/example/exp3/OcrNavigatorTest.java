@@ -0,0 +1,108 @@
+package com.example.exp3;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OcrNavigatorTest {
+
+    private OcrReading reading;
+    private OcrNavigator navigator;
+
+    @Before
+    public void setUp() {
+        List<List<String>> paragraphs = new ArrayList<>();
+        paragraphs.add(Arrays.asList("Platform 2", "Trains to Mysuru"));
+        paragraphs.add(Arrays.asList("Tickets at the infor-", "mation desk"));
+        paragraphs.add(Arrays.asList("Exit"));
+        reading = new OcrReading(1_700_000_000_000L, "kn", paragraphs);
+        navigator = new OcrNavigator();
+        navigator.setReading(reading);
+    }
+
+    @Test
+    public void repeatGivesTheFullTextAfterARead() {
+        assertEquals("Platform 2\nTrains to Mysuru\nTickets at the information desk\nExit", navigator.repeat());
+        assertEquals("kn", navigator.getLanguage());
+    }
+
+    @Test
+    public void linesStepAcrossParagraphs() {
+        assertEquals("Platform 2", navigator.nextLine());
+        assertEquals("Trains to Mysuru", navigator.nextLine());
+        assertEquals("Tickets at the infor-", navigator.nextLine());
+        assertEquals("Tickets at the infor-", navigator.repeat());
+        assertEquals("Trains to Mysuru", navigator.previousLine());
+        assertEquals("Platform 2", navigator.previousLine());
+        assertNull(navigator.previousLine());
+    }
+
+    @Test
+    public void endOfTextReturnsNullAndKeepsPosition() {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(navigator.nextLine());
+        }
+        assertNull(navigator.nextLine());
+        assertEquals("Exit", navigator.repeat());
+        assertEquals("mation desk", navigator.previousLine());
+    }
+
+    @Test
+    public void paragraphsFromTheCurrentPosition() {
+        assertNull(navigator.previousParagraph());
+        assertEquals("Platform 2\nTrains to Mysuru", navigator.nextParagraph());
+        assertEquals("Tickets at the information desk", navigator.nextParagraph());
+        assertEquals("Platform 2\nTrains to Mysuru", navigator.previousParagraph());
+        // The whole paragraph was read, so the next line is the first of the following one
+        assertEquals("Tickets at the infor-", navigator.nextLine());
+        assertEquals("Exit", navigator.nextParagraph());
+        assertNull(navigator.nextParagraph());
+    }
+
+    @Test
+    public void readFromTopResetsTheCursor() {
+        navigator.nextParagraph();
+        navigator.nextParagraph();
+        assertEquals(reading.getText(), navigator.readFromTop());
+        assertEquals("Platform 2", navigator.nextLine());
+    }
+
+    @Test
+    public void emptyNavigatorHasNothingToSay() {
+        OcrNavigator empty = new OcrNavigator();
+        assertFalse(empty.hasReading());
+        assertNull(empty.repeat());
+        assertNull(empty.nextLine());
+        assertNull(empty.readFromTop());
+    }
+
+    @Test
+    public void encodedReadingRoundTrips() {
+        OcrReading decoded = OcrReading.decode(reading.encode());
+        assertNotNull(decoded);
+        assertEquals(reading.capturedAtMs, decoded.capturedAtMs);
+        assertEquals("kn", decoded.language);
+        assertEquals(3, decoded.getParagraphCount());
+        assertEquals(reading.getText(), decoded.getText());
+
+        OcrReading noLanguage = OcrReading.decode(new OcrReading(5, null, new ArrayList<List<String>>()).encode());
+        assertNotNull(noLanguage);
+        assertNull(noLanguage.language);
+        assertTrue(noLanguage.isEmpty());
+
+        assertNull(OcrReading.decode("not a reading"));
+    }
+
+    @Test
+    public void readingFollowsArrangedBlocks() throws Exception {
+        OcrDocument document = OcrLayoutEngine.arrange(ReadResultParser.parse(TestResources.read("read_result_timetable.json")));
+        OcrReading fromDocument = OcrReading.from(document, "en", 0);
+        assertEquals(3, fromDocument.getParagraphCount());
+        assertEquals("Hebbal, 3, 08:15", fromDocument.getLines(1).get(1));
+    }
+}
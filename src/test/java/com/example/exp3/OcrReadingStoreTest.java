@@ -0,0 +1,111 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class OcrReadingStoreTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final AtomicLong nowMs = new AtomicLong(1_700_000_000_000L);
+
+    private static File newDirectory() throws IOException {
+        File directory = Files.createTempDirectory("readings").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private OcrReading reading(String text) {
+        List<List<String>> paragraphs = Collections.singletonList(Collections.singletonList(text));
+        return new OcrReading(nowMs.get(), "en", paragraphs);
+    }
+
+    @Test
+    public void keepsOnlyTheLatestReading() throws Exception {
+        File directory = newDirectory();
+        OcrReadingStore store = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        store.add(reading("Dear customer"));
+        nowMs.addAndGet(1000);
+        OcrReading prescription = reading("Take one tablet twice a day");
+        store.add(prescription);
+        store.awaitDiskIdle();
+
+        assertSame(prescription, store.latest());
+        assertEquals(Collections.singletonList("reading-" + prescription.capturedAtMs + ".txt"),
+                Arrays.asList(directory.list()));
+        store.shutdown();
+    }
+
+    @Test
+    public void readingExpires() throws Exception {
+        File directory = newDirectory();
+        OcrReadingStore store = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        store.add(reading("Account number"));
+        nowMs.addAndGet(2 * HOUR + 1);
+
+        assertNull(store.latest());
+        store.awaitDiskIdle();
+        assertEquals(0, directory.list().length);
+        store.shutdown();
+    }
+
+    @Test
+    public void latestReadingSurvivesARestartUntilItExpires() throws Exception {
+        File directory = newDirectory();
+        OcrReadingStore store = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        store.add(reading("Platform 3"));
+        store.awaitDiskIdle();
+        store.shutdown();
+
+        nowMs.addAndGet(HOUR);
+        OcrReadingStore restarted = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        restarted.awaitDiskIdle();
+        assertEquals("Platform 3", restarted.latest().getText());
+        restarted.shutdown();
+
+        nowMs.addAndGet(2 * HOUR);
+        OcrReadingStore later = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        later.awaitDiskIdle();
+        assertNull(later.latest());
+        assertEquals(0, directory.list().length);
+        later.shutdown();
+    }
+
+    @Test
+    public void interruptedWriteIsNeitherLoadedNorKept() throws Exception {
+        File directory = newDirectory();
+        // What a crash between write and rename leaves behind
+        assertTrue(new File(directory, "reading-1.txt.tmp").createNewFile());
+        OcrReadingStore store = new OcrReadingStore(2 * HOUR, directory, nowMs::get);
+        store.awaitDiskIdle();
+        assertNull(store.latest());
+
+        OcrReading reading = reading("Exit B");
+        store.add(reading);
+        store.awaitDiskIdle();
+        assertEquals(Collections.singletonList("reading-" + reading.capturedAtMs + ".txt"),
+                Arrays.asList(directory.list()));
+        store.shutdown();
+    }
+
+    @Test
+    public void oldReadingsAreDeleted() throws Exception {
+        File old = newDirectory();
+        assertTrue(new File(old, "reading-1.txt").createNewFile());
+        assertTrue(new File(old, "reading-2.txt").createNewFile());
+        OcrReadingStore store = new OcrReadingStore(2 * HOUR, null, nowMs::get);
+        store.deleteOldReadings(old);
+        store.awaitDiskIdle();
+        assertFalse(old.exists());
+        store.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PerceptualHashTest {
+
+    private static final int WIDTH = 72;
+    private static final int HEIGHT = 64;
+
+    /** Brightness falling from left to right with a bright square, as a stand-in scene. */
+    private static byte[] scene(int brightnessOffset, int shiftX) {
+        byte[] luma = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int sx = Math.max(0, Math.min(WIDTH - 1, x - shiftX));
+                int value = 200 - sx * 2 + ((y / 8 + sx / 9) % 2 == 0 ? 0 : 25);
+                luma[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, value + brightnessOffset));
+            }
+        }
+        return luma;
+    }
+
+    @Test
+    public void sameImageHashesAlike() {
+        assertEquals(0, PerceptualHash.distance(PerceptualHash.dHash(scene(0, 0), WIDTH, HEIGHT, WIDTH),
+                PerceptualHash.dHash(scene(0, 0), WIDTH, HEIGHT, WIDTH)));
+    }
+
+    @Test
+    public void exposureChangeAndSmallShiftFlipFewBits() {
+        long hash = PerceptualHash.dHash(scene(0, 0), WIDTH, HEIGHT, WIDTH);
+        assertEquals(0, PerceptualHash.distance(hash, PerceptualHash.dHash(scene(30, 0), WIDTH, HEIGHT, WIDTH)));
+        int shifted = PerceptualHash.distance(hash, PerceptualHash.dHash(scene(0, 2), WIDTH, HEIGHT, WIDTH));
+        assertTrue("distance " + shifted, shifted <= AzureConfig.ResultCache.MAX_HAMMING_DISTANCE);
+    }
+
+    @Test
+    public void differentImagesAreFarApart() {
+        byte[] noise = new byte[WIDTH * HEIGHT];
+        new Random(7).nextBytes(noise);
+        long hash = PerceptualHash.dHash(scene(0, 0), WIDTH, HEIGHT, WIDTH);
+        int distance = PerceptualHash.distance(hash, PerceptualHash.dHash(noise, WIDTH, HEIGHT, WIDTH));
+        assertTrue("distance " + distance, distance > 2 * AzureConfig.ResultCache.MAX_HAMMING_DISTANCE);
+    }
+
+    @Test
+    public void rowPaddingIsIgnored() {
+        int stride = WIDTH + 16;
+        byte[] padded = new byte[stride * HEIGHT];
+        byte[] luma = scene(0, 0);
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(luma, y * WIDTH, padded, y * stride, WIDTH);
+            padded[y * stride + WIDTH] = (byte) 255;
+        }
+        assertEquals(PerceptualHash.dHash(luma, WIDTH, HEIGHT, WIDTH), PerceptualHash.dHash(padded, WIDTH, HEIGHT, stride));
+    }
+
+    @Test
+    public void distanceCountsDifferingBits() {
+        assertEquals(0, PerceptualHash.distance(0L, 0L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+        assertEquals(2, PerceptualHash.distance(0b1010L, 0b0110L));
+    }
+}
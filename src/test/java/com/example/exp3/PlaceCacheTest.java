@@ -0,0 +1,158 @@
+package com.example.exp3;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PlaceCacheTest {
+
+    private static final double LAT = 12.9767;
+    private static final double LON = 77.5713;
+    // Degrees of latitude per meter
+    private static final double METER = 1 / 111195.0;
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private PlaceCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new PlaceCache(AzureConfig.PlaceCache.MAX_ENTRIES, null);
+    }
+
+    private static List<PlaceCache.Place> busStops() {
+        return Arrays.asList(
+                new PlaceCache.Place("Majestic", LAT + 400 * METER, LON),
+                new PlaceCache.Place("Chickpet", LAT - 300 * METER, LON));
+    }
+
+    @Test
+    public void geohashMatchesTheReferenceEncoding() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("tdr1", Geohash.encode(LAT, LON, 4));
+    }
+
+    @Test
+    public void coveringCellsIncludeEveryPointOnTheCircle() {
+        // Far north, cells are much narrower than they are tall
+        double lat = 69.65;
+        double lon = 18.96;
+        double radius = 150;
+        List<String> cells = Geohash.cellsCovering(lat, lon, radius, 7);
+        for (int degrees = 0; degrees < 360; degrees += 5) {
+            double bearing = Math.toRadians(degrees);
+            double pointLat = lat + Math.cos(bearing) * radius * METER;
+            double pointLon = lon + Math.sin(bearing) * radius * METER / Math.cos(Math.toRadians(lat));
+            assertTrue(degrees + " degrees", cells.contains(Geohash.encode(pointLat, pointLon, 7)));
+        }
+    }
+
+    @Test
+    public void addressIsReusedNearWhereItWasFetched() {
+        cache.putAddress(LAT, LON, "1 Gubbi Thotadappa Road", NOW);
+        PlaceCache.Hit<String> hit = cache.findAddress(LAT + 20 * METER, LON, NOW + HOUR);
+        assertNotNull(hit);
+        assertEquals("1 Gubbi Thotadappa Road", hit.value);
+        assertFalse(hit.stale);
+        assertNull(cache.findAddress(LAT + 60 * METER, LON, NOW + HOUR));
+    }
+
+    @Test
+    public void oldAnswersAreStaleThenGone() {
+        cache.putAddress(LAT, LON, "1 Gubbi Thotadappa Road", NOW);
+        long staleAt = NOW + AzureConfig.PlaceCache.ADDRESS_FRESH_MS + 1;
+        PlaceCache.Hit<String> hit = cache.findAddress(LAT, LON, staleAt);
+        assertNotNull(hit);
+        assertTrue(hit.stale);
+        assertNull(cache.findAddress(LAT, LON, NOW + AzureConfig.PlaceCache.ADDRESS_MAX_AGE_MS + 1));
+    }
+
+    @Test
+    public void nearestPoiIsMeasuredFromTheNewPosition() {
+        cache.putPois("bus stop", LAT, LON, busStops(), NOW);
+        // 100 m south: Chickpet is now the closer one
+        double lat = LAT - 100 * METER;
+        PlaceCache.Hit<List<PlaceCache.Place>> hit = cache.findPois("bus stop", lat, LON, NOW);
+        assertNotNull(hit);
+        assertEquals("Chickpet", PoiRanking.rank(hit.value, lat, LON).placeAt(0).name);
+        assertNull(cache.findPois("railway station", lat, LON, NOW));
+        assertNull(cache.findPois("bus stop", LAT + 200 * METER, LON, NOW));
+    }
+
+    @Test
+    public void emptySearchIsRemembered() {
+        cache.putPois("railway station", LAT, LON, Collections.<PlaceCache.Place>emptyList(), NOW);
+        PlaceCache.Hit<List<PlaceCache.Place>> hit = cache.findPois("railway station", LAT, LON, NOW);
+        assertNotNull(hit);
+        assertTrue(hit.value.isEmpty());
+    }
+
+    @Test
+    public void prefetchOnlyTrustsASearchFromTheSameSpot() {
+        cache.putPois("bus stop", LAT, LON, busStops(), NOW);
+        assertTrue(cache.hasFreshPois("bus stop", LAT, LON, NOW + HOUR));
+        // Near enough to answer from, but not to skip a search meant for a whole area
+        assertFalse(cache.hasFreshPois("bus stop", LAT + 100 * METER, LON, NOW + HOUR));
+        assertFalse(cache.hasFreshPois("bus stop", LAT, LON, NOW + AzureConfig.PlaceCache.POI_FRESH_MS + 1));
+        assertTrue(cache.getStatsSummary(), cache.getStatsSummary().startsWith("lookups=0 "));
+    }
+
+    @Test
+    public void poiSearchResponseIsParsed() throws Exception {
+        String body = "{\"results\":[{\"poi\":{\"name\":\"Majestic\"},\"position\":{\"lat\":12.977,\"lon\":77.571}},"
+                + "{\"position\":{\"lat\":12.975,\"lon\":77.572}},{\"poi\":{\"name\":\"No position\"}}]}";
+        List<PlaceCache.Place> places = PlaceCache.parsePoiSearch(body, "bus stop");
+        assertEquals(2, places.size());
+        assertEquals("Majestic", places.get(0).name);
+        assertEquals(12.977, places.get(0).latitude, 1e-9);
+        assertEquals("Unnamed bus stop", places.get(1).name);
+    }
+
+    @Test
+    public void newAnswerReplacesTheOneItCovers() {
+        cache.putAddress(LAT, LON, "Old name", NOW);
+        cache.putAddress(LAT + 10 * METER, LON, "New name", NOW + HOUR);
+        assertEquals("New name", cache.findAddress(LAT, LON, NOW + HOUR).value);
+        assertTrue(cache.getStatsSummary(), cache.getStatsSummary().endsWith("entries=1"));
+    }
+
+    @Test
+    public void statsCountHitsAndSavedCalls() {
+        cache.putAddress(LAT, LON, "1 Gubbi Thotadappa Road", NOW);
+        cache.findAddress(LAT, LON, NOW);
+        cache.findAddress(LAT, LON, NOW + AzureConfig.PlaceCache.ADDRESS_FRESH_MS + 1);
+        cache.findAddress(LAT + 1000 * METER, LON, NOW);
+        cache.findPois("bus stop", LAT, LON, NOW);
+        String stats = cache.getStatsSummary();
+        assertTrue(stats, stats.startsWith("lookups=4 hits=2 (fresh=1 stale=1) hitRate=50% callsSaved=1 "));
+    }
+
+    @Test
+    public void placesSurviveARestart() throws Exception {
+        File file = File.createTempFile("places", ".json");
+        assertTrue(file.delete());
+        long now = System.currentTimeMillis();
+        PlaceCache first = new PlaceCache(AzureConfig.PlaceCache.MAX_ENTRIES, file);
+        first.putAddress(LAT, LON, "1 Gubbi Thotadappa Road", now);
+        first.putPois("bus stop", LAT, LON, busStops(), now);
+        first.awaitDiskIdle();
+        first.shutdown();
+        assertTrue(file.exists());
+
+        PlaceCache second = new PlaceCache(AzureConfig.PlaceCache.MAX_ENTRIES, file);
+        second.awaitLoaded();
+        PlaceCache.Hit<List<PlaceCache.Place>> hit = second.findPois("bus stop", LAT, LON, now);
+        second.shutdown();
+        assertNotNull(hit);
+        assertEquals(2, hit.value.size());
+        assertEquals("Majestic", hit.value.get(0).name);
+        assertEquals("1 Gubbi Thotadappa Road", second.findAddress(LAT, LON, now).value);
+        file.delete();
+    }
+}
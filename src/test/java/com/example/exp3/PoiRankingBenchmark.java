@@ -0,0 +1,39 @@
+package com.example.exp3;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM cost of {@link PoiRanking} on a large result set, far more places than one Maps
+ * search returns.
+ */
+@Category(Benchmark.class)
+public class PoiRankingBenchmark {
+
+    private static final int PLACES = 10_000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    @Test
+    public void rankingAllocatesOnlyItsArrays() throws Exception {
+        Random random = new Random(3);
+        List<PlaceCache.Place> places = new ArrayList<>();
+        for (int i = 0; i < PLACES; i++) {
+            places.add(new PlaceCache.Place("Stop " + i,
+                    12.9767 + (random.nextDouble() - 0.5) * 0.09, 77.5713 + (random.nextDouble() - 0.5) * 0.09));
+        }
+
+        Benchmark.Result result = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> (long) PoiRanking.rank(places, 12.9767, 77.5713).distanceAt(0));
+
+        // Five primitive arrays and one reference array; a boxed Double alone would be 16 B more
+        long bytesPerPlace = result.bytesPerIteration / PLACES;
+        assertTrue(result + " for " + PLACES + " places", bytesPerPlace <= 48);
+    }
+}
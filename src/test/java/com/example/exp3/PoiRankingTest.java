@@ -0,0 +1,84 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PoiRankingTest {
+
+    private static final double LAT = 12.9767;
+    private static final double LON = 77.5713;
+    // Degrees of latitude per meter
+    private static final double METER = 1 / 111195.0;
+    private static final double EAST_METER = METER / Math.cos(Math.toRadians(LAT));
+
+    private static PlaceCache.Place at(String name, double northMeters, double eastMeters) {
+        return new PlaceCache.Place(name, LAT + northMeters * METER, LON + eastMeters * EAST_METER);
+    }
+
+    @Test
+    public void placesAreRankedByDistanceNotSearchOrder() {
+        PoiRanking ranking = PoiRanking.rank(Arrays.asList(
+                at("Far", 0, 900), at("Near", -120, 0), at("Middle", 300, 300)), LAT, LON);
+        assertEquals(3, ranking.size());
+        assertEquals("Near", ranking.placeAt(0).name);
+        assertEquals("Middle", ranking.placeAt(1).name);
+        assertEquals("Far", ranking.placeAt(2).name);
+        assertEquals(120, ranking.distanceAt(0), 0.5);
+        assertEquals(424.3, ranking.distanceAt(1), 0.5);
+        assertEquals(900, ranking.distanceAt(2), 1);
+    }
+
+    @Test
+    public void distancesAgreeWithTheGreatCircle() {
+        PlaceCache.Place place = at("Station", 2100, -3400);
+        double exact = Geohash.distanceMeters(LAT, LON, place.latitude, place.longitude);
+        assertEquals(exact, PoiRanking.rank(Collections.singletonList(place), LAT, LON).distanceAt(0), 2);
+    }
+
+    @Test
+    public void bearingsAreCompassDegrees() {
+        PoiRanking ranking = PoiRanking.rank(Arrays.asList(
+                at("North", 100, 0), at("East", 0, 200), at("South-west", -212, -212), at("West", 0, -400)), LAT, LON);
+        assertEquals(0, ranking.bearingAt(0), 0.5);
+        assertEquals(90, ranking.bearingAt(1), 0.5);
+        assertEquals(225, ranking.bearingAt(2), 0.5);
+        assertEquals(270, ranking.bearingAt(3), 0.5);
+        assertEquals("north", PoiRanking.compassPoint(ranking.bearingAt(0)));
+        assertEquals("south-west", PoiRanking.compassPoint(ranking.bearingAt(2)));
+        assertEquals("north", PoiRanking.compassPoint(350));
+        assertEquals("north-east", PoiRanking.compassPoint(30));
+    }
+
+    @Test
+    public void equalDistancesKeepSearchOrder() {
+        PoiRanking ranking = PoiRanking.rank(Arrays.asList(
+                at("First", 100, 0), at("Second", -100, 0)), LAT, LON);
+        assertEquals("First", ranking.placeAt(0).name);
+        assertEquals("Second", ranking.placeAt(1).name);
+    }
+
+    @Test
+    public void placeWithoutPositionRanksLast() {
+        List<PlaceCache.Place> places = new ArrayList<>();
+        places.add(new PlaceCache.Place("Unknown", Double.NaN, Double.NaN));
+        places.add(at("Known", 500, 0));
+        assertEquals("Known", PoiRanking.rank(places, LAT, LON).placeAt(0).name);
+    }
+
+    @Test
+    public void cursorWalksOutwardAndStopsAtTheEnd() {
+        PoiRanking ranking = PoiRanking.rank(Arrays.asList(at("B", 200, 0), at("A", 100, 0)), LAT, LON);
+        assertEquals(0, ranking.getCursor());
+        assertTrue(ranking.advance());
+        assertEquals("B", ranking.placeAt(ranking.getCursor()).name);
+        assertFalse(ranking.advance());
+        assertEquals(1, ranking.getCursor());
+        assertFalse(PoiRanking.rank(Collections.<PlaceCache.Place>emptyList(), LAT, LON).advance());
+    }
+}
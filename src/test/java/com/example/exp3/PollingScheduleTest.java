@@ -0,0 +1,62 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PollingScheduleTest {
+
+    private static PollingSchedule newSchedule() {
+        return new PollingSchedule(500, 250, 2000, 1.5);
+    }
+
+    @Test
+    public void initialDelay_usesDefaultWithoutHistory() {
+        assertEquals(500, newSchedule().initialDelayMs());
+    }
+
+    @Test
+    public void initialDelay_followsMedianOfRecentJobs() {
+        PollingSchedule schedule = newSchedule();
+        schedule.recordCompletion(1000);
+        schedule.recordCompletion(1200);
+        schedule.recordCompletion(9000);
+        assertEquals(1200, schedule.medianCompletionMs());
+        assertEquals(960, schedule.initialDelayMs());
+    }
+
+    @Test
+    public void initialDelay_isClamped() {
+        PollingSchedule fast = newSchedule();
+        fast.recordCompletion(10);
+        assertEquals(250, fast.initialDelayMs());
+
+        PollingSchedule slow = newSchedule();
+        slow.recordCompletion(60000);
+        assertEquals(4000, slow.initialDelayMs());
+    }
+
+    @Test
+    public void nextDelay_backsOffUpToMax() {
+        PollingSchedule schedule = newSchedule();
+        assertEquals(750, schedule.nextDelayMs(500, -1));
+        assertEquals(1125, schedule.nextDelayMs(750, -1));
+        assertEquals(2000, schedule.nextDelayMs(1800, -1));
+        assertEquals(2000, schedule.nextDelayMs(4000, -1));
+    }
+
+    @Test
+    public void nextDelay_honorsRetryAfter() {
+        PollingSchedule schedule = newSchedule();
+        assertEquals(5000, schedule.nextDelayMs(500, 5000));
+        assertEquals(250, schedule.nextDelayMs(500, 0));
+    }
+
+    @Test
+    public void parseRetryAfter() {
+        assertEquals(3000, PollingSchedule.parseRetryAfterMs("3"));
+        assertEquals(1500, PollingSchedule.parseRetryAfterMs(" 1.5 "));
+        assertEquals(-1, PollingSchedule.parseRetryAfterMs(null));
+        assertEquals(-1, PollingSchedule.parseRetryAfterMs("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.exp3;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class ReadApiPollerTest {
+
+    private static final String RUNNING = "{\"status\":\"running\",\"createdDateTime\":\"2024-01-01T00:00:00Z\"}";
+    private static final String SUCCEEDED = "{\"status\":\"succeeded\",\"analyzeResult\":{\"readResults\":[]}}";
+
+    private MockWebServer server;
+    private ReadApiPoller poller;
+
+    /** Collects the single callback of a poll. */
+    private static class Result implements ReadApiPoller.PollCallback {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String body;
+        volatile ReadApiPoller.Failure failure;
+        volatile String detail;
+
+        @Override
+        public void onSucceeded(String responseBody) {
+            body = responseBody;
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(ReadApiPoller.Failure failure, String detail) {
+            this.failure = failure;
+            this.detail = detail;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("poll did not finish", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (poller != null) {
+            poller.shutdown();
+        }
+        server.shutdown();
+    }
+
+    private ReadApiPoller newPoller(long timeoutMs) {
+        PollingSchedule schedule = new PollingSchedule(10, 10, 50, 1.5);
+        return new ReadApiPoller(new OkHttpClient(), schedule, "test-key", timeoutMs, 40);
+    }
+
+    @Test
+    public void pollsUntilSucceededAndLearnsCompletionTime() throws Exception {
+        server.enqueue(new MockResponse().setBody(RUNNING));
+        server.enqueue(new MockResponse().setBody(RUNNING));
+        server.enqueue(new MockResponse().setBody(SUCCEEDED));
+        poller = newPoller(5000);
+
+        Result result = new Result();
+        poller.poll(server.url("/operations/1").toString(), result);
+        result.await();
+
+        assertNull(result.failure);
+        assertEquals(SUCCEEDED, result.body);
+        assertEquals(3, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("test-key", request.getHeader("Ocp-Apim-Subscription-Key"));
+        assertTrue(poller.getSchedule().medianCompletionMs() >= 0);
+    }
+
+    @Test
+    public void waitsForRetryAfterWhenThrottled() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody(SUCCEEDED));
+        poller = newPoller(5000);
+
+        long start = System.nanoTime();
+        Result result = new Result();
+        poller.poll(server.url("/operations/2").toString(), result);
+        result.await();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNull(result.failure);
+        assertEquals(2, server.getRequestCount());
+        assertTrue("Retry-After not honored: " + elapsedMs + " ms", elapsedMs >= 1000);
+    }
+
+    @Test
+    public void reportsHttpErrorCode() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        poller = newPoller(5000);
+
+        Result result = new Result();
+        poller.poll(server.url("/operations/3").toString(), result);
+        result.await();
+
+        assertEquals(ReadApiPoller.Failure.HTTP_ERROR, result.failure);
+        assertEquals("500", result.detail);
+    }
+
+    @Test
+    public void timesOutWhenJobNeverFinishes() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            server.enqueue(new MockResponse().setBody(RUNNING));
+        }
+        poller = newPoller(300);
+
+        Result result = new Result();
+        poller.poll(server.url("/operations/4").toString(), result);
+        result.await();
+
+        assertEquals(ReadApiPoller.Failure.TIMEOUT, result.failure);
+        assertTrue(server.getRequestCount() > 1);
+    }
+
+    @Test
+    public void reportsFailedJob() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"status\":\"failed\"}"));
+        poller = newPoller(5000);
+
+        Result result = new Result();
+        poller.poll(server.url("/operations/5").toString(), result);
+        result.await();
+
+        assertEquals(ReadApiPoller.Failure.JOB_FAILED, result.failure);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.exp3;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM comparison of {@link ReadResultParser} with the previous org.json handling of a
+ * Read response (one DOM for the language, a second DOM for the lines), using the
+ * synthetic multi-page fixture.
+ */
+@Category(Benchmark.class)
+public class ReadResultParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Test
+    public void streamingParserAllocatesLessThanDoubleDomParse() throws Exception {
+        String json = TestResources.read("read_result_multipage.json");
+
+        Benchmark.Result dom = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS, () -> parseWithDoubleDom(json));
+        Benchmark.Result streaming = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS, () -> parseStreaming(json));
+
+        // Allocation is deterministic enough to assert on; timing is only reported
+        assertTrue("org.json x2: " + dom + " | streaming: " + streaming,
+                streaming.bytesPerIteration < dom.bytesPerIteration);
+    }
+
+    /** Mirrors the previous parseAndSpeakReadApiResult: language pass, then text pass. */
+    private static long parseWithDoubleDom(String json) throws Exception {
+        JSONObject languageRoot = new JSONObject(json);
+        String language = languageRoot.getJSONObject("analyzeResult").getJSONArray("readResults")
+                .getJSONObject(0).optString("language");
+
+        StringBuilder text = new StringBuilder();
+        JSONArray readResults = new JSONObject(json).getJSONObject("analyzeResult").getJSONArray("readResults");
+        for (int r = 0; r < readResults.length(); r++) {
+            JSONArray lines = readResults.getJSONObject(r).optJSONArray("lines");
+            for (int i = 0; i < lines.length(); i++) {
+                text.append(lines.getJSONObject(i).getString("text")).append("\n");
+            }
+        }
+        return text.length() + language.length();
+    }
+
+    private static long parseStreaming(String json) throws Exception {
+        OcrDocument document = ReadResultParser.parse(json);
+        return document.getText("\n").length() + document.getLanguage().length();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.exp3;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReadResultParserTest {
+
+    private static final float DELTA = 1e-4f;
+
+    @Test
+    public void parsesPagesLinesWordsBoxesAndConfidences() throws Exception {
+        OcrDocument document = ReadResultParser.parse(TestResources.read("read_result_single_page.json"));
+        assertNotNull(document);
+        assertEquals("en", document.getLanguage());
+        assertEquals(1, document.getPages().size());
+
+        OcrDocument.Page page = document.getPages().get(0);
+        assertEquals(1, page.pageNumber);
+        assertEquals(-1.25f, page.angle, DELTA);
+        assertEquals(1600f, page.width, DELTA);
+        assertEquals(1200f, page.height, DELTA);
+        assertEquals(3, page.lines.size());
+
+        OcrDocument.Line first = page.lines.get(0);
+        assertEquals("PLATFORM 2 → EXIT", first.text);
+        assertArrayEquals(new float[]{120, 88, 702, 92, 701, 140, 119, 136}, first.boundingBox, DELTA);
+        assertEquals(4, first.words.size());
+        assertEquals("→", first.words.get(2).text);
+        assertEquals(0.52f, first.words.get(2).confidence, DELTA);
+        assertEquals((0.998f + 0.91f + 0.52f + 0.995f) / 4, first.meanConfidence(), DELTA);
+
+        OcrDocument.Line second = page.lines.get(1);
+        assertEquals("Mind the \"gap\" \\ please", second.text);
+        assertEquals(124.5f, second.boundingBox[0], DELTA);
+        assertEquals(230.25f, second.boundingBox[5], DELTA);
+        assertEquals("\"gap\"", second.words.get(2).text);
+        assertEquals("\\", second.words.get(3).text);
+
+        assertEquals("ನಿರ್ಗಮನ", page.lines.get(2).text);
+    }
+
+    @Test
+    public void textMatchesLineOrder() throws Exception {
+        OcrDocument document = ReadResultParser.parse(TestResources.read("read_result_single_page.json"));
+        assertNotNull(document);
+        assertEquals("PLATFORM 2 → EXIT\nMind the \"gap\" \\ please\nನಿರ್ಗಮನ\n", document.getText("\n"));
+    }
+
+    @Test
+    public void parsesMultiPageResponse() throws Exception {
+        OcrDocument document = ReadResultParser.parse(TestResources.read("read_result_multipage.json"));
+        assertNotNull(document);
+        assertEquals(3, document.getPages().size());
+        int words = 0;
+        for (OcrDocument.Page page : document.getPages()) {
+            assertEquals(70, page.lines.size());
+            for (OcrDocument.Line line : page.lines) {
+                assertEquals(8, line.boundingBox.length);
+                StringBuilder joined = new StringBuilder();
+                for (OcrDocument.Word word : line.words) {
+                    if (joined.length() > 0) {
+                        joined.append(' ');
+                    }
+                    joined.append(word.text);
+                    assertTrue(word.confidence > 0 && word.confidence <= 1);
+                    words++;
+                }
+                assertEquals(line.text, joined.toString());
+            }
+        }
+        assertTrue(words > 1000);
+    }
+
+    @Test
+    public void missingAnalyzeResultGivesNull() throws Exception {
+        assertNull(ReadResultParser.parse("{\"status\":\"succeeded\"}"));
+    }
+
+    @Test
+    public void emptyReadResults() throws Exception {
+        OcrDocument document = ReadResultParser.parse(
+                "{\"status\":\"succeeded\",\"analyzeResult\":{\"readResults\":[]}}");
+        assertNotNull(document);
+        assertTrue(document.getPages().isEmpty());
+        assertNull(document.getLanguage());
+        assertEquals("", document.getText("\n"));
+    }
+
+    @Test
+    public void skipsUnknownValuesOfEveryType() throws Exception {
+        OcrDocument document = ReadResultParser.parse("{\"a\":[1,-2.5e3,{\"b\":\"}]\"}],\"t\":true,\"n\":null,"
+                + "\"analyzeResult\":{\"x\":{\"y\":[[],{}]},\"readResults\":[{\"page\":2,\"language\":null,"
+                + "\"lines\":[{\"text\":\"ok\",\"extra\":false}]}]},\"z\":\"\\u0041\"}");
+        assertNotNull(document);
+        OcrDocument.Page page = document.getPages().get(0);
+        assertEquals(2, page.pageNumber);
+        assertNull(page.language);
+        assertEquals("ok", page.lines.get(0).text);
+        assertEquals(0, page.lines.get(0).boundingBox.length);
+    }
+
+    @Test(expected = JSONException.class)
+    public void truncatedResponseThrows() throws Exception {
+        ReadResultParser.parse("{\"analyzeResult\":{\"readResults\":[{\"lines\":[{\"text\":\"cut");
+    }
+}
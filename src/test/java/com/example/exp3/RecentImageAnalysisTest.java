@@ -0,0 +1,40 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RecentImageAnalysisTest {
+
+    private static final ImageAnalysisResult RESULT = new ImageAnalysisResult("a bus stop",
+            Collections.singletonList("bench"), Collections.singletonList("Grey"), Collections.<String>emptyList());
+
+    @Test
+    public void otherQuestionIsAnsweredOnce() {
+        RecentImageAnalysis recent = new RecentImageAnalysis(60_000);
+        recent.put(RESULT, RecentImageAnalysis.Question.SCENE);
+        assertSame(RESULT, recent.takeFollowUp(RecentImageAnalysis.Question.OBJECTS));
+        assertNull(recent.takeFollowUp(RecentImageAnalysis.Question.OBJECTS));
+        assertNull(recent.takeFollowUp(RecentImageAnalysis.Question.SCENE));
+        assertEquals("analyses=1 reused=1", recent.getStatsSummary());
+    }
+
+    @Test
+    public void sameQuestionCapturesAgain() {
+        RecentImageAnalysis recent = new RecentImageAnalysis(60_000);
+        recent.put(RESULT, RecentImageAnalysis.Question.OBJECTS);
+        assertNull(recent.takeFollowUp(RecentImageAnalysis.Question.OBJECTS));
+        // Still there for the other question
+        assertSame(RESULT, recent.takeFollowUp(RecentImageAnalysis.Question.SCENE));
+    }
+
+    @Test
+    public void clearedResultIsNotReused() {
+        RecentImageAnalysis recent = new RecentImageAnalysis(60_000);
+        recent.put(RESULT, RecentImageAnalysis.Question.SCENE);
+        recent.clear();
+        assertNull(recent.takeFollowUp(RecentImageAnalysis.Question.OBJECTS));
+    }
+}
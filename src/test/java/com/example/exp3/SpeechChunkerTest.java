@@ -0,0 +1,94 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpeechChunkerTest {
+
+    private static final int FIRST = AzureConfig.Speech.FIRST_CHUNK_MAX_CHARS;
+    private static final int MAX = AzureConfig.Speech.CHUNK_MAX_CHARS;
+
+    private static String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+
+    private static void assertWithinLimits(List<String> chunks) {
+        for (int i = 0; i < chunks.size(); i++) {
+            int limit = i == 0 ? FIRST : MAX;
+            assertTrue("chunk " + i + " has " + chunks.get(i).length() + " chars", chunks.get(i).length() <= limit);
+            assertFalse(chunks.get(i).isEmpty());
+        }
+    }
+
+    @Test
+    public void shortTextIsOneChunk() {
+        assertEquals(Collections.singletonList("Read this."), SpeechChunker.split("  Read this. ", FIRST, MAX));
+        assertTrue(SpeechChunker.split(null, FIRST, MAX).isEmpty());
+        assertTrue(SpeechChunker.split(" \n ", FIRST, MAX).isEmpty());
+    }
+
+    @Test
+    public void splitsAtSentenceEndsAndLineBreaks() {
+        List<String> chunks = SpeechChunker.split("First sentence. Second one!\nLine two", 15, 15);
+        assertEquals(Arrays.asList("First sentence.", "Second one!", "Line two"), chunks);
+        // The Devanagari danda ends a sentence too
+        assertEquals(Arrays.asList("पहला वाक्य।", "दूसरा वाक्य।"), SpeechChunker.split("पहला वाक्य। दूसरा वाक्य।", 12, 12));
+    }
+
+    @Test
+    public void sentencesArePackedUpToTheLimits() {
+        String sentence = "This sentence is exactly fifty characters long ok.";
+        assertEquals(50, sentence.length());
+        List<String> chunks = SpeechChunker.split(repeat(sentence + " ", 20).trim(), FIRST, MAX);
+        assertWithinLimits(chunks);
+        // Two sentences fit the first chunk, seven each of the rest
+        assertEquals(sentence + " " + sentence, chunks.get(0));
+        assertEquals(7 * 51 - 1, chunks.get(1).length());
+        assertEquals(String.join(" ", chunks), repeat(sentence + " ", 20).trim());
+    }
+
+    @Test
+    public void longSentenceIsWrappedAtAClauseBoundary() {
+        String first = "When the bus arrives at the main stop near the market, ";
+        String rest = repeat("passengers walk on towards the station ", 3).trim() + ".";
+        List<String> chunks = SpeechChunker.split(first + rest, 80, MAX);
+        assertEquals(first.trim(), chunks.get(0));
+        assertEquals(rest, chunks.get(1));
+    }
+
+    @Test
+    public void longSentenceWithoutClausesIsWrappedAtASpace() {
+        String text = repeat("word ", 60).trim();
+        List<String> chunks = SpeechChunker.split(text, FIRST, MAX);
+        assertWithinLimits(chunks);
+        for (String chunk : chunks) {
+            assertFalse(chunk, chunk.startsWith(" ") || chunk.endsWith(" "));
+            assertTrue(chunk, chunk.matches("word( word)*"));
+        }
+    }
+
+    @Test
+    public void overlongWordIsCutAtTheLimit() {
+        String word = repeat("x", MAX + 100);
+        List<String> chunks = SpeechChunker.split("Scan " + word + " done.", FIRST, MAX);
+        assertWithinLimits(chunks);
+        assertEquals(Arrays.asList("Scan", repeat("x", MAX), repeat("x", 100) + " done."), chunks);
+    }
+
+    @Test
+    public void ssmlSensitiveCharactersPassThroughUnescaped() {
+        // Escaping happens per chunk when the SSML is built, so limits count raw characters
+        String text = "Fish & chips < 5 \"rupees\". Tom's <b>menu</b> > 2 items.";
+        List<String> chunks = SpeechChunker.split(text, 30, 30);
+        assertEquals(Arrays.asList("Fish & chips < 5 \"rupees\".", "Tom's <b>menu</b> > 2 items."), chunks);
+    }
+}
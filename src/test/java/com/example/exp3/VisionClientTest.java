@@ -0,0 +1,232 @@
+package com.example.exp3;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+public class VisionClientTest {
+
+    private static final String ANALYZE_RESULT = "{\"description\":{\"captions\":[]}}";
+
+    private MockWebServer server;
+    private VisionClient visionClient;
+    // Calls that are sent to a closed port before reaching the server
+    private final AtomicInteger refusedCalls = new AtomicInteger();
+
+    /** Collects the single callback of a call. */
+    private static class Result implements VisionClient.ReadCallback {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String body;
+        volatile VisionClient.VisionError error;
+
+        @Override
+        public void onSubmitted() {
+        }
+
+        @Override
+        public void onSuccess(String responseBody) {
+            body = responseBody;
+            done.countDown();
+        }
+
+        @Override
+        public void onError(VisionClient.VisionError error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("call did not finish", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (visionClient != null) {
+            visionClient.shutdown();
+        }
+        server.shutdown();
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** The endpoints are fixed Azure URLs, so route every call to the mock server instead. */
+    private VisionClient newClient(long callTimeoutMs, int maxRetries) throws Exception {
+        return newClient(callTimeoutMs, maxRetries, null);
+    }
+
+    private VisionClient newClient(long callTimeoutMs, int maxRetries, CaptureResultCache resultCache)
+            throws Exception {
+        final int closedPort = closedPort();
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    int port = refusedCalls.getAndDecrement() > 0 ? closedPort : server.getPort();
+                    HttpUrl url = request.url().newBuilder()
+                            .scheme("http")
+                            .host(server.getHostName())
+                            .port(port)
+                            .build();
+                    return chain.proceed(request.newBuilder().url(url).build());
+                })
+                .build();
+        ReadApiPoller poller = new ReadApiPoller(httpClient, new PollingSchedule(10, 10, 50, 1.5), "test-key", 5000, 40);
+        visionClient = new VisionClient(httpClient, "test-key", poller, resultCache, callTimeoutMs, maxRetries);
+        return visionClient;
+    }
+
+    private static CapturedImage image() {
+        return new CapturedImage(new byte[]{1, 2, 3, 4}, 640, 480, 0, 0);
+    }
+
+    @Test
+    public void retriesThrottlingAndServerErrors() throws Exception {
+        // Not 503: OkHttp itself repeats a 503 with Retry-After: 0 before VisionClient sees it
+        server.enqueue(new MockResponse().setResponseCode(500).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT));
+        newClient(5000, 2);
+
+        Result result = new Result();
+        visionClient.analyzeScene(image(), result);
+        result.await();
+
+        assertNull(result.error);
+        assertEquals(ANALYZE_RESULT, result.body);
+        assertEquals(3, server.getRequestCount());
+        assertEquals("test-key", server.takeRequest().getHeader("Ocp-Apim-Subscription-Key"));
+        assertTrue(visionClient.getStatsSummary().contains("retries=2 failures=0"));
+    }
+
+    @Test
+    public void givesUpAfterTheRetryLimit() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500).setHeader("Retry-After", "0"));
+        }
+        newClient(5000, 2);
+
+        Result result = new Result();
+        visionClient.analyzeObjects(image(), result);
+        result.await();
+
+        assertEquals(VisionClient.VisionError.Kind.HTTP_ERROR, result.error.kind);
+        assertEquals(500, result.error.httpCode);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void retriesAConnectionThatFailedBeforeSending() throws Exception {
+        refusedCalls.set(1);
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT));
+        newClient(5000, 2);
+
+        Result result = new Result();
+        visionClient.analyzeScene(image(), result);
+        result.await();
+
+        assertNull(result.error);
+        assertEquals(1, server.getRequestCount());
+        assertTrue(visionClient.getStatsSummary().contains("retries=1"));
+    }
+
+    @Test
+    public void doesNotResubmitAReadThatMayHaveBeenSent() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        server.enqueue(new MockResponse().setResponseCode(202)
+                .setHeader("Operation-Location", server.url("/operations/1").toString()));
+        newClient(300, 2);
+
+        Result result = new Result();
+        visionClient.read(image(), result);
+        result.await();
+
+        assertEquals(VisionClient.VisionError.Kind.NETWORK, result.error.kind);
+        assertFalse(result.error.whilePolling);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void imagesWithoutAHashBypassTheResultCache() throws Exception {
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT));
+        server.enqueue(new MockResponse().setBody("{}"));
+        newClient(5000, 2, new CaptureResultCache(8, null, 0));
+
+        // Neither decodes, so neither has a perceptual hash to match on
+        Result first = new Result();
+        visionClient.analyzeScene(image(), first);
+        first.await();
+        Result second = new Result();
+        visionClient.analyzeScene(new CapturedImage(new byte[]{9, 8, 7, 6}, 640, 480, 0, 0), second);
+        second.await();
+
+        assertEquals(ANALYZE_RESULT, first.body);
+        assertEquals("{}", second.body);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelledCallDoesNotCallBack() throws Exception {
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT).setHeadersDelay(2, TimeUnit.SECONDS));
+        newClient(5000, 2);
+
+        Result result = new Result();
+        visionClient.analyzeScene(image(), result);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        visionClient.cancelAll();
+
+        assertFalse(result.done.await(3, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancellingAGroupLeavesOtherCallsRunning() throws Exception {
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT).setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody(ANALYZE_RESULT).setHeadersDelay(1, TimeUnit.SECONDS));
+        newClient(5000, 2);
+
+        // Both calls are in flight when the group is cancelled
+        VisionClient.CallGroup group = new VisionClient.CallGroup();
+        Result grouped = new Result();
+        visionClient.analyzeScene(image(), group, grouped);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        Result other = new Result();
+        visionClient.analyzeScene(image(), other);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        visionClient.cancel(group);
+        other.await();
+
+        // The group stays usable after a cancel
+        Result later = new Result();
+        server.enqueue(new MockResponse().setBody("{}"));
+        visionClient.analyzeScene(new CapturedImage(new byte[]{9, 8, 7, 6}, 640, 480, 0, 0), group, later);
+        later.await();
+
+        assertEquals(ANALYZE_RESULT, other.body);
+        assertEquals("{}", later.body);
+        assertFalse(grouped.done.await(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.exp3;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VisitedAreasTest {
+
+    private static final double HOME_LAT = 12.9352;
+    private static final double HOME_LON = 77.6245;
+    private static final double STATION_LAT = 12.9767;
+    private static final double STATION_LON = 77.5713;
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private VisitedAreas areas;
+
+    @Before
+    public void setUp() {
+        areas = new VisitedAreas(AzureConfig.PlacePrefetch.AREA_PRECISION, 3, 30 * DAY, null);
+    }
+
+    private static String cell(double latitude, double longitude) {
+        return Geohash.encode(latitude, longitude, AzureConfig.PlacePrefetch.AREA_PRECISION);
+    }
+
+    private void visit(double latitude, double longitude, int times, long firstMs) {
+        for (int i = 0; i < times; i++) {
+            areas.record(latitude, longitude, firstMs + i * DAY);
+        }
+    }
+
+    @Test
+    public void mostVisitedAreasComeFirst() {
+        visit(HOME_LAT, HOME_LON, 5, NOW);
+        visit(STATION_LAT, STATION_LON, 3, NOW);
+        // Passing through once is not a routine
+        visit(13.0, 77.6, 1, NOW);
+        assertEquals(Arrays.asList(cell(HOME_LAT, HOME_LON), cell(STATION_LAT, STATION_LON)),
+                areas.frequentCells(3, 10, NOW + 5 * DAY));
+        assertEquals(Collections.singletonList(cell(HOME_LAT, HOME_LON)), areas.frequentCells(3, 1, NOW + 5 * DAY));
+    }
+
+    @Test
+    public void nearbyFixesCountForTheSameArea() {
+        // A few meters of GPS jitter, well inside one cell
+        double[] center = Geohash.decodeCenter(cell(HOME_LAT, HOME_LON));
+        areas.record(center[0], center[1], NOW);
+        areas.record(center[0] + 0.0002, center[1] - 0.0002, NOW + DAY);
+        areas.record(center[0] - 0.0002, center[1] + 0.0002, NOW + 2 * DAY);
+        assertEquals(Collections.singletonList(cell(HOME_LAT, HOME_LON)), areas.frequentCells(3, 10, NOW + 2 * DAY));
+    }
+
+    @Test
+    public void repeatedQueriesOnOneDayAreOneVisit() {
+        areas.record(HOME_LAT, HOME_LON, NOW);
+        areas.record(HOME_LAT, HOME_LON, NOW + 60 * 1000L);
+        areas.record(HOME_LAT, HOME_LON, NOW + 2 * 60 * 1000L);
+        assertTrue(areas.frequentCells(2, 10, NOW + DAY).isEmpty());
+        areas.record(HOME_LAT, HOME_LON, NOW + DAY);
+        assertEquals(Collections.singletonList(cell(HOME_LAT, HOME_LON)), areas.frequentCells(2, 10, NOW + DAY));
+        assertTrue(VisitedAreas.isSameDay(NOW, NOW + 60 * 1000L));
+        assertFalse(VisitedAreas.isSameDay(NOW, NOW + DAY));
+    }
+
+    @Test
+    public void areasNotVisitedForAWhileAreDropped() {
+        visit(HOME_LAT, HOME_LON, 5, NOW);
+        assertTrue(areas.frequentCells(3, 10, NOW + 40 * DAY).isEmpty());
+    }
+
+    @Test
+    public void leastRecentlyVisitedAreaIsEvicted() {
+        visit(HOME_LAT, HOME_LON, 3, NOW);
+        visit(STATION_LAT, STATION_LON, 3, NOW);
+        visit(13.0, 77.6, 3, NOW);
+        visit(HOME_LAT, HOME_LON, 1, NOW + 3 * DAY);
+        visit(12.9, 77.5, 1, NOW + 3 * DAY);
+        List<String> frequent = areas.frequentCells(3, 10, NOW + 3 * DAY);
+        assertEquals(Arrays.asList(cell(HOME_LAT, HOME_LON), cell(13.0, 77.6)), frequent);
+    }
+
+    @Test
+    public void areaCenterDecodesBackToTheSameCell() {
+        String cell = cell(STATION_LAT, STATION_LON);
+        double[] center = Geohash.decodeCenter(cell);
+        assertEquals(cell, cell(center[0], center[1]));
+        // Every point of the cell is within a POI search radius of its center
+        double halfHeight = Geohash.cellHeightDegrees(AzureConfig.PlacePrefetch.AREA_PRECISION) / 2;
+        double halfWidth = Geohash.cellWidthDegrees(AzureConfig.PlacePrefetch.AREA_PRECISION) / 2;
+        double corner = Geohash.distanceMeters(center[0], center[1], center[0] + halfHeight, center[1] + halfWidth);
+        assertTrue(corner + " m", corner < AzureConfig.PlaceCache.POI_RADIUS_METERS);
+    }
+
+    @Test
+    public void visitsSurviveARestart() throws Exception {
+        File file = File.createTempFile("visited", ".json");
+        assertTrue(file.delete());
+        long now = System.currentTimeMillis();
+        VisitedAreas first = new VisitedAreas(AzureConfig.PlacePrefetch.AREA_PRECISION, 10, 30 * DAY, file);
+        for (int i = 2; i >= 0; i--) {
+            first.record(HOME_LAT, HOME_LON, now - i * DAY);
+        }
+        first.awaitDiskIdle();
+        first.shutdown();
+        assertTrue(file.exists());
+
+        VisitedAreas second = new VisitedAreas(AzureConfig.PlacePrefetch.AREA_PRECISION, 10, 30 * DAY, file);
+        second.awaitLoaded();
+        List<String> frequent = second.frequentCells(3, 10, now);
+        second.shutdown();
+        assertEquals(Collections.singletonList(cell(HOME_LAT, HOME_LON)), frequent);
+        file.delete();
+    }
+}
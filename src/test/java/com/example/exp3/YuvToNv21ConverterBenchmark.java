@@ -0,0 +1,74 @@
+package com.example.exp3;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM cost of {@link YuvToNv21Converter} on a 1280x960 frame with interleaved chroma, the
+ * layout most cameras deliver, against the conversion it replaced.
+ */
+@Category(Benchmark.class)
+public class YuvToNv21ConverterBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 960;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+
+    /** U and V views of one interleaved buffer, V first (NV21) or U first (NV12). */
+    private static ByteBuffer[] interleavedChroma(boolean vFirst) {
+        ByteBuffer chroma = ByteBuffer.allocateDirect(WIDTH * HEIGHT / 2);
+        for (int i = 0; i < chroma.capacity(); i++) {
+            chroma.put(i, (byte) (i * 7));
+        }
+        chroma.position(0).limit(chroma.capacity() - 1);
+        ByteBuffer first = chroma.slice();
+        chroma.position(1).limit(chroma.capacity());
+        ByteBuffer second = chroma.slice();
+        return vFirst ? new ByteBuffer[]{second, first} : new ByteBuffer[]{first, second};
+    }
+
+    /** The conversion before the converter: the planes back to back in a new array, strides ignored. */
+    private static byte[] concatenate(ByteBuffer y, ByteBuffer u, ByteBuffer v) {
+        int ySize = y.remaining();
+        int uSize = u.remaining();
+        int vSize = v.remaining();
+        byte[] nv21 = new byte[ySize + uSize + vSize];
+        y.get(nv21, 0, ySize);
+        v.get(nv21, ySize, vSize);
+        u.get(nv21, ySize + vSize, uSize);
+        y.rewind();
+        u.rewind();
+        v.rewind();
+        return nv21;
+    }
+
+    @Test
+    public void bulkCopyOfNv21ChromaBeatsTheStridedLoop() throws Exception {
+        ByteBuffer y = ByteBuffer.allocateDirect(WIDTH * HEIGHT);
+        ByteBuffer[] nv21 = interleavedChroma(true);
+        ByteBuffer[] nv12 = interleavedChroma(false);
+        YuvToNv21Converter converter = new YuvToNv21Converter();
+        assertTrue(YuvToNv21Converter.isNv21Interleaved(nv21[0], nv21[1], WIDTH, HEIGHT));
+        assertFalse(YuvToNv21Converter.isNv21Interleaved(nv12[0], nv12[1], WIDTH, HEIGHT));
+
+        Benchmark.Result concatenated = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> concatenate(y, nv21[0], nv21[1]).length);
+        // Same strides; the content check passes for NV21 and fails at the first byte for NV12
+        Benchmark.Result bulk = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> converter.convert(y, WIDTH, 1, nv21[0], WIDTH, 2, nv21[1], WIDTH, 2, WIDTH, HEIGHT)[0]);
+        Benchmark.Result strided = Benchmark.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> converter.convert(y, WIDTH, 1, nv12[0], WIDTH, 2, nv12[1], WIDTH, 2, WIDTH, HEIGHT)[0]);
+
+        String results = "concatenated " + concatenated + "; NV21 bulk " + bulk + "; NV12 strided " + strided;
+        // The check reads the chroma once more, and still wins over a get() per byte
+        assertTrue(results, bulk.nanosPerIteration < strided.nanosPerIteration);
+        // The output array is pooled; the old conversion allocated a frame per call
+        assertTrue(results, bulk.bytesPerIteration < 1024 && strided.bytesPerIteration < 1024);
+        assertTrue(results, concatenated.bytesPerIteration >= YuvToNv21Converter.nv21Size(WIDTH, HEIGHT));
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.exp3;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks YUV_420_888 -> NV21 conversion on synthetic planes with the stride
+ * layouts seen on real devices.
+ */
+public class YuvToNv21ConverterTest {
+
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 4;
+
+    private static byte lumaAt(int x, int y) {
+        return (byte) (y * WIDTH + x);
+    }
+
+    private static byte uAt(int x, int y) {
+        return (byte) (100 + y * 10 + x);
+    }
+
+    private static byte vAt(int x, int y) {
+        return (byte) (200 + y * 10 + x);
+    }
+
+    private static byte[] expectedNv21() {
+        byte[] expected = new byte[YuvToNv21Converter.nv21Size(WIDTH, HEIGHT)];
+        int pos = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                expected[pos++] = lumaAt(x, y);
+            }
+        }
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                expected[pos++] = vAt(x, y);
+                expected[pos++] = uAt(x, y);
+            }
+        }
+        return expected;
+    }
+
+    private static ByteBuffer lumaPlane(int rowStride) {
+        ByteBuffer plane = ByteBuffer.allocateDirect(rowStride * (HEIGHT - 1) + WIDTH);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                plane.put(y * rowStride + x, lumaAt(x, y));
+            }
+        }
+        return plane;
+    }
+
+    private static void assertNv21(byte[] actual) {
+        byte[] expected = expectedNv21();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+    }
+
+    @Test
+    public void planarTightlyPacked() {
+        int chromaWidth = WIDTH / 2;
+        ByteBuffer u = ByteBuffer.allocateDirect(chromaWidth * HEIGHT / 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(chromaWidth * HEIGHT / 2);
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < chromaWidth; x++) {
+                u.put(y * chromaWidth + x, uAt(x, y));
+                v.put(y * chromaWidth + x, vAt(x, y));
+            }
+        }
+
+        byte[] nv21 = new YuvToNv21Converter().convert(
+                lumaPlane(WIDTH), WIDTH, 1, u, chromaWidth, 1, v, chromaWidth, 1, WIDTH, HEIGHT);
+
+        assertNv21(nv21);
+    }
+
+    @Test
+    public void paddedRowsAreSkipped() {
+        int rowStride = WIDTH + 8;
+        int chromaRowStride = WIDTH / 2 + 4;
+        ByteBuffer u = ByteBuffer.allocateDirect(chromaRowStride * HEIGHT / 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(chromaRowStride * HEIGHT / 2);
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                u.put(y * chromaRowStride + x, uAt(x, y));
+                v.put(y * chromaRowStride + x, vAt(x, y));
+            }
+        }
+
+        byte[] nv21 = new YuvToNv21Converter().convert(
+                lumaPlane(rowStride), rowStride, 1, u, chromaRowStride, 1, v, chromaRowStride, 1, WIDTH, HEIGHT);
+
+        assertNv21(nv21);
+    }
+
+    @Test
+    public void interleavedNv21PlanesUseFastPath() {
+        // One VUVU... buffer; U and V planes are views offset by one byte
+        ByteBuffer vu = ByteBuffer.allocateDirect(WIDTH * HEIGHT / 2);
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                vu.put(y * WIDTH + 2 * x, vAt(x, y));
+                vu.put(y * WIDTH + 2 * x + 1, uAt(x, y));
+            }
+        }
+        vu.position(0).limit(vu.capacity() - 1);
+        ByteBuffer v = vu.slice();
+        vu.position(1).limit(vu.capacity());
+        ByteBuffer u = vu.slice();
+
+        assertTrue(YuvToNv21Converter.isNv21Interleaved(u, v, WIDTH, HEIGHT));
+        byte[] nv21 = new YuvToNv21Converter().convert(
+                lumaPlane(WIDTH), WIDTH, 1, u, WIDTH, 2, v, WIDTH, 2, WIDTH, HEIGHT);
+
+        assertNv21(nv21);
+        assertEquals(0, u.position());
+        assertEquals(0, v.position());
+    }
+
+    @Test
+    public void interleavedNv12PlanesAreReordered() {
+        // UVUV... layout: same pixel stride as NV21 but the wrong byte order
+        ByteBuffer uv = ByteBuffer.allocateDirect(WIDTH * HEIGHT / 2);
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                uv.put(y * WIDTH + 2 * x, uAt(x, y));
+                uv.put(y * WIDTH + 2 * x + 1, vAt(x, y));
+            }
+        }
+        uv.position(0).limit(uv.capacity() - 1);
+        ByteBuffer u = uv.slice();
+        uv.position(1).limit(uv.capacity());
+        ByteBuffer v = uv.slice();
+
+        assertFalse(YuvToNv21Converter.isNv21Interleaved(u, v, WIDTH, HEIGHT));
+        byte[] nv21 = new YuvToNv21Converter().convert(
+                lumaPlane(WIDTH), WIDTH, 1, u, WIDTH, 2, v, WIDTH, 2, WIDTH, HEIGHT);
+
+        assertNv21(nv21);
+    }
+
+    @Test
+    public void outputBufferIsReused() {
+        YuvToNv21Converter converter = new YuvToNv21Converter();
+        int chromaWidth = WIDTH / 2;
+        ByteBuffer u = ByteBuffer.allocateDirect(chromaWidth * HEIGHT / 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(chromaWidth * HEIGHT / 2);
+
+        byte[] first = converter.convert(lumaPlane(WIDTH), WIDTH, 1, u, chromaWidth, 1, v, chromaWidth, 1, WIDTH, HEIGHT);
+        byte[] second = converter.convert(lumaPlane(WIDTH), WIDTH, 1, u, chromaWidth, 1, v, chromaWidth, 1, WIDTH, HEIGHT);
+
+        assertSame(first, second);
+    }
+}